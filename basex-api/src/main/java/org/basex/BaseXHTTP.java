@@ -14,6 +14,7 @@ import org.basex.io.*;
 import org.basex.server.Log.*;
 import org.basex.util.*;
 import org.eclipse.jetty.server.*;
+import org.eclipse.jetty.server.handler.gzip.*;
 import org.eclipse.jetty.webapp.*;
 import org.eclipse.jetty.xml.*;
 
@@ -78,7 +79,16 @@ public final class BaseXHTTP extends CLI {
     locate(WEBCONF, webapp);
     final IOFile url = locate(JETTYCONF, webapp);
     jetty = (Server) new XmlConfiguration(url.inputStream()).configure();
-    jetty.setHandler(wac);
+    if(sopts.get(StaticOptions.GZIP)) {
+      // negotiate compression via Accept-Encoding and Content-Encoding headers
+      final GzipHandler gzip = new GzipHandler();
+      gzip.setIncludedMethods("GET", "POST", "PUT");
+      gzip.setInflateBufferSize(IO.BLOCKSIZE);
+      gzip.setHandler(wac);
+      jetty.setHandler(gzip);
+    } else {
+      jetty.setHandler(wac);
+    }
 
     ServerConnector sc = null;
     for(final Connector conn : jetty.getConnectors()) {
@@ -4,6 +4,7 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
 
 import org.basex.api.client.*;
@@ -31,6 +32,8 @@ public final class BaseXServer extends CLI implements Runnable {
   private volatile boolean stop;
   /** Server socket. */
   private ServerSocket socket;
+  /** Selector for idle client sessions. */
+  private ClientSelector selector;
   /** Start as service. */
   private boolean service;
   /** Daemon flag. */
@@ -98,7 +101,8 @@ public final class BaseXServer extends CLI implements Runnable {
     }
 
     try {
-      socket = new ServerSocket();
+      // create socket via channel to allow non-blocking handling of idle connections
+      socket = ServerSocketChannel.open().socket();
       socket.setReuseAddress(true);
       socket.bind(new InetSocketAddress(addr, port));
       stopFile = stopFile(getClass(), port);
@@ -114,6 +118,8 @@ public final class BaseXServer extends CLI implements Runnable {
       throw new BaseXException(ex.getLocalizedMessage());
     }
 
+    selector = new ClientSelector();
+    selector.start();
     new Thread(this).start();
 
     // show info that server has been started
@@ -149,7 +155,7 @@ public final class BaseXServer extends CLI implements Runnable {
             }
           }
           // create client listener, stop authentication after timeout
-          final ClientListener cl = new ClientListener(s, context, this);
+          final ClientListener cl = new ClientListener(s, context, this, selector);
           if(ka > 0) {
             cl.timeout.schedule(new TimerTask() {
               @Override
@@ -159,7 +165,7 @@ public final class BaseXServer extends CLI implements Runnable {
             }, ka);
             authorizing.add(cl);
           }
-          cl.start();
+          selector.execute(cl);
         }
       } catch(final SocketException ex) {
         Util.debug(ex);
@@ -202,6 +208,7 @@ public final class BaseXServer extends CLI implements Runnable {
       Util.errln(ex);
       context.log.writeServer(LogType.ERROR, Util.message(ex));
     }
+    selector.close();
 
     final int port = context.soptions.get(StaticOptions.SERVERPORT);
     final String stopX = Util.info(SRV_STOPPED_PORT_X, port);
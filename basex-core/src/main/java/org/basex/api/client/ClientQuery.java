@@ -13,6 +13,7 @@ import org.basex.query.value.node.*;
 import org.basex.query.value.type.*;
 import org.basex.server.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This class defines all methods for iteratively evaluating queries with the
@@ -27,6 +28,16 @@ public class ClientQuery extends Query {
   final ClientSession cs;
   /** Query id. */
   final String id;
+  /** Buffer for decoding streamed items. */
+  private final ByteList buffer = new ByteList();
+  /** Indicates if results are currently being streamed from the server. */
+  private boolean streaming;
+  /** Indicates if streamed results are compactly encoded. */
+  private boolean compact;
+  /** Error message of the streamed query ({@code null} if no error occurred). */
+  private String error;
+  /** Error message of the first failed pipelined request ({@code null} if no error occurred). */
+  private String failed;
 
   /**
    * Standard constructor.
@@ -39,26 +50,27 @@ public class ClientQuery extends Query {
       throws IOException {
     cs = session;
     out = output;
-    id = session.exec(ServerCmd.QUERY, query, null);
+    id = session.exec(ServerCmd.QUERY, query, null, null);
   }
 
   @Override
   public String info() throws IOException {
-    return cs.exec(ServerCmd.INFO, id, null);
+    return cs.exec(ServerCmd.INFO, id, null, this);
   }
 
   @Override
   public String options() throws IOException {
-    return cs.exec(ServerCmd.OPTIONS, id, null);
+    return cs.exec(ServerCmd.OPTIONS, id, null, this);
   }
 
   @Override
   public boolean updating() throws IOException {
-    return Boolean.parseBoolean(cs.exec(ServerCmd.UPDATING, id, null));
+    return Boolean.parseBoolean(cs.exec(ServerCmd.UPDATING, id, null, this));
   }
 
   @Override
   public void bind(final String name, final Object value, final String type) throws IOException {
+    discard();
     cache = null;
 
     final Object vl = value instanceof BXNode ? ((BXNode) value).getNode() : value;
@@ -90,7 +102,7 @@ public class ClientQuery extends Query {
 
     final ServerCmd cmd = name == null ? ServerCmd.CONTEXT : ServerCmd.BIND;
     final String n = name == null ? "" : name + '\0';
-    cs.exec(cmd, id + '\0' + n + v + '\0' + t, null);
+    cs.pipeline(cmd, id + '\0' + n + v + '\0' + t, this);
   }
 
   @Override
@@ -100,23 +112,138 @@ public class ClientQuery extends Query {
 
   @Override
   public String execute() throws IOException {
-    return cs.exec(ServerCmd.EXEC, id, out);
+    return cs.exec(ServerCmd.EXEC, id, out, this);
   }
 
   @Override
   public void close() throws IOException {
-    cs.exec(ServerCmd.CLOSE, id, null);
+    discard();
+    cs.pipeline(ServerCmd.CLOSE, id, this);
+  }
+
+  /**
+   * Returns {@code true} if more items are available.
+   * Items are read one by one from the server: the server serializes the results lazily, and
+   * the memory consumption on both sides stays constant, no matter how large the result is.
+   * If the client reads results slowly, the server will block as soon as the socket buffers
+   * are full.
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  @Override
+  public boolean more() throws IOException {
+    if(cache == null) {
+      cs.ready();
+      compact = cs.compact;
+      cs.sout.write((compact ? ServerCmd.COMPACT : ServerCmd.RESULTS).code);
+      cs.send(id);
+      cs.flush();
+      cache = new TokenList(1);
+      types = new ByteList(1);
+      pos = 0;
+      streaming = true;
+      cs.stream = this;
+      try {
+        check();
+      } catch(final BaseXException ex) {
+        discard();
+        throw ex;
+      }
+    }
+    if(pos < cache.size()) return true;
+
+    if(streaming) {
+      cache.reset();
+      types.reset();
+      pos = 0;
+      if(item()) return true;
+      finish();
+    }
+    cache = null;
+    types = null;
+    final String msg = error;
+    if(msg == null) return false;
+    error = null;
+    throw new BaseXException(msg);
+  }
+
+  /**
+   * Reads and caches all remaining results of a streamed query.
+   * Called before other requests are sent to the server.
+   * @throws IOException I/O exception
+   */
+  void drain() throws IOException {
+    while(item());
+    finish();
+  }
+
+  /**
+   * Skips all remaining results of a streamed query.
+   * @throws IOException I/O exception
+   */
+  private void discard() throws IOException {
+    if(!streaming) return;
+    while(item()) {
+      cache.reset();
+      types.reset();
+    }
+    finish();
+    cache = null;
+    types = null;
+    error = null;
+  }
+
+  /**
+   * Reads the next streamed item and adds it to the cache.
+   * @return {@code false} if the end of the result has been reached
+   * @throws IOException I/O exception
+   */
+  private boolean item() throws IOException {
+    return compact ? item(cs.sin, buffer) : item(cs.sin, false, buffer);
+  }
+
+  /**
+   * Finishes streaming and reads the status of the query.
+   * @throws IOException I/O exception
+   */
+  private void finish() throws IOException {
+    streaming = false;
+    cs.stream = null;
+    final BufferInput bi = cs.sin;
+    if(!ClientSession.ok(bi)) error = bi.readString();
+  }
+
+  /**
+   * Assigns the error of a pipelined request.
+   * @param msg error message
+   */
+  void failed(final String msg) {
+    if(failed == null) failed = msg;
+  }
+
+  /**
+   * Raises the error of the first failed pipelined request.
+   * @throws BaseXException database exception
+   */
+  void check() throws BaseXException {
+    final String msg = failed;
+    if(msg == null) return;
+    failed = null;
+    throw new BaseXException(msg);
   }
 
   @Override
   public void cache(final boolean full) throws IOException {
-    cs.sout.write((full ? ServerCmd.FULL : ServerCmd.RESULTS).code);
+    cs.ready();
+    final boolean cmp = !full && cs.compact;
+    cs.sout.write((full ? ServerCmd.FULL : cmp ? ServerCmd.COMPACT : ServerCmd.RESULTS).code);
     cs.send(id);
-    cs.sout.flush();
+    cs.flush();
 
-    @SuppressWarnings("resource")
-    final BufferInput bi = BufferInput.get(cs.sin);
-    cache(bi, full);
-    if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
+    final BufferInput bi = cs.sin;
+    cache(bi, full, cmp);
+    final String msg = ClientSession.ok(bi) ? null : bi.readString();
+    check();
+    if(msg != null) throw new BaseXException(msg);
   }
 }
@@ -2,9 +2,12 @@ package org.basex.api.client;
 
 import java.io.*;
 import java.net.*;
+import java.util.*;
+import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.Commands.Cmd;
+import org.basex.io.*;
 import org.basex.io.in.*;
 import org.basex.io.out.*;
 import org.basex.server.*;
@@ -24,18 +27,32 @@ import org.basex.util.*;
  * <li> {@link #close} closes the session by sending the {@link Cmd#EXIT}
  * command to the server.</li>
  * </ul>
+ * <p>Requests that do not return results (such as variable bindings) are pipelined:
+ * they are sent along with the next request, and their responses are read before the response
+ * of this request. Errors of pipelined requests are raised by the next request of the same query.
+ * If several documents are added or stored at once, all of them are sent before the
+ * responses are read.</p>
  *
  * @author BaseX Team 2005-19, BSD License
  * @author Christian Gruen
  */
 public class ClientSession extends Session {
+  /** Maximum number of pipelined requests with unread responses. */
+  private static final int WINDOW = 64;
+
   /** Server output (buffered). */
-  final PrintOutput sout;
-  /** Server input. */
-  final InputStream sin;
+  PrintOutput sout;
+  /** Server input (buffered). */
+  BufferInput sin;
 
   /** Socket reference. */
   private final Socket socket;
+  /** Queries of pipelined requests with unread responses. */
+  private final ArrayDeque<ClientQuery> pending = new ArrayDeque<>();
+  /** Query whose results are currently being streamed ({@code null} if none). */
+  ClientQuery stream;
+  /** Compact encoding of query results. */
+  boolean compact;
 
   /**
    * Constructor, specifying login data.
@@ -98,11 +115,10 @@ public class ClientSession extends Session {
     } catch(final IllegalArgumentException ex) {
       throw new BaseXException(ex);
     }
-    sin = socket.getInputStream();
+    sin = BufferInput.get(socket.getInputStream());
 
     // receive server response
-    final BufferInput bi = BufferInput.get(sin);
-    final String[] response = Strings.split(bi.readString(), ':');
+    final String[] response = Strings.split(sin.readString(), ':');
     final String code, nonce;
     if(response.length > 1) {
       // support for digest authentication
@@ -121,7 +137,7 @@ public class ClientSession extends Session {
     sout.flush();
 
     // receive success flag
-    if(!ok(bi)) throw new LoginException();
+    if(!ok(sin)) throw new LoginException();
   }
 
   @Override
@@ -144,6 +160,49 @@ public class ClientSession extends Session {
     send(ServerCmd.STORE, input, path);
   }
 
+  @Override
+  public void add(final Map<String, ? extends InputStream> inputs) throws IOException {
+    send(ServerCmd.ADD, inputs);
+  }
+
+  @Override
+  public void store(final Map<String, ? extends InputStream> inputs) throws IOException {
+    send(ServerCmd.STORE, inputs);
+  }
+
+  /**
+   * Enables or disables the compact encoding of query results.
+   * If enabled, items are sent in length-prefixed chunks instead of being escaped, which
+   * saves encoding and decoding time on both sides. The encoding is supported by BaseX 9.2
+   * and later; it is disabled by default.
+   * @param enable enable compact encoding
+   */
+  public void setCompact(final boolean enable) {
+    compact = enable;
+  }
+
+  /**
+   * Compresses all further communication with the server. Compression reduces the amount
+   * of transferred data, and it speeds up the exchange of large inputs and results
+   * if the network bandwidth is limited. It is supported by BaseX 9.2 and later.
+   * @throws IOException I/O exception
+   */
+  public void compress() throws IOException {
+    ready();
+    sout.write(ServerCmd.COMPRESS.code);
+    send("");
+    flush();
+    receive(sin, new ArrayOutput());
+    info = sin.readString();
+    final boolean ok = ok(sin);
+    if(ok) {
+      sout = PrintOutput.get(new BufferedOutputStream(
+          new DeflaterOutputStream(socket.getOutputStream(), true), IO.BLOCKSIZE));
+      sin = BufferInput.get(new InflateInput(socket.getInputStream()));
+    }
+    if(!ok) throw new BaseXException(info);
+  }
+
   @Override
   public ClientQuery query(final String query) throws IOException {
     return new ClientQuery(query, this, out);
@@ -151,13 +210,18 @@ public class ClientSession extends Session {
 
   @Override
   public synchronized void close() throws IOException {
-    socket.close();
+    try {
+      // read the responses of pipelined requests (e.g., of a closed query)
+      if(!pending.isEmpty()) flush();
+    } finally {
+      socket.close();
+    }
   }
 
   @Override
   protected void execute(final String command, final OutputStream output) throws IOException {
+    ready();
     send(command);
-    sout.flush();
     receive(output);
   }
 
@@ -175,8 +239,6 @@ public class ClientSession extends Session {
     final ServerOutput so = new ServerOutput(sout);
     for(int b; (b = input.read()) != -1;) so.write(b);
     sout.write(0);
-    sout.flush();
-    receive(null);
   }
 
   /**
@@ -184,12 +246,55 @@ public class ClientSession extends Session {
    * @param output output stream to send result to. If {@code null}, no result will be requested
    * @throws IOException I/O exception
    */
-  @SuppressWarnings("resource")
   private void receive(final OutputStream output) throws IOException {
-    final BufferInput bi = BufferInput.get(sin);
-    if(output != null) receive(bi, output);
-    info = bi.readString();
-    if(!ok(bi)) throw new BaseXException(info);
+    flush();
+    if(output != null) receive(sin, output);
+    info = sin.readString();
+    if(!ok(sin)) throw new BaseXException(info);
+  }
+
+  /**
+   * Sends several inputs with the specified command. A limited number of requests is sent
+   * before the responses of the server are read.
+   * @param command command
+   * @param inputs target paths and inputs
+   * @throws IOException I/O exception
+   */
+  private void send(final ServerCmd command, final Map<String, ? extends InputStream> inputs)
+      throws IOException {
+
+    ready();
+    flush();
+    String error = null;
+    int requests = 0;
+    for(final Map.Entry<String, ? extends InputStream> input : inputs.entrySet()) {
+      sout.write(command.code);
+      send(input.getKey());
+      send(input.getValue());
+      if(++requests == WINDOW) {
+        sout.flush();
+        error = receiveInfo(error);
+        requests--;
+      }
+    }
+    sout.flush();
+    while(requests-- > 0) error = receiveInfo(error);
+    if(error != null) throw new BaseXException(error);
+  }
+
+  /**
+   * Receives the info string of a sent input.
+   * @param error error message of a previously failed request ({@code null} if none)
+   * @return error message of the first failed request ({@code null} if none)
+   * @throws IOException I/O exception
+   */
+  private String receiveInfo(final String error) throws IOException {
+    final String string = sin.readString();
+    if(ok(sin)) {
+      info = string;
+      return error;
+    }
+    return error != null ? error : string;
   }
 
   /**
@@ -212,9 +317,11 @@ public class ClientSession extends Session {
   private void send(final ServerCmd command, final InputStream input, final String... args)
       throws IOException {
 
+    ready();
     sout.write(command.code);
     for(final String arg : args) send(arg);
     send(input);
+    receive(null);
   }
 
   /**
@@ -243,23 +350,75 @@ public class ClientSession extends Session {
    * @param command server command
    * @param arg argument
    * @param output target output stream
+   * @param query query whose pipelined errors will be raised first ({@code null} if none)
    * @return string
    * @throws IOException I/O exception
    */
-  @SuppressWarnings("resource")
-  String exec(final ServerCmd command, final String arg, final OutputStream output)
-      throws IOException {
+  String exec(final ServerCmd command, final String arg, final OutputStream output,
+      final ClientQuery query) throws IOException {
 
+    ready();
     final OutputStream o = output == null ? new ArrayOutput() : output;
     sout.write(command.code);
     send(arg);
-    sout.flush();
-    final BufferInput bi = BufferInput.get(sin);
-    receive(bi, o);
-    if(!ok(bi)) throw new BaseXException(bi.readString());
+    flush();
+    receive(sin, o);
+    final String msg = ok(sin) ? null : sin.readString();
+    if(query != null) query.check();
+    if(msg != null) throw new BaseXException(msg);
     return o.toString();
   }
 
+  /**
+   * Sends a command without waiting for the response.
+   * The response will be read when the next response is requested, and an error will be
+   * assigned to the specified query.
+   * @param command server command
+   * @param arg argument
+   * @param query query the request belongs to
+   * @throws IOException I/O exception
+   */
+  void pipeline(final ServerCmd command, final String arg, final ClientQuery query)
+      throws IOException {
+    ready();
+    sout.write(command.code);
+    send(arg);
+    pending.add(query);
+    // limit number of unread responses (the server may block otherwise)
+    if(pending.size() > WINDOW) {
+      sout.flush();
+      receiveResult();
+    }
+  }
+
+  /**
+   * Reads the remaining results of a streamed query.
+   * Must be called before a new request is sent to the server.
+   * @throws IOException I/O exception
+   */
+  void ready() throws IOException {
+    if(stream != null) stream.drain();
+  }
+
+  /**
+   * Flushes the output and reads the responses of all pipelined requests.
+   * @throws IOException I/O exception
+   */
+  void flush() throws IOException {
+    sout.flush();
+    while(!pending.isEmpty()) receiveResult();
+  }
+
+  /**
+   * Receives the response of a pipelined request.
+   * @throws IOException I/O exception
+   */
+  private void receiveResult() throws IOException {
+    final ClientQuery query = pending.poll();
+    receive(sin, new ArrayOutput());
+    if(!ok(sin)) query.failed(sin.readString());
+  }
+
   @Override
   public String toString() {
     return Prop.PROJECT_NAME + ":/" + socket.getLocalAddress() + ':' + socket.getPort();
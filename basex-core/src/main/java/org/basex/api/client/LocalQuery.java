@@ -45,14 +45,14 @@ public class LocalQuery extends Query {
   @Override
   public void cache(final boolean full) throws IOException {
     final ArrayOutput ao = new ArrayOutput();
-    ql.execute(ao, true, true, full);
-    cache(new ArrayInput(ao.finish()), full);
+    ql.execute(ao, true, true, full, !full);
+    cache(new ArrayInput(ao.finish()), full, !full);
   }
 
   @Override
   public String execute() throws IOException {
     final OutputStream os = out == null ? new ArrayOutput() : out;
-    ql.execute(os, false, false, false);
+    ql.execute(os, false, false, false, false);
     return out == null ? os.toString() : null;
   }
 
@@ -26,9 +26,9 @@ public abstract class Query implements Closeable {
   protected TokenList cache;
 
   /** Cached result types. */
-  private ByteList types;
+  ByteList types;
   /** Cache pointer. */
-  private int pos;
+  int pos;
 
   /**
    * Binds a value to an external variable.
@@ -113,27 +113,104 @@ public abstract class Query implements Closeable {
    * Caches the incoming input.
    * @param input input stream
    * @param full retrieve full type information
+   * @param compact compact encoding (length-prefixed chunks)
    * @throws IOException I/O exception
    */
-  void cache(final InputStream input, final boolean full) throws IOException {
+  void cache(final BufferInput input, final boolean full, final boolean compact)
+      throws IOException {
     cache = new TokenList();
     types = new ByteList();
     final ByteList bl = new ByteList();
-    for(int t; (t = input.read()) > 0;) {
-      // skip type information
-      if(full) {
-        final ID id = ID.get(t);
-        if(id != null && id.isExtended()) {
-          while(input.read() > 0);
-        }
+    while(compact ? item(input, bl) : item(input, full, bl));
+    pos = 0;
+  }
+
+  /**
+   * Reads the next compactly encoded item from the incoming input and adds it to the cache.
+   * @param input input stream
+   * @param bl byte list for merging chunks
+   * @return {@code false} if the end of the result has been reached
+   * @throws IOException I/O exception
+   */
+  final boolean item(final BufferInput input, final ByteList bl) throws IOException {
+    final int t = input.read();
+    if(t <= 0) return false;
+    // read length-prefixed chunks (no decoding required)
+    byte[] item = chunk(input);
+    if(item.length != 0) {
+      // large items are sent in several chunks
+      for(byte[] chunk; (chunk = chunk(input)).length != 0;) {
+        if(bl.isEmpty()) bl.add(item);
+        bl.add(chunk);
       }
-      // read and decode result
-      final ServerInput si = new ServerInput(input);
-      for(int b; (b = si.read()) != -1;) bl.add(b);
-      cache.add(bl.next());
-      types.add(t);
+      if(!bl.isEmpty()) item = bl.next();
     }
-    pos = 0;
+    cache.add(item);
+    types.add(t);
+    return true;
+  }
+
+  /**
+   * Reads the next chunk of a compactly encoded item.
+   * @param input input stream
+   * @return chunk (empty if the end of the item has been reached)
+   * @throws IOException I/O exception
+   */
+  private static byte[] chunk(final BufferInput input) throws IOException {
+    final int size = readNum(input);
+    if(size == 0) return Token.EMPTY;
+    final byte[] chunk = new byte[size];
+    input.readFully(chunk);
+    return chunk;
+  }
+
+  /**
+   * Reads a compressed integer value.
+   * The format is identical to the one of {@link org.basex.io.in.DataInput#readNum()}.
+   * @param input input stream
+   * @return read value
+   * @throws IOException I/O exception
+   */
+  private static int readNum(final BufferInput input) throws IOException {
+    final int v = input.read();
+    switch((v & 0xC0) >>> 6) {
+      case 0:
+        return v;
+      case 1:
+        return ((v & 0x3F) << 8) + input.read();
+      case 2:
+        return ((v & 0x3F) << 24) + (input.read() << 16) + (input.read() << 8) + input.read();
+      default:
+        return (input.read() << 24) + (input.read() << 16) + (input.read() << 8) + input.read();
+    }
+  }
+
+  /**
+   * Reads the next item from the incoming input and adds it to the cache.
+   * @param input input stream
+   * @param full retrieve full type information
+   * @param bl byte list for decoding the result
+   * @return {@code false} if the end of the result has been reached
+   * @throws IOException I/O exception
+   */
+  final boolean item(final InputStream input, final boolean full, final ByteList bl)
+      throws IOException {
+
+    final int t = input.read();
+    if(t <= 0) return false;
+    // skip type information
+    if(full) {
+      final ID id = ID.get(t);
+      if(id != null && id.isExtended()) {
+        while(input.read() > 0);
+      }
+    }
+    // read and decode result
+    final ServerInput si = new ServerInput(input);
+    for(int b; (b = si.read()) != -1;) bl.add(b);
+    cache.add(bl.next());
+    types.add(t);
+    return true;
   }
 
   /**
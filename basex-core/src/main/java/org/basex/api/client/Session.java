@@ -1,6 +1,7 @@
 package org.basex.api.client;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.io.out.*;
@@ -74,6 +75,25 @@ public abstract class Session implements Closeable {
    */
   public abstract void add(String path, InputStream input) throws IOException;
 
+  /**
+   * Adds several documents to the opened database.
+   * If adding a document fails, the remaining documents will be added, and the first error
+   * will be raised afterwards.
+   * @param inputs target paths and xml inputs
+   * @throws IOException I/O exception
+   */
+  public void add(final Map<String, ? extends InputStream> inputs) throws IOException {
+    BaseXException error = null;
+    for(final Map.Entry<String, ? extends InputStream> input : inputs.entrySet()) {
+      try {
+        add(input.getKey(), input.getValue());
+      } catch(final BaseXException ex) {
+        if(error == null) error = ex;
+      }
+    }
+    if(error != null) throw error;
+  }
+
   /**
    * Replaces a document in an open database.
    * @param path document(s) to replace
@@ -90,6 +110,25 @@ public abstract class Session implements Closeable {
    */
   public abstract void store(String path, InputStream input) throws IOException;
 
+  /**
+   * Stores several resources in the opened database.
+   * If storing a resource fails, the remaining resources will be stored, and the first error
+   * will be raised afterwards.
+   * @param inputs target paths and binary inputs
+   * @throws IOException I/O exception
+   */
+  public void store(final Map<String, ? extends InputStream> inputs) throws IOException {
+    BaseXException error = null;
+    for(final Map.Entry<String, ? extends InputStream> input : inputs.entrySet()) {
+      try {
+        store(input.getKey(), input.getValue());
+      } catch(final BaseXException ex) {
+        if(error == null) error = ex;
+      }
+    }
+    if(error != null) throw error;
+  }
+
   /**
    * Returns command info as a string, regardless of whether an output stream
    * was specified.
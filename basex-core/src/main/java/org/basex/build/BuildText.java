@@ -14,6 +14,8 @@ public interface BuildText {
   /** Builder error. */
   String LIMITRANGE = "%: Input is too large for a single database.";
   /** Builder error. */
+  String LIMITDICT = "%: Too many texts for dictionary encoding (limit: % bytes).";
+  /** Builder error. */
   String LIMITELEMS = "%: Too many distinct element names (limit: %).";
   /** Builder error. */
   String LIMITATTS = "%: Too many distinct attribute names (limit: %).";
@@ -253,6 +253,15 @@ public abstract class Builder extends Job {
    */
   protected abstract void setSize(int pre, int size) throws IOException;
 
+  /**
+   * Returns the statistics of the parent element of the text that is currently added.
+   * @return statistics, or {@code null} if the text has no parent element
+   */
+  final Stats parentStats() {
+    final int l = level;
+    return l > 1 ? elemNames.stats(elemStack.get(l - 1)) : null;
+  }
+
   // PRIVATE METHODS ==============================================================================
 
   /**
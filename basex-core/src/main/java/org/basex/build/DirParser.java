@@ -4,12 +4,15 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
 import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.core.MainOptions.MainParser;
 import org.basex.core.cmd.*;
+import org.basex.core.jobs.*;
+import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.*;
 import org.basex.util.*;
@@ -25,6 +28,8 @@ import org.basex.util.list.*;
 public final class DirParser extends Parser {
   /** Number of skipped files to log. */
   private static final int SKIPLOG = 10;
+  /** Maximum size of documents that will be parsed in parallel. */
+  private static final long MAXPARALLEL = 1 << 24;
   /** Skipped files. */
   private final StringList skipped = new StringList();
   /** File pattern. */
@@ -46,6 +51,8 @@ public final class DirParser extends Parser {
   private final boolean rawParser;
   /** Archive name. */
   private final boolean archiveName;
+  /** Number of parser threads. */
+  private final int threads;
   /** Database path for storing binary files. */
   private IOFile rawPath;
 
@@ -55,6 +62,10 @@ public final class DirParser extends Parser {
   private Parser parser;
   /** Resource counter. */
   private int resources;
+  /** Thread pool for parsing documents (only assigned if documents are parsed in parallel). */
+  private ExecutorService pool;
+  /** Queue with documents that are being parsed (only assigned if a thread pool exists). */
+  private ArrayDeque<Doc> docs;
 
   /**
    * Constructor.
@@ -78,6 +89,7 @@ public final class DirParser extends Parser {
     addRaw = options.get(MainOptions.ADDRAW);
     dtd = options.get(MainOptions.DTD);
     rawParser = options.get(MainOptions.PARSER) == MainParser.RAW;
+    threads = Math.max(1, options.get(MainOptions.PARSETHREADS));
     filter = !isDir && !source.isArchive() ? null :
       Pattern.compile(IOFile.regex(options.get(MainOptions.CREATEFILTER)));
   }
@@ -97,7 +109,21 @@ public final class DirParser extends Parser {
   public void parse(final Builder build) throws IOException {
     build.meta.inputsize = 0;
     build.meta.original = original;
-    parse(build, source);
+    if(threads == 1) {
+      parse(build, source);
+    } else {
+      // documents are parsed by a thread pool and added by the current thread, in input order
+      pool = Executors.newFixedThreadPool(threads);
+      docs = new ArrayDeque<>();
+      try {
+        parse(build, source);
+        add(build, 0);
+      } finally {
+        pool.shutdownNow();
+        pool = null;
+        docs = null;
+      }
+    }
   }
 
   /**
@@ -195,8 +221,13 @@ public final class DirParser extends Parser {
       if(rawPath != null) {
         Store.store(source.inputSource(), new IOFile(rawPath, targ + name));
       }
+    } else if(include && pool != null && source.length() != -1 &&
+        source.length() <= MAXPARALLEL) {
+      // parse input in parallel
+      submit(builder, targ);
     } else if(include) {
-      // store input as XML
+      // add pending documents, store input as XML
+      if(pool != null) add(builder, 0);
       boolean ok = true;
       IO in = source;
       if(skipCorrupt) {
@@ -232,6 +263,106 @@ public final class DirParser extends Parser {
     if(Prop.debug && (++resources & 0x3FF) == 0) Util.err(";");
   }
 
+  /**
+   * Submits the current source to the thread pool. If the maximum number of pending documents
+   * is exceeded, the oldest documents will be added to the database.
+   * @param builder builder instance
+   * @param targ target path
+   * @throws IOException I/O exception
+   */
+  private void submit(final Builder builder, final String targ) throws IOException {
+    // files will be read by the parser threads, streams must be consumed in advance
+    IO in = source;
+    if(!(in instanceof IOFile || in instanceof IOContent)) {
+      in = new IOContent(source.read());
+      in.name(source.name());
+    }
+    final IO input = in;
+    docs.add(new Doc(source.path(), pool.submit(() ->
+      MemBuilder.build("", Parser.singleParser(input, options, targ)))));
+    add(builder, threads << 1);
+  }
+
+  /**
+   * Adds parsed documents to the database until the number of pending documents does not
+   * exceed the specified limit.
+   * @param builder builder instance
+   * @param max maximum number of pending documents
+   * @throws IOException I/O exception
+   */
+  private void add(final Builder builder, final int max) throws IOException {
+    while(docs.size() > max) {
+      final Doc doc = docs.poll();
+      final MemData data;
+      try {
+        data = doc.data.get();
+      } catch(final InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new JobException(INTERRUPTED);
+      } catch(final ExecutionException ex) {
+        final Throwable th = ex.getCause();
+        if(th instanceof IOException) {
+          if(!skipCorrupt) throw (IOException) th;
+          Util.debug(th);
+          skipped.add(doc.path);
+          continue;
+        }
+        if(th instanceof RuntimeException) throw (RuntimeException) th;
+        if(th instanceof Error) throw (Error) th;
+        throw new IOException(th);
+      }
+      add(builder, data);
+    }
+  }
+
+  /**
+   * Sends the nodes of a parsed document to the builder.
+   * @param builder builder instance
+   * @param data parsed document
+   * @throws IOException I/O exception
+   */
+  private static void add(final Builder builder, final Data data) throws IOException {
+    // stack with the pre values that follow the currently opened nodes
+    final IntList ends = new IntList();
+    final int size = data.meta.size;
+    for(int pre = 0;;) {
+      while(!ends.isEmpty() && ends.peek() <= pre) {
+        ends.pop();
+        if(ends.isEmpty()) builder.closeDoc();
+        else builder.closeElem();
+      }
+      if(pre == size) break;
+
+      final int kind = data.kind(pre);
+      if(kind == Data.DOC) {
+        builder.openDoc(data.text(pre, true));
+        ends.push(pre + data.size(pre, kind));
+        pre++;
+      } else if(kind == Data.ELEM) {
+        final int as = data.attSize(pre, kind), sz = data.size(pre, kind);
+        final Atts atts = new Atts();
+        for(int a = pre + 1; a < pre + as; a++) {
+          atts.add(data.name(a, Data.ATTR), data.text(a, false));
+        }
+        final byte[] name = data.name(pre, kind);
+        final Atts nsp = data.namespaces(pre);
+        if(sz == as) {
+          builder.emptyElem(name, atts, nsp);
+        } else {
+          builder.openElem(name, atts, nsp);
+          ends.push(pre + sz);
+        }
+        pre += as;
+      } else {
+        final byte[] value = data.text(pre, true);
+        if(kind == Data.TEXT) builder.text(value);
+        else if(kind == Data.COMM) builder.comment(value);
+        else builder.pi(value);
+        pre++;
+      }
+    }
+  }
+
   @Override
   public String info() {
     final TokenBuilder tb = new TokenBuilder();
@@ -265,4 +396,22 @@ public final class DirParser extends Parser {
   public void close() throws IOException {
     if(parser != null) parser.close();
   }
+
+  /** Document that is parsed in parallel. */
+  private static final class Doc {
+    /** Original path. */
+    private final String path;
+    /** Parsed document. */
+    private final Future<MemData> data;
+
+    /**
+     * Constructor.
+     * @param path original path
+     * @param data parsed document
+     */
+    private Doc(final String path, final Future<MemData> data) {
+      this.path = path;
+      this.data = data;
+    }
+  }
 }
@@ -1,5 +1,6 @@
 package org.basex.build;
 
+import static org.basex.build.BuildText.*;
 import static org.basex.data.DataText.*;
 
 import java.io.*;
@@ -8,12 +9,14 @@ import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.data.*;
 import org.basex.index.name.*;
+import org.basex.index.stats.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
+import org.basex.util.hash.*;
 
 /**
  * This class creates a database instance on disk.
@@ -31,6 +34,10 @@ public final class DiskBuilder extends Builder {
   private DataOutput vout;
   /** Output stream for temporary values. */
   private DataOutput sout;
+  /** Dictionary of texts ({@code null} if texts are not dictionary-encoded). */
+  private TokenSet xdict;
+  /** Dictionary of attribute values ({@code null} if values are not dictionary-encoded). */
+  private TokenSet vdict;
 
   /** Static options. */
   private final StaticOptions sopts;
@@ -71,9 +78,18 @@ public final class DiskBuilder extends Builder {
     try {
       try {
         tout = new DataOutput(new TableOutput(meta, DATATBL));
-        xout = new DataOutput(meta.dbfile(DATATXT), bs);
-        vout = new DataOutput(meta.dbfile(DATAATV), bs);
+        if(meta.compresstexts) {
+          xout = new DataOutput(new CompressedOutput(meta, DATATXT));
+          vout = new DataOutput(new CompressedOutput(meta, DATAATV));
+        } else {
+          xout = new DataOutput(meta.dbfile(DATATXT), bs);
+          vout = new DataOutput(meta.dbfile(DATAATV), bs);
+        }
         sout = new DataOutput(meta.dbfile(DATATMP), bs);
+        if(meta.dictionary) {
+          xdict = new TokenSet();
+          vdict = new TokenSet();
+        }
         parse();
       } finally {
         if(tout != null) tout.close();
@@ -93,6 +109,12 @@ public final class DiskBuilder extends Builder {
       }
       meta.dbfile(DATATMP).delete();
 
+      // write dictionaries
+      if(meta.dictionary) {
+        write(xdict, DATATXT);
+        write(vdict, DATAATV);
+      }
+
       // return database instance
       return new DiskData(meta, elemNames, attrNames, path, nspaces);
 
@@ -111,7 +133,7 @@ public final class DiskBuilder extends Builder {
   protected void addDoc(final byte[] value) throws IOException {
     tout.write1(Data.DOC);
     tout.write2(0);
-    tout.write5(textRef(value, true));
+    tout.write5(textRef(value, true, null));
     tout.write4(0);
     tout.write4(meta.size++);
   }
@@ -136,7 +158,7 @@ public final class DiskBuilder extends Builder {
 
     tout.write1(dist << 3 | Data.ATTR);
     tout.write2(nameId);
-    tout.write5(textRef(value, false));
+    tout.write5(textRef(value, false, attrNames.stats(nameId)));
     tout.write4(uriId);
     tout.write4(meta.size++);
   }
@@ -145,7 +167,7 @@ public final class DiskBuilder extends Builder {
   protected void addText(final byte[] value, final int dist, final byte kind) throws IOException {
     tout.write1(kind);
     tout.write2(0);
-    tout.write5(textRef(value, true));
+    tout.write5(textRef(value, true, kind == Data.TEXT ? parentStats() : null));
     tout.write4(dist);
     tout.write4(meta.size++);
   }
@@ -157,22 +179,47 @@ public final class DiskBuilder extends Builder {
     ++ssize;
   }
 
+  /**
+   * Writes a dictionary to disk.
+   * @param dict dictionary
+   * @param fn file prefix
+   * @throws IOException I/O exception
+   */
+  private void write(final TokenSet dict, final String fn) throws IOException {
+    try(DataOutput out = new DataOutput(meta.dbfile(fn + DATADICT))) {
+      dict.write(out);
+    }
+  }
+
   /**
    * Calculates the text offset and writes the text value.
    * @param value value to be inlined
    * @param text text/attribute flag
-   * @return inline value or text position
+   * @param stats statistics of the element or attribute name (can be {@code null})
+   * @return inline value, dictionary id or text position
    * @throws IOException I/O exception
    */
-  private long textRef(final byte[] value, final boolean text) throws IOException {
+  private long textRef(final byte[] value, final boolean text, final Stats stats)
+      throws IOException {
+
     // try to inline value
     final long inlined = Inline.pack(value);
     if(inlined != 0) return inlined;
 
+    // add value to dictionary if the name has a limited number of distinct values so far
+    final TokenSet dict = text ? xdict : vdict;
+    if(dict != null && stats != null && stats.values != null) {
+      final int id = dict.size() < DiskData.MAXDICT ? dict.put(value) : dict.id(value);
+      if(id != 0) return DiskData.DICT | id;
+    }
+
     // store text to heap file
     final byte[] packed = Compress.pack(value);
     final DataOutput store = text ? xout : vout;
     final long offset = store.size();
+    // offsets of dictionary-encoded databases must not overlap with the dictionary flag
+    if(dict != null && offset >= DiskData.DICT)
+      throw new BuildException(LIMITDICT, parser.detailedInfo(), DiskData.DICT);
     store.writeToken(packed);
     return packed != value ? Compress.COMPRESS | offset : offset;
   }
@@ -2,6 +2,7 @@ package org.basex.build;
 
 import java.io.*;
 
+import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.util.*;
@@ -18,6 +19,8 @@ public final class MemBuilder extends Builder {
   private MemData data;
   /** Debug counter. */
   private int c;
+  /** Store database outside the Java heap (if enabled via {@link MainOptions#OFFHEAP}). */
+  private boolean offheap;
 
   /**
    * Constructor.
@@ -59,6 +62,16 @@ public final class MemBuilder extends Builder {
     return new MemBuilder(name, parser).build();
   }
 
+  /**
+   * Stores the database outside the Java heap if this is enabled via {@link MainOptions#OFFHEAP}.
+   * Should only be called for databases that will be opened.
+   * @return self reference
+   */
+  public MemBuilder offheap() {
+    offheap = true;
+    return this;
+  }
+
   @Override
   public MemData build() throws IOException {
     dataClip();
@@ -81,7 +94,7 @@ public final class MemBuilder extends Builder {
    * Initializes the builder.
    */
   public void init() {
-    data = new MemData(path, nspaces, parser.options);
+    data = new MemData(path, nspaces, parser.options, offheap);
     meta = data.meta;
     meta.name = dbName;
     elemNames = data.elemNames;
@@ -5,6 +5,7 @@ import org.basex.core.locks.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.io.random.*;
+import org.basex.query.*;
 import org.basex.query.util.pkg.*;
 import org.basex.query.value.seq.*;
 import org.basex.server.*;
@@ -43,6 +44,10 @@ public final class Context {
   public final Log log;
   /** Locking. */
   public final Locking locking;
+  /** Compiled query plans. */
+  public final QueryCache queries;
+  /** Cached query results. */
+  public final ResultCache results;
 
   /** Client info. Set to {@code null} in standalone/server mode. */
   private final ClientInfo client;
@@ -103,6 +108,8 @@ public final class Context {
     databases = ctx.databases;
     blocker = ctx.blocker;
     locking = ctx.locking;
+    queries = ctx.queries;
+    results = ctx.results;
     users = ctx.users;
     repo = ctx.repo;
     log = ctx.log;
@@ -121,6 +128,8 @@ public final class Context {
     blocker = new ClientBlocker();
     databases = new Databases(soptions);
     locking = new Locking(soptions);
+    queries = new QueryCache(soptions);
+    results = new ResultCache(soptions);
     users = new Users(soptions);
     repo = new EXPathRepo(soptions);
     log = new Log(soptions);
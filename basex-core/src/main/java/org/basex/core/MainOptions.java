@@ -20,8 +20,18 @@ public final class MainOptions extends Options {
 
   /** Flag for creating a main memory database. */
   public static final BooleanOption MAINMEM = new BooleanOption("MAINMEM", false);
+  /** Flag for storing main-memory databases outside the Java heap. */
+  public static final BooleanOption OFFHEAP = new BooleanOption("OFFHEAP", false);
   /** Flag for closing a database after creating it. */
   public static final BooleanOption CREATEONLY = new BooleanOption("CREATEONLY", false);
+  /** Flag for memory-mapped read access to the table and texts of opened databases. */
+  public static final BooleanOption MMAP = new BooleanOption("MMAP", false);
+  /** Flag for storing texts and attribute values of new databases in compressed chunks. */
+  public static final BooleanOption COMPRESSTEXTS = new BooleanOption("COMPRESSTEXTS", false);
+  /** Flag for dictionary-encoding texts and attribute values of new databases. */
+  public static final BooleanOption DICTIONARY = new BooleanOption("DICTIONARY", false);
+  /** Flag for storing numeric texts and attribute values of new databases in a column. */
+  public static final BooleanOption NUMCOLUMN = new BooleanOption("NUMCOLUMN", false);
 
   // Parsing
 
@@ -35,6 +45,8 @@ public final class MainOptions extends Options {
   public static final BooleanOption SKIPCORRUPT = new BooleanOption("SKIPCORRUPT", false);
   /** Flag for adding remaining files as raw files. */
   public static final BooleanOption ADDRAW = new BooleanOption("ADDRAW", false);
+  /** Number of threads for parsing the documents of directories and archives. */
+  public static final NumberOption PARSETHREADS = new NumberOption("PARSETHREADS", 1);
   /** Define CSV parser options. */
   public static final OptionsOption<CsvParserOptions> CSVPARSER =
       new OptionsOption<>("CSVPARSER", new CsvParserOptions());
@@ -97,10 +109,14 @@ public final class MainOptions extends Options {
   public static final NumberOption MAXCATS = new NumberOption("MAXCATS", 100);
   /** Flag for activating incremental index structures. */
   public static final BooleanOption UPDINDEX = new BooleanOption("UPDINDEX", false);
+  /** Flag for storing incremental value indexes in B+-trees (different storage format). */
+  public static final BooleanOption TREEINDEX = new BooleanOption("TREEINDEX", false);
   /** Flag for automatic index updates. */
   public static final BooleanOption AUTOOPTIMIZE = new BooleanOption("AUTOOPTIMIZE", false);
   /** Index split size. */
   public static final NumberOption SPLITSIZE = new NumberOption("SPLITSIZE", 0);
+  /** Maximum number of threads for building index structures. */
+  public static final NumberOption INDEXTHREADS = new NumberOption("INDEXTHREADS", 1);
 
   // Full-Text
 
@@ -143,6 +159,14 @@ public final class MainOptions extends Options {
   public static final BooleanOption ENFORCEINDEX = new BooleanOption("ENFORCEINDEX", false);
   /** Deep node copies. */
   public static final BooleanOption COPYNODE = new BooleanOption("COPYNODE", true);
+  /** Maximum number of tuples that are sorted in main memory (0: no limit). */
+  public static final NumberOption SORTBUFFER = new NumberOption("SORTBUFFER", 0);
+  /** Maximum number of groups that are kept in main memory (0: no limit). */
+  public static final NumberOption GROUPBUFFER = new NumberOption("GROUPBUFFER", 0);
+  /** Maximum number of joined items that are kept in main memory (0: no limit). */
+  public static final NumberOption JOINBUFFER = new NumberOption("JOINBUFFER", 0);
+  /** Number of threads for evaluating path steps and FLWOR clauses (1: sequential). */
+  public static final NumberOption QUERYTHREADS = new NumberOption("QUERYTHREADS", 1);
 
   // Serialize
 
@@ -0,0 +1,208 @@
+package org.basex.core;
+
+import java.util.*;
+
+import org.basex.core.locks.*;
+import org.basex.data.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Cache for the serialized results of read-only queries.
+ *
+ * A result is identified by the query, its parameters, and the names and timestamps of all
+ * databases that are locked by the query. Results are discarded if they exceed the specified
+ * lifetime, if the cache exceeds the maximum size (least recently used results will be discarded
+ * first), or if a job is finished that may have updated a referenced database. All results are
+ * discarded if users or permissions may have been changed.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class ResultCache {
+  /** Cached results (in the order in which they were accessed). */
+  private final LinkedHashMap<String, Result> results = new LinkedHashMap<>(16, 0.75f, true);
+  /** Static options. */
+  private final StaticOptions sopts;
+  /** Size of all cached results. */
+  private long size;
+  /** Number of returned results. */
+  private long hits;
+  /** Number of results that had to be computed. */
+  private long misses;
+
+  /**
+   * Constructor.
+   * @param sopts static options
+   */
+  public ResultCache(final StaticOptions sopts) {
+    this.sopts = sopts;
+  }
+
+  /**
+   * Returns the maximum size of all cached results.
+   * @return maximum size (in bytes; {@code 0} if results will not be cached)
+   */
+  public long max() {
+    return Math.max(0, sopts.get(StaticOptions.RESULTCACHE)) * 1024L;
+  }
+
+  /**
+   * Returns the key of a query result.
+   * @param query query, including all parameters that influence the result
+   * @param reads read locks of the query
+   * @return key, or {@code null} if the result cannot be cached
+   */
+  public String key(final String query, final LockList reads) {
+    if(reads.global()) return null;
+    final StringBuilder sb = new StringBuilder(query);
+    for(final String name : reads) {
+      if(name.startsWith(Locking.JAVA_PREFIX)) return null;
+      sb.append('\0').append(name);
+      if(!name.startsWith(Locking.PREFIX) && !name.startsWith(Locking.QUERY_PREFIX)) {
+        // include timestamp of the database meta data (updated by other processes)
+        sb.append('\0').append(MetaData.file(sopts.dbPath(name), DataText.DATAINF).timeStamp());
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns a cached result.
+   * @param key key
+   * @return result, or {@code null} if no valid result is cached
+   */
+  public synchronized Result get(final String key) {
+    Result result = results.get(key);
+    if(result != null && System.currentTimeMillis() - result.time >
+      sopts.get(StaticOptions.RESULTTIMEOUT) * 1000L) {
+      remove(key);
+      result = null;
+    }
+    if(result != null) hits++;
+    else misses++;
+    return result;
+  }
+
+  /**
+   * Caches a result.
+   * @param key key
+   * @param output serialized result
+   * @param items number of items
+   * @param reads read locks of the query
+   */
+  public synchronized void put(final String key, final byte[] output, final long items,
+      final LockList reads) {
+
+    final long max = max();
+    if(output.length > max) return;
+    remove(key);
+    final StringList names = new StringList(reads.size());
+    for(final String name : reads) names.add(name);
+    results.put(key, new Result(output, items, names.finish()));
+    size += output.length;
+
+    // discard least recently used results
+    final Iterator<Result> iter = results.values().iterator();
+    while(size > max) {
+      size -= iter.next().output.length;
+      iter.remove();
+    }
+  }
+
+  /**
+   * Discards all results that may have been changed by a job with the specified write locks.
+   * All results are discarded if the job may have changed users or permissions.
+   * @param writes write locks
+   */
+  public synchronized void invalidate(final LockList writes) {
+    if(results.isEmpty() || !writes.locking()) return;
+    if(writes.global() || writes.contains(Locking.USER)) {
+      clear();
+      return;
+    }
+    final Iterator<Result> iter = results.values().iterator();
+    while(iter.hasNext()) {
+      final Result result = iter.next();
+      for(final String name : result.names) {
+        if(writes.contains(name)) {
+          size -= result.output.length;
+          iter.remove();
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes all cached results.
+   */
+  public synchronized void clear() {
+    results.clear();
+    size = 0;
+  }
+
+  /**
+   * Returns the number of cached results.
+   * @return number of results
+   */
+  public synchronized int size() {
+    return results.size();
+  }
+
+  /**
+   * Returns the number of returned results.
+   * @return number of hits
+   */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of results that had to be computed.
+   * @return number of misses
+   */
+  public synchronized long misses() {
+    return misses;
+  }
+
+  /**
+   * Removes a result.
+   * @param key key
+   */
+  private void remove(final String key) {
+    final Result result = results.remove(key);
+    if(result != null) size -= result.output.length;
+  }
+
+  @Override
+  public String toString() {
+    return Util.info(Text.RESULT_CACHE_X_X_X, size(), hits(), misses());
+  }
+
+  /**
+   * Cached result.
+   */
+  public static final class Result {
+    /** Serialized result. */
+    public final byte[] output;
+    /** Number of items. */
+    public final long items;
+    /** Names of the locked databases. */
+    private final String[] names;
+    /** Creation time. */
+    private final long time = System.currentTimeMillis();
+
+    /**
+     * Constructor.
+     * @param output serialized result
+     * @param items number of items
+     * @param names names of the locked databases
+     */
+    private Result(final byte[] output, final long items, final String[] names) {
+      this.output = output;
+      this.items = items;
+      this.names = names;
+    }
+  }
+}
@@ -181,6 +181,8 @@ public interface Text {
   String HASH = "Hash";
   /** Index info. */
   String SORTED_LIST = "Sorted List";
+  /** Index info. */
+  String BTREE = "B+-Tree";
 
   /** Query hits. */
   String ITEM = "Item";
@@ -856,6 +858,14 @@ public interface Text {
   String GLOBAL_OPTIONS = lang("global_options");
   /** "Local Options". */
   String LOCAL_OPTIONS = lang("local_options");
+  /** "Query Cache". */
+  String QUERY_CACHE = lang("query_cache");
+  /** "% plans, % hits, % misses". */
+  String QUERY_CACHE_X_X_X = lang("query_cache_%_%_%");
+  /** "Result Cache". */
+  String RESULT_CACHE = lang("result_cache");
+  /** "% results, % hits, % misses". */
+  String RESULT_CACHE_X_X_X = lang("result_cache_%_%_%");
 
   /** "(chopped)". */
   String CHOPPED = '(' + lang("chopped") + ") ";
@@ -11,12 +11,15 @@ import org.basex.core.*;
 import org.basex.core.jobs.*;
 import org.basex.core.parse.*;
 import org.basex.core.users.*;
+import org.basex.data.*;
 import org.basex.io.out.*;
 import org.basex.io.serial.*;
 import org.basex.query.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
 import org.basex.util.*;
 
 /**
@@ -90,12 +93,25 @@ public abstract class AQuery extends Command {
             }
           }
 
+          // return cached result
+          final String key = runs == 1 && run && serial ? cacheKey(query) : null;
+          if(key != null) {
+            final ResultCache.Result cached = context.results.get(key);
+            if(cached != null) {
+              out.write(cached.output);
+              hits = cached.items;
+              info.serializing += perf.ns();
+              continue;
+            }
+          }
+
           qp.compile();
           info.compiling += perf.ns();
           if(compplan) queryPlan();
           if(!run) continue;
 
-          final PrintOutput po = r == 0 && serial ? out : new NullOutput();
+          final CacheOutput co = key != null ? new CacheOutput(out, context.results.max()) : null;
+          final PrintOutput po = co != null ? co : r == 0 && serial ? out : new NullOutput();
           try(Serializer ser = qp.getSerializer(po)) {
             if(maxResults >= 0) {
               result = qp.cache(maxResults);
@@ -113,6 +129,11 @@ public abstract class AQuery extends Command {
               }
             }
           }
+          // cache result if it does not depend on the current time or on external documents
+          if(co != null && qp.qc.dateTime == null && !qp.qc.resources.external()) {
+            final byte[] cached = co.cached();
+            if(cached != null) context.results.put(key, cached, hits, jc().locks.reads);
+          }
           qp.close();
           info.serializing += perf.ns();
         }
@@ -138,6 +159,38 @@ public abstract class AQuery extends Command {
     return extError(error);
   }
 
+  /**
+   * Returns the key for caching the result of the query.
+   * @param query query string
+   * @return key, or {@code null} if the result will not be cached
+   * @throws QueryException query exception
+   */
+  private String cacheKey(final String query) throws QueryException {
+    final ResultCache results = context.results;
+    if(results.max() == 0 || maxResults >= 0 || options.get(MainOptions.XMLPLAN) ||
+        !props.isEmpty() || qp.updating || qp.qc.root == null ||
+        qp.qc.root.expr.has(Flag.NDT)) return null;
+    // skip main-memory databases and subsets of the currently opened database
+    final Data data = context.data();
+    if(data != null && (data.inMemory() || !context.current().all())) return null;
+
+    final StringBuilder sb = new StringBuilder(query.trim()).append('\0').append(uri).
+        append('\0').append(context.user().name()).append('\0').append(options);
+    for(final Entry<String, Object> entry : vars.entrySet()) {
+      sb.append('\0').append(entry.getKey()).append('=');
+      final Object value = entry.getValue();
+      if(value instanceof String[]) {
+        for(final String string : (String[]) value) sb.append(string).append('\0');
+      } else if(value instanceof Item && !(value instanceof ANode || value instanceof FItem)) {
+        final Item item = (Item) value;
+        sb.append(item.type).append('\0').append(Token.string(item.string(null)));
+      } else {
+        return null;
+      }
+    }
+    return results.key(sb.toString(), jc().locks.reads);
+  }
+
   /**
    * Checks if the query is updating.
    * @param ctx database context
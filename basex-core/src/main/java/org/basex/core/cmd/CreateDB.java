@@ -86,7 +86,7 @@ public final class CreateDB extends ACreate {
       if(options.get(MainOptions.MAINMEM)) {
         // create main memory instance
         try {
-          data = pushJob(new MemBuilder(name, parser)).build();
+          data = pushJob(new MemBuilder(name, parser).offheap()).build();
         } finally {
           popJob();
         }
@@ -173,7 +173,7 @@ public final class CreateDB extends ACreate {
     // create main-memory or disk-based database instance
     final Data data;
     if(mem) {
-      data = MemBuilder.build(name, parser);
+      data = new MemBuilder(name, parser).offheap().build();
     } else {
       // database is currently locked by another job
       if(ctx.pinned(name)) throw new BaseXException(DB_PINNED_X, name);
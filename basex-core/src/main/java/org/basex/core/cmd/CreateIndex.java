@@ -3,6 +3,8 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.*;
@@ -10,6 +12,7 @@ import org.basex.core.parse.Commands.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.util.*;
 import org.basex.util.ft.*;
 
 /**
@@ -60,6 +63,7 @@ public final class CreateIndex extends ACreate {
     }
     data.meta.names(type, options);
     data.meta.splitsize = options.get(MainOptions.SPLITSIZE);
+    data.meta.indexthreads = options.get(MainOptions.INDEXTHREADS);
 
     return update(data, new Code() {
       @Override
@@ -82,10 +86,44 @@ public final class CreateIndex extends ACreate {
    * @throws IOException I/O exception
    */
   static void create(final Data data, final ACreate cmd) throws IOException {
-    if(data.meta.createtext) create(IndexType.TEXT, data, cmd);
-    if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, cmd);
-    if(data.meta.createtoken) create(IndexType.TOKEN, data, cmd);
-    if(data.meta.createft) create(IndexType.FULLTEXT, data, cmd);
+    final ArrayList<Callable<Void>> tasks = new ArrayList<>();
+    if(data.meta.createtext) tasks.add(task(IndexType.TEXT, data, cmd));
+    if(data.meta.createattr) tasks.add(task(IndexType.ATTRIBUTE, data, cmd));
+    if(data.meta.createtoken) tasks.add(task(IndexType.TOKEN, data, cmd));
+    if(data.meta.createft) tasks.add(task(IndexType.FULLTEXT, data, cmd));
+    run(tasks, data);
+  }
+
+  /**
+   * Returns a task for building the specified index.
+   * @param type index to be built
+   * @param data data reference
+   * @param cmd calling command
+   * @return task
+   */
+  private static Callable<Void> task(final IndexType type, final Data data, final ACreate cmd) {
+    return () -> {
+      create(type, data, cmd);
+      return null;
+    };
+  }
+
+  /**
+   * Runs index tasks. If more than one thread is allowed for building indexes
+   * (see {@link MainOptions#INDEXTHREADS}), independent index structures will be built in
+   * parallel, and the remaining threads will be distributed among the index builders.
+   * @param tasks index tasks
+   * @param data data reference
+   * @throws IOException I/O exception
+   */
+  static void run(final ArrayList<Callable<Void>> tasks, final Data data) throws IOException {
+    final int threads = data.meta.indexthreads, nt = Math.max(1, Math.min(threads, tasks.size()));
+    data.meta.indexthreads = Math.max(1, threads / nt);
+    try {
+      Parallel.run(nt, tasks);
+    } finally {
+      data.meta.indexthreads = threads;
+    }
   }
 
   /**
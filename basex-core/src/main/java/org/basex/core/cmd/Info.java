@@ -46,6 +46,8 @@ public final class Info extends AInfo {
 
     final User user = context.user();
     info(tb, USED_MEM, Performance.getMemory());
+    if(context.queries.enabled()) info(tb, QUERY_CACHE, context.queries);
+    if(context.results.max() > 0) info(tb, RESULT_CACHE, context.results);
 
     if(user.has(Perm.ADMIN)) {
       final StaticOptions sopts = context.soptions;
@@ -3,6 +3,8 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.users.*;
@@ -47,6 +49,7 @@ public final class Optimize extends ACreate {
           data.meta.autooptimize = autooptimize;
           data.meta.dirty = true;
         }
+        data.meta.indexthreads = options.get(MainOptions.INDEXTHREADS);
         optimize(data, Optimize.this);
         return info(DB_OPTIMIZED_X, meta.name, jc().performance);
       }
@@ -154,13 +157,35 @@ public final class Optimize extends ACreate {
       }
       meta.ndocs = n;
       meta.uptodate = true;
+      data.createNumerics();
     }
 
     // rebuild value indexes
-    optimize(IndexType.TEXT, data, meta.createtext, enforceText, cmd);
-    optimize(IndexType.ATTRIBUTE, data, meta.createattr, enforceAttr, cmd);
-    optimize(IndexType.TOKEN, data, meta.createtoken, enforceToken, cmd);
-    optimize(IndexType.FULLTEXT, data, meta.createft, enforceFt, cmd);
+    final ArrayList<Callable<Void>> tasks = new ArrayList<>();
+    tasks.add(task(IndexType.TEXT, data, meta.createtext, enforceText, cmd));
+    tasks.add(task(IndexType.ATTRIBUTE, data, meta.createattr, enforceAttr, cmd));
+    tasks.add(task(IndexType.TOKEN, data, meta.createtoken, enforceToken, cmd));
+    tasks.add(task(IndexType.FULLTEXT, data, meta.createft, enforceFt, cmd));
+    tasks.removeIf(Objects::isNull);
+    CreateIndex.run(tasks, data);
+  }
+
+  /**
+   * Returns a task for creating or deleting the specified index if the old and new state is
+   * different.
+   * @param type index type
+   * @param data data reference
+   * @param create new flag
+   * @param enforce enforce operation
+   * @param cmd calling command instance
+   * @return task, or {@code null} if nothing needs to be done
+   */
+  private static Callable<Void> task(final IndexType type, final Data data, final boolean create,
+      final boolean enforce, final Optimize cmd) {
+    return create == data.meta.index(type) && !enforce ? null : () -> {
+      optimize(type, data, create, enforce, cmd);
+      return null;
+    };
   }
 
   /**
@@ -108,6 +108,11 @@ public final class OptimizeAll extends ACreate {
     // adopt original index options
     options.set(MainOptions.MAXLEN, ometa.maxlen);
     options.set(MainOptions.MAXCATS, ometa.maxcats);
+    options.set(MainOptions.TREEINDEX, ometa.treeindex);
+    // adopt original storage options
+    options.set(MainOptions.COMPRESSTEXTS, ometa.compresstexts);
+    options.set(MainOptions.DICTIONARY, ometa.dictionary);
+    options.set(MainOptions.NUMCOLUMN, ometa.numcolumn);
 
     // build database and index structures
     final StaticOptions sopts = context.soptions;
@@ -56,6 +56,8 @@ public abstract class Job {
    */
   public final void unregister(final Context ctx) {
     stopTimeout();
+    ctx.results.invalidate(jc.locks.writes);
+    ctx.queries.invalidate(jc.locks.writes);
     ctx.locking.release();
     ctx.jobs.unregister(this);
   }
@@ -87,6 +89,14 @@ public abstract class Job {
     children.remove(children.size() - 1);
   }
 
+  /**
+   * Removes the specified child job. Must be called if child jobs are run in parallel.
+   * @param job child job
+   */
+  public final void popJob(final Job job) {
+    children.remove(job);
+  }
+
   /**
    * Stops a job or sub job.
    */
@@ -128,7 +138,7 @@ public abstract class Job {
    * @param js new state
    */
   public void state(final JobState js) {
-    for(final Job job : children) job.state(js);
+    for(final Job job : children.toArray(new Job[0])) job.state(js);
     state = js;
     if(js == JobState.STOPPED || js == JobState.TIMEOUT || js == JobState.MEMORY) {
       stopped = true;
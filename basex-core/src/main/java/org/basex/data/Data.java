@@ -156,6 +156,12 @@ public abstract class Data {
    */
   public abstract void dropIndex(IndexType type) throws BaseXException;
 
+  /**
+   * Creates the column with numeric texts and attribute values if it has been enabled.
+   * @throws IOException I/O exception
+   */
+  public abstract void createNumerics() throws IOException;
+
   /**
    * Starts an update operation: writes a file to disk to indicate that an update is going on,
    * and exclusively locks the table file.
@@ -467,6 +473,15 @@ public abstract class Data {
    */
   public abstract byte[] text(int pre, boolean text);
 
+  /**
+   * Returns the dictionary id of a text (text, comment, pi, document) or attribute value.
+   * Two values with the same text/attribute flag are equal if their ids are equal.
+   * @param pre pre value
+   * @param text text/attribute flag
+   * @return id, or {@code 0} if the value is not dictionary-encoded
+   */
+  public abstract int dictId(int pre, boolean text);
+
   /**
    * Returns a text (text, comment, pi, document) or attribute value as integer value.
    * {@link Long#MIN_VALUE} is returned if the input is no valid integer.
@@ -32,8 +32,16 @@ public interface DataText {
   String DBNDOCS = "NDOCS";
   /** Automatic index update. */
   String DBUPDIDX = "UPDINDEX";
+  /** Incremental value indexes stored in B+-trees. */
+  String DBTREEIDX = "TREEINDEX";
   /** Automatic optimization. */
   String DBAUTOOPT = "AUTOOPT";
+  /** Compressed texts and attribute values. */
+  String DBCMPTXT = "CMPTXT";
+  /** Dictionary-encoded texts and attribute values. */
+  String DBDICT = "DICT";
+  /** Column with numeric texts and attribute values. */
+  String DBNUMCOL = "NUMCOL";
   /** Text index. */
   String DBTXTIDX = "TXTINDEX";
   /** Attribute index. */
@@ -114,6 +122,12 @@ public interface DataText {
   String DATAPTH = "pth";
   /** Database - ID-PRE mapping. */
   String DATAIDP = "idp";
+  /** Database - Suffix for chunk indexes of compressed files. */
+  String DATACHK = "chk";
+  /** Database - Suffix for dictionaries of texts and attribute values. */
+  String DATADICT = "dict";
+  /** Database - Numeric column. */
+  String DATANUM = "num";
 
   // XML SERIALIZATION ============================================================================
 
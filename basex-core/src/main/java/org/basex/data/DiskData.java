@@ -1,5 +1,6 @@
 package org.basex.data;
 
+import static org.basex.build.BuildText.*;
 import static org.basex.core.Text.*;
 import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
@@ -19,6 +20,7 @@ import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
+import org.basex.util.hash.*;
 
 /**
  * This class stores and organizes the database table and the index structures
@@ -32,6 +34,7 @@ import org.basex.util.*;
  * Bit 0 [INLINED]    indicates if value is inlined in table or stored externally
  * Bit 1 [COMPRESSED] indicates if value is compressed
  * Bit 2 [STRING]     indicates if an inlined value is a string
+ *       [DICT]       indicates if an external value is stored in the dictionary
  *
  * - INLINED (text is inlined):
  *   - STRING (value is string):
@@ -42,9 +45,13 @@ import org.basex.util.*;
  *   - NOT STRING (value is integer):
  *     - return 32 bits of remaining 4 bytes as integer
  * - NOT INLINED (text is stored externally):
- *   - 38 remaining bits contain text reference
- *   - COMPRESSED: unpack and return external text
- *   - NOT COMPRESSED: return external text unchanged
+ *   - DICT (only checked if database is dictionary-encoded):
+ *     - 37 remaining bits contain id of text in dictionary
+ *   - NOT DICT:
+ *     - 38 remaining bits contain text reference
+ *       (37 bits if database is dictionary-encoded)
+ *     - COMPRESSED: unpack and return external text
+ *     - NOT COMPRESSED: return external text unchanged
  * </pre>
  *
  * @author BaseX Team 2005-19, BSD License
@@ -52,10 +59,21 @@ import org.basex.util.*;
  * @author Tim Petrowsky
  */
 public final class DiskData extends Data {
+  /** Dictionary flag of text references. */
+  public static final long DICT = 0x2000000000L;
+  /** Maximum number of dictionary entries. */
+  public static final int MAXDICT = 1 << 20;
+
   /** Texts access file. */
   private DataAccess texts;
   /** Values access file. */
   private DataAccess values;
+  /** Dictionary of texts ({@code null} if texts are not dictionary-encoded). */
+  private TokenSet textDict;
+  /** Dictionary of attribute values ({@code null} if values are not dictionary-encoded). */
+  private TokenSet valueDict;
+  /** Numeric column ({@code null} if not available). */
+  private NumericColumn numerics;
 
   /**
    * Default constructor, called from {@link Open#open}.
@@ -84,9 +102,15 @@ public final class DiskData extends Data {
     init();
     if(meta.updindex) {
       idmap = new IdPreMap(meta.dbfile(DATAIDP));
-      if(meta.textindex) textIndex = new UpdatableDiskValues(this, IndexType.TEXT);
-      if(meta.attrindex) attrIndex = new UpdatableDiskValues(this, IndexType.ATTRIBUTE);
-      if(meta.tokenindex) tokenIndex = new UpdatableDiskValues(this, IndexType.TOKEN);
+      if(meta.treeindex) {
+        if(meta.textindex) textIndex = new BTreeValues(this, IndexType.TEXT);
+        if(meta.attrindex) attrIndex = new BTreeValues(this, IndexType.ATTRIBUTE);
+        if(meta.tokenindex) tokenIndex = new BTreeValues(this, IndexType.TOKEN);
+      } else {
+        if(meta.textindex) textIndex = new UpdatableDiskValues(this, IndexType.TEXT);
+        if(meta.attrindex) attrIndex = new UpdatableDiskValues(this, IndexType.ATTRIBUTE);
+        if(meta.tokenindex) tokenIndex = new UpdatableDiskValues(this, IndexType.TOKEN);
+      }
     } else {
       if(meta.textindex) textIndex = new DiskValues(this, IndexType.TEXT);
       if(meta.attrindex) attrIndex = new DiskValues(this, IndexType.ATTRIBUTE);
@@ -115,6 +139,7 @@ public final class DiskData extends Data {
     paths.data(this);
     if(meta.updindex) idmap = new IdPreMap(meta.lastid);
     init();
+    createNumerics();
   }
 
   /**
@@ -123,8 +148,37 @@ public final class DiskData extends Data {
    */
   private void init() throws IOException {
     table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbfile(DATATXT));
-    values = new DataAccess(meta.dbfile(DATAATV));
+    if(meta.compresstexts) {
+      texts = new DataAccess(meta.dbfile(DATATXT), meta.dbfile(DATATXT + DATACHK));
+      values = new DataAccess(meta.dbfile(DATAATV), meta.dbfile(DATAATV + DATACHK));
+    } else {
+      texts = new DataAccess(meta.dbfile(DATATXT));
+      values = new DataAccess(meta.dbfile(DATAATV));
+    }
+    if(meta.mmap) {
+      texts.map();
+      values.map();
+    }
+    if(meta.dictionary) {
+      textDict = dictionary(DATATXT);
+      valueDict = dictionary(DATAATV);
+    }
+    // numeric column will be ignored if statistics are outdated
+    if(meta.numcolumn && meta.uptodate && meta.dbfile(DATANUM).exists()) {
+      numerics = new NumericColumn(meta);
+    }
+  }
+
+  /**
+   * Reads a dictionary.
+   * @param fn file prefix
+   * @return dictionary
+   * @throws IOException I/O exception
+   */
+  private TokenSet dictionary(final String fn) throws IOException {
+    try(DataInput in = new DataInput(meta.dbfile(fn + DATADICT))) {
+      return new TokenSet(in);
+    }
   }
 
   /**
@@ -161,6 +215,7 @@ public final class DiskData extends Data {
       table.close();
       texts.close();
       values.close();
+      if(numerics != null) numerics.close();
       close(IndexType.TEXT);
       close(IndexType.ATTRIBUTE);
       close(IndexType.TOKEN);
@@ -183,6 +238,17 @@ public final class DiskData extends Data {
     }
   }
 
+  @Override
+  public synchronized void createNumerics() throws IOException {
+    if(!meta.numcolumn) return;
+    if(numerics != null) {
+      numerics.close();
+      numerics = null;
+    }
+    NumericColumn.create(this);
+    numerics = new NumericColumn(meta);
+  }
+
   @Override
   public void createIndex(final IndexType type, final Command cmd) throws IOException {
     // close existing index
@@ -197,7 +263,7 @@ public final class DiskData extends Data {
       if(cmd != null) cmd.pushJob(ib);
       set(type, ib.build());
     } finally {
-      if(cmd != null) cmd.popJob();
+      if(cmd != null) cmd.popJob(ib);
     }
   }
 
@@ -213,7 +279,7 @@ public final class DiskData extends Data {
    * @param type index to be opened
    * @param index index instance
    */
-  private void set(final IndexType type, final ValueIndex index) {
+  private synchronized void set(final IndexType type, final ValueIndex index) {
     meta.dirty = true;
     switch(type) {
       case TEXT:      textIndex = index; break;
@@ -281,6 +347,12 @@ public final class DiskData extends Data {
 
   @Override
   public double textDbl(final int pre, final boolean text) {
+    // return pre-parsed value from numeric column
+    final NumericColumn nc = numerics;
+    if(nc != null && meta.uptodate) {
+      final double d = nc.get(pre);
+      if(!Double.isNaN(d)) return d;
+    }
     final long value = textRef(pre);
     return Inline.inlined(value) ? Inline.unpackDouble(value) : toDouble(txt(value, text));
   }
@@ -289,11 +361,13 @@ public final class DiskData extends Data {
   public int textLen(final int pre, final boolean text) {
     final long value = textRef(pre);
     if(Inline.inlined(value)) return Inline.unpackLength(value);
+    if(dict(value)) return txt(value, text).length;
 
     final DataAccess da = text ? texts : values;
-    final int l = da.readNum(value & Compress.COMPRESS - 1);
+    final long off = value & Compress.COMPRESS - 1;
+    final int l = da.readNum(off);
     // if text is compressed, read number of compressed bytes
-    return Compress.compressed(value) ? da.readNum() : l;
+    return Compress.compressed(value) ? da.readNum(off + Num.length(l)) : l;
   }
 
   /**
@@ -303,23 +377,70 @@ public final class DiskData extends Data {
    * @return text
    */
   private byte[] txt(final long offset, final boolean text) {
+    if(dict(offset)) return (text ? textDict : valueDict).key((int) (offset & DICT - 1));
     final byte[] txt = (text ? texts : values).readToken(offset & Compress.COMPRESS - 1);
     return Compress.compressed(offset) ? Compress.unpack(txt) : txt;
   }
 
+  @Override
+  public int dictId(final int pre, final boolean text) {
+    final long value = textRef(pre);
+    return dict(value) ? (int) (value & DICT - 1) : 0;
+  }
+
   @Override
   public boolean inMemory() {
     return false;
   }
 
+  /**
+   * Checks if the specified text reference points to the dictionary.
+   * @param value text reference
+   * @return result of check
+   */
+  private boolean dict(final long value) {
+    return meta.dictionary && !Inline.inlined(value) && (value & DICT) != 0;
+  }
+
+  /**
+   * Checks if the specified text reference points to the heap file.
+   * @param value text reference
+   * @return result of check
+   */
+  private boolean heap(final long value) {
+    return !Inline.inlined(value) && !dict(value);
+  }
+
+  /**
+   * Checks if the specified heap file offset can be referenced.
+   * @param offset offset
+   * @return offset
+   */
+  private long heapOffset(final long offset) {
+    // offsets of dictionary-encoded databases must not overlap with the dictionary flag
+    if(meta.dictionary && offset >= DICT) throw Util.notExpected(LIMITDICT, meta.name, DICT);
+    return offset;
+  }
+
+  /**
+   * Returns a reference to a dictionary entry.
+   * @param value value to be found
+   * @param text text/attribute flag
+   * @return reference, or {@code -1} if the value is not found in the dictionary
+   */
+  private long dictRef(final byte[] value, final boolean text) {
+    final int id = meta.dictionary ? (text ? textDict : valueDict).id(value) : 0;
+    return id != 0 ? DICT | id : -1;
+  }
+
   // UPDATE OPERATIONS ============================================================================
 
   @Override
   protected void delete(final int pre, final boolean text) {
     // old entry (offset or value)
     final long old = textRef(pre);
-    // if old text was not inlined, fill unused space in text file with zero bytes
-    if(!Inline.inlined(old)) (text ? texts : values).free(old & Compress.COMPRESS - 1, 0);
+    // if old text was stored in heap file, fill unused space with zero bytes
+    if(heap(old)) (text ? texts : values).free(old & Compress.COMPRESS - 1, 0);
   }
 
   @Override
@@ -332,12 +453,13 @@ public final class DiskData extends Data {
     // old entry (offset or value)
     final long oldRef = textRef(pre);
 
-    // check if new entry can be inlined
-    final long v = Inline.packInt(value);
+    // check if new entry can be inlined, or if it is found in the dictionary
+    long v = Inline.packInt(value);
+    if(v == -1) v = dictRef(value, kind != ATTR);
     if(v != -1) {
-      // invalidate old entry if it was not inlined
-      if(!Inline.inlined(oldRef)) store.free(oldRef & Compress.COMPRESS - 1, 0);
-      // inline integer value
+      // invalidate old entry if it was stored in heap file
+      if(heap(oldRef)) store.free(oldRef & Compress.COMPRESS - 1, 0);
+      // inline integer value or assign dictionary reference
       textRef(pre, v);
     } else {
       // otherwise, try to compress new value
@@ -345,8 +467,8 @@ public final class DiskData extends Data {
 
       // choose inserting position
       final long off;
-      if(Inline.inlined(oldRef)) {
-        // old entry was inlined: append new entry to heap file
+      if(!heap(oldRef)) {
+        // old entry was inlined or stored in dictionary: append new entry to heap file
         off = store.length();
       } else {
         // otherwise, compute inserting position and invalidate old entry
@@ -354,7 +476,7 @@ public final class DiskData extends Data {
         off = store.free(oldRef & Compress.COMPRESS - 1, vl + Num.length(vl));
       }
 
-      store.writeToken(off, val);
+      store.writeToken(heapOffset(off), val);
       textRef(pre, val == value ? off : off | Compress.COMPRESS);
     }
 
@@ -368,10 +490,14 @@ public final class DiskData extends Data {
     final long inlined = Inline.pack(value);
     if(inlined != 0) return inlined;
 
+    // reference existing dictionary entry
+    final long ref = dictRef(value, text);
+    if(ref != -1) return ref;
+
     // store text in heap file
     final byte[] packed = Compress.pack(value);
     final DataAccess store = text ? texts : values;
-    final long offset = store.length();
+    final long offset = heapOffset(store.length());
     store.writeToken(offset, packed);
     return packed != value ? Compress.COMPRESS | offset : offset;
   }
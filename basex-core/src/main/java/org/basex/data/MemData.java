@@ -26,6 +26,8 @@ public final class MemData extends Data {
   private final TokenSet texts;
   /** Attribute Values. */
   private final TokenSet values;
+  /** Indicates if the table and values are stored outside the Java heap. */
+  private final boolean offheap;
 
   /**
    * Constructor.
@@ -34,7 +36,20 @@ public final class MemData extends Data {
    * @param opts database options
    */
   public MemData(final PathIndex paths, final Namespaces nspaces, final MainOptions opts) {
-    this(null, null, paths, nspaces, null, null, opts);
+    this(paths, nspaces, opts, false);
+  }
+
+  /**
+   * Constructor.
+   * @param paths path index
+   * @param nspaces namespaces
+   * @param opts database options
+   * @param offheap store table and values outside the Java heap if this is requested by
+   *   {@link MainOptions#OFFHEAP} (only relevant for databases that will be opened)
+   */
+  public MemData(final PathIndex paths, final Namespaces nspaces, final MainOptions opts,
+      final boolean offheap) {
+    this(null, null, paths, nspaces, null, null, opts, offheap);
   }
 
   /**
@@ -42,7 +57,7 @@ public final class MemData extends Data {
    * @param opts database options
    */
   public MemData(final MainOptions opts) {
-    this(null, null, opts);
+    this(null, null, opts, false);
   }
 
   /**
@@ -54,22 +69,40 @@ public final class MemData extends Data {
    * @param texts texts
    * @param values values
    * @param options database options
+   * @param direct store table and values outside the Java heap if requested by the options
    */
   private MemData(final Names elemNames, final Names attrNames, final PathIndex paths,
       final Namespaces nspaces, final TokenSet texts, final TokenSet values,
-      final MainOptions options) {
+      final MainOptions options, final boolean direct) {
 
     super(new MetaData(options));
-    table = new TableMemAccess(meta);
+    offheap = direct && options.get(MainOptions.OFFHEAP);
+    table = offheap ? new TableDirectAccess(meta) : new TableMemAccess(meta);
     if(meta.updindex) idmap = new IdPreMap(meta.lastid);
-    this.texts = texts == null ? new TokenSet() : texts;
-    this.values = values == null ? new TokenSet() : values;
+    this.texts = texts != null ? texts : offheap ? new DirectTokenSet() : new TokenSet();
+    this.values = values != null ? values : offheap ? new DirectTokenSet() : new TokenSet();
     this.elemNames = elemNames == null ? new Names(meta) : elemNames;
     this.attrNames = attrNames == null ? new Names(meta) : attrNames;
     this.paths = paths == null ? new PathIndex(this) : paths;
     this.nspaces = nspaces == null ? new Namespaces() : nspaces;
   }
 
+  @Override
+  public synchronized void close() {
+    if(closed) return;
+    super.close();
+    // release memory that has been allocated outside the Java heap
+    if(offheap) {
+      try {
+        table.close();
+      } catch(final IOException ex) {
+        Util.stack(ex);
+      }
+      texts.clear();
+      values.clear();
+    }
+  }
+
   @Override
   public void createIndex(final IndexType type, final Command cmd) throws IOException {
     final IndexBuilder ib;
@@ -85,7 +118,7 @@ public final class MemData extends Data {
       if(cmd != null) cmd.pushJob(ib);
       set(type, ib.build());
     } finally {
-      if(cmd != null) cmd.popJob();
+      if(cmd != null) cmd.popJob(ib);
     }
   }
 
@@ -101,12 +134,15 @@ public final class MemData extends Data {
     set(type, null);
   }
 
+  @Override
+  public void createNumerics() { }
+
   /**
    * Assigns the specified index.
    * @param type index to be opened
    * @param index index instance
    */
-  private void set(final IndexType type, final ValueIndex index) {
+  private synchronized void set(final IndexType type, final ValueIndex index) {
     meta.dirty = true;
     switch(type) {
       case TEXT:      textIndex = index; break;
@@ -146,6 +182,11 @@ public final class MemData extends Data {
     return text(pre, text).length;
   }
 
+  @Override
+  public int dictId(final int pre, final boolean text) {
+    return 0;
+  }
+
   @Override
   public boolean inMemory() {
     return true;
@@ -50,8 +50,16 @@ public final class MetaData {
 
   /** Flag for activated automatic index update. */
   public boolean updindex;
+  /** Flag for incremental value indexes that are stored in B+-trees. */
+  public boolean treeindex;
   /** Flag for automatic index updating. */
   public boolean autooptimize;
+  /** Flag for texts and attribute values that are stored in compressed chunks. */
+  public boolean compresstexts;
+  /** Flag for dictionary-encoded texts and attribute values. */
+  public boolean dictionary;
+  /** Flag for a column with numeric texts and attribute values. */
+  public boolean numcolumn;
 
   /** Indicates if the text index is to be recreated. */
   public boolean createtext;
@@ -89,6 +97,11 @@ public final class MetaData {
   /** Language of full-text search index. */
   public Language language;
 
+  /** Flag for memory-mapped read access (not stored on disk). */
+  public boolean mmap;
+  /** Maximum number of threads for building indexes (not stored on disk). */
+  public int indexthreads;
+
   /** Indicates if index structures are out-dated. */
   public boolean uptodate = true;
   /** Indicate if the database may be corrupt. */
@@ -129,7 +142,11 @@ public final class MetaData {
     stemming = options.get(MainOptions.STEMMING);
     casesens = options.get(MainOptions.CASESENS);
     updindex = options.get(MainOptions.UPDINDEX);
+    treeindex = options.get(MainOptions.TREEINDEX);
     autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
+    compresstexts = options.get(MainOptions.COMPRESSTEXTS);
+    dictionary = options.get(MainOptions.DICTIONARY);
+    numcolumn = options.get(MainOptions.NUMCOLUMN);
     maxlen = options.get(MainOptions.MAXLEN);
     maxcats = options.get(MainOptions.MAXCATS);
     stopwords = options.get(MainOptions.STOPWORDS);
@@ -139,6 +156,8 @@ public final class MetaData {
     tokeninclude = options.get(MainOptions.TOKENINCLUDE);
     ftinclude = options.get(MainOptions.FTINCLUDE);
     splitsize = options.get(MainOptions.SPLITSIZE);
+    mmap = options.get(MainOptions.MMAP);
+    indexthreads = options.get(MainOptions.INDEXTHREADS);
   }
 
   // STATIC METHODS ===============================================================================
@@ -373,6 +392,11 @@ public final class MetaData {
    */
   void read(final DataInput in) throws IOException {
     String storage = "", istorage = "";
+    // flags are not stored in databases that have been created with older versions
+    compresstexts = false;
+    dictionary = false;
+    numcolumn = false;
+    treeindex = false;
     while(true) {
       final String k = Token.string(in.readToken());
       if(k.isEmpty()) break;
@@ -392,7 +416,11 @@ public final class MetaData {
         case DBFSIZE:    inputsize = toLong(v); break;
         case DBFTDC:     diacritics = toBoolean(v); break;
         case DBUPDIDX:   updindex = toBoolean(v); break;
+        case DBTREEIDX:  treeindex = toBoolean(v); break;
         case DBAUTOOPT:  autooptimize = toBoolean(v); break;
+        case DBCMPTXT:   compresstexts = toBoolean(v); break;
+        case DBDICT:     dictionary = toBoolean(v); break;
+        case DBNUMCOL:   numcolumn = toBoolean(v); break;
         case DBTXTIDX:   textindex = toBoolean(v); break;
         case DBATVIDX:   attrindex = toBoolean(v); break;
         case DBTOKIDX:   tokenindex = toBoolean(v); break;
@@ -435,7 +463,11 @@ public final class MetaData {
     writeInfo(out, DBNDOCS,    ndocs);
     writeInfo(out, DBSIZE,     size);
     writeInfo(out, DBUPDIDX,   updindex);
+    writeInfo(out, DBTREEIDX,  treeindex);
     writeInfo(out, DBAUTOOPT,  autooptimize);
+    writeInfo(out, DBCMPTXT,   compresstexts);
+    writeInfo(out, DBDICT,     dictionary);
+    writeInfo(out, DBNUMCOL,   numcolumn);
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBTOKIDX,   tokenindex);
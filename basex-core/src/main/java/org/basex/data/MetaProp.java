@@ -135,11 +135,31 @@ public enum MetaProp {
     public Boolean value(final MetaData meta) { return meta.updindex; }
   },
   /** Property. */
+  TREEINDEX(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.treeindex; }
+  },
+  /** Property. */
   AUTOOPTIMIZE(true) {
     @Override
     public Boolean value(final MetaData meta) { return meta.autooptimize; }
   },
   /** Property. */
+  COMPRESSTEXTS(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.compresstexts; }
+  },
+  /** Property. */
+  DICTIONARY(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.dictionary; }
+  },
+  /** Property. */
+  NUMCOLUMN(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.numcolumn; }
+  },
+  /** Property. */
   MAXCATS(true) {
     @Override
     public Integer value(final MetaData meta) { return meta.maxcats; }
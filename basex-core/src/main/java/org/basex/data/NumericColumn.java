@@ -0,0 +1,147 @@
+package org.basex.data;
+
+import static org.basex.index.stats.StatsType.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.index.path.*;
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.list.*;
+
+/**
+ * This class stores the numeric values of texts and attribute values in a sparse column.
+ * A value is stored for all text and attribute nodes whose location paths exclusively have
+ * numeric values according to the path summary of the database.
+ *
+ * The file contains the entries, ordered by pre values, the pre value of every
+ * {@link #BLOCK}th entry, and the number of entries. An entry consists of a pre value and a
+ * double value. The sampled pre values are kept in main memory; a lookup performs a binary
+ * search on the samples and on the entries of a single block.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class NumericColumn implements Closeable {
+  /** Number of entries per block. */
+  private static final int BLOCK = 128;
+  /** Size of an entry. */
+  private static final int ENTRY = 12;
+
+  /** Column file. */
+  private final DataAccess da;
+  /** Pre values of the first entries of all blocks. */
+  private final int[] samples;
+  /** Number of entries. */
+  private final int size;
+
+  /**
+   * Opens an existing column.
+   * @param meta meta data
+   * @throws IOException I/O exception
+   */
+  NumericColumn(final MetaData meta) throws IOException {
+    da = new DataAccess(meta.dbfile(DataText.DATANUM));
+    if(meta.mmap) da.map();
+    size = da.read4(da.length() - 4);
+    final int sl = (size + BLOCK - 1) / BLOCK;
+    samples = new int[sl];
+    final long pos = (long) size * ENTRY;
+    for(int s = 0; s < sl; s++) samples[s] = da.read4(pos + (s << 2));
+  }
+
+  /**
+   * Creates the column for the specified database.
+   * @param data data reference
+   * @throws IOException I/O exception
+   */
+  static void create(final Data data) throws IOException {
+    // path nodes of the current ancestors, and their pre values
+    final ArrayList<PathNode> nodes = new ArrayList<>();
+    final IntList pars = new IntList(), samples = new IntList();
+    final PathNode root = data.paths.root().get(0);
+    final int size = data.meta.size;
+    int entries = 0;
+    try(DataOutput out = new DataOutput(data.meta.dbfile(DataText.DATANUM))) {
+      for(int pre = 0; pre < size; pre++) {
+        final byte kind = (byte) data.kind(pre);
+        final int par = data.parent(pre, kind);
+        while(!pars.isEmpty() && pars.peek() > par) {
+          pars.pop();
+          nodes.remove(nodes.size() - 1);
+        }
+        final PathNode node = kind == Data.DOC ? root : child(nodes.get(nodes.size() - 1),
+            kind == Data.ELEM || kind == Data.ATTR ? data.nameId(pre) : 0, kind);
+        if(kind == Data.DOC || kind == Data.ELEM) {
+          pars.push(pre);
+          nodes.add(node);
+        } else if((kind == Data.TEXT || kind == Data.ATTR) && node != null &&
+            isNumeric(node.stats.type)) {
+          final double value = data.textDbl(pre, kind == Data.TEXT);
+          if(!Double.isNaN(value)) {
+            if(entries % BLOCK == 0) samples.add(pre);
+            final long bits = Double.doubleToRawLongBits(value);
+            out.write4(pre);
+            out.write4((int) (bits >>> 32));
+            out.write4((int) bits);
+            entries++;
+          }
+        }
+      }
+      for(final int sample : samples.finish()) out.write4(sample);
+      out.write4(entries);
+    }
+  }
+
+  /**
+   * Returns the child of a path node with the specified name and kind.
+   * @param node path node (can be {@code null})
+   * @param name name id
+   * @param kind node kind
+   * @return child node or {@code null}
+   */
+  private static PathNode child(final PathNode node, final int name, final byte kind) {
+    if(node != null) {
+      for(final PathNode child : node.children) {
+        if(child.kind == kind && child.name == name) return child;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the numeric value of the specified node.
+   * @param pre pre value
+   * @return value, or {@link Double#NaN} if no numeric value is stored
+   */
+  double get(final int pre) {
+    // find block
+    final int s = Arrays.binarySearch(samples, pre);
+    final int b = s >= 0 ? s : -s - 2;
+    if(b < 0) return Double.NaN;
+
+    // find entry in block
+    int l = b * BLOCK, h = Math.min(l + BLOCK, size) - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      final long pos = (long) m * ENTRY;
+      final int p = da.read4(pos);
+      if(p < pre) {
+        l = m + 1;
+      } else if(p > pre) {
+        h = m - 1;
+      } else {
+        return Double.longBitsToDouble((long) da.read4(pos + 4) << 32 |
+            da.read4(pos + 8) & 0xFFFFFFFFL);
+      }
+    }
+    return Double.NaN;
+  }
+
+  @Override
+  public void close() {
+    da.close();
+  }
+}
@@ -29,6 +29,8 @@ public abstract class IndexBuilder extends Job {
   protected final IndexType type;
   /** Text node flag. */
   protected final boolean text;
+  /** Maximum number of threads for building the index. */
+  protected final int threads;
 
   /** Number of index operations to perform before writing a partial index to disk. */
   private final int splitSize;
@@ -59,6 +61,7 @@ public abstract class IndexBuilder extends Job {
     size = data.meta.size;
     includeNames = new IndexNames(type, data);
     text = type == IndexType.TEXT || type == IndexType.FULLTEXT;
+    threads = Math.max(1, data.meta.indexthreads);
 
     // run garbage collection if memory maximum is already reached
     if(Performance.memory() >= maxMem) clean();
@@ -86,7 +89,16 @@ public abstract class IndexBuilder extends Job {
    * @return result of check
    */
   protected final boolean indexEntry() {
-    return data.kind(pre) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(pre, text);
+    return indexEntry(pre);
+  }
+
+  /**
+   * Checks if the specified entry should be indexed.
+   * @param p pre value
+   * @return result of check
+   */
+  protected final boolean indexEntry(final int p) {
+    return data.kind(p) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(p, text);
   }
 
   /**
@@ -117,6 +129,20 @@ public abstract class IndexBuilder extends Job {
     return split;
   }
 
+  /**
+   * Decides whether the in-memory structure of a parallel worker must be flushed to disk.
+   * If a fixed split size has been specified, it will be distributed among all threads.
+   * Otherwise, the main memory consumption will be checked.
+   * @param entries number of index operations performed since the last split
+   * @return true if structures shall be flushed to disk
+   */
+  protected final boolean splitRequired(final long entries) {
+    final boolean split = entries > 0 && (splitSize > 0 ?
+      entries >= Math.max(1, splitSize / threads) : Performance.memory() >= maxMem);
+    if(split && Prop.debug) Util.err("|");
+    return split;
+  }
+
   /**
    * Performs memory cleanup after writing partial memory if necessary.
    */
@@ -8,6 +8,11 @@ import java.io.*;
 import org.basex.data.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
 import org.basex.util.list.*;
@@ -255,6 +260,31 @@ final class Docs {
     return il.sort();
   }
 
+  /**
+   * Returns an iterator over all document nodes that start with the specified path.
+   * In contrast to {@link #docs(String, boolean)}, the pre values are determined lazily.
+   * @param path input path
+   * @return node iterator
+   */
+  synchronized BasicNodeIter iter(final String path) {
+    // invalid path: return empty iterator
+    final String pth = MetaData.normPath(path);
+    if(pth == null) return BasicNodeIter.EMPTY;
+
+    // empty path: return all documents
+    final IntList docs = docs();
+    if(pth.isEmpty()) return new DocIter(docs, null, null, null);
+
+    // normalize paths
+    byte[] exact = EMPTY, prefix = normalize(token(pth));
+    // check for explicit directory indicator
+    if(!Strings.endsWith(pth, '/')) {
+      exact = prefix;
+      prefix = concat(exact, SLASH);
+    }
+    return new DocIter(docs, paths(), exact, prefix);
+  }
+
   /**
    * Returns the pre value of a document node that matches the specified path.
    * @param path input path
@@ -353,4 +383,85 @@ final class Docs {
     }
     return table.toString();
   }
+
+  /**
+   * Iterator over document nodes. The document list is not copied, as it will not be
+   * changed as long as the database is locked for reading.
+   */
+  private final class DocIter extends DBNodeIter {
+    /** Pre values of all document nodes. */
+    private final IntList docs;
+    /** Document paths ({@code null} if all documents are returned). */
+    private final TokenList paths;
+    /** Exact path. */
+    private final byte[] exact;
+    /** Path prefix. */
+    private final byte[] prefix;
+    /** Current offset. */
+    private int d;
+
+    /**
+     * Constructor.
+     * @param docs pre values of all document nodes
+     * @param paths document paths ({@code null} if all documents are returned)
+     * @param exact exact path
+     * @param prefix path prefix
+     */
+    private DocIter(final IntList docs, final TokenList paths, final byte[] exact,
+        final byte[] prefix) {
+      super(Docs.this.data);
+      this.docs = docs;
+      this.paths = paths;
+      this.exact = exact;
+      this.prefix = prefix;
+    }
+
+    @Override
+    public DBNode next() {
+      final int pre = pre();
+      return pre == -1 ? null : new DBNode(data, pre, Data.DOC);
+    }
+
+    @Override
+    public Data batch(final IntList pres, final int max) {
+      pres.reset();
+      for(int pre; pres.size() < max && (pre = pre()) != -1;) pres.add(pre);
+      return pres.isEmpty() ? null : data;
+    }
+
+    @Override
+    public DBNode get(final long i) {
+      return new DBNode(data, docs.get((int) i), Data.DOC);
+    }
+
+    @Override
+    public long size() {
+      return paths == null ? docs.size() : -1;
+    }
+
+    @Override
+    public Value value(final QueryContext qc) {
+      if(paths == null) return DBNodeSeq.get(docs, data, true, true);
+      final IntList il = new IntList(), pres = new IntList();
+      while(batch(pres, BATCH) != null) {
+        qc.checkStop();
+        il.add(pres.toArray());
+      }
+      return DBNodeSeq.get(il, data, true, false);
+    }
+
+    /**
+     * Returns the pre value of the next matching document node.
+     * @return pre value, or {@code -1}
+     */
+    private int pre() {
+      final int ds = docs.size();
+      if(paths == null) return d < ds ? docs.get(d++) : -1;
+      while(d < ds) {
+        final byte[] path = paths.get(d++);
+        if(eq(path, exact) || startsWith(path, prefix)) return docs.get(d - 1);
+      }
+      return -1;
+    }
+  }
 }
@@ -8,6 +8,7 @@ import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
+import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
@@ -106,6 +107,15 @@ public final class Resources implements Index {
     return docs.docs(path, desc);
   }
 
+  /**
+   * Returns an iterator over all document nodes that start with the specified path.
+   * @param path input path
+   * @return node iterator
+   */
+  public synchronized BasicNodeIter docIter(final String path) {
+    return docs.iter(path);
+  }
+
   /**
    * Returns the pre value of the document node that matches the specified path, or {@code -1}.
    * @param path input path
@@ -0,0 +1,756 @@
+package org.basex.index.value;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides a paged B+-tree with pairs of keys and ids, which is stored on disk.
+ *
+ * <ul>
+ *   <li> The tree file is divided into pages of {@link #PAGE} bytes. The first page contains the
+ *     header (root page, height, number of distinct keys, number of pages, first free page).
+ *     The other pages contain {@link BTreeNode nodes} or free pages, which are chained.</li>
+ *   <li> Keys that are too long to be stored in pages are appended to a key file.</li>
+ *   <li> Modified nodes are cached in main memory. When the tree is flushed, all modified pages
+ *     are first written to a journal, which is then copied to the tree file and deleted. If a
+ *     complete journal is found when the tree is opened, it will be copied again; incomplete
+ *     journals are discarded. The tree file will thus always reflect the last flushed state.</li>
+ *   <li> Nodes are split if they overflow, but underfull nodes are not merged with their
+ *     siblings. Pages are only released when they are empty.</li>
+ * </ul>
+ *
+ * NOTE: this class is not thread-safe.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+final class BTree implements Closeable {
+  /** Page size. */
+  static final int PAGE = IO.BLOCKSIZE;
+  /** Maximum number of cached nodes. */
+  private static final int CACHE = 1 << 12;
+
+  /** Tree file. */
+  private final RandomAccessFile file;
+  /** Key file. */
+  private final RandomAccessFile heap;
+  /** Journal. */
+  private final IOFile journal;
+  /** Cached nodes. */
+  private final HashMap<Integer, BTreeNode> nodes = new HashMap<>();
+  /** Free pages that have not been written yet. */
+  private final IntList freed = new IntList();
+
+  /** Root page. */
+  private int root;
+  /** Height of the tree. */
+  private int height;
+  /** Number of distinct keys. */
+  private int keys;
+  /** Number of pages. */
+  private int pages;
+  /** First free page ({@code 0}: none). */
+  private int free;
+  /** Indicates if the header needs to be written. */
+  private boolean changed;
+
+  /**
+   * Opens a tree.
+   * @param file tree file
+   * @param heap key file
+   * @param journal journal
+   * @throws IOException I/O exception
+   */
+  BTree(final IOFile file, final IOFile heap, final IOFile journal) throws IOException {
+    this.journal = journal;
+    this.file = new RandomAccessFile(file.file(), "rw");
+    this.heap = new RandomAccessFile(heap.file(), "rw");
+    recover();
+    if(this.file.length() == 0) {
+      // new tree: create empty root leaf
+      pages = 1;
+      root = alloc();
+      height = 1;
+      final BTreeNode node = new BTreeNode(root, true);
+      dirty(node);
+      flush();
+    } else {
+      final byte[] header = page(0);
+      root = int4(header, 0);
+      height = int4(header, 4);
+      keys = int4(header, 8);
+      pages = int4(header, 12);
+      free = int4(header, 16);
+    }
+  }
+
+  /**
+   * Returns the number of distinct keys.
+   * @return number of keys
+   */
+  int keys() {
+    return keys;
+  }
+
+  /**
+   * Returns the number of index entries.
+   * @return number of entries
+   * @throws IOException I/O exception
+   */
+  int size() throws IOException {
+    return node(root).count();
+  }
+
+  /**
+   * Returns the size of the stored data.
+   * @return size in bytes
+   * @throws IOException I/O exception
+   */
+  long length() throws IOException {
+    return file.length() + heap.length();
+  }
+
+  /**
+   * Inserts an entry.
+   * @param key key
+   * @param id id
+   * @return {@code true} if the entry was added
+   * @throws IOException I/O exception
+   */
+  boolean insert(final byte[] key, final int id) throws IOException {
+    trim();
+    final ArrayList<BTreeNode> path = new ArrayList<>(height);
+    final IntList positions = new IntList(height);
+    final BTreeNode leaf = descend(key, id, path, positions);
+    int pos = leaf.find(key, id);
+    if(pos >= 0) return false;
+
+    pos = -pos - 1;
+    leaf.insert(pos, key, id, 0, 0, 0);
+    dirty(leaf);
+    if(unique(leaf, pos)) keys++;
+    for(int l = path.size() - 1; l >= 0; l--) {
+      final BTreeNode node = path.get(l);
+      node.counts[positions.get(l)]++;
+      dirty(node);
+    }
+    changed = true;
+
+    // split overflowing nodes
+    BTreeNode node = leaf;
+    for(int l = path.size(); node.bytes > BTreeNode.CAPACITY; l--) {
+      final BTreeNode right = new BTreeNode(alloc(), node.leaf);
+      node.split(right);
+      dirty(right);
+      if(node.leaf) {
+        right.prev = node.page;
+        right.next = node.next;
+        if(node.next != 0) {
+          final BTreeNode next = node(node.next);
+          next.prev = right.page;
+          dirty(next);
+        }
+        node.next = right.page;
+      }
+      final int count = right.count();
+      if(l == 0) {
+        // split root
+        final BTreeNode rt = new BTreeNode(alloc(), false);
+        rt.insert(0, node.keys[0], node.ids[0], node.refs[0], node.page, node.count());
+        rt.insert(1, right.keys[0], right.ids[0], right.refs[0], right.page, count);
+        dirty(rt);
+        root = rt.page;
+        height++;
+        break;
+      }
+      final BTreeNode parent = path.get(l - 1);
+      final int p = positions.get(l - 1);
+      parent.counts[p] -= count;
+      parent.insert(p + 1, right.keys[0], right.ids[0], right.refs[0], right.page, count);
+      node = parent;
+    }
+    return true;
+  }
+
+  /**
+   * Deletes an entry.
+   * @param key key
+   * @param id id
+   * @return {@code true} if the entry was deleted
+   * @throws IOException I/O exception
+   */
+  boolean delete(final byte[] key, final int id) throws IOException {
+    trim();
+    final ArrayList<BTreeNode> path = new ArrayList<>(height);
+    final IntList positions = new IntList(height);
+    final BTreeNode leaf = descend(key, id, path, positions);
+    final int pos = leaf.find(key, id);
+    if(pos < 0) return false;
+
+    if(unique(leaf, pos)) keys--;
+    leaf.remove(pos);
+    dirty(leaf);
+    for(int l = path.size() - 1; l >= 0; l--) {
+      final BTreeNode node = path.get(l);
+      node.counts[positions.get(l)]--;
+      dirty(node);
+    }
+    changed = true;
+
+    // remove empty nodes
+    BTreeNode node = leaf;
+    for(int l = path.size(); node.size == 0 && l > 0; l--) {
+      if(node.leaf) {
+        if(node.prev != 0) {
+          final BTreeNode prev = node(node.prev);
+          prev.next = node.next;
+          dirty(prev);
+        }
+        if(node.next != 0) {
+          final BTreeNode next = node(node.next);
+          next.prev = node.prev;
+          dirty(next);
+        }
+      }
+      release(node);
+      node = path.get(l - 1);
+      node.remove(positions.get(l - 1));
+    }
+    if(node.size == 0 && !node.leaf) {
+      // all leaves have been removed: replace root with empty leaf
+      release(node);
+      final BTreeNode rt = new BTreeNode(alloc(), true);
+      dirty(rt);
+      root = rt.page;
+      height = 1;
+    }
+    // shrink tree
+    for(BTreeNode rt = node(root); !rt.leaf && rt.size == 1; rt = node(root)) {
+      release(rt);
+      root = rt.children[0];
+      height--;
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of entries that are smaller than the specified entry.
+   * @param key key
+   * @param id id
+   * @return number of entries
+   * @throws IOException I/O exception
+   */
+  int rank(final byte[] key, final int id) throws IOException {
+    trim();
+    int rank = 0;
+    BTreeNode node = node(root);
+    while(!node.leaf) {
+      final int c = node.child(key, id);
+      for(int i = 0; i < c; i++) rank += node.counts[i];
+      node = node(node.children[c]);
+    }
+    final int pos = node.find(key, id);
+    return rank + (pos < 0 ? -pos - 1 : pos);
+  }
+
+  /**
+   * Returns a cursor that points to the first entry that is equal to or greater than the
+   * specified entry.
+   * @param key key
+   * @param id id
+   * @return cursor
+   * @throws IOException I/O exception
+   */
+  Cursor cursor(final byte[] key, final int id) throws IOException {
+    trim();
+    final BTreeNode leaf = descend(key, id, null, null);
+    final int pos = leaf.find(key, id);
+    final Cursor cursor = new Cursor(leaf, pos < 0 ? -pos - 1 : pos);
+    if(cursor.pos == leaf.size) cursor.next();
+    return cursor;
+  }
+
+  /**
+   * Returns a cursor that points to the last entry.
+   * @return cursor
+   * @throws IOException I/O exception
+   */
+  Cursor last() throws IOException {
+    trim();
+    BTreeNode node = node(root);
+    while(!node.leaf) node = node(node.children[node.size - 1]);
+    return new Cursor(node, node.size - 1);
+  }
+
+  /**
+   * Appends a key to the key file.
+   * @param key key
+   * @return offset
+   * @throws IOException I/O exception
+   */
+  long store(final byte[] key) throws IOException {
+    final long off = heap.length();
+    heap.seek(off);
+    heap.writeInt(key.length);
+    heap.write(key);
+    return off;
+  }
+
+  /**
+   * Returns a key from the key file.
+   * @param off offset
+   * @return key
+   * @throws IOException I/O exception
+   */
+  byte[] key(final long off) throws IOException {
+    heap.seek(off);
+    final byte[] key = new byte[heap.readInt()];
+    heap.readFully(key);
+    return key;
+  }
+
+  /**
+   * Writes all modified pages (see class documentation).
+   * @throws IOException I/O exception
+   */
+  void flush() throws IOException {
+    if(!changed) return;
+
+    // serialize modified nodes and free pages, write header
+    final TreeMap<Integer, byte[]> writes = new TreeMap<>();
+    for(final BTreeNode node : nodes.values()) {
+      if(node.dirty) writes.put(node.page, node.write(this));
+    }
+    final int fs = freed.size();
+    for(int f = 0; f < fs; f++) {
+      final int page = freed.get(f);
+      final byte[] data = new byte[PAGE];
+      int4(data, 1, free);
+      writes.put(page, data);
+      free = page;
+    }
+    final byte[] header = new byte[PAGE];
+    int4(header, 0, root);
+    int4(header, 4, height);
+    int4(header, 8, keys);
+    int4(header, 12, pages);
+    int4(header, 16, free);
+    writes.put(0, header);
+    heap.getFD().sync();
+
+    // write and apply journal
+    try(RandomAccessFile jrnl = new RandomAccessFile(journal.file(), "rw")) {
+      final CRC32 crc = new CRC32();
+      jrnl.setLength(0);
+      jrnl.writeInt(writes.size());
+      for(final Map.Entry<Integer, byte[]> entry : writes.entrySet()) {
+        jrnl.writeInt(entry.getKey());
+        jrnl.write(entry.getValue());
+        crc.update(entry.getValue());
+      }
+      jrnl.writeLong(crc.getValue());
+      jrnl.getFD().sync();
+    }
+    apply(writes);
+
+    for(final BTreeNode node : nodes.values()) node.dirty = false;
+    freed.reset();
+    changed = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      file.close();
+      heap.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + "[root: " + root + ", height: " + height + ", keys: " + keys +
+        ", pages: " + pages + ']';
+  }
+
+  // BULK LOADING =================================================================================
+
+  /**
+   * Creates a loader, which replaces the contents of the tree with new entries.
+   * The entries must be supplied in ascending order.
+   * @return loader
+   * @throws IOException I/O exception
+   */
+  Loader loader() throws IOException {
+    nodes.clear();
+    freed.reset();
+    file.setLength(0);
+    heap.setLength(0);
+    pages = 1;
+    free = 0;
+    keys = 0;
+    return new Loader();
+  }
+
+  /**
+   * Builds a tree from sorted entries. Nodes are filled completely and written sequentially.
+   */
+  final class Loader {
+    /** Currently filled nodes, starting with the leaf level. */
+    private final ArrayList<BTreeNode> open = new ArrayList<>();
+    /** Number of closed nodes per level. */
+    private final IntList closed = new IntList();
+    /** Last key. */
+    private byte[] last;
+
+    /**
+     * Adds an entry.
+     * @param key key
+     * @param id id
+     * @throws IOException I/O exception
+     */
+    void add(final byte[] key, final int id) throws IOException {
+      if(last == null || !eq(last, key)) {
+        keys++;
+        last = key;
+      }
+      add(0, key, id, 0, 0, 0);
+    }
+
+    /**
+     * Finishes the tree.
+     * @throws IOException I/O exception
+     */
+    void finish() throws IOException {
+      if(open.isEmpty()) {
+        open.add(new BTreeNode(alloc(), true));
+        closed.add(0);
+      }
+      for(int l = 0;; l++) {
+        final BTreeNode node = open.get(l);
+        if(l == open.size() - 1 && closed.get(l) == 0) {
+          write(node);
+          root = node.page;
+          height = l + 1;
+          break;
+        }
+        close(l, node);
+      }
+      changed = true;
+      flush();
+    }
+
+    /**
+     * Adds an entry to the specified level.
+     * @param level level
+     * @param key key
+     * @param id id
+     * @param ref offset of the key in the key file
+     * @param child child page
+     * @param count number of entries of the child
+     * @throws IOException I/O exception
+     */
+    private void add(final int level, final byte[] key, final int id, final long ref,
+        final int child, final int count) throws IOException {
+
+      if(level == open.size()) {
+        open.add(new BTreeNode(alloc(), level == 0));
+        closed.add(0);
+      }
+      BTreeNode node = open.get(level);
+      node.insert(node.size, key, id, ref, child, count);
+      if(node.bytes > BTreeNode.CAPACITY) {
+        // move new entry to next node
+        node.remove(node.size - 1);
+        final BTreeNode nxt = new BTreeNode(alloc(), node.leaf);
+        if(node.leaf) {
+          node.next = nxt.page;
+          nxt.prev = node.page;
+        }
+        close(level, node);
+        open.set(level, nxt);
+        node = nxt;
+        node.insert(0, key, id, ref, child, count);
+      }
+    }
+
+    /**
+     * Writes a node and adds a reference to the upper level.
+     * @param level level
+     * @param node node
+     * @throws IOException I/O exception
+     */
+    private void close(final int level, final BTreeNode node) throws IOException {
+      write(node);
+      closed.set(level, closed.get(level) + 1);
+      add(level + 1, node.keys[0], node.ids[0], node.refs[0], node.page, node.count());
+    }
+
+    /**
+     * Writes a node.
+     * @param node node
+     * @throws IOException I/O exception
+     */
+    private void write(final BTreeNode node) throws IOException {
+      file.seek((long) node.page * PAGE);
+      file.write(node.write(BTree.this));
+    }
+  }
+
+  // CURSOR =======================================================================================
+
+  /**
+   * Cursor for traversing the entries of the leaves.
+   */
+  final class Cursor {
+    /** Current leaf. */
+    private BTreeNode leaf;
+    /** Position in the current leaf. */
+    private int pos;
+
+    /**
+     * Constructor.
+     * @param leaf leaf
+     * @param pos position
+     */
+    private Cursor(final BTreeNode leaf, final int pos) {
+      this.leaf = leaf;
+      this.pos = pos;
+    }
+
+    /**
+     * Checks if the cursor points to an entry.
+     * @return result of check
+     */
+    boolean valid() {
+      return leaf != null && pos >= 0 && pos < leaf.size;
+    }
+
+    /**
+     * Returns the key of the current entry.
+     * @return key
+     */
+    byte[] key() {
+      return leaf.keys[pos];
+    }
+
+    /**
+     * Returns the id of the current entry.
+     * @return id
+     */
+    int id() {
+      return leaf.ids[pos];
+    }
+
+    /**
+     * Moves the cursor to the next entry.
+     * @throws IOException I/O exception
+     */
+    void next() throws IOException {
+      if(++pos >= leaf.size) {
+        leaf = leaf.next == 0 ? null : node(leaf.next);
+        pos = 0;
+      }
+    }
+
+    /**
+     * Moves the cursor to the previous entry.
+     * @throws IOException I/O exception
+     */
+    void prev() throws IOException {
+      if(--pos < 0) {
+        leaf = leaf.prev == 0 ? null : node(leaf.prev);
+        if(leaf != null) pos = leaf.size - 1;
+      }
+    }
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Descends to the leaf that contains the specified entry.
+   * @param key key
+   * @param id id
+   * @param path list for visited inner nodes (can be {@code null})
+   * @param positions list for positions of the chosen children (can be {@code null})
+   * @return leaf
+   * @throws IOException I/O exception
+   */
+  private BTreeNode descend(final byte[] key, final int id, final ArrayList<BTreeNode> path,
+      final IntList positions) throws IOException {
+    BTreeNode node = node(root);
+    while(!node.leaf) {
+      final int c = node.child(key, id);
+      if(path != null) {
+        path.add(node);
+        positions.add(c);
+      }
+      node = node(node.children[c]);
+    }
+    return node;
+  }
+
+  /**
+   * Checks if no other entry of a leaf or its siblings has the same key as the specified entry.
+   * @param leaf leaf
+   * @param pos position of the entry
+   * @return result of check
+   * @throws IOException I/O exception
+   */
+  private boolean unique(final BTreeNode leaf, final int pos) throws IOException {
+    final byte[] key = leaf.keys[pos];
+    if(pos > 0) {
+      if(eq(leaf.keys[pos - 1], key)) return false;
+    } else if(leaf.prev != 0) {
+      final BTreeNode prev = node(leaf.prev);
+      if(eq(prev.keys[prev.size - 1], key)) return false;
+    }
+    if(pos < leaf.size - 1) return !eq(leaf.keys[pos + 1], key);
+    if(leaf.next != 0) return !eq(node(leaf.next).keys[0], key);
+    return true;
+  }
+
+  /**
+   * Returns a node.
+   * @param page page number
+   * @return node
+   * @throws IOException I/O exception
+   */
+  private BTreeNode node(final int page) throws IOException {
+    BTreeNode node = nodes.get(page);
+    if(node == null) {
+      node = BTreeNode.read(page, page(page), this);
+      nodes.put(page, node);
+    }
+    return node;
+  }
+
+  /**
+   * Marks a node as modified.
+   * @param node node
+   */
+  private void dirty(final BTreeNode node) {
+    node.dirty = true;
+    nodes.put(node.page, node);
+  }
+
+  /**
+   * Discards clean nodes if the cache is full. Must only be called before an operation,
+   * as nodes that are still referenced must not be replaced by new instances.
+   */
+  private void trim() {
+    if(nodes.size() > CACHE) nodes.values().removeIf(node -> !node.dirty);
+  }
+
+  /**
+   * Returns a new page.
+   * @return page number
+   * @throws IOException I/O exception
+   */
+  private int alloc() throws IOException {
+    changed = true;
+    if(free == 0) return pages++;
+    final int page = free;
+    free = int4(page(page), 1);
+    return page;
+  }
+
+  /**
+   * Releases the page of a node.
+   * @param node node
+   */
+  private void release(final BTreeNode node) {
+    nodes.remove(node.page);
+    freed.add(node.page);
+    changed = true;
+  }
+
+  /**
+   * Reads a page.
+   * @param page page number
+   * @return page contents
+   * @throws IOException I/O exception
+   */
+  private byte[] page(final int page) throws IOException {
+    final byte[] data = new byte[PAGE];
+    file.seek((long) page * PAGE);
+    file.readFully(data);
+    return data;
+  }
+
+  /**
+   * Writes the pages of a journal to the tree file and deletes the journal.
+   * @param writes pages
+   * @throws IOException I/O exception
+   */
+  private void apply(final TreeMap<Integer, byte[]> writes) throws IOException {
+    for(final Map.Entry<Integer, byte[]> entry : writes.entrySet()) {
+      file.seek((long) entry.getKey() * PAGE);
+      file.write(entry.getValue());
+    }
+    file.getFD().sync();
+    journal.delete();
+  }
+
+  /**
+   * Applies a complete journal that has been left by an interrupted flush operation.
+   * @throws IOException I/O exception
+   */
+  private void recover() throws IOException {
+    if(!journal.exists()) return;
+
+    final TreeMap<Integer, byte[]> writes = new TreeMap<>();
+    boolean complete = false;
+    try(RandomAccessFile jrnl = new RandomAccessFile(journal.file(), "r")) {
+      final long length = jrnl.length();
+      if(length >= 12) {
+        final int size = jrnl.readInt();
+        if(length == 12 + (long) size * (4 + PAGE)) {
+          final CRC32 crc = new CRC32();
+          for(int s = 0; s < size; s++) {
+            final int page = jrnl.readInt();
+            final byte[] data = new byte[PAGE];
+            jrnl.readFully(data);
+            crc.update(data);
+            writes.put(page, data);
+          }
+          complete = jrnl.readLong() == crc.getValue();
+        }
+      }
+    }
+    if(complete) apply(writes);
+    else journal.delete();
+  }
+
+  /**
+   * Reads a 4-byte integer from a page.
+   * @param data page
+   * @param off offset
+   * @return integer
+   */
+  private static int int4(final byte[] data, final int off) {
+    return (data[off] & 0xFF) << 24 | (data[off + 1] & 0xFF) << 16 |
+      (data[off + 2] & 0xFF) << 8 | data[off + 3] & 0xFF;
+  }
+
+  /**
+   * Writes a 4-byte integer to a page.
+   * @param data page
+   * @param off offset
+   * @param value integer
+   */
+  private static void int4(final byte[] data, final int off, final int value) {
+    data[off] = (byte) (value >>> 24);
+    data[off + 1] = (byte) (value >>> 16);
+    data[off + 2] = (byte) (value >>> 8);
+    data[off + 3] = (byte) value;
+  }
+}
@@ -0,0 +1,354 @@
+package org.basex.index.value;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+
+/**
+ * Node of a {@link BTree}, which is stored in a single page.
+ *
+ * Entries are pairs of keys and ids, sorted by key and id. Leaves contain the index entries and
+ * links to their siblings. Inner nodes contain the smallest entries of their child nodes (the
+ * first entry is ignored when searching), the page numbers of the child nodes, and the number of
+ * index entries in the subtrees.
+ *
+ * The entries of a page are stored in the following format:
+ * <ul>
+ *   <li> {@code 0, id distance}: same key as the previous entry</li>
+ *   <li> {@code length + 1, shared prefix, suffix, id}: other key
+ *     (up to {@link #MAXKEY} bytes)</li>
+ *   <li> {@code length + 1, 5-byte offset, id}: other key, stored in the key file</li>
+ * </ul>
+ * Inner nodes additionally store the child page and the number of entries of the subtree.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+final class BTreeNode {
+  /** Maximum length of keys that are stored in pages. */
+  static final int MAXKEY = 256;
+  /** Usable bytes of a page. */
+  static final int CAPACITY = BTree.PAGE - 16;
+  /** Page type: leaf. */
+  private static final int LEAF = 1;
+  /** Page type: inner node. */
+  private static final int INNER = 2;
+
+  /** Page number. */
+  final int page;
+  /** Leaf flag. */
+  final boolean leaf;
+  /** Number of entries. */
+  int size;
+  /** Keys. */
+  byte[][] keys;
+  /** Ids. */
+  int[] ids;
+  /** Offsets of long keys in the key file, incremented by one ({@code 0}: not stored). */
+  long[] refs;
+  /** Inner nodes: pages of the child nodes. */
+  int[] children;
+  /** Inner nodes: number of index entries of the child nodes. */
+  int[] counts;
+  /** Leaves: page of the previous leaf ({@code 0}: none). */
+  int prev;
+  /** Leaves: page of the next leaf ({@code 0}: none). */
+  int next;
+  /** Number of bytes required for storing the entries. */
+  int bytes;
+  /** Dirty flag. */
+  boolean dirty;
+
+  /**
+   * Constructor.
+   * @param page page number
+   * @param leaf leaf flag
+   */
+  BTreeNode(final int page, final boolean leaf) {
+    this.page = page;
+    this.leaf = leaf;
+    final int c = Array.CAPACITY;
+    keys = new byte[c][];
+    ids = new int[c];
+    refs = new long[c];
+    if(!leaf) {
+      children = new int[c];
+      counts = new int[c];
+    }
+  }
+
+  /**
+   * Returns the position of the specified entry in a leaf.
+   * @param key key
+   * @param id id
+   * @return position, or {@code -(insertion point) - 1}
+   */
+  int find(final byte[] key, final int id) {
+    int l = 0, h = size - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1, d = compare(keys[m], ids[m], key, id);
+      if(d == 0) return m;
+      if(d < 0) l = m + 1;
+      else h = m - 1;
+    }
+    return -(l + 1);
+  }
+
+  /**
+   * Returns the position of the child node that contains the specified entry.
+   * @param key key
+   * @param id id
+   * @return position
+   */
+  int child(final byte[] key, final int id) {
+    int l = 1, h = size - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      if(compare(keys[m], ids[m], key, id) <= 0) l = m + 1;
+      else h = m - 1;
+    }
+    return l - 1;
+  }
+
+  /**
+   * Returns the number of index entries in this node and its descendants.
+   * @return number of entries
+   */
+  int count() {
+    if(leaf) return size;
+    int c = 0;
+    for(int s = 0; s < size; s++) c += counts[s];
+    return c;
+  }
+
+  /**
+   * Inserts an entry.
+   * @param pos position
+   * @param key key
+   * @param id id
+   * @param ref offset of the key in the key file ({@code 0}: not stored)
+   * @param child child page (ignored in leaves)
+   * @param count number of index entries of the child (ignored in leaves)
+   */
+  void insert(final int pos, final byte[] key, final int id, final long ref, final int child,
+      final int count) {
+
+    if(size == ids.length) {
+      final int s = Array.newSize(size);
+      keys = Array.copyOf(keys, s);
+      ids = Arrays.copyOf(ids, s);
+      refs = Arrays.copyOf(refs, s);
+      if(!leaf) {
+        children = Arrays.copyOf(children, s);
+        counts = Arrays.copyOf(counts, s);
+      }
+    }
+    int d = pos < size ? -bytes(pos - 1, pos) : 0;
+    final int m = size - pos;
+    Array.copy(keys, pos, m, keys, pos + 1);
+    Array.copy(ids, pos, m, ids, pos + 1);
+    Array.copy(refs, pos, m, refs, pos + 1);
+    keys[pos] = key;
+    ids[pos] = id;
+    refs[pos] = ref;
+    if(!leaf) {
+      Array.copy(children, pos, m, children, pos + 1);
+      Array.copy(counts, pos, m, counts, pos + 1);
+      children[pos] = child;
+      counts[pos] = count;
+    }
+    size++;
+    d += bytes(pos - 1, pos);
+    if(pos + 1 < size) d += bytes(pos, pos + 1);
+    bytes += d;
+  }
+
+  /**
+   * Removes an entry.
+   * @param pos position
+   */
+  void remove(final int pos) {
+    int d = -bytes(pos - 1, pos);
+    if(pos + 1 < size) d -= bytes(pos, pos + 1);
+    final int m = size - pos - 1;
+    Array.copy(keys, pos + 1, m, keys, pos);
+    Array.copy(ids, pos + 1, m, ids, pos);
+    Array.copy(refs, pos + 1, m, refs, pos);
+    if(!leaf) {
+      Array.copy(children, pos + 1, m, children, pos);
+      Array.copy(counts, pos + 1, m, counts, pos);
+    }
+    keys[--size] = null;
+    if(pos < size) d += bytes(pos - 1, pos);
+    bytes += d;
+  }
+
+  /**
+   * Moves the second half of the entries (measured in bytes) to the specified empty node.
+   * @param node target node
+   */
+  void split(final BTreeNode node) {
+    int pos = 1;
+    for(int b = bytes(-1, 0); pos < size - 1 && b < bytes >>> 1; pos++) b += bytes(pos - 1, pos);
+    for(int p = pos; p < size; p++) {
+      node.insert(node.size, keys[p], ids[p], refs[p], leaf ? 0 : children[p],
+          leaf ? 0 : counts[p]);
+    }
+    while(size > pos) remove(size - 1);
+  }
+
+  /**
+   * Returns the number of bytes required for storing an entry.
+   * @param p position of the previous entry ({@code -1}: none)
+   * @param i position of the entry
+   * @return number of bytes
+   */
+  private int bytes(final int p, final int i) {
+    final byte[] key = keys[i];
+    int b;
+    if(p >= 0 && eq(keys[p], key)) {
+      b = 1 + Num.length(ids[i] - ids[p]);
+    } else {
+      final int kl = key.length, s = p >= 0 && kl <= MAXKEY ? shared(keys[p], key) : 0;
+      b = Num.length(kl + 1) + (kl > MAXKEY ? 5 : Num.length(s) + kl - s) + Num.length(ids[i]);
+    }
+    if(!leaf) b += Num.length(children[i]) + Num.length(counts[i]);
+    return b;
+  }
+
+  /**
+   * Serializes the node.
+   * @param tree tree (used for storing long keys)
+   * @return page
+   * @throws IOException I/O exception
+   */
+  byte[] write(final BTree tree) throws IOException {
+    final ArrayOutput ao = new ArrayOutput();
+    final DataOutput out = new DataOutput(ao);
+    out.write1(leaf ? LEAF : INNER);
+    out.writeNum(size);
+    if(leaf) {
+      out.writeNum(prev);
+      out.writeNum(next);
+    }
+    for(int i = 0; i < size; i++) {
+      final byte[] key = keys[i];
+      final int p = i - 1;
+      if(p >= 0 && eq(keys[p], key)) {
+        out.writeNum(0);
+        out.writeNum(ids[i] - ids[p]);
+      } else {
+        final int kl = key.length;
+        out.writeNum(kl + 1);
+        if(kl > MAXKEY) {
+          if(refs[i] == 0) refs[i] = tree.store(key) + 1;
+          out.write5(refs[i] - 1);
+        } else {
+          final int s = p >= 0 ? shared(keys[p], key) : 0;
+          out.writeNum(s);
+          out.write(key, s, kl - s);
+        }
+        out.writeNum(ids[i]);
+      }
+      if(!leaf) {
+        out.writeNum(children[i]);
+        out.writeNum(counts[i]);
+      }
+    }
+    out.flush();
+    final byte[] bt = ao.finish();
+    if(bt.length > BTree.PAGE) throw Util.notExpected("Page overflow: %", bt.length);
+    return Arrays.copyOf(bt, BTree.PAGE);
+  }
+
+  /**
+   * Deserializes a node.
+   * @param page page number
+   * @param data page contents
+   * @param tree tree (used for reading long keys)
+   * @return node
+   * @throws IOException I/O exception
+   */
+  static BTreeNode read(final int page, final byte[] data, final BTree tree) throws IOException {
+    try(DataInput in = new DataInput(new IOContent(data))) {
+      final int type = in.read();
+      if(type != LEAF && type != INNER) throw new IOException("Invalid index page: " + page);
+      final BTreeNode node = new BTreeNode(page, type == LEAF);
+      final int size = in.readNum();
+      if(node.leaf) {
+        node.prev = in.readNum();
+        node.next = in.readNum();
+      }
+      byte[] prev = EMPTY;
+      for(int i = 0; i < size; i++) {
+        final int kl = in.readNum();
+        byte[] key = prev;
+        int id;
+        long off = 0;
+        if(kl == 0) {
+          id = node.ids[i - 1] + in.readNum();
+          off = node.refs[i - 1];
+        } else {
+          final int l = kl - 1;
+          if(l > MAXKEY) {
+            for(int b = 0; b < 5; b++) off = off << 8 | in.read();
+            key = tree.key(off);
+            off++;
+          } else {
+            final int s = in.readNum();
+            key = Arrays.copyOf(prev, l);
+            for(int b = s; b < l; b++) key[b] = (byte) in.read();
+          }
+          id = in.readNum();
+        }
+        if(node.leaf) {
+          node.insert(i, key, id, off, 0, 0);
+        } else {
+          final int child = in.readNum();
+          node.insert(i, key, id, off, child, in.readNum());
+        }
+        prev = key;
+      }
+      return node;
+    }
+  }
+
+  /**
+   * Compares two entries.
+   * @param key1 first key
+   * @param id1 first id
+   * @param key2 second key
+   * @param id2 second id
+   * @return result of comparison
+   */
+  static int compare(final byte[] key1, final int id1, final byte[] key2, final int id2) {
+    final int d = diff(key1, key2);
+    return d != 0 ? d : Integer.compare(id1, id2);
+  }
+
+  /**
+   * Returns the length of the common prefix of two keys.
+   * @param key1 first key
+   * @param key2 second key
+   * @return length
+   */
+  private static int shared(final byte[] key1, final byte[] key2) {
+    final int l = Math.min(Math.min(key1.length, key2.length), MAXKEY);
+    int s = 0;
+    while(s < l && key1[s] == key2[s]) s++;
+    return s;
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + "[page: " + page + ", " + (leaf ? "leaf" : "inner") +
+        ", size: " + size + ", bytes: " + bytes + ']';
+  }
+}
@@ -0,0 +1,289 @@
+package org.basex.index.value;
+
+import static org.basex.core.Text.*;
+import static org.basex.util.Token.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.index.stats.*;
+import org.basex.io.*;
+import org.basex.io.random.*;
+import org.basex.query.util.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides access and update functions to attribute values and text contents stored
+ * on disk in a {@link BTree}. In contrast to {@link UpdatableDiskValues}, keys are stored
+ * in the index structure, and single entries can be inserted and deleted without rewriting
+ * the id lists of all affected keys. Token positions are not stored.
+ *
+ * <ul>
+ *   <li> {@code DATATXT/ATV/TOK + 'b'}: tree pages</li>
+ *   <li> {@code DATATXT/ATV/TOK + 'k'}: keys that are too long to be stored in pages</li>
+ *   <li> {@code DATATXT/ATV/TOK + 'j'}: journal (only exists while pages are flushed)</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class BTreeValues extends ValueIndex {
+  /** Tree. */
+  private final BTree tree;
+
+  /**
+   * Constructor, initializing the index structure.
+   * @param data data reference
+   * @param type index type
+   * @throws IOException I/O Exception
+   */
+  public BTreeValues(final Data data, final IndexType type) throws IOException {
+    super(data, type);
+    final String pref = DiskValues.fileSuffix(type);
+    final MetaData meta = data.meta;
+    tree = new BTree(meta.dbfile(pref + 'b'), meta.dbfile(pref + 'k'), meta.dbfile(pref + 'j'));
+  }
+
+  /**
+   * Creates a tree from the id lists that have been written by the {@link DiskValuesBuilder}.
+   * The original files are deleted.
+   * @param data data reference
+   * @param type index type
+   * @return index
+   * @throws IOException I/O Exception
+   */
+  static BTreeValues create(final Data data, final IndexType type) throws IOException {
+    final BTreeValues values = new BTreeValues(data, type);
+    final String pref = DiskValues.fileSuffix(type);
+    final boolean text = type == IndexType.TEXT, token = type == IndexType.TOKEN;
+    final IOFile fl = data.meta.dbfile(pref + 'l'), fr = data.meta.dbfile(pref + 'r');
+    try(DataAccess idxl = new DataAccess(fl); DataAccess idxr = new DataAccess(fr)) {
+      final BTree.Loader loader = values.tree.loader();
+      final int entries = idxl.read4();
+      for(int index = 0; index < entries; index++) {
+        final int count = idxl.readNum(idxr.read5(index * 5L));
+        final int[] ids = new int[count];
+        int pos = 0;
+        for(int c = 0, id = 0; c < count; c++) {
+          id += idxl.readNum();
+          ids[c] = id;
+          if(token) {
+            final int p = idxl.readNum();
+            if(c == 0) pos = p;
+          }
+        }
+        final byte[] txt = data.text(data.pre(ids[0]), text);
+        final byte[] key = token ? distinctTokens(txt)[pos] : txt;
+        for(final int id : new IntList(ids).sort().finish()) loader.add(key, id);
+      }
+      loader.finish();
+    }
+    fl.delete();
+    fr.delete();
+    return values;
+  }
+
+  @Override
+  public synchronized byte[] info(final MainOptions options) {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add(LI_STRUCTURE).add(BTREE).add(NL);
+    tb.add(LI_NAMES).add(data.meta.names(type)).add(NL);
+
+    final IndexStats stats = new IndexStats(options.get(MainOptions.MAXSTAT));
+    try {
+      tb.add(LI_SIZE).add(Performance.format(tree.length())).add(NL);
+      final EntryIterator ei = keys(tree.cursor(EMPTY, -1), true, null);
+      for(byte[] key; (key = ei.next()) != null;) {
+        final int count = ei.count();
+        if(stats.adding(count)) stats.add(key, count);
+      }
+    } catch(final IOException ex) {
+      throw Util.notExpected(ex);
+    }
+    stats.print(tb);
+    return tb.finish();
+  }
+
+  @Override
+  public synchronized int size() {
+    return tree.keys();
+  }
+
+  @Override
+  public synchronized IndexCosts costs(final IndexToken it) {
+    if(it instanceof StringRange) return IndexCosts.get(Math.max(1, data.meta.size / 10));
+    if(it instanceof NumericRange) return IndexCosts.get(Math.max(1, data.meta.size / 3));
+    final byte[] key = it.get();
+    try {
+      return IndexCosts.get(tree.rank(key, Integer.MAX_VALUE) - tree.rank(key, -1));
+    } catch(final IOException ex) {
+      throw Util.notExpected(ex);
+    }
+  }
+
+  @Override
+  public synchronized IndexIterator iter(final IndexToken token) {
+    final IntList pres = new IntList();
+    try {
+      if(token instanceof StringRange) {
+        final StringRange sr = (StringRange) token;
+        for(final BTree.Cursor c = tree.cursor(sr.min, sr.mni ? -1 : Integer.MAX_VALUE);
+            c.valid(); c.next()) {
+          final int d = diff(c.key(), sr.max);
+          if(d > 0 || !sr.mxi && d == 0) break;
+          pres.add(data.pre(c.id()));
+        }
+      } else if(token instanceof NumericRange) {
+        // check if min and max are positive integers with the same number of digits
+        final NumericRange nr = (NumericRange) token;
+        final double min = nr.min, max = nr.max;
+        final int len = max > 0 && (long) max == max ? token(max).length : 0;
+        final boolean simple = len != 0 && min > 0 && (long) min == min && token(min).length == len;
+        byte[] key = null;
+        double v = 0;
+        for(final BTree.Cursor c = tree.cursor(EMPTY, -1); c.valid(); c.next()) {
+          if(c.key() != key) {
+            key = c.key();
+            v = toDouble(key);
+            // skip traversal if all remaining values will be bigger
+            if(simple && v > max && key.length == len) break;
+          }
+          if(v >= min && v <= max) pres.add(data.pre(c.id()));
+        }
+      } else {
+        final byte[] key = token.get();
+        for(final BTree.Cursor c = tree.cursor(key, -1); c.valid() && eq(c.key(), key);
+            c.next()) {
+          pres.add(data.pre(c.id()));
+        }
+      }
+    } catch(final IOException ex) {
+      throw Util.notExpected(ex);
+    }
+    pres.sort();
+
+    return new IndexIterator() {
+      final int s = pres.size();
+      int p;
+      @Override
+      public boolean more() { return p < s; }
+      @Override
+      public int pre() { return pres.get(p++); }
+      @Override
+      public int size() { return s; }
+    };
+  }
+
+  @Override
+  public synchronized EntryIterator entries(final IndexEntries input) {
+    final byte[] key = input.get();
+    try {
+      if(key.length == 0) {
+        return input.descending ? keys(tree.last(), false, null) :
+          keys(tree.cursor(key, -1), true, null);
+      }
+      if(input.prefix) return keys(tree.cursor(key, -1), true, key);
+      if(!input.descending) return keys(tree.cursor(key, -1), true, null);
+      // return keys that are smaller than the specified key
+      BTree.Cursor c = tree.cursor(key, -1);
+      if(c.valid()) c.prev();
+      else c = tree.last();
+      return keys(c, false, null);
+    } catch(final IOException ex) {
+      throw Util.notExpected(ex);
+    }
+  }
+
+  @Override
+  public synchronized void add(final ValueCache vc) {
+    try {
+      for(final byte[] key : vc) {
+        for(final int id : vc.ids(key).finish()) tree.insert(key, id);
+      }
+    } catch(final IOException ex) {
+      throw Util.notExpected(ex);
+    }
+  }
+
+  @Override
+  public synchronized void delete(final ValueCache vc) {
+    try {
+      for(final byte[] key : vc) {
+        for(final int id : vc.ids(key).finish()) tree.delete(key, id);
+      }
+    } catch(final IOException ex) {
+      throw Util.notExpected(ex);
+    }
+  }
+
+  @Override
+  public synchronized void flush() {
+    try {
+      tree.flush();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  @Override
+  public boolean drop() {
+    return data.meta.drop(DiskValues.fileSuffix(type) + '.');
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      tree.close();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Returns an iterator for the distinct keys of the tree.
+   * @param cursor cursor, pointing to the first entry
+   * @param asc ascending order
+   * @param prefix prefix of the returned keys (can be {@code null})
+   * @return iterator
+   */
+  private EntryIterator keys(final BTree.Cursor cursor, final boolean asc, final byte[] prefix) {
+    return new EntryIterator() {
+      int count = -1;
+
+      @Override
+      public byte[] next() {
+        synchronized(BTreeValues.this) {
+          count = -1;
+          if(!cursor.valid()) return null;
+          final byte[] key = cursor.key();
+          if(prefix != null && !startsWith(key, prefix)) return null;
+          try {
+            count = 0;
+            do {
+              count++;
+              if(asc) cursor.next();
+              else cursor.prev();
+            } while(cursor.valid() && eq(cursor.key(), key));
+          } catch(final IOException ex) {
+            throw Util.notExpected(ex);
+          }
+          return key;
+        }
+      }
+
+      @Override
+      public int count() {
+        return count;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + '[' + type + ", " + tree + ']';
+  }
+}
@@ -3,9 +3,12 @@ package org.basex.index.value;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.io.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
@@ -46,29 +49,20 @@ public final class DiskValuesBuilder extends ValuesBuilder {
   }
 
   @Override
-  public DiskValues build() throws IOException {
+  public ValueIndex build() throws IOException {
     Util.debug(detailedInfo());
 
     try {
       final boolean updindex = data.meta.updindex;
-      for(pre = 0; pre < size; ++pre) {
-        if((pre & 0x0FFF) == 0) check();
-        if(indexEntry()) {
-          final int id = updindex ? data.id(pre) : pre;
-          if(tokenize) {
-            int pos = 0;
-            for(final byte[] token : distinctTokens(data.text(pre, text))) {
-              index.add(token, id, pos++);
-              count++;
-            }
-          } else if(data.textLen(pre, text) <= data.meta.maxlen) {
-            index.add(data.text(pre, text), id, 0);
-            count++;
-          }
+      if(threads > 1 && size > IO.ENTRIES * threads) {
+        buildParallel();
+      } else {
+        for(pre = 0; pre < size; ++pre) {
+          if((pre & 0x0FFF) == 0) check();
+          count += index(index, pre, updindex);
         }
+        writeIndex(splits > 0);
       }
-
-      writeIndex(splits > 0);
       if(splits > 1) {
         index = null;
         clean();
@@ -76,15 +70,110 @@ public final class DiskValuesBuilder extends ValuesBuilder {
       }
 
       finishIndex();
-      return updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
+      if(!updindex) return new DiskValues(data, type);
+      return data.meta.treeindex ? BTreeValues.create(data, type) :
+        new UpdatableDiskValues(data, type);
 
     } catch(final Throwable th) {
-      // drop index files
-      data.meta.drop(DiskValues.fileSuffix(type) + ".+");
+      // drop partial, final and B+-tree index files (text storage files are kept)
+      data.meta.drop(DiskValues.fileSuffix(type) + "(\\d*[lrt]|[bkj])");
       throw th;
     }
   }
 
+  /**
+   * Builds partial indexes in parallel. The pre range is distributed among several workers,
+   * which write their partial results to disk. All results will then be merged.
+   * @throws IOException I/O exception
+   */
+  private void buildParallel() throws IOException {
+    // create more chunks than threads to balance the load
+    final int chunks = threads << 2, chunk = (size + chunks - 1) / chunks;
+    final ArrayList<Callable<Void>> tasks = new ArrayList<>(chunks);
+    for(int from = 0; from < size; from += chunk) {
+      final int start = from, end = Math.min(size, from + chunk);
+      tasks.add(() -> {
+        index(start, end);
+        return null;
+      });
+    }
+    Parallel.run(threads, tasks);
+    pre = size;
+
+    // no entries: write empty index; single partial index: convert to final index
+    if(splits == 0) writeIndex(false);
+    else if(splits == 1) merge();
+  }
+
+  /**
+   * Indexes the specified range of pre values and writes partial indexes to disk.
+   * @param start first pre value
+   * @param end last pre value (exclusive)
+   * @throws IOException I/O exception
+   */
+  private void index(final int start, final int end) throws IOException {
+    final boolean updindex = data.meta.updindex;
+    IndexTree tree = new IndexTree(type);
+    long entries = 0;
+    for(int p = start; p < end; ++p) {
+      if((p & 0x0FFF) == 0) {
+        checkStop();
+        progress(p == start ? 0 : 0x1000, 0);
+        if(splitRequired(entries)) {
+          writeIndex(tree, split());
+          progress(0, entries);
+          tree = new IndexTree(type);
+          entries = 0;
+          clean();
+        }
+      }
+      entries += index(tree, p, updindex);
+    }
+    if(entries > 0) writeIndex(tree, split());
+    progress(0, entries);
+  }
+
+  /**
+   * Indexes the entry with the specified pre value.
+   * @param tree index tree
+   * @param p pre value
+   * @param updindex updatable index
+   * @return number of index operations
+   */
+  private int index(final IndexTree tree, final int p, final boolean updindex) {
+    if(!indexEntry(p)) return 0;
+
+    final int id = updindex ? data.id(p) : p;
+    if(tokenize) {
+      int pos = 0;
+      for(final byte[] token : distinctTokens(data.text(p, text))) {
+        tree.add(token, id, pos++);
+      }
+      return pos;
+    }
+    if(data.textLen(p, text) > data.meta.maxlen) return 0;
+    tree.add(data.text(p, text), id, 0);
+    return 1;
+  }
+
+  /**
+   * Returns a new split number.
+   * @return split number
+   */
+  private synchronized int split() {
+    return splits++;
+  }
+
+  /**
+   * Updates the progress information.
+   * @param pres number of processed pre values
+   * @param ops number of index operations
+   */
+  private synchronized void progress(final int pres, final long ops) {
+    pre += pres;
+    count += ops;
+  }
+
   @Override
   protected void check() throws IOException {
     super.check();
@@ -168,16 +257,29 @@ public final class DiskValuesBuilder extends ValuesBuilder {
    * @throws IOException I/O exception
    */
   private void writeIndex(final boolean partial) throws IOException {
+    writeIndex(index, partial ? splits : -1);
+    // increase split counter
+    splits++;
+  }
+
+  /**
+   * Writes the specified index tree to disk.
+   * @param tree index tree
+   * @param split number of partial index, or {@code -1} for the final index
+   * @throws IOException I/O exception
+   */
+  private void writeIndex(final IndexTree tree, final int split) throws IOException {
     // write id arrays and references
-    final String name = DiskValues.fileSuffix(type) + (partial ? splits : "");
+    final boolean partial = split != -1;
+    final String name = DiskValues.fileSuffix(type) + (partial ? split : "");
     try(DataOutput outL = new DataOutput(data.meta.dbfile(name + 'l'));
         DataOutput outR = new DataOutput(data.meta.dbfile(name + 'r'))) {
-      outL.write4(index.size());
+      outL.write4(tree.size());
 
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
-      index.init();
-      while(index.more()) {
-        final byte[] values = index.ids.get(index.next());
+      tree.init();
+      while(tree.more()) {
+        final byte[] values = tree.ids.get(tree.next());
         final int vs = Num.size(values);
 
         if(partial) {
@@ -202,12 +304,10 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     // temporarily write texts
     if(partial) {
       try(DataOutput outT = new DataOutput(data.meta.dbfile(name + 't'))) {
-        index.init();
-        while(index.more()) outT.writeToken(index.keys.get(index.next()));
+        tree.init();
+        while(tree.more()) outT.writeToken(tree.keys.get(tree.next()));
       }
     }
-    // increase split counter
-    splits++;
   }
 
   /**
@@ -135,6 +135,40 @@ public class BufferInput extends InputStream {
     return buf[bpos++] & 0xFF;
   }
 
+  /**
+   * Fills the specified array with the next bytes.
+   * In contrast to {@link #read()}, the bytes are not decoded.
+   * @param bytes byte array
+   * @throws IOException I/O exception, or {@link EOFException} if the input is exhausted
+   */
+  public final void readFully(final byte[] bytes) throws IOException {
+    final int bl = bytes.length;
+    for(int b = 0; b < bl;) {
+      final int a = Math.min(bsize - bpos, bl - b);
+      if(a > 0) {
+        System.arraycopy(array, bpos, bytes, b, a);
+        bpos += a;
+        b += a;
+      } else {
+        // refill buffer
+        final int r = readByte();
+        if(r == -1) throw new EOFException();
+        bytes[b++] = (byte) r;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of bytes that can be read without blocking.
+   * @return number of buffered bytes, or bytes available from the underlying stream
+   * @throws IOException I/O exception
+   */
+  @Override
+  public int available() throws IOException {
+    final int a = bsize - bpos;
+    return a > 0 || in == null ? a : in.available();
+  }
+
   /**
    * Reads a string from the input stream, suffixed by a {@code 0} byte.
    * @return string
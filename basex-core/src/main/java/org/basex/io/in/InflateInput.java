@@ -0,0 +1,96 @@
+package org.basex.io.in;
+
+import java.io.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+
+/**
+ * This class decompresses an input stream that has been compressed with a
+ * {@link DeflaterOutputStream}. In contrast to {@link InflaterInputStream},
+ * {@link #available()} returns the number of bytes that can be read without blocking,
+ * and {@link #read(byte[], int, int)} returns as soon as some bytes have been decompressed.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class InflateInput extends InputStream {
+  /** Input stream. */
+  private final InputStream input;
+  /** Inflater. */
+  private final Inflater inflater = new Inflater();
+  /** Compressed bytes. */
+  private final byte[] compressed = new byte[IO.BLOCKSIZE];
+  /** Decompressed bytes. */
+  private final byte[] buffer = new byte[IO.BLOCKSIZE];
+  /** Current buffer position. */
+  private int bpos;
+  /** Current buffer size. */
+  private int bsize;
+
+  /**
+   * Constructor.
+   * @param input input stream to be wrapped
+   */
+  public InflateInput(final InputStream input) {
+    this.input = input;
+  }
+
+  @Override
+  public int read() throws IOException {
+    return bpos < bsize || inflate(true) ? buffer[bpos++] & 0xFF : -1;
+  }
+
+  @Override
+  public int read(final byte[] bytes, final int off, final int len) throws IOException {
+    if(len == 0) return 0;
+    if(bpos == bsize && !inflate(true)) return -1;
+    final int l = Math.min(len, bsize - bpos);
+    System.arraycopy(buffer, bpos, bytes, off, l);
+    bpos += l;
+    return l;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return bpos < bsize || inflate(false) ? bsize - bpos : 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inflater.end();
+    input.close();
+  }
+
+  /**
+   * Decompresses the next bytes.
+   * @param block wait for new input
+   * @return {@code true} if new bytes are available
+   * @throws IOException I/O exception
+   */
+  private boolean inflate(final boolean block) throws IOException {
+    try {
+      while(true) {
+        final int size = inflater.inflate(buffer);
+        if(size > 0) {
+          bpos = 0;
+          bsize = size;
+          return true;
+        }
+        if(inflater.finished() || inflater.needsDictionary()) return false;
+
+        // inflater needs more input: only read available bytes if blocking is not allowed
+        int len = compressed.length;
+        if(!block) {
+          len = Math.min(len, input.available());
+          if(len == 0) return false;
+        }
+        final int read = input.read(compressed, 0, len);
+        if(read == -1) return false;
+        inflater.setInput(compressed, 0, read);
+      }
+    } catch(final DataFormatException ex) {
+      throw new IOException(ex);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package org.basex.io.out;
+
+import java.io.*;
+
+/**
+ * This class passes on all bytes to another output stream and caches them
+ * until a limit is exceeded.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class CacheOutput extends PrintOutput {
+  /** Print output. */
+  private final PrintOutput po;
+  /** Cached bytes ({@code null} if the limit has been exceeded). */
+  private ArrayOutput cache = new ArrayOutput();
+  /** Maximum number of bytes to cache. */
+  private final long limit;
+
+  /**
+   * Constructor.
+   * @param po output stream reference
+   * @param limit maximum number of bytes to cache
+   */
+  public CacheOutput(final PrintOutput po, final long limit) {
+    super(po);
+    this.po = po;
+    this.limit = limit;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    po.write(b);
+    size++;
+    if(cache != null) {
+      if(size > limit) cache = null;
+      else cache.write(b);
+    }
+  }
+
+  /**
+   * Returns the cached bytes.
+   * @return bytes, or {@code null} if the limit has been exceeded
+   */
+  public byte[] cached() {
+    return cache != null ? cache.finish() : null;
+  }
+
+  @Override
+  public boolean finished() {
+    return po.finished();
+  }
+}
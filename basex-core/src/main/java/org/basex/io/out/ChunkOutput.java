@@ -0,0 +1,70 @@
+package org.basex.io.out;
+
+import java.io.*;
+
+/**
+ * This server-side class writes serialized items in length-prefixed chunks.
+ * Every chunk is prefixed by its compressed length (see {@link DataOutput#writeNum(int)}).
+ * A chunk with length {@code 0} indicates the end of an item. As chunks have a maximum size,
+ * items of any size can be sent with constant memory consumption.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class ChunkOutput extends PrintOutput {
+  /** Maximum chunk size. */
+  private static final int CHUNK = 1 << 16;
+  /** Chunk buffer. */
+  private final byte[] buffer = new byte[CHUNK];
+  /** Current buffer position. */
+  private int pos;
+
+  /**
+   * Constructor.
+   * @param os output stream reference
+   */
+  public ChunkOutput(final OutputStream os) {
+    super(os);
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    if(pos == CHUNK) chunk();
+    buffer[pos++] = (byte) b;
+    size++;
+  }
+
+  /**
+   * Ignores flush requests. The serializer flushes its output after each node, which would
+   * send all results in small packets. The caller flushes the underlying stream when all
+   * results have been written.
+   */
+  @Override
+  public void flush() { }
+
+  /**
+   * Writes the remaining bytes of an item and the end marker.
+   * @throws IOException I/O exception
+   */
+  public void finish() throws IOException {
+    if(pos > 0) chunk();
+    os.write(0);
+  }
+
+  /**
+   * Writes the buffered bytes as chunk.
+   * @throws IOException I/O exception
+   */
+  private void chunk() throws IOException {
+    final int v = pos;
+    if(v > 0x3FFF) {
+      os.write(v >>> 24 | 0x80); os.write(v >>> 16); os.write(v >>> 8); os.write(v);
+    } else if(v > 0x3F) {
+      os.write(v >>> 8 | 0x40); os.write(v);
+    } else {
+      os.write(v);
+    }
+    os.write(buffer, 0, v);
+    pos = 0;
+  }
+}
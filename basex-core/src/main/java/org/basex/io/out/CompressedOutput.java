@@ -0,0 +1,60 @@
+package org.basex.io.out;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.random.*;
+
+/**
+ * This class writes a database file in compressed chunks (see {@link CompressedFile}).
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressedOutput extends OutputStream {
+  /** Buffer. */
+  private final byte[] buffer = new byte[IO.BLOCKSIZE];
+  /** Compressed file. */
+  private final CompressedFile file;
+
+  /** Current buffer position. */
+  private int pos;
+  /** Number of written bytes. */
+  private long size;
+
+  /**
+   * Initializes the output.
+   * The database suffix will be added to all filenames.
+   * @param md meta data
+   * @param fn the file to be written to
+   * @throws IOException I/O exception
+   */
+  public CompressedOutput(final MetaData md, final String fn) throws IOException {
+    file = new CompressedFile(md.dbfile(fn), md.dbfile(fn + DATACHK));
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    if(pos == IO.BLOCKSIZE) writeBuffer();
+    buffer[pos++] = (byte) b;
+  }
+
+  /**
+   * Passes on the buffered bytes.
+   * @throws IOException I/O exception
+   */
+  private void writeBuffer() throws IOException {
+    file.write(size, buffer, pos);
+    size += pos;
+    pos = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if(pos > 0) writeBuffer();
+    file.close();
+  }
+}
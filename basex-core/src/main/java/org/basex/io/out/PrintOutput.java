@@ -134,7 +134,7 @@ public class PrintOutput extends OutputStream {
   }
 
   @Override
-  public final void flush() throws IOException {
+  public void flush() throws IOException {
     if(os != null) os.flush();
   }
 
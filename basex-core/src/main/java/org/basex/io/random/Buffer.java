@@ -10,7 +10,7 @@ import org.basex.io.*;
  */
 final class Buffer {
   /** Buffer data. */
-  final byte[] data = new byte[IO.BLOCKSIZE];
+  byte[] data = new byte[IO.BLOCKSIZE];
   /** Disk offset, or block position. */
   long pos = -1;
   /** Dirty flag. */
@@ -1,24 +1,90 @@
 package org.basex.io.random;
 
+import org.basex.core.*;
+import org.basex.util.*;
+
 /**
- * This class provides a simple, clock-based buffer management.
+ * This class provides a scan-resistant buffer management.
+ *
+ * Buffers are organized in two queues, following the simplified 2Q strategy:
+ * pages that are requested for the first time are appended to a small FIFO queue.
+ * If they are requested again, they are moved to an LRU queue, which will only be
+ * evicted if the FIFO queue does not exceed its quota. As a result, sequential scans
+ * will not displace pages that are frequently accessed.
+ * Pinned buffers will never be evicted.
  *
  * @author BaseX Team 2005-19, BSD License
  * @author Christian Gruen
  */
-final class Buffers {
-  /** Number of buffers (must be 1 << n). */
-  private static final int BUFFERS = 1 << 4;
+public final class Buffers {
+  /** Number of buffers per file (can be assigned via {@link StaticOptions#BUFFERS}). */
+  private static volatile int size = 1 << 4;
+
+  /** Queue flag: free buffer. */
+  private static final byte FREE = 0;
+  /** Queue flag: buffer has been accessed once (FIFO queue). */
+  private static final byte ONCE = 1;
+  /** Queue flag: buffer has been accessed several times (LRU queue). */
+  private static final byte OFTEN = 2;
+
   /** Buffers. */
-  private final Buffer[] buf = new Buffer[BUFFERS];
+  private final Buffer[] buf;
+  /** Positions assigned to the buffers ({@code -1}: unassigned). */
+  private final long[] keys;
+  /** Queues of the buffers. */
+  private final byte[] queues;
+  /** Pin counters. */
+  private final int[] pins;
+  /** Previous buffers in the queues ({@code -1}: none). */
+  private final int[] prev;
+  /** Next buffers in the queues ({@code -1}: none). */
+  private final int[] next;
+  /** Hash table, mapping positions to buffer offsets (offsets are incremented by one). */
+  private final int[] table;
+  /** Maximum size of the FIFO queue. */
+  private final int fifoMax;
+
+  /** Heads (most recent entries) of the queues. */
+  private final int[] heads = { -1, -1, -1 };
+  /** Tails (oldest entries) of the queues. */
+  private final int[] tails = { -1, -1, -1 };
+  /** Sizes of the queues. */
+  private final int[] sizes = new int[3];
+
   /** Current buffer offset. */
   private int off;
+  /** Number of cache hits. */
+  private long hits;
+  /** Number of cache misses. */
+  private long misses;
 
   /**
    * Constructor.
    */
   Buffers() {
-    for(int b = 0; b < BUFFERS; ++b) buf[b] = new Buffer();
+    final int s = size;
+    buf = new Buffer[s];
+    keys = new long[s];
+    queues = new byte[s];
+    pins = new int[s];
+    prev = new int[s];
+    next = new int[s];
+    table = new int[Integer.highestOneBit(Math.max(1, s - 1)) << 2];
+    fifoMax = Math.max(1, s >>> 2);
+    for(int b = 0; b < s; ++b) {
+      buf[b] = new Buffer();
+      keys[b] = -1;
+      prev[b] = -1;
+      next[b] = -1;
+    }
+  }
+
+  /**
+   * Assigns the number of buffers that will be created for each file.
+   * @param buffers number of buffers
+   */
+  public static void size(final int buffers) {
+    size = Math.max(2, buffers);
   }
 
   /**
@@ -39,15 +105,177 @@ final class Buffers {
 
   /**
    * Chooses a buffer and sets the offset.
+   * If {@code true} is returned, the current buffer will be assigned to the new position;
+   * its contents must be written back and replaced by the caller.
    * @param p buffer pointer
    * @return true if cursor has changed
    */
   boolean cursor(final long p) {
-    final int o = off;
-    do {
-      if(buf[off].pos == p) return false;
-    } while((off = off + 1 & BUFFERS - 1) != o);
-    off = o + 1 & BUFFERS - 1;
+    // fast path: current buffer is requested again
+    if(keys[off] == p) {
+      hits++;
+      return false;
+    }
+
+    final int b = find(p);
+    if(b != -1) {
+      hits++;
+      off = b;
+      // move buffer to the head of the LRU queue
+      unlink(b);
+      link(b, OFTEN);
+      return false;
+    }
+
+    misses++;
+    final int v = victim();
+    if(keys[v] != -1) remove(keys[v]);
+    unlink(v);
+    keys[v] = p;
+    add(p, v);
+    link(v, ONCE);
+    off = v;
     return true;
   }
+
+  /**
+   * Pins the current buffer. A pinned buffer will not be evicted.
+   */
+  void pin() {
+    pins[off]++;
+  }
+
+  /**
+   * Unpins the current buffer.
+   */
+  void unpin() {
+    if(pins[off] > 0) pins[off]--;
+  }
+
+  @Override
+  public String toString() {
+    final long total = hits + misses;
+    return "buffers: " + buf.length + ", hits: " + hits + ", misses: " + misses +
+        (total == 0 ? "" : " (" + hits * 100 / total + "% hits)");
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Chooses a buffer that can be evicted.
+   * @return offset of the buffer
+   */
+  private int victim() {
+    // return unused buffer
+    if(sizes[ONCE] + sizes[OFTEN] < buf.length) {
+      for(int b = 0; b < buf.length; b++) {
+        if(queues[b] == FREE) return b;
+      }
+    }
+    // evict oldest FIFO entry if the queue exceeds its quota, or LRU entry otherwise
+    final boolean fifo = sizes[ONCE] > fifoMax || sizes[OFTEN] == 0;
+    int v = oldest(fifo ? ONCE : OFTEN);
+    if(v == -1) v = oldest(fifo ? OFTEN : ONCE);
+    if(v == -1) throw Util.notExpected("All % buffers are pinned.", buf.length);
+    return v;
+  }
+
+  /**
+   * Returns the oldest unpinned buffer of the specified queue.
+   * @param queue queue
+   * @return offset of the buffer, or {@code -1}
+   */
+  private int oldest(final byte queue) {
+    for(int b = tails[queue]; b != -1; b = prev[b]) {
+      if(pins[b] == 0 && b != off) return b;
+    }
+    return -1;
+  }
+
+  /**
+   * Inserts a buffer at the head of the specified queue.
+   * @param b buffer offset
+   * @param queue queue
+   */
+  private void link(final int b, final byte queue) {
+    final int h = heads[queue];
+    prev[b] = -1;
+    next[b] = h;
+    if(h != -1) prev[h] = b;
+    else tails[queue] = b;
+    heads[queue] = b;
+    queues[b] = queue;
+    sizes[queue]++;
+  }
+
+  /**
+   * Removes a buffer from its queue.
+   * @param b buffer offset
+   */
+  private void unlink(final int b) {
+    final byte queue = queues[b];
+    if(queue == FREE) return;
+    final int p = prev[b], n = next[b];
+    if(p != -1) next[p] = n;
+    else heads[queue] = n;
+    if(n != -1) prev[n] = p;
+    else tails[queue] = p;
+    prev[b] = -1;
+    next[b] = -1;
+    queues[b] = FREE;
+    sizes[queue]--;
+  }
+
+  /**
+   * Returns the hash table slot for the specified position.
+   * @param p position
+   * @return slot
+   */
+  private int slot(final long p) {
+    final long h = p * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ h >>> 32) & table.length - 1;
+  }
+
+  /**
+   * Finds the buffer for the specified position.
+   * @param p position
+   * @return buffer offset or {@code -1}
+   */
+  private int find(final long p) {
+    final int mask = table.length - 1;
+    for(int s = slot(p);; s = s + 1 & mask) {
+      final int b = table[s] - 1;
+      if(b == -1 || keys[b] == p) return b;
+    }
+  }
+
+  /**
+   * Adds a position to the hash table.
+   * @param p position
+   * @param b buffer offset
+   */
+  private void add(final long p, final int b) {
+    final int mask = table.length - 1;
+    int s = slot(p);
+    while(table[s] != 0) s = s + 1 & mask;
+    table[s] = b + 1;
+  }
+
+  /**
+   * Removes a position from the hash table.
+   * @param p position
+   */
+  private void remove(final long p) {
+    final int mask = table.length - 1;
+    int s = slot(p);
+    while(keys[table[s] - 1] != p) s = s + 1 & mask;
+    // shift subsequent entries backwards to close the gap
+    for(int n = s + 1 & mask; table[n] != 0; n = n + 1 & mask) {
+      final int h = slot(keys[table[n] - 1]);
+      if(s <= n ? s < h && h <= n : s < h || h <= n) continue;
+      table[s] = table[n];
+      s = n;
+    }
+    table[s] = 0;
+  }
 }
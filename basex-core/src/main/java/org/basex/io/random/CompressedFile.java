@@ -0,0 +1,263 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+
+/**
+ * This class provides random access to a file that is stored in compressed chunks.
+ *
+ * The logical contents of the file are divided into chunks of {@link #CHUNK} bytes, which are
+ * compressed with {@link Lz4} and appended to the physical file. An additional index file
+ * contains the logical file length, the physical offsets and sizes of the chunks, and their
+ * uncompressed lengths. A chunk whose compressed size equals its uncompressed length is stored
+ * raw. Updated chunks are written back to their old position if they fit, or appended otherwise.
+ * Decompressed chunks are cached.
+ *
+ * NOTE: this class is not thread-safe.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressedFile implements Closeable {
+  /** Number of bits used for addressing bytes in a chunk. */
+  private static final int POWER = 16;
+  /** Logical chunk size (must be a multiple of {@link IO#BLOCKSIZE}). */
+  public static final int CHUNK = 1 << POWER;
+  /** Mask for addressing bytes in a chunk. */
+  private static final int MASK = CHUNK - 1;
+  /** Number of cached chunks. */
+  private static final int CACHE = 8;
+
+  /** Physical file. */
+  private final RandomAccessFile raf;
+  /** Index file. */
+  private final IOFile index;
+
+  /** Physical offsets of the chunks. */
+  private long[] offsets;
+  /** Compressed sizes of the chunks. */
+  private int[] sizes;
+  /** Uncompressed lengths of the chunks. */
+  private int[] lengths;
+  /** Number of chunks. */
+  private int chunks;
+  /** Logical file length. */
+  private long length;
+  /** Physical file length. */
+  private long end;
+
+  /** Cached chunks (most recently used first). */
+  private final byte[][] cache = new byte[CACHE][];
+  /** Ids of the cached chunks ({@code -1}: unassigned). */
+  private final int[] cached = new int[CACHE];
+  /** Dirty flags of the cached chunks. */
+  private final boolean[] dirty = new boolean[CACHE];
+  /** Indicates if the index needs to be written. */
+  private boolean changed;
+
+  /**
+   * Constructor.
+   * @param file physical file
+   * @param index index file
+   * @throws IOException I/O exception
+   */
+  public CompressedFile(final IOFile file, final IOFile index) throws IOException {
+    this.index = index;
+    if(index.exists()) {
+      try(DataInput in = new DataInput(index)) {
+        final long[] lens = in.readLongs(in.readNum());
+        length = lens[0];
+        end = lens[1];
+        offsets = in.readLongs(in.readNum());
+        sizes = in.readNums();
+        lengths = in.readNums();
+        chunks = offsets.length;
+      }
+    } else {
+      offsets = new long[Array.CAPACITY];
+      sizes = new int[Array.CAPACITY];
+      lengths = new int[Array.CAPACITY];
+    }
+    raf = new RandomAccessFile(file.file(), "rw");
+    Arrays.fill(cached, -1);
+  }
+
+  /**
+   * Returns the logical file length.
+   * @return length
+   */
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Assigns the logical file length.
+   * @param len length
+   */
+  public void length(final long len) {
+    if(len != length) {
+      length = len;
+      changed = true;
+    }
+  }
+
+  /**
+   * Reads bytes from the specified position. The bytes must not span several chunks.
+   * @param pos logical position
+   * @param bytes target array
+   * @param len number of bytes
+   * @throws IOException I/O exception
+   */
+  public void read(final long pos, final byte[] bytes, final int len) throws IOException {
+    System.arraycopy(chunk((int) (pos >>> POWER)), (int) pos & MASK, bytes, 0, len);
+  }
+
+  /**
+   * Writes bytes to the specified position. The bytes must not span several chunks.
+   * @param pos logical position
+   * @param bytes source array
+   * @param len number of bytes
+   * @throws IOException I/O exception
+   */
+  public void write(final long pos, final byte[] bytes, final int len) throws IOException {
+    System.arraycopy(bytes, 0, chunk((int) (pos >>> POWER)), (int) pos & MASK, len);
+    dirty[0] = true;
+    if(pos + len > length) length(pos + len);
+  }
+
+  /**
+   * Writes all dirty chunks and the index.
+   * @throws IOException I/O exception
+   */
+  public void flush() throws IOException {
+    for(int c = 0; c < CACHE; c++) {
+      if(dirty[c]) store(c);
+    }
+    // discard chunks beyond the logical file length
+    final int cl = (int) (length + MASK >>> POWER);
+    if(cl < chunks) {
+      chunks = cl;
+      changed = true;
+    }
+    if(!changed) return;
+
+    try(DataOutput out = new DataOutput(index)) {
+      out.writeLongs(new long[] { length, end });
+      out.writeLongs(Arrays.copyOf(offsets, chunks));
+      out.writeNums(Arrays.copyOf(sizes, chunks));
+      out.writeNums(Arrays.copyOf(lengths, chunks));
+    }
+    changed = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (length: " + length + ", stored: " + end + ')';
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the specified chunk and moves it to the head of the cache.
+   * @param id id of the chunk
+   * @return decompressed chunk
+   * @throws IOException I/O exception
+   */
+  private byte[] chunk(final int id) throws IOException {
+    int c = 0;
+    while(c < CACHE && cached[c] != id) c++;
+    if(c == CACHE) {
+      // chunk is not cached: write back least recently used chunk and reuse its array
+      c = CACHE - 1;
+      if(dirty[c]) store(c);
+      if(cache[c] == null) cache[c] = new byte[CHUNK];
+      load(id, cache[c]);
+      cached[c] = id;
+      dirty[c] = false;
+    }
+    // move chunk to the head of the cache
+    final byte[] data = cache[c];
+    final boolean d = dirty[c];
+    for(; c > 0; c--) {
+      cache[c] = cache[c - 1];
+      cached[c] = cached[c - 1];
+      dirty[c] = dirty[c - 1];
+    }
+    cache[0] = data;
+    cached[0] = id;
+    dirty[0] = d;
+    return data;
+  }
+
+  /**
+   * Loads and decompresses a chunk.
+   * @param id id of the chunk
+   * @param data target array
+   * @throws IOException I/O exception
+   */
+  private void load(final int id, final byte[] data) throws IOException {
+    final int size = id < chunks ? sizes[id] : 0, len = size == 0 ? 0 : lengths[id];
+    if(size != 0) {
+      final byte[] packed = size == len ? data : new byte[size];
+      raf.seek(offsets[id]);
+      raf.readFully(packed, 0, size);
+      if(packed != data) Lz4.unpack(packed, size, data);
+    }
+    Arrays.fill(data, len, CHUNK, (byte) 0);
+  }
+
+  /**
+   * Compresses and writes a cached chunk.
+   * @param c cache offset
+   * @throws IOException I/O exception
+   */
+  private void store(final int c) throws IOException {
+    dirty[c] = false;
+    final int id = cached[c];
+    final long start = (long) id << POWER;
+    if(start >= length) return;
+
+    final byte[] data = cache[c];
+    final int len = (int) Math.min(CHUNK, length - start);
+    byte[] packed = Lz4.pack(data, len);
+    if(packed.length >= len) packed = data;
+    final int size = packed == data ? len : packed.length;
+
+    // register new chunks
+    if(id >= chunks) {
+      final int cl = id + 1;
+      if(cl > offsets.length) {
+        final int s = Math.max(cl, Array.newSize(offsets.length));
+        offsets = Arrays.copyOf(offsets, s);
+        sizes = Arrays.copyOf(sizes, s);
+        lengths = Arrays.copyOf(lengths, s);
+      }
+      for(int i = chunks; i < cl; i++) sizes[i] = 0;
+      chunks = cl;
+    }
+    // overwrite old chunk if new one fits, or append it
+    if(size > sizes[id]) {
+      offsets[id] = end;
+      end += size;
+    }
+    sizes[id] = size;
+    lengths[id] = len;
+    raf.seek(offsets[id]);
+    raf.write(packed, 0, size);
+    changed = true;
+  }
+}
@@ -7,6 +7,7 @@ import org.basex.util.*;
 
 /**
  * This class allows positional read and write access to a database file.
+ * The file contents can optionally be stored in compressed chunks (see {@link CompressedFile}).
  *
  * @author BaseX Team 2005-19, BSD License
  * @author Christian Gruen
@@ -14,14 +15,20 @@ import org.basex.util.*;
 public final class DataAccess implements Closeable {
   /** Buffer manager. */
   private final Buffers bm = new Buffers();
-  /** Reference to the data input stream. */
+  /** Reference to the data input stream ({@code null} if file is compressed). */
   private final RandomAccessFile raf;
+  /** Compressed file ({@code null} if file is not compressed). */
+  private final CompressedFile cf;
   /** File length. */
   private long length;
   /** Changed flag. */
   private boolean changed;
   /** Offset. */
   private int off;
+  /** Read-only memory mapping (can be {@code null}). */
+  private volatile Mapping mapping;
+  /** Memory mapping that will be unmapped when the file is closed (can be {@code null}). */
+  private Mapping mapped;
 
   /**
    * Constructor, initializing the file reader.
@@ -34,6 +41,7 @@ public final class DataAccess implements Closeable {
       f = new RandomAccessFile(file.file(), "rw");
       length = f.length();
       raf = f;
+      cf = null;
       cursor(0);
     } catch(final IOException ex) {
       if(f != null) f.close();
@@ -41,6 +49,31 @@ public final class DataAccess implements Closeable {
     }
   }
 
+  /**
+   * Constructor, initializing the reader for a file that is stored in compressed chunks.
+   * @param file the file to be read
+   * @param index index file
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final IOFile index) throws IOException {
+    cf = new CompressedFile(file, index);
+    length = cf.length();
+    raf = null;
+    cursor(0);
+  }
+
+  /**
+   * Maps the file into memory. Positional read operations will then be performed
+   * without synchronization until the first write operation is performed.
+   * @throws IOException I/O exception
+   */
+  public synchronized void map() throws IOException {
+    flush();
+    unmap();
+    mapped = length == 0 || raf == null ? null : new Mapping(raf, length);
+    mapping = mapped;
+  }
+
   /**
    * Flushes the buffered data.
    */
@@ -49,10 +82,13 @@ public final class DataAccess implements Closeable {
       for(final Buffer b : bm.all()) {
         if(b.dirty) writeBlock(b);
       }
-      if(changed) {
+      if(cf != null) {
+        cf.length(length);
+        cf.flush();
+      } else if(changed) {
         raf.setLength(length);
-        changed = false;
       }
+      changed = false;
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -60,9 +96,11 @@ public final class DataAccess implements Closeable {
 
   @Override
   public synchronized void close() {
+    unmap();
     flush();
     try {
-      raf.close();
+      if(cf != null) cf.close();
+      else raf.close();
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -97,9 +135,13 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return integer value
    */
-  public synchronized byte read1(final long pos) {
-    cursor(pos);
-    return read1();
+  public byte read1(final long pos) {
+    final Mapping m = mapping;
+    if(m != null) return (byte) m.read1(pos);
+    synchronized(this) {
+      cursor(pos);
+      return read1();
+    }
   }
 
   /**
@@ -115,9 +157,13 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return integer value
    */
-  public synchronized int read4(final long pos) {
-    cursor(pos);
-    return read4();
+  public int read4(final long pos) {
+    final Mapping m = mapping;
+    if(m != null) return m.read4(pos);
+    synchronized(this) {
+      cursor(pos);
+      return read4();
+    }
   }
 
   /**
@@ -133,9 +179,13 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return long value
    */
-  public synchronized long read5(final long pos) {
-    cursor(pos);
-    return read5();
+  public long read5(final long pos) {
+    final Mapping m = mapping;
+    if(m != null) return m.read5(pos);
+    synchronized(this) {
+      cursor(pos);
+      return read5();
+    }
   }
 
   /**
@@ -151,9 +201,13 @@ public final class DataAccess implements Closeable {
    * @param p text position
    * @return read num
    */
-  public synchronized int readNum(final long p) {
-    cursor(p);
-    return readNum();
+  public int readNum(final long p) {
+    final Mapping m = mapping;
+    if(m != null) return m.readNum(p);
+    synchronized(this) {
+      cursor(p);
+      return readNum();
+    }
   }
 
   /**
@@ -161,9 +215,13 @@ public final class DataAccess implements Closeable {
    * @param p text position
    * @return text as byte array
    */
-  public synchronized byte[] readToken(final long p) {
-    cursor(p);
-    return readToken();
+  public byte[] readToken(final long p) {
+    final Mapping m = mapping;
+    if(m != null) return m.readToken(p);
+    synchronized(this) {
+      cursor(p);
+      return readToken();
+    }
   }
 
   /**
@@ -181,9 +239,13 @@ public final class DataAccess implements Closeable {
    * @param len length
    * @return byte array
    */
-  public synchronized byte[] readBytes(final long pos, final int len) {
-    cursor(pos);
-    return readBytes(len);
+  public byte[] readBytes(final long pos, final int len) {
+    final Mapping m = mapping;
+    if(m != null) return m.readBytes(pos, len);
+    synchronized(this) {
+      cursor(pos);
+      return readBytes(len);
+    }
   }
 
   /**
@@ -208,11 +270,24 @@ public final class DataAccess implements Closeable {
     return b;
   }
 
+  /**
+   * Unmaps the file. Called if the file is closed, i.e., if no other thread can read the file.
+   */
+  private void unmap() {
+    mapping = null;
+    if(mapped != null) {
+      mapped.unmap();
+      mapped = null;
+    }
+  }
+
   /**
    * Sets the disk cursor.
    * @param pos read position
    */
   public void cursor(final long pos) {
+    // switch to buffered access (the mapping may still be used by concurrent readers)
+    mapping = null;
     off = (int) (pos & IO.BLOCKSIZE - 1);
     final long b = pos - off;
     if(!bm.cursor(b)) return;
@@ -221,9 +296,13 @@ public final class DataAccess implements Closeable {
     try {
       if(bf.dirty) writeBlock(bf);
       bf.pos = b;
-      raf.seek(bf.pos);
-      if(bf.pos < raf.length())
-        raf.readFully(bf.data, 0, (int) Math.min(length - bf.pos, IO.BLOCKSIZE));
+      if(cf != null) {
+        if(b < length) cf.read(b, bf.data, (int) Math.min(length - b, IO.BLOCKSIZE));
+      } else {
+        raf.seek(bf.pos);
+        if(bf.pos < raf.length())
+          raf.readFully(bf.data, 0, (int) Math.min(length - bf.pos, IO.BLOCKSIZE));
+      }
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -341,6 +420,7 @@ public final class DataAccess implements Closeable {
    */
   public long free(final long pos, final int size) {
     // old text size (available space)
+    cursor(pos);
     int os = readNum(pos) + (int) (cursor() - pos);
 
     // extend available space by subsequent zero-bytes
@@ -381,6 +461,12 @@ public final class DataAccess implements Closeable {
     }
   }
 
+  @Override
+  public String toString() {
+    return Util.className(this) + " (length: " + length + ", " + bm +
+        (cf != null ? ", " + cf : "") + ')';
+  }
+
   // PRIVATE METHODS ==============================================================================
 
   /**
@@ -422,8 +508,12 @@ public final class DataAccess implements Closeable {
    */
   private void writeBlock(final Buffer buffer) throws IOException {
     final long pos = buffer.pos, len = Math.min(IO.BLOCKSIZE, length - pos);
-    raf.seek(pos);
-    raf.write(buffer.data, 0, (int) len);
+    if(cf != null) {
+      if(len > 0) cf.write(pos, buffer.data, (int) len);
+    } else {
+      raf.seek(pos);
+      raf.write(buffer.data, 0, (int) len);
+    }
     buffer.dirty = false;
   }
 
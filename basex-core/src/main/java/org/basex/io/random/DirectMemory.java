@@ -0,0 +1,261 @@
+package org.basex.io.random;
+
+import java.lang.reflect.*;
+import java.nio.*;
+import java.util.*;
+
+import org.basex.util.*;
+
+/**
+ * This class provides random access to memory that is allocated outside the Java heap.
+ * Memory is organized in chunks of fixed size, which are allocated on demand. The first chunk
+ * starts with a small size and grows until it reaches the regular chunk size.
+ * The memory will be released when {@link #release()} is called, or when the instance is
+ * garbage-collected.
+ *
+ * NOTE: this class is not thread-safe.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class DirectMemory {
+  /** Number of bits used for addressing bytes in a chunk. */
+  private static final int POWER = 20;
+  /** Chunk size. */
+  private static final int CHUNK = 1 << POWER;
+  /** Mask for addressing bytes in a chunk. */
+  private static final int MASK = CHUNK - 1;
+  /** Initial size of the first chunk. */
+  private static final int FIRST = 1 << 12;
+  /** Size of the buffer that is used for moving data. */
+  private static final int MOVE = 1 << 16;
+  /** Cleaner for direct buffers ({@code null} if not available). */
+  private static final Cleaner CLEANER = cleaner();
+
+  /** Allocated chunks. */
+  private ByteBuffer[] chunks = { };
+
+  /**
+   * Ensures that the specified number of bytes is allocated.
+   * @param size number of bytes
+   */
+  public void ensure(final long size) {
+    if(size <= capacity()) return;
+
+    // resize first chunk
+    final int ol = chunks.length;
+    if(ol == 0 || ol == 1 && chunks[0].capacity() < CHUNK) {
+      int cap = ol == 0 ? FIRST : chunks[0].capacity();
+      while(cap < size && cap < CHUNK) cap <<= 1;
+      final ByteBuffer chunk = ByteBuffer.allocateDirect(cap);
+      if(ol == 1) {
+        final ByteBuffer old = chunks[0];
+        chunk.put((ByteBuffer) old.duplicate().clear());
+        clean(old);
+      }
+      chunks = new ByteBuffer[] { chunk };
+      if(size <= cap) return;
+    }
+
+    // add chunks
+    final int cl = (int) (size + MASK >>> POWER), cs = chunks.length;
+    chunks = Arrays.copyOf(chunks, Math.max(cl, cs + (cs >>> 1)));
+    for(int c = cs; c < chunks.length; c++) chunks[c] = ByteBuffer.allocateDirect(CHUNK);
+  }
+
+  /**
+   * Returns the number of allocated bytes.
+   * @return number of bytes
+   */
+  public long capacity() {
+    final int cl = chunks.length;
+    return cl == 0 ? 0 : ((long) cl - 1 << POWER) + chunks[cl - 1].capacity();
+  }
+
+  /**
+   * Reads a byte value from the specified position.
+   * @param pos position
+   * @return byte value
+   */
+  public byte get(final long pos) {
+    return chunks[(int) (pos >>> POWER)].get((int) pos & MASK);
+  }
+
+  /**
+   * Writes a byte value to the specified position.
+   * @param pos position
+   * @param value value
+   */
+  public void put(final long pos, final byte value) {
+    chunks[(int) (pos >>> POWER)].put((int) pos & MASK, value);
+  }
+
+  /**
+   * Reads a long value from the specified position, which must be a multiple of 8.
+   * @param pos position
+   * @return long value
+   */
+  public long getLong(final long pos) {
+    return chunks[(int) (pos >>> POWER)].getLong((int) pos & MASK);
+  }
+
+  /**
+   * Writes a long value to the specified position, which must be a multiple of 8.
+   * @param pos position
+   * @param value value
+   */
+  public void putLong(final long pos, final long value) {
+    chunks[(int) (pos >>> POWER)].putLong((int) pos & MASK, value);
+  }
+
+  /**
+   * Reads bytes from the specified position.
+   * @param pos position
+   * @param bytes target array
+   * @param off array offset
+   * @param len number of bytes
+   */
+  public void get(final long pos, final byte[] bytes, final int off, final int len) {
+    long p = pos;
+    for(int o = off, e = off + len; o < e;) {
+      // use duplicate buffer to leave position of chunk untouched
+      final ByteBuffer bb = chunks[(int) (p >>> POWER)].duplicate();
+      final int s = (int) p & MASK, l = Math.min(e - o, CHUNK - s);
+      bb.position(s);
+      bb.get(bytes, o, l);
+      o += l;
+      p += l;
+    }
+  }
+
+  /**
+   * Writes bytes to the specified position.
+   * @param pos position
+   * @param bytes source array
+   * @param off array offset
+   * @param len number of bytes
+   */
+  public void put(final long pos, final byte[] bytes, final int off, final int len) {
+    long p = pos;
+    for(int o = off, e = off + len; o < e;) {
+      final ByteBuffer bb = chunks[(int) (p >>> POWER)].duplicate();
+      final int s = (int) p & MASK, l = Math.min(e - o, CHUNK - s);
+      bb.position(s);
+      bb.put(bytes, o, l);
+      o += l;
+      p += l;
+    }
+  }
+
+  /**
+   * Compares the bytes at the specified position with a token.
+   * @param pos position
+   * @param token token
+   * @return result of check
+   */
+  public boolean equals(final long pos, final byte[] token) {
+    final int tl = token.length;
+    for(int t = 0; t < tl; t++) {
+      if(get(pos + t) != token[t]) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Moves a memory area. The areas may overlap.
+   * @param src source position
+   * @param trg target position
+   * @param len number of bytes
+   */
+  public void move(final long src, final long trg, final long len) {
+    if(src == trg || len == 0) return;
+    final byte[] tmp = new byte[(int) Math.min(len, MOVE)];
+    if(trg < src) {
+      for(long o = 0; o < len;) {
+        final int l = (int) Math.min(len - o, tmp.length);
+        get(src + o, tmp, 0, l);
+        put(trg + o, tmp, 0, l);
+        o += l;
+      }
+    } else {
+      for(long o = len; o > 0;) {
+        final int l = (int) Math.min(o, tmp.length);
+        o -= l;
+        get(src + o, tmp, 0, l);
+        put(trg + o, tmp, 0, l);
+      }
+    }
+  }
+
+  /**
+   * Releases the allocated memory. The instance can be reused afterwards.
+   */
+  public void release() {
+    final ByteBuffer[] cs = chunks;
+    chunks = new ByteBuffer[0];
+    for(final ByteBuffer chunk : cs) clean(chunk);
+  }
+
+  /**
+   * Releases the memory of a buffer if a cleaner is available.
+   * The buffer must not be accessed anymore.
+   * @param chunk buffer
+   */
+  static void clean(final ByteBuffer chunk) {
+    if(CLEANER != null) CLEANER.clean(chunk);
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + '[' + Performance.format(capacity()) + ']';
+  }
+
+  /**
+   * Returns a cleaner for direct buffers, or {@code null} if none is available.
+   * @return cleaner
+   */
+  private static Cleaner cleaner() {
+    try {
+      // Java 9 and later: invoke cleaner via unsafe instance
+      final Class<?> clz = Class.forName("sun.misc.Unsafe");
+      final Method clean = clz.getMethod("invokeCleaner", ByteBuffer.class);
+      final Field field = clz.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      final Object unsafe = field.get(null);
+      return bb -> clean.invoke(unsafe, bb);
+    } catch(final Exception ex) {
+      Util.debug(ex);
+    }
+    try {
+      // Java 8: invoke cleaner of buffer
+      final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+      final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+      return bb -> clean.invoke(cleaner.invoke(bb));
+    } catch(final Exception ex) {
+      Util.debug(ex);
+    }
+    return null;
+  }
+
+  /** Cleaner for direct buffers. */
+  private interface Cleaner {
+    /**
+     * Releases the memory of a buffer.
+     * @param bb buffer
+     * @throws Exception exception
+     */
+    void run(ByteBuffer bb) throws Exception;
+
+    /**
+     * Releases the memory of a buffer and ignores errors.
+     * @param bb buffer
+     */
+    default void clean(final ByteBuffer bb) {
+      try {
+        run(bb);
+      } catch(final Exception ex) {
+        Util.debug(ex);
+      }
+    }
+  }
+}
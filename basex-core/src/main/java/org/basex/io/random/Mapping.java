@@ -0,0 +1,146 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.*;
+
+import org.basex.util.*;
+
+/**
+ * This class provides read-only, positional access to a memory-mapped file.
+ * Files are mapped in segments, as a single mapping is limited to {@code 2^31} bytes.
+ * As no cursor is maintained, all methods can be called by concurrent readers.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+final class Mapping {
+  /** Number of bits used for addressing bytes in a segment. */
+  private static final int POWER = 30;
+  /** Segment size. */
+  private static final long SEGMENT = 1L << POWER;
+  /** Mask for addressing bytes in a segment. */
+  private static final int MASK = (int) SEGMENT - 1;
+
+  /** Mapped segments. */
+  private final MappedByteBuffer[] segments;
+
+  /**
+   * Constructor.
+   * @param file file to be mapped
+   * @param length number of bytes to be mapped
+   * @throws IOException I/O exception
+   */
+  Mapping(final RandomAccessFile file, final long length) throws IOException {
+    final FileChannel fc = file.getChannel();
+    final int sl = (int) (length + MASK >>> POWER);
+    segments = new MappedByteBuffer[sl];
+    for(int s = 0; s < sl; s++) {
+      final long pos = (long) s << POWER;
+      segments[s] = fc.map(MapMode.READ_ONLY, pos, Math.min(SEGMENT, length - pos));
+    }
+  }
+
+  /**
+   * Reads a byte value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  int read1(final long pos) {
+    return segments[(int) (pos >>> POWER)].get((int) pos & MASK) & 0xFF;
+  }
+
+  /**
+   * Reads a short value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  int read2(final long pos) {
+    final MappedByteBuffer bb = segments[(int) (pos >>> POWER)];
+    final int o = (int) pos & MASK;
+    if(o + 2 <= bb.limit()) return bb.getShort(o) & 0xFFFF;
+    return (read1(pos) << 8) + read1(pos + 1);
+  }
+
+  /**
+   * Reads an integer value from the specified position.
+   * @param pos position
+   * @return integer value
+   */
+  int read4(final long pos) {
+    final MappedByteBuffer bb = segments[(int) (pos >>> POWER)];
+    final int o = (int) pos & MASK;
+    if(o + 4 <= bb.limit()) return bb.getInt(o);
+    return (read2(pos) << 16) + read2(pos + 2);
+  }
+
+  /**
+   * Reads a 5-byte value from the specified position.
+   * @param pos position
+   * @return long value
+   */
+  long read5(final long pos) {
+    return ((long) read1(pos) << 32) + (read4(pos + 1) & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Reads a compressed number from the specified position.
+   * @param pos position
+   * @return number
+   */
+  int readNum(final long pos) {
+    final int v = read1(pos);
+    switch(v & 0xC0) {
+      case 0:    return v;
+      case 0x40: return (v - 0x40 << 8) + read1(pos + 1);
+      case 0x80: return (v - 0x80 << 24) + (read1(pos + 1) << 16) + read2(pos + 2);
+      default:   return read4(pos + 1);
+    }
+  }
+
+  /**
+   * Reads a token from the specified position.
+   * @param pos position
+   * @return token
+   */
+  byte[] readToken(final long pos) {
+    final int l = readNum(pos);
+    return readBytes(pos + Num.length(l), l);
+  }
+
+  /**
+   * Reads a number of bytes from the specified position.
+   * @param pos position
+   * @param len number of bytes
+   * @return byte array
+   */
+  byte[] readBytes(final long pos, final int len) {
+    final byte[] bytes = new byte[len];
+    long p = pos;
+    for(int o = 0; o < len;) {
+      // use duplicate buffer to leave position of shared buffer untouched
+      final ByteBuffer bb = segments[(int) (p >>> POWER)].duplicate();
+      final int s = (int) p & MASK, l = Math.min(len - o, bb.limit() - s);
+      bb.position(s);
+      bb.get(bytes, o, l);
+      o += l;
+      p += l;
+    }
+    return bytes;
+  }
+
+  /**
+   * Unmaps all segments. Must only be called if no other thread accesses the mapping.
+   * Otherwise, the file would stay locked on some platforms (e.g. Windows) until
+   * the segments are garbage-collected.
+   */
+  void unmap() {
+    final int sl = segments.length;
+    for(int s = 0; s < sl; s++) {
+      final MappedByteBuffer segment = segments[s];
+      segments[s] = null;
+      if(segment != null) DirectMemory.clean(segment);
+    }
+  }
+}
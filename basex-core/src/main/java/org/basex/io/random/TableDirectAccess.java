@@ -0,0 +1,149 @@
+package org.basex.io.random;
+
+import org.basex.data.*;
+import org.basex.io.*;
+
+/**
+ * This class allows main memory access to the database table representation.
+ * In contrast to {@link TableMemAccess}, the table is stored outside the Java heap.
+ *
+ * NOTE: this class is not thread-safe.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class TableDirectAccess extends TableAccess {
+  /** Direct memory. */
+  private final DirectMemory memory = new DirectMemory();
+
+  /**
+   * Stores the table in direct memory.
+   * @param md meta data
+   */
+  public TableDirectAccess(final MetaData md) {
+    super(md);
+  }
+
+  @Override
+  public void flush(final boolean all) { }
+
+  @Override
+  public void close() {
+    memory.release();
+  }
+
+  @Override
+  public boolean lock(final boolean lock) { return true; }
+
+  @Override
+  public int read1(final int p, final int o) {
+    return (int) (read(p, o) >> ((o < 8 ? 7 : 15) - o << 3) & 0xFF);
+  }
+
+  @Override
+  public int read2(final int p, final int o) {
+    return (int) (read(p, o) >> ((o < 8 ? 6 : 14) - o << 3) & 0xFFFF);
+  }
+
+  @Override
+  public int read4(final int p, final int o) {
+    return (int) (read(p, o) >> ((o < 8 ? 4 : 12) - o << 3));
+  }
+
+  @Override
+  public long read5(final int p, final int o) {
+    return read(p, o) >> ((o < 8 ? 3 : 11) - o << 3) & 0xFFFFFFFFFFL;
+  }
+
+  @Override
+  public void write1(final int p, final int o, final int v) {
+    dirty();
+    final long d = (o < 8 ? 7 : 15) - o << 3;
+    write(p, o, read(p, o) & ~(0xFFL << d) | (long) v << d);
+  }
+
+  @Override
+  public void write2(final int p, final int o, final int v) {
+    dirty();
+    final long d = (o < 8 ? 6 : 14) - o << 3;
+    write(p, o, read(p, o) & ~(0xFFFFL << d) | (long) v << d);
+  }
+
+  @Override
+  public void write4(final int p, final int o, final int v) {
+    dirty();
+    final long d = (o < 8 ? 4 : 12) - o << 3;
+    write(p, o, read(p, o) & ~(0xFFFFFFFFL << d) | (long) v << d);
+  }
+
+  @Override
+  public void write5(final int p, final int o, final long v) {
+    dirty();
+    final long d = (o < 8 ? 3 : 11) - o << 3;
+    write(p, o, read(p, o) & ~(0xFFFFFFFFFFL << d) | v << d);
+  }
+
+  @Override
+  protected void copy(final byte[] entries, final int pre, final int last) {
+    dirty();
+    memory.put((long) pre << IO.NODEPOWER, entries, 0, last - pre << IO.NODEPOWER);
+  }
+
+  @Override
+  public void delete(final int pre, final int nr) {
+    if(nr == 0) return;
+    move(pre + nr, pre);
+  }
+
+  @Override
+  public void insert(final int pre, final byte[] entries) {
+    if(entries.length == 0) return;
+    move(pre, pre + (entries.length >>> IO.NODEPOWER));
+    set(pre, entries);
+  }
+
+  @Override
+  protected void dirty() {
+    dirty = true;
+  }
+
+  @Override
+  public String toString() {
+    return memory.toString();
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the long value that contains the specified entry offset.
+   * @param p pre value
+   * @param o offset
+   * @return long value
+   */
+  private long read(final int p, final int o) {
+    return memory.getLong(((long) p << IO.NODEPOWER) + (o & 8));
+  }
+
+  /**
+   * Writes the long value that contains the specified entry offset.
+   * @param p pre value
+   * @param o offset
+   * @param v long value
+   */
+  private void write(final int p, final int o, final long v) {
+    memory.putLong(((long) p << IO.NODEPOWER) + (o & 8), v);
+  }
+
+  /**
+   * Moves entries inside the table.
+   * @param op source position
+   * @param np destination position
+   */
+  private void move(final int op, final int np) {
+    dirty();
+    final int l = meta.size - op;
+    memory.ensure((long) (l + np + 1) << IO.NODEPOWER);
+    memory.move((long) op << IO.NODEPOWER, (long) np << IO.NODEPOWER, (long) l << IO.NODEPOWER);
+    meta.size += np - op;
+  }
+}
@@ -29,6 +29,14 @@ public final class TableDiskAccess extends TableAccess {
   private BitArray usedPages;
   /** File lock. */
   private FileLock fl;
+  /** Read-only memory mapping (can be {@code null}). */
+  private volatile Mapping mapping;
+  /** Thread-confined page views. */
+  private final ThreadLocal<View> views = ThreadLocal.withInitial(View::new);
+  /** Version of the table contents; incremented whenever cached page views get invalid. */
+  private volatile long version;
+  /** Write flag (table is locked for updates). */
+  private volatile boolean writing;
 
   /** First pre values (ascending order); will be initialized with the first update. */
   private int[] fPreIndex;
@@ -77,6 +85,7 @@ public final class TableDiskAccess extends TableAccess {
     // initialize data file
     file = new RandomAccessFile(meta.dbfile(DATATBL).file(), "rw");
     if(!lock(write)) throw new BaseXException(Text.DB_PINNED_X, md.name);
+    if(!write && md.mmap && used != 0) mapping = new Mapping(file, file.length());
   }
 
   /**
@@ -133,12 +142,17 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public synchronized void close() throws IOException {
+    unmap();
     flush(true);
     file.close();
   }
 
   @Override
   public boolean lock(final boolean write) {
+    // switch to buffered access before the table is updated
+    if(write) unmap();
+    writing = write;
+    version++;
     try {
       if(fl != null) {
         if(write != fl.isShared()) return true;
@@ -152,37 +166,69 @@ public final class TableDiskAccess extends TableAccess {
   }
 
   @Override
-  public synchronized int read1(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public int read1(final int pre, final int off) {
+    final Mapping m = mapping;
+    if(m != null) return m.read1(position(pre) + off);
+    final View v = view(pre);
+    final int o = off + v.offset(pre);
+    final byte[] b = v.page;
     return b[o] & 0xFF;
   }
 
   @Override
-  public synchronized int read2(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public int read2(final int pre, final int off) {
+    final Mapping m = mapping;
+    if(m != null) return m.read2(position(pre) + off);
+    final View v = view(pre);
+    final int o = off + v.offset(pre);
+    final byte[] b = v.page;
     return ((b[o] & 0xFF) << 8) + (b[o + 1] & 0xFF);
   }
 
   @Override
-  public synchronized int read4(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public int read4(final int pre, final int off) {
+    final Mapping m = mapping;
+    if(m != null) return m.read4(position(pre) + off);
+    final View v = view(pre);
+    final int o = off + v.offset(pre);
+    final byte[] b = v.page;
     return ((b[o] & 0xFF) << 24) + ((b[o + 1] & 0xFF) << 16) +
       ((b[o + 2] & 0xFF) << 8) + (b[o + 3] & 0xFF);
   }
 
   @Override
-  public synchronized long read5(final int pre, final int off) {
-    final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+  public long read5(final int pre, final int off) {
+    final Mapping m = mapping;
+    if(m != null) return m.read5(position(pre) + off);
+    final View v = view(pre);
+    final int o = off + v.offset(pre);
+    final byte[] b = v.page;
     return ((long) (b[o] & 0xFF) << 32) + ((long) (b[o + 1] & 0xFF) << 24) +
       ((b[o + 2] & 0xFF) << 16) + ((b[o + 3] & 0xFF) << 8) + (b[o + 4] & 0xFF);
   }
 
+  /**
+   * Pins the page containing the specified entry. The page will be kept in memory until
+   * it is unpinned again.
+   * @param pre pre value
+   */
+  public synchronized void pin(final int pre) {
+    cursor(pre);
+    bm.pin();
+  }
+
+  /**
+   * Unpins the page containing the specified entry.
+   * @param pre pre value
+   */
+  public synchronized void unpin(final int pre) {
+    cursor(pre);
+    bm.unpin();
+  }
+
   @Override
   public void write1(final int pre, final int off, final int v) {
+    changed();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -192,6 +238,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write2(final int pre, final int off, final int v) {
+    changed();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -202,6 +249,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write4(final int pre, final int off, final int v) {
+    changed();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -214,6 +262,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write5(final int pre, final int off, final long v) {
+    changed();
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
     final byte[] b = bf.data;
@@ -425,6 +474,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   protected void dirty() {
+    changed();
     // initialize data structures required for performing updates
     if(fPreIndex == null) {
       fPreIndex = new int[pages];
@@ -439,7 +489,7 @@ public final class TableDiskAccess extends TableAccess {
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder(Util.className(this) + " (");
-    sb.append("size: " + pages + ", used: " + used + ")");
+    sb.append("size: " + pages + ", used: " + used + ", " + bm + ")");
     if(fPreIndex != null) sb.append("\nFPres: " + Arrays.toString(fPreIndex));
     if(pageIndex != null) sb.append("\nPages: " + Arrays.toString(pageIndex));
     if(usedPages != null) sb.append("\nUsed Pages: " + usedPages);
@@ -479,6 +529,79 @@ public final class TableDiskAccess extends TableAccess {
     return pre - firstPre << IO.NODEPOWER;
   }
 
+  /**
+   * Returns a thread-confined view on the page containing the specified pre value.
+   * In read mode, pages that are read from disk are never modified, so the view references
+   * the page of the buffer, which can be read without synchronization.
+   * While the table is being updated, only the requested entry is copied, and the view
+   * will not be reused.
+   * @param pre pre value
+   * @return view
+   */
+  private View view(final int pre) {
+    final View v = views.get();
+    if(v.version != version || pre < v.first || pre >= v.next) {
+      synchronized(this) {
+        final int o = cursor(pre);
+        final byte[] data = bm.current().data;
+        if(writing) {
+          System.arraycopy(data, o, v.entry, 0, IO.NODESIZE);
+          v.page = v.entry;
+          v.version = -1;
+          v.first = pre;
+          v.next = pre + 1;
+        } else {
+          v.page = data;
+          v.version = version;
+          v.first = firstPre;
+          v.next = nextPre;
+        }
+      }
+    }
+    return v;
+  }
+
+  /**
+   * Invalidates the memory mapping and all cached page views.
+   */
+  private void changed() {
+    unmap();
+    version++;
+  }
+
+  /**
+   * Unmaps the table. Called if the table is closed or updated, i.e., if no other thread
+   * can read the table.
+   */
+  private void unmap() {
+    final Mapping m = mapping;
+    if(m != null) {
+      mapping = null;
+      m.unmap();
+    }
+  }
+
+  /**
+   * Returns the file offset of the entry for the specified pre value.
+   * Called if the table is memory-mapped and will not be changed.
+   * @param pre pre value
+   * @return file offset
+   */
+  private long position(final int pre) {
+    final int[] fpres = fPreIndex, pind = pageIndex;
+    // regular page mapping: compute position
+    if(fpres == null) return (long) pre << IO.NODEPOWER;
+
+    // find page containing the pre value
+    int l = 0, h = used - 1;
+    while(l < h) {
+      final int m = l + h + 1 >>> 1;
+      if(fpres[m] <= pre) l = m;
+      else h = m - 1;
+    }
+    return (long) pind[l] * IO.BLOCKSIZE + (pre - fpres[l] << IO.NODEPOWER);
+  }
+
   /**
    * Updates the page pointers.
    * @param p page index
@@ -521,6 +644,8 @@ public final class TableDiskAccess extends TableAccess {
       if(p >= pages) {
         pages = p + 1;
       } else {
+        // read mode: pages may still be referenced by views, so a new page is created
+        if(!writing) bf.data = new byte[IO.BLOCKSIZE];
         file.seek(bf.pos * IO.BLOCKSIZE);
         file.readFully(bf.data);
       }
@@ -608,4 +733,27 @@ public final class TableDiskAccess extends TableAccess {
     pageIndex = null;
     usedPages = null;
   }
+
+  /** Thread-confined view on a table page. */
+  private static final class View {
+    /** Private copy of a single entry. */
+    final byte[] entry = new byte[IO.NODESIZE];
+    /** Page (or private copy of a single entry). */
+    byte[] page = entry;
+    /** Table version of the page copy ({@code -1}: invalid). */
+    long version = -1;
+    /** Pre value of the first entry. */
+    int first;
+    /** First pre value of the next page. */
+    int next;
+
+    /**
+     * Returns the offset of the entry for the specified pre value.
+     * @param pre pre value
+     * @return offset
+     */
+    int offset(final int pre) {
+      return pre - first << IO.NODEPOWER;
+    }
+  }
 }
@@ -0,0 +1,314 @@
+package org.basex.query;
+
+import static org.basex.query.QueryText.*;
+
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.core.locks.*;
+import org.basex.core.users.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.serial.*;
+import org.basex.query.func.*;
+import org.basex.query.scope.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.ft.*;
+import org.basex.util.hash.*;
+import org.basex.util.options.*;
+
+/**
+ * Cache for compiled query plans.
+ *
+ * Plans are identified by the query string, the static context, the user, its permissions and the
+ * database options. As the expression trees of compiled plans are not thread-safe, a plan is
+ * removed from the cache while it is evaluated, and it is added again when the query context is
+ * closed. External variables of cached plans are bound at runtime, so a plan can be reused for
+ * different variable bindings. If the cache is full, the least recently used plan is discarded.
+ *
+ * Databases and documents that are referenced by a plan are not pinned. Instead, the names,
+ * timestamps and versions of the databases are stored with the plan, and the database instances
+ * are resolved again before the plan is reused. A plan is discarded if an instance has been
+ * closed in the meantime, or if a database or an imported module has been changed.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCache {
+  /** Namespace URIs of functions that can be pre-evaluated in cached plans. */
+  private static final byte[][] URIS = { FN_URI, MATH_URI, MAP_URI, ARRAY_URI, HOF_URI,
+    OUT_URI, STRINGS_URI, CONVERT_URI, HASH_URI };
+  /** Functions of the listed namespaces that access external resources. */
+  private static final Function[] EXTERNAL = { Function.AVAILABLE_ENVIRONMENT_VARIABLES,
+    Function.DOC_AVAILABLE, Function.ENVIRONMENT_VARIABLE, Function.JSON_DOC,
+    Function.UNPARSED_TEXT, Function.UNPARSED_TEXT_AVAILABLE, Function.UNPARSED_TEXT_LINES,
+    Function.URI_COLLECTION };
+  /** Functions that only access databases, which are resolved again before a plan is reused. */
+  private static final Function[] DATABASES = { Function._DB_NODE_ID, Function._DB_NODE_PRE,
+    Function._DB_OPEN, Function._DB_OPEN_ID, Function._DB_OPEN_PRE };
+
+  /** Cached plans (in the order in which they were accessed). */
+  private final LinkedHashMap<String, Plan> plans = new LinkedHashMap<>(16, 0.75f, true);
+  /** Static options. */
+  private final StaticOptions sopts;
+  /** Number of reused plans. */
+  private long hits;
+  /** Number of plans that had to be compiled. */
+  private long misses;
+  /** Versions of databases (incremented whenever a job may have updated a database). */
+  private final HashMap<String, Long> versions = new HashMap<>();
+  /** Global version (incremented whenever a job may have updated all databases). */
+  private long version;
+
+  /**
+   * Constructor.
+   * @param sopts static options
+   */
+  public QueryCache(final StaticOptions sopts) {
+    this.sopts = sopts;
+  }
+
+  /**
+   * Indicates if query plans will be cached.
+   * @return result of check
+   */
+  public boolean enabled() {
+    return sopts.get(StaticOptions.QUERYCACHE) > 0;
+  }
+
+  /**
+   * Returns the number of reused plans.
+   * @return number of hits
+   */
+  public synchronized long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of plans that had to be compiled.
+   * @return number of misses
+   */
+  public synchronized long misses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of cached plans.
+   * @return number of plans
+   */
+  public synchronized int size() {
+    return plans.size();
+  }
+
+  /**
+   * Removes all cached plans.
+   */
+  public synchronized void clear() {
+    plans.clear();
+  }
+
+  /**
+   * Discards all plans that may reference databases that have been changed by a job with the
+   * specified write locks. The versions of the databases are incremented, so plans that are
+   * currently evaluated will not be reused either.
+   * @param writes write locks
+   */
+  public synchronized void invalidate(final LockList writes) {
+    if(!writes.locking()) return;
+    if(writes.global() || writes.contains(Locking.USER)) {
+      version++;
+      plans.clear();
+      return;
+    }
+    for(final String name : writes) versions.merge(name, 1L, Long::sum);
+    plans.values().removeIf(plan -> {
+      for(final Data data : plan.datas) {
+        if(writes.contains(data.meta.name)) return true;
+      }
+      return false;
+    });
+  }
+
+  /**
+   * Checks if a function may be pre-evaluated in a plan that will be cached.
+   * Functions accessing external resources may return different results when a plan is reused.
+   * @param func function
+   * @return result of check
+   */
+  public static boolean stable(final StandardFunc func) {
+    for(final Function f : EXTERNAL) {
+      if(f.is(func)) return false;
+    }
+    for(final Function f : DATABASES) {
+      if(f.is(func)) return true;
+    }
+    final byte[] uri = func.def.uri();
+    for(final byte[] u : URIS) {
+      if(Token.eq(uri, u)) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the key of a query.
+   * @param query query string
+   * @param sc static context
+   * @param context database context
+   * @return key
+   */
+  static String key(final String query, final StaticContext sc, final Context context) {
+    final User user = context.user();
+    return new StringBuilder(query).append('\0').append(sc.baseURI()).append('\0').
+        append(user.name()).append('\0').append(user.perm("")).append('\0').
+        append(context.options).toString();
+  }
+
+  /**
+   * Removes a plan from the cache and returns it.
+   * @param key key
+   * @return plan or {@code null}
+   */
+  synchronized Plan checkout(final String key) {
+    final Plan plan = plans.remove(key);
+    if(plan != null) hits++;
+    else misses++;
+    return plan;
+  }
+
+  /**
+   * Assigns the resources of a compiled plan.
+   * @param plan plan
+   * @param datas referenced databases
+   * @param modules paths of the parsed modules
+   */
+  void compiled(final Plan plan, final Data[] datas, final TokenSet modules) {
+    final int ds = datas.length;
+    plan.datas = datas;
+    plan.times = new long[ds];
+    for(int d = 0; d < ds; d++) plan.times[d] = datas[d].meta.time;
+    plan.versions = versions(datas);
+
+    final int ms = modules.size();
+    plan.modules = new String[ms];
+    plan.modTimes = new long[ms];
+    for(int m = 0; m < ms; m++) {
+      plan.modules[m] = Token.string(modules.key(m + 1));
+      plan.modTimes[m] = IO.get(plan.modules[m]).timeStamp();
+    }
+  }
+
+  /**
+   * Checks if a plan that has been taken from the cache can be reused.
+   * Must be called after the locks of the query have been acquired.
+   * @param plan plan
+   * @param resources query resources (referenced databases will be resolved again)
+   * @return result of check
+   */
+  boolean valid(final Plan plan, final QueryResources resources) {
+    boolean valid = Arrays.equals(plan.versions, versions(plan.datas));
+    for(int m = 0; valid && m < plan.modules.length; m++) {
+      valid = IO.get(plan.modules[m]).timeStamp() == plan.modTimes[m];
+    }
+    valid = valid && resources.resolve(plan.datas, plan.times);
+    if(!valid) {
+      synchronized(this) {
+        hits--;
+        misses++;
+      }
+    }
+    return valid;
+  }
+
+  /**
+   * Returns the current versions of the specified databases.
+   * @param datas databases
+   * @return versions (the first entry contains the global version)
+   */
+  private synchronized long[] versions(final Data[] datas) {
+    final int ds = datas.length;
+    final long[] vs = new long[ds + 1];
+    vs[0] = version;
+    for(int d = 0; d < ds; d++) vs[d + 1] = versions.getOrDefault(datas[d].meta.name, 0L);
+    return vs;
+  }
+
+  /**
+   * Adds a plan to the cache.
+   * @param key key
+   * @param plan plan
+   */
+  synchronized void checkin(final String key, final Plan plan) {
+    plans.put(key, plan);
+    final Iterator<Plan> iter = plans.values().iterator();
+    for(int s = plans.size(), max = sopts.get(StaticOptions.QUERYCACHE); s > max; s--) {
+      iter.next();
+      iter.remove();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Util.info(Text.QUERY_CACHE_X_X_X, size(), hits(), misses());
+  }
+
+  /**
+   * Compiled query plan, along with the static properties that are assigned by the parser.
+   */
+  static final class Plan {
+    /** Root expression. */
+    final MainModule root;
+    /** Functions. */
+    final StaticFuncs funcs;
+    /** Static variables. */
+    final Variables vars;
+    /** Counter for variable IDs. */
+    int varIDs;
+    /** Local database options. */
+    final HashMap<Option<?>, Object> options;
+    /** Serialization parameters (can be {@code null}). */
+    final SerializerOptions serParams;
+    /** Full-text options (can be {@code null}). */
+    final FTOpt ftOpt;
+    /** Read locks. */
+    final LockList readLocks;
+    /** Write locks. */
+    final LockList writeLocks;
+    /** Databases referenced by the compiled plan. */
+    Data[] datas;
+    /** Timestamps of the referenced databases. */
+    long[] times;
+    /** Versions of the referenced databases. */
+    long[] versions;
+    /** Paths of the parsed modules. */
+    String[] modules;
+    /** Timestamps of the parsed modules. */
+    long[] modTimes;
+
+    /**
+     * Constructor.
+     * @param root root expression
+     * @param funcs functions
+     * @param vars static variables
+     * @param varIDs counter for variable IDs
+     * @param options local database options
+     * @param serParams serialization parameters (can be {@code null})
+     * @param ftOpt full-text options (can be {@code null})
+     * @param readLocks read locks
+     * @param writeLocks write locks
+     */
+    Plan(final MainModule root, final StaticFuncs funcs, final Variables vars, final int varIDs,
+        final HashMap<Option<?>, Object> options, final SerializerOptions serParams,
+        final FTOpt ftOpt, final LockList readLocks, final LockList writeLocks) {
+      this.root = root;
+      this.funcs = funcs;
+      this.vars = vars;
+      this.varIDs = varIDs;
+      this.options = options;
+      this.serParams = serParams;
+      this.ftOpt = ftOpt;
+      this.readLocks = readLocks;
+      this.writeLocks = writeLocks;
+    }
+  }
+}
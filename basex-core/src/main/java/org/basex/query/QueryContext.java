@@ -49,9 +49,9 @@ public final class QueryContext extends Job implements Closeable {
   /** The evaluation stack. */
   public final QueryStack stack = new QueryStack();
   /** Static variables. */
-  public final Variables vars = new Variables();
+  public Variables vars = new Variables();
   /** Functions. */
-  public final StaticFuncs funcs = new StaticFuncs();
+  public StaticFuncs funcs = new StaticFuncs();
   /** Externally bound variables. */
   private final HashMap<QNm, Value> bindings = new HashMap<>();
   /** External query properties. */
@@ -127,6 +127,17 @@ public final class QueryContext extends Job implements Closeable {
   /** Indicates if the default serialization parameters are used. */
   private boolean defaultOutput;
 
+  /** Key of the query plan in the query cache ({@code null} if plan will not be cached). */
+  private String cacheKey;
+  /** Query plan to be added to the query cache. */
+  private QueryCache.Plan cachePlan;
+  /** Indicates if the query plan was taken from the query cache. */
+  private boolean cached;
+  /** Static context of a query whose plan was taken from the query cache. */
+  private StaticContext cacheSc;
+  /** Indicates if compile-time optimizations are independent of the bound values. */
+  private boolean stable = true;
+
   /** Indicates if the query has been compiled. */
   private boolean compiled;
   /** Indicates if the query context has been closed. */
@@ -221,6 +232,64 @@ public final class QueryContext extends Job implements Closeable {
     return root;
   }
 
+  /**
+   * Parses the specified query, or assigns a compiled query plan from the query cache.
+   * @param query query string
+   * @param sc static context
+   * @throws QueryException query exception
+   */
+  public void parseCached(final String query, final StaticContext sc) throws QueryException {
+    final QueryCache cache = context.queries;
+    if(!cache.enabled()) {
+      parseMain(query, null, sc);
+      return;
+    }
+
+    cacheKey = QueryCache.key(query, sc, context);
+    cachePlan = cache.checkout(cacheKey);
+    if(cachePlan != null) {
+      // assign properties of the cached plan (the plan will be validated before compilation)
+      cached = true;
+      cacheSc = sc;
+      info.query = query;
+      root = cachePlan.root;
+      funcs = cachePlan.funcs;
+      vars = cachePlan.vars;
+      varIDs = cachePlan.varIDs;
+      options.local(cachePlan.options);
+      if(cachePlan.serParams != null) serParams = new SerializerOptions(cachePlan.serParams);
+      ftOpt = cachePlan.ftOpt;
+      readLocks.add(cachePlan.readLocks);
+      writeLocks.add(cachePlan.writeLocks);
+    } else {
+      parsePlan(query, sc);
+    }
+  }
+
+  /**
+   * Parses the specified query and creates a query plan for the query cache.
+   * @param query query string
+   * @param sc static context
+   * @throws QueryException query exception
+   */
+  private void parsePlan(final String query, final StaticContext sc) throws QueryException {
+    parseMain(query, null, sc);
+    // remember properties that are assigned by the parser
+    final LockList rl = new LockList(), wl = new LockList();
+    rl.add(readLocks);
+    wl.add(writeLocks);
+    cachePlan = new QueryCache.Plan(root, funcs, vars, 0, options.local(),
+        serParams != null ? new SerializerOptions(serParams) : null, ftOpt, rl, wl);
+  }
+
+  /**
+   * Indicates that a compile-time optimization depends on values that may differ when the query
+   * is evaluated again. The resulting query plan will not be cached.
+   */
+  public void unstable() {
+    if(!info.runtime) stable = false;
+  }
+
   /**
    * Parses the specified module.
    * @param query query string
@@ -258,6 +327,17 @@ public final class QueryContext extends Job implements Closeable {
 
     final CompileContext cc = new CompileContext(this);
     try {
+      // referenced resources may have changed since the plan was cached: parse query again
+      if(cached && !context.queries.valid(cachePlan, resources)) {
+        cached = false;
+        funcs = new StaticFuncs();
+        vars = new Variables();
+        varIDs = 0;
+        serParams = null;
+        ftOpt = null;
+        parsePlan(info.query, cacheSc);
+      }
+
       // bind external variables of global option (if not assigned yet by other APIs)
       final MainOptions mopts = context.options;
       if(root != null && parent == null) {
@@ -279,6 +359,7 @@ public final class QueryContext extends Job implements Closeable {
       maxCalls = mopts.get(MainOptions.TAILCALLS);
 
       // bind external variables
+      if(cachePlan != null) vars.params();
       vars.bindExternal(this, bindings);
 
       if(ctxItem != null) {
@@ -316,12 +397,32 @@ public final class QueryContext extends Job implements Closeable {
         Util.debug(ex);
         throw BASEX_OVERFLOW.get(null, ex);
       }
+      // check if the compiled plan can be cached, and assign the referenced resources
+      if(cachePlan != null && !cached) {
+        final Data[] datas = cacheable() ? resources.datas() : null;
+        if(datas != null) context.queries.compiled(cachePlan, datas, modParsed);
+        else cachePlan = null;
+      }
+    } catch(final QueryException ex) {
+      if(!cached) cachePlan = null;
+      throw ex;
     } finally {
       info.runtime = true;
       compiled = true;
     }
   }
 
+  /**
+   * Checks if the compiled query plan can be cached. This is the case if it references no
+   * context value, and if it is independent of the bound values. Referenced resources are
+   * checked by {@link QueryResources#datas()}.
+   * @return result of check
+   */
+  private boolean cacheable() {
+    return stable && root != null && !updating && ctxItem == null && focus.value == null &&
+        dateTime == null && !root.expr.has(Flag.CTX) && vars.cacheable();
+  }
+
   /**
    * Returns a result iterator.
    * @return result iterator
@@ -400,6 +501,18 @@ public final class QueryContext extends Job implements Closeable {
     return iter.next();
   }
 
+  /**
+   * Checks if evaluation has been stopped and returns the next items of an iterator.
+   * @param iter iterator
+   * @param items array to be filled
+   * @return number of returned items ({@code 0} if all items have been returned)
+   * @throws QueryException query exception
+   */
+  public int next(final Iter iter, final Item[] items) throws QueryException {
+    checkStop();
+    return iter.batch(items);
+  }
+
   /**
    * Returns a reference to the updates container.
    * @return updates container
@@ -585,7 +698,13 @@ public final class QueryContext extends Job implements Closeable {
     } else {
       // otherwise, adopt update reference (may have been initialized by sub query)
       parent.updates = updates;
-      parent.popJob();
+      parent.popJob(this);
+    }
+    // add query plan to the query cache
+    if(cachePlan != null && (cached || compiled)) {
+      cachePlan.varIDs = varIDs;
+      vars.params();
+      context.queries.checkin(cacheKey, cachePlan);
     }
     options.close();
   }
@@ -58,6 +58,22 @@ final class QueryOptions {
     localOpts.put(opt, dummyOptions.get(opt));
   }
 
+  /**
+   * Returns a copy of the local query options.
+   * @return options
+   */
+  HashMap<Option<?>, Object> local() {
+    return new HashMap<>(localOpts);
+  }
+
+  /**
+   * Assigns local query options.
+   * @param opts options
+   */
+  void local(final HashMap<Option<?>, Object> opts) {
+    localOpts.putAll(opts);
+  }
+
   /**
    * Compiles all options.
    */
@@ -0,0 +1,232 @@
+package org.basex.query;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.core.jobs.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+
+/**
+ * Parallel evaluation of query expressions.
+ *
+ * The input of an expression is split into chunks, which are evaluated by the threads of a
+ * shared fork/join pool. Each chunk is evaluated with a separate query context, which contains
+ * copies of the focus and the variable bindings of the current context. The results are
+ * returned in the order of the chunks. If results are iterated, chunks are only evaluated
+ * on demand.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryParallel {
+  /** Number of chunks per thread. */
+  private static final int CHUNKS = 4;
+  /** Shared fork/join pools, indexed by their parallelism (idle threads will be terminated). */
+  private static final ConcurrentHashMap<Integer, ForkJoinPool> POOLS =
+    new ConcurrentHashMap<>();
+
+  /**
+   * Evaluator for a chunk of the input.
+   */
+  @FunctionalInterface
+  public interface Chunk {
+    /**
+     * Evaluates a chunk.
+     * @param start offset of the first input entry
+     * @param end offset after the last input entry
+     * @param qc query context
+     * @return resulting value
+     * @throws QueryException query exception
+     */
+    Value value(long start, long end, QueryContext qc) throws QueryException;
+  }
+
+  /** Private constructor. */
+  private QueryParallel() { }
+
+  /**
+   * Returns the number of threads that may be used for evaluating an expression.
+   * Expressions that are already evaluated in parallel, or that compute scores,
+   * will be evaluated sequentially.
+   * @param qc query context
+   * @return number of threads ({@code 1}: sequential evaluation)
+   */
+  public static int threads(final QueryContext qc) {
+    return qc.scoring || Thread.currentThread() instanceof ForkJoinWorkerThread ? 1 :
+      Math.max(1, qc.context.options.get(MainOptions.QUERYTHREADS));
+  }
+
+  /**
+   * Evaluates the chunks of an input in parallel.
+   * @param size size of the input
+   * @param threads number of threads
+   * @param chunk chunk evaluator
+   * @param qc query context
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  public static Value value(final long size, final int threads, final Chunk chunk,
+      final QueryContext qc) throws QueryException {
+
+    final int cs = (int) Math.min(size, (long) threads * CHUNKS);
+    if(threads < 2 || cs < 2) return chunk.value(0, size, qc);
+
+    // query contexts must be created and closed by the calling thread
+    final ArrayList<QueryContext> qcs = new ArrayList<>(cs);
+    final ArrayList<Callable<Value>> tasks = new ArrayList<>(cs);
+    final ForkJoinPool pool = POOLS.computeIfAbsent(threads, ForkJoinPool::new);
+    try {
+      for(int c = 0; c < cs; c++) {
+        final QueryContext ctx = new QueryContext(qc);
+        ctx.focus = qc.focus.copy();
+        ctx.stack.copy(qc.stack);
+        qcs.add(ctx);
+        final long start = size * c / cs, end = size * (c + 1) / cs;
+        tasks.add(() -> chunk.value(start, end, ctx));
+      }
+      // all tasks will be completed before the results are returned
+      final ValueBuilder vb = new ValueBuilder(qc);
+      for(final Future<Value> future : pool.invokeAll(tasks)) vb.add(result(future));
+      return vb.value();
+    } catch(final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new JobException(Text.INTERRUPTED);
+    } finally {
+      for(int c = qcs.size() - 1; c >= 0; c--) qcs.get(c).close();
+    }
+  }
+
+  /**
+   * Returns an iterator for the results of the chunks of an input, which are evaluated in
+   * parallel. Chunks are evaluated on demand: at most one chunk per thread is evaluated in
+   * advance, so an iteration that is stopped early will not evaluate the complete input.
+   * @param size size of the input
+   * @param threads number of threads
+   * @param chunk chunk evaluator
+   * @param qc query context
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  public static Iter iter(final long size, final int threads, final Chunk chunk,
+      final QueryContext qc) throws QueryException {
+
+    final int cs = (int) Math.min(size, (long) threads * CHUNKS);
+    if(threads < 2 || cs < 2) return chunk.value(0, size, qc).iter();
+
+    // focus and variable bindings may change until the chunks are evaluated
+    final QueryFocus focus = qc.focus.copy();
+    final QueryStack stack = new QueryStack();
+    stack.copy(qc.stack);
+    final ForkJoinPool pool = POOLS.computeIfAbsent(threads, ForkJoinPool::new);
+    final Tasks tasks = qc.resources.index(Tasks.class);
+    final ArrayDeque<Future<Value>> futures = new ArrayDeque<>(threads);
+
+    return new Iter() {
+      /** Index of the next chunk to be evaluated. */
+      private int c;
+      /** Iterator for the results of the current chunk. */
+      private Iter iter = Empty.ITER;
+
+      @Override
+      public Item next() throws QueryException {
+        while(true) {
+          final Item item = iter.next();
+          if(item != null) return item;
+          // evaluate next chunks in advance
+          while(c < cs && futures.size() < threads) {
+            final long start = size * c / cs, end = size * (c + 1) / cs;
+            // query context is created by the calling thread and closed by the evaluating thread
+            final QueryContext ctx = new QueryContext(qc);
+            ctx.focus = focus.copy();
+            ctx.stack.copy(stack);
+            tasks.start(ctx);
+            futures.add(pool.submit(() -> {
+              try {
+                return chunk.value(start, end, ctx);
+              } finally {
+                ctx.close();
+                tasks.finish(ctx);
+              }
+            }));
+            c++;
+          }
+          final Future<Value> future = futures.poll();
+          if(future == null) return null;
+          try {
+            iter = result(future).iter();
+          } catch(final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new JobException(Text.INTERRUPTED);
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns the result of an evaluated chunk.
+   * @param future future result
+   * @return value
+   * @throws QueryException query exception
+   * @throws InterruptedException interrupted exception
+   */
+  private static Value result(final Future<Value> future) throws QueryException,
+      InterruptedException {
+    try {
+      return future.get();
+    } catch(final ExecutionException ex) {
+      // pass on query exceptions, unchecked exceptions and errors.
+      // checked exceptions are wrapped by the pool: find original query exception
+      final Throwable th = ex.getCause();
+      for(Throwable cause = th; cause != null; cause = cause.getCause()) {
+        if(cause instanceof QueryException) throw (QueryException) cause;
+      }
+      if(th instanceof RuntimeException) throw (RuntimeException) th;
+      if(th instanceof Error) throw (Error) th;
+      throw Util.notExpected(th);
+    }
+  }
+
+  /**
+   * Chunks that are currently evaluated. The iteration of chunk results may be stopped early:
+   * pending evaluations will be stopped and awaited before the resources of the query are closed.
+   */
+  static final class Tasks implements QueryResource {
+    /** Contexts of running evaluations. */
+    private final Set<QueryContext> running = new HashSet<>();
+
+    /**
+     * Registers a new evaluation.
+     * @param ctx query context of the evaluation
+     */
+    synchronized void start(final QueryContext ctx) {
+      running.add(ctx);
+    }
+
+    /**
+     * Unregisters a finished evaluation.
+     * @param ctx query context of the evaluation
+     */
+    synchronized void finish(final QueryContext ctx) {
+      running.remove(ctx);
+      if(running.isEmpty()) notifyAll();
+    }
+
+    @Override
+    public synchronized void close() {
+      for(final QueryContext ctx : running) ctx.stop();
+      try {
+        while(!running.isEmpty()) wait();
+      } catch(final InterruptedException ex) {
+        Util.debug(ex);
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -11,6 +11,7 @@ import org.basex.core.cmd.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.io.*;
+import org.basex.query.iter.*;
 import org.basex.query.util.list.*;
 import org.basex.query.util.pkg.*;
 import org.basex.query.value.*;
@@ -89,15 +90,15 @@ public final class QueryResources {
    * Closes all opened data references that have not been added by the global context.
    */
   void close() {
+    // close external resources (pending evaluations may still access databases)
+    for(final QueryResource c : external.values()) c.close();
+    external.clear();
     for(final Data data : datas) Close.close(data, qc.context);
     datas.clear();
     // close dynamically loaded JAR files
     if(modules != null) modules.close();
     modules = null;
     // close external resources
-    for(final QueryResource c : external.values()) c.close();
-    external.clear();
-    // close external resources
     for(final InputStream is : inputs) {
       try {
         is.close();
@@ -108,6 +109,61 @@ public final class QueryResources {
     inputs.clear();
   }
 
+  /**
+   * Returns the databases that may be referenced by a compiled query plan.
+   * @return databases, or {@code null} if the opened resources cannot be resolved again
+   */
+  Data[] datas() {
+    if(!colls.isEmpty() || texts != null || modules != null && modules.java()) return null;
+    for(final Data data : datas) {
+      // documents must have been parsed from single files
+      if(data.inMemory()) {
+        final IO io = IO.get(data.meta.original);
+        if(!(io instanceof IOFile) || io.isDir()) return null;
+      }
+    }
+    return datas.toArray(new Data[0]);
+  }
+
+  /**
+   * Resolves the databases of a cached query plan. Persistent databases are opened again,
+   * and documents are registered again if the original files have not been changed.
+   * @param plan databases referenced by the plan
+   * @param times timestamps of the databases
+   * @return {@code true} if the same, unchanged database instances were resolved
+   */
+  synchronized boolean resolve(final Data[] plan, final long[] times) {
+    final int ds = plan.length;
+    for(int d = 0; d < ds; d++) {
+      final Data data = plan[d];
+      if(data.meta.time != times[d]) return false;
+      if(data.inMemory()) {
+        if(IO.get(data.meta.original).timeStamp() != times[d]) return false;
+        if(!datas.contains(data)) addData(data);
+      } else {
+        try {
+          if(database(data.meta.name, null) != data) return false;
+        } catch(final QueryException ex) {
+          Util.debug(ex);
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Indicates if documents have been parsed from resources other than databases.
+   * @return result of check
+   */
+  public boolean external() {
+    if(texts != null) return true;
+    for(final Data data : datas) {
+      if(data.inMemory()) return true;
+    }
+    return false;
+  }
+
   /**
    * Returns the globally opened database.
    * @return database or {@code null} if no database is globally opened
@@ -208,26 +264,25 @@ public final class QueryResources {
 
   /**
    * Evaluates {@code fn:collection()}: opens an existing collection,
-   * or creates a new data reference.
+   * or creates a new data reference. The documents of databases are returned lazily.
    * @param qi query input (set to {@code null} if default collection is requested)
    * @param ii input info
-   * @return collection
+   * @return iterator over the collection
    * @throws QueryException query exception
    */
-  public synchronized Value collection(final QueryInput qi, final InputInfo ii)
+  public synchronized Iter collection(final QueryInput qi, final InputInfo ii)
       throws QueryException {
 
     // return default collection
     if(qi == null) {
       if(colls.isEmpty()) throw NODEFCOLL.get(ii);
-      return colls.get(0);
+      return colls.get(0).iter();
     }
 
     // favor default database
     Data data = globalData();
     if(data != null && qc.context.options.get(MainOptions.DEFAULTDB)) {
-      final IntList pres = data.resources.docs(qi.original);
-      return DBNodeSeq.get(pres, data, true, qi.original.isEmpty());
+      return data.resources.docIter(qi.original);
     }
 
     // check currently opened collections (required for tests)
@@ -235,14 +290,13 @@ public final class QueryResources {
     for(int c = 0; c < cs; c++) {
       final String name = collNames.get(c), path = qi.io.path();
       if(Prop.CASE ? name.equals(path) : name.equalsIgnoreCase(path)) {
-        return colls.get(c);
+        return colls.get(c).iter();
       }
     }
 
     // access open database or create new one
     data = data(false, qi, ii);
-    final IntList docs = data.resources.docs(qi.dbPath);
-    return DBNodeSeq.get(docs, data, true, qi.dbPath.isEmpty());
+    return data.resources.docIter(qi.dbPath);
   }
 
   /**
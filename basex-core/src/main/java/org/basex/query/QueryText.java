@@ -427,6 +427,8 @@ public interface QueryText {
   /** Optimization info. */ String OPTNORESULTS_X = "no index results: %";
   /** Optimization info. */ String OPTCHILD_X = "convert to child steps: %";
   /** Optimization info. */ String OPTUNROLL_X = "unroll: %";
+  /** Optimization info. */ String OPTAGGR_X = "aggregate non-grouping variable: %";
+  /** Optimization info. */ String OPTJOIN_X = "rewrite to hash join: %";
 
   // MISCELLANEOUS ================================================================================
 
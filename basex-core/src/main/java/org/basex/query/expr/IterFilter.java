@@ -47,8 +47,11 @@ public final class IterFilter extends Filter {
   public Value value(final QueryContext qc) throws QueryException {
     final ValueBuilder vb = new ValueBuilder(qc);
     final Iter iter = root.iter(qc);
-    for(Item item; (item = qc.next(iter)) != null;) {
-      if(preds(item, qc)) vb.add(item);
+    final Item[] items = new Item[Iter.BATCH];
+    for(int n; (n = qc.next(iter, items)) > 0;) {
+      for(int i = 0; i < n; i++) {
+        if(preds(items[i], qc)) vb.add(items[i]);
+      }
     }
     return vb.value();
   }
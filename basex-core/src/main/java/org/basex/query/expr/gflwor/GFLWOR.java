@@ -55,11 +55,12 @@ public final class GFLWOR extends ParseExpr {
   @Override
   public Iter iter(final QueryContext qc) {
     return new Iter() {
-      private final Eval ev = newEval();
+      private Eval ev;
       private Iter sub = Empty.ITER;
 
       @Override
       public Item next() throws QueryException {
+        if(ev == null) ev = eval(parallel(qc), qc);
         while(true) {
           final Item item = qc.next(sub);
           if(item != null) return item;
@@ -75,12 +76,154 @@ public final class GFLWOR extends ParseExpr {
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
-    final Eval eval = newEval();
+    final int p = parallel(qc);
+    return p == clauses.size() ? parallelValue(qc) : value(eval(p, qc), qc);
+  }
+
+  /**
+   * Returns an evaluator for all tuples.
+   * @param p number of clauses that can be evaluated in parallel (see {@link #parallel})
+   * @param qc query context
+   * @return evaluator
+   * @throws QueryException query exception
+   */
+  private Eval eval(final int p, final QueryContext qc) throws QueryException {
+    return p > 0 && p < clauses.size() ? parallelGroups(p, qc) : newEval();
+  }
+
+  /**
+   * Evaluates chunks of the items of the first 'for' clause in parallel.
+   * @param qc query context
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Value parallelValue(final QueryContext qc) throws QueryException {
+    final Value value = ((For) clauses.getFirst()).expr.value(qc);
+    return QueryParallel.value(value.size(), QueryParallel.threads(qc), (start, end, ctx) ->
+      value(chunk(value, start, end, clauses.size(), ctx), ctx), qc);
+  }
+
+  /**
+   * Builds the groups of a 'group by' clause for chunks of the items of the first 'for' clause
+   * in parallel. The groups of all chunks are merged in the order of the chunks, and the
+   * remaining clauses are evaluated sequentially.
+   * @param p position of the 'group by' clause
+   * @param qc query context
+   * @return evaluator for the tuples after the 'group by' clause
+   * @throws QueryException query exception
+   */
+  private Eval parallelGroups(final int p, final QueryContext qc) throws QueryException {
+    final GroupBy group = (GroupBy) clauses.get(p);
+    final Value value = ((For) clauses.getFirst()).expr.value(qc);
+    final TreeMap<Long, Grouper> groupers = new TreeMap<>();
+    QueryParallel.value(value.size(), QueryParallel.threads(qc), (start, end, ctx) -> {
+      final Grouper grouper = group.group(chunk(value, start, end, p, ctx), ctx);
+      synchronized(groupers) {
+        groupers.put(start, grouper);
+      }
+      return Empty.VALUE;
+    }, qc);
+
+    final Grouper grouper = group.grouper(qc);
+    for(final Grouper grp : groupers.values()) grouper.merge(grp);
+    Eval eval = group.eval(null, grouper);
+    final int cs = clauses.size();
+    for(int c = p + 1; c < cs; c++) eval = clauses.get(c).eval(eval);
+    return eval;
+  }
+
+  /**
+   * Returns an evaluator for a chunk of the items of the first 'for' clause.
+   * @param value items of the first 'for' clause
+   * @param start offset of the first item
+   * @param end offset after the last item
+   * @param cs number of clauses to be evaluated
+   * @param qc query context
+   * @return evaluator
+   */
+  private Eval chunk(final Value value, final long start, final long end, final int cs,
+      final QueryContext qc) {
+    final For fr = (For) clauses.getFirst();
+    final Iter iter = value.subSequence(start, end - start, qc).iter();
+    Eval eval = new Eval() {
+      @Override
+      boolean next(final QueryContext q) throws QueryException {
+        final Item item = q.next(iter);
+        if(item == null) return false;
+        q.set(fr.var, item);
+        return true;
+      }
+    };
+    for(int c = 1; c < cs; c++) eval = clauses.get(c).eval(eval);
+    return eval;
+  }
+
+  /**
+   * Evaluates the return expression for all tuples.
+   * @param eval evaluator
+   * @param qc query context
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Value value(final Eval eval, final QueryContext qc) throws QueryException {
     final ValueBuilder vb = new ValueBuilder(qc);
     while(eval.next(qc)) vb.add(rtrn.value(qc));
     return vb.value();
   }
 
+  /**
+   * Checks if clauses can be evaluated in parallel. This is the case if the first clause
+   * is a plain 'for' clause, if the tuples can be processed independently, and if no
+   * non-deterministic or updating expressions are found.
+   * <ul>
+   *   <li> If the clauses contain no 'group by', 'order by' or 'count' clause, the full
+   *        expression can be evaluated in parallel. This is only done if the full result is
+   *        requested ({@link #value(QueryContext)}): iterative evaluation remains lazy,
+   *        as only some of the results may be requested.</li>
+   *   <li> If a 'group by' clause is only preceded by other clauses, the groups can be built in
+   *        parallel. As grouping consumes all incoming tuples, this is also done for iterative
+   *        evaluation. The groups of each chunk may be written to disk independently.</li>
+   * </ul>
+   * @param qc query context
+   * @return number of clauses that can be evaluated in parallel: all clauses, the position of a
+   *   'group by' clause, or {@code -1}
+   */
+  private int parallel(final QueryContext qc) {
+    if(QueryParallel.threads(qc) < 2 || clauses.isEmpty()) return -1;
+    final Clause first = clauses.getFirst();
+    if(!(first instanceof For)) return -1;
+    final For fr = (For) first;
+    if(fr.pos != null || fr.score != null || fr.empty) return -1;
+    final int cs = clauses.size();
+    int p = 1;
+    while(p < cs) {
+      final Clause clause = clauses.get(p);
+      if(clause instanceof OrderBy || clause instanceof Count) return -1;
+      if(clause instanceof GroupBy) break;
+      p++;
+    }
+    return has(Flag.NDT, Flag.UPD) ? -1 : p;
+  }
+
+  /**
+   * Indicates that only the specified number of results will be requested.
+   * If the last {@code order by} clause is only followed by 'let' and 'count' clauses, and if
+   * the return expression yields a single item, tuples exceeding the limit are discarded
+   * while sorting.
+   * @param max maximum number of results
+   */
+  public void limit(final long max) {
+    if(!rtrn.seqType().one()) return;
+    for(final Iterator<Clause> iter = clauses.descendingIterator(); iter.hasNext();) {
+      final Clause clause = iter.next();
+      if(clause instanceof OrderBy) {
+        ((OrderBy) clause).limit(max);
+        return;
+      }
+      if(!(clause instanceof Let || clause instanceof Count)) return;
+    }
+  }
+
   @Override
   public Expr compile(final CompileContext cc) throws QueryException {
     final ListIterator<Clause> iter = clauses.listIterator();
@@ -103,9 +246,11 @@ public final class GFLWOR extends ParseExpr {
     flattenAnd();
 
     // apply all optimizations in a row until nothing changes anymore
-    while(flattenReturn(cc) | flattenFor(cc) | unnestFLWR(cc) | forToLet(cc) | inlineLets(cc) |
-        slideLetsOut(cc) | unusedVars(cc) | cleanDeadVars() | optimizeWhere(cc) | optimizePos(cc) |
-        unnestLets(cc) | mergeLastClause());
+    do {
+      while(flattenReturn(cc) | flattenFor(cc) | unnestFLWR(cc) | forToLet(cc) | inlineLets(cc) |
+          slideLetsOut(cc) | unusedVars(cc) | cleanDeadVars() | optimizeWhere(cc) |
+          optimizePos(cc) | hashJoin(cc) | unnestLets(cc) | mergeLastClause());
+    } while(aggregateGroups(cc));
 
     mergeWheres();
 
@@ -335,6 +480,70 @@ public final class GFLWOR extends ParseExpr {
     return changed;
   }
 
+  /**
+   * Replaces non-grouping variables of 'group by' clauses with running aggregates if they are
+   * only passed on to {@code count}, {@code sum} or {@code max}.
+   * @param cc compilation context
+   * @return change flag
+   * @throws QueryException query exception
+   */
+  private boolean aggregateGroups(final CompileContext cc) throws QueryException {
+    final ListIterator<Clause> iter = clauses.listIterator();
+    while(iter.hasNext()) {
+      final Clause clause = iter.next();
+      if(!(clause instanceof GroupBy)) continue;
+
+      final GroupBy group = (GroupBy) clause;
+      final int next = iter.nextIndex();
+      for(final Var var : group.values()) {
+        if(count(var, next) == VarUsage.NEVER) continue;
+
+        // inline a group reference into copies of the subsequent clauses
+        final VarScope vs = cc.vs();
+        final int size = vs.stackSize();
+        final IntObjMap<Var> vm = new IntObjMap<>();
+        final LinkedList<Clause> cls = new LinkedList<>();
+        for(final ListIterator<Clause> i = clauses.listIterator(next); i.hasNext();) {
+          cls.add(i.next().copy(cc, vm));
+        }
+        Expr rt = rtrn.copy(cc, vm);
+        final GroupRef ref = new GroupRef(info, var, vs);
+        try {
+          for(final ListIterator<Clause> i = cls.listIterator(); i.hasNext();) {
+            final Clause cl = i.next().inline(var, ref, cc);
+            if(cl != null) i.set(cl);
+          }
+          final Expr ex = rt.inline(var, ref, cc);
+          if(ex != null) rt = ex;
+        } catch(final QueryException ex) {
+          Util.debug(ex);
+          vs.truncate(size);
+          continue;
+        }
+
+        // check if all references have been replaced with aggregates
+        boolean aggr = rt.count(var) == VarUsage.NEVER;
+        for(final Clause cl : cls) aggr &= cl.count(var) == VarUsage.NEVER;
+        if(!aggr) {
+          // discard variables of the copied clauses and aggregates
+          vs.truncate(size);
+          continue;
+        }
+
+        cc.info(QueryText.OPTAGGR_X, var);
+        iter.set(group.aggregate(var, ref, cc));
+        while(iter.hasNext()) {
+          iter.next();
+          iter.remove();
+        }
+        clauses.addAll(cls);
+        rtrn = rt;
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Unnests basic FLWR expressions in 'for' or 'let' clauses.
    * @param cc compilation context
@@ -571,6 +780,98 @@ public final class GFLWOR extends ParseExpr {
     return changed;
   }
 
+  /**
+   * Rewrites 'for' clauses with a general comparison, which compares the items with values of
+   * the incoming tuples, to hash joins.
+   * @param cc compilation context
+   * @return change flag
+   * @throws QueryException query exception
+   */
+  private boolean hashJoin(final CompileContext cc) throws QueryException {
+    boolean changed = false;
+    // index of the first clause that iterates over the incoming tuples
+    int loop = -1;
+    final int cs = clauses.size();
+    for(int c = 0; c < cs; c++) {
+      final Clause clause = clauses.get(c);
+      final boolean iter = loop != -1;
+      if(!iter && (clause instanceof For || clause instanceof Window || clause instanceof Join)) {
+        loop = c;
+      }
+      // join is only beneficial if the clause is evaluated more than once
+      if(!iter || !(clause instanceof For)) continue;
+      final For fr = (For) clause;
+      if(fr.pos != null || fr.score != null || fr.empty || fr.var.checksType()) continue;
+
+      // split expression into input and last predicate
+      final Expr pred, input;
+      if(fr.expr instanceof Filter) {
+        final Filter filter = (Filter) fr.expr;
+        final int pl = filter.exprs.length - 1;
+        if(pl < 0) continue;
+        pred = filter.exprs[pl];
+        input = Filter.get(filter.info, filter.root, Arrays.copyOf(filter.exprs, pl));
+      } else if(fr.expr instanceof AxisPath) {
+        final AxisPath path = (AxisPath) fr.expr;
+        final Expr[] steps = path.steps.clone();
+        final int sl = steps.length - 1;
+        final Step step = (Step) steps[sl];
+        final int pl = step.exprs.length - 1;
+        if(pl < 0) continue;
+        pred = step.exprs[pl];
+        steps[sl] = Step.get(step.info, step.axis, step.test, Arrays.copyOf(step.exprs, pl));
+        input = Path.get(path.info, path.root, steps);
+      } else {
+        continue;
+      }
+      if(!(pred instanceof CmpG) || pred.has(Flag.POS, Flag.NDT)) continue;
+      final CmpG cmp = (CmpG) pred;
+      if(!cmp.hashable()) continue;
+
+      // choose operand that depends on the items (key) and operand to be probed
+      final Expr op1 = cmp.exprs[0], op2 = cmp.exprs[1], key, probe;
+      if(op1.has(Flag.CTX) && !op2.has(Flag.CTX)) {
+        key = op1;
+        probe = op2;
+      } else if(op2.has(Flag.CTX) && !op1.has(Flag.CTX)) {
+        key = op2;
+        probe = op1;
+      } else {
+        continue;
+      }
+
+      // items and keys must be independent of the incoming tuples
+      if(input.has(Flag.NDT, Flag.CNS, Flag.UPD) || key.has(Flag.NDT, Flag.CNS, Flag.UPD) ||
+          probe.has(Flag.UPD) || !independent(loop, c, input, key)) continue;
+
+      /* OLD: for $a in A for $b in B[@id = $a/@ref] ...
+       * NEW: for $a in A for (: hash join :) $b in (B)[@id = $a/@ref] ... */
+      cc.info(QueryText.OPTJOIN_X, fr.var);
+      clauses.set(c, new Join(fr.var, input.optimize(cc), key, probe, new VarRef[0],
+          fr.info).optimize(cc));
+      changed = true;
+    }
+    return changed;
+  }
+
+  /**
+   * Checks if the specified expressions do not reference variables of the specified clauses.
+   * @param start index of the first clause
+   * @param end index of the current clause
+   * @param exprs expressions
+   * @return result of check
+   */
+  private boolean independent(final int start, final int end, final Expr... exprs) {
+    for(int i = start; i < end; i++) {
+      for(final Var var : clauses.get(i).vars()) {
+        for(final Expr expr : exprs) {
+          if(expr.uses(var)) return false;
+        }
+      }
+    }
+    return true;
+  }
+
   /**
    * Merge last 'for' or 'let' clause with 'return' clause.
    * @return change flag
@@ -12,18 +12,28 @@ import org.basex.query.value.item.*;
 final class Group {
   /** Grouping key, may contain {@code null} values. */
   final Item[] key;
-  /** Non-grouping variables. */
+  /** Hash value of the key. */
+  final int hash;
+  /** Non-grouping variables ({@code null} for aggregated variables). */
   final ValueBuilder[] ngv;
+  /** Running aggregates ({@code null} if no value has been aggregated yet). */
+  final Item[] aggr;
+  /** Counted items. */
+  final long[] counts;
   /** Overflow list. */
   Group next;
 
   /**
    * Constructor.
    * @param k grouping key
+   * @param h hash value of the key
    * @param ng non-grouping variables
    */
-  Group(final Item[] k, final ValueBuilder[] ng) {
+  Group(final Item[] k, final int h, final ValueBuilder[] ng) {
     key = k;
+    hash = h;
     ngv = ng;
+    aggr = new Item[ng.length];
+    counts = new long[ng.length];
   }
 }
@@ -6,6 +6,7 @@ import java.util.*;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.func.*;
 import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
 import org.basex.query.value.*;
@@ -26,7 +27,9 @@ public final class GroupBy extends Clause {
   /** Grouping specs. */
   private final GroupSpec[] specs;
   /** Non-grouping variable expressions. */
-  private Expr[] preExpr;
+  Expr[] preExpr;
+  /** Aggregate functions for non-grouping variables ({@code null}: materialize values). */
+  StandardFunc[] aggrs;
   /** Non-grouping variables. */
   private Var[] post;
   /** Number of non-occluded grouping variables. */
@@ -46,6 +49,7 @@ public final class GroupBy extends Clause {
     this.specs = specs;
     this.post = post;
     preExpr = Array.copy(pre, new Expr[pre.length]);
+    aggrs = new StandardFunc[pre.length];
     int n = 0;
     for(final GroupSpec spec : specs) {
       if(!spec.occluded) n++;
@@ -57,15 +61,17 @@ public final class GroupBy extends Clause {
    * Copy constructor.
    * @param specs grouping specs
    * @param pre pre-grouping expressions
+   * @param aggrs aggregate functions
    * @param post post-grouping variables
    * @param nonOcc number of non-occluded grouping variables
    * @param info input info
    */
-  private GroupBy(final GroupSpec[] specs, final Expr[] pre, final Var[] post, final int nonOcc,
-      final InputInfo info) {
+  private GroupBy(final GroupSpec[] specs, final Expr[] pre, final StandardFunc[] aggrs,
+      final Var[] post, final int nonOcc, final InputInfo info) {
     super(info, SeqType.ITEM_ZM, vars(specs, post));
     this.specs = specs;
     preExpr = pre;
+    this.aggrs = aggrs;
     this.post = post;
     this.nonOcc = nonOcc;
   }
@@ -86,20 +92,25 @@ public final class GroupBy extends Clause {
 
   @Override
   Eval eval(final Eval sub) {
+    return eval(sub, null);
+  }
+
+  /**
+   * Returns an evaluator for the groups.
+   * @param sub evaluator of the incoming tuples
+   * @param grouper groups that have already been built (can be {@code null})
+   * @return evaluator
+   */
+  Eval eval(final Eval sub, final Grouper grouper) {
     return new Eval() {
       /** Groups to iterate over. */
-      private Group[] groups;
-      /** Current position. */
-      private int pos;
+      private Grouper groups = grouper;
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
-        if(groups == null) groups = init(qc);
-        if(pos == groups.length) return false;
-
-        final Group curr = groups[pos];
-        // be nice to the garbage collector
-        groups[pos++] = null;
+        if(groups == null) groups = group(sub, qc);
+        final Group curr = groups.next();
+        if(curr == null) return false;
 
         int p = 0;
         for(final GroupSpec spec : specs) {
@@ -109,80 +120,54 @@ public final class GroupBy extends Clause {
           }
         }
         final int pl = post.length;
-        for(int i = 0; i < pl; i++) qc.set(post[i], curr.ngv[i].value());
+        for(int i = 0; i < pl; i++) qc.set(post[i], groups.value(curr, i));
         return true;
       }
+    };
+  }
 
-      /**
-       * Builds up the groups.
-       * @param qc query context
-       * @throws QueryException query exception
-       */
-      private Group[] init(final QueryContext qc) throws QueryException {
-        final ArrayList<Group> grps = new ArrayList<>();
-        final IntObjMap<Group> map = new IntObjMap<>();
-        final Collation[] colls = new Collation[nonOcc];
-        int c = 0;
-        for(final GroupSpec spec : specs) {
-          if(!spec.occluded) colls[c++] = spec.coll;
-        }
-
-        while(sub.next(qc)) {
-          final Item[] key = new Item[nonOcc];
-          int p = 0, hash = 1;
-          for(final GroupSpec spec : specs) {
-            final Item atom = spec.atomItem(qc, info);
-            if(!spec.occluded) {
-              key[p++] = atom;
-              // If the values are compared using a special collation, we let them collide
-              // here and let the comparison do all the work later.
-              // This enables other non-collation specs to avoid the collision.
-              hash = 31 * hash + (atom == Empty.VALUE || spec.coll != null ? 0 :
-                atom.hash(info));
-            }
-            qc.set(spec.var, atom == Empty.VALUE ? Empty.VALUE : atom);
-          }
-
-          // find the group for this key
-          final Group fst;
-          Group grp = null;
-          // no collations, so we can use hashing
-          for(Group g = fst = map.get(hash); g != null; g = g.next) {
-            if(eq(key, g.key, colls)) {
-              grp = g;
-              break;
-            }
-          }
-
-          final int pl = preExpr.length;
-          if(grp == null) {
-            // new group, add it to the list
-            final ValueBuilder[] ngs = new ValueBuilder[pl];
-            final int nl = ngs.length;
-            for(int n = 0; n < nl; n++) ngs[n] = new ValueBuilder(qc);
-            grp = new Group(key, ngs);
-            grps.add(grp);
-
-            // insert the group into the hash table
-            if(fst == null) {
-              map.put(hash, grp);
-            } else {
-              final Group nxt = fst.next;
-              fst.next = grp;
-              grp.next = nxt;
-            }
-          }
+  /**
+   * Creates a new, empty grouper.
+   * @param qc query context
+   * @return grouper
+   */
+  Grouper grouper(final QueryContext qc) {
+    final Collation[] colls = new Collation[nonOcc];
+    int c = 0;
+    for(final GroupSpec spec : specs) {
+      if(!spec.occluded) colls[c++] = spec.coll;
+    }
+    return new Grouper(this, colls, qc);
+  }
 
-          // add values of non-grouping variables to the group
-          for(int g = 0; g < pl; g++) {
-            grp.ngv[g].add(preExpr[g].value(qc));
-          }
+  /**
+   * Builds up the groups.
+   * @param sub evaluator of the incoming tuples
+   * @param qc query context
+   * @return grouper
+   * @throws QueryException query exception
+   */
+  Grouper group(final Eval sub, final QueryContext qc) throws QueryException {
+    final Grouper grouper = grouper(qc);
+    while(sub.next(qc)) {
+      final Item[] key = new Item[nonOcc];
+      int p = 0, hash = 1;
+      for(final GroupSpec spec : specs) {
+        final Item atom = spec.atomItem(qc, info);
+        if(!spec.occluded) {
+          key[p++] = atom;
+          // If the values are compared using a special collation, we let them collide
+          // here and let the comparison do all the work later.
+          // This enables other non-collation specs to avoid the collision.
+          hash = 31 * hash + (atom == Empty.VALUE || spec.coll != null ? 0 :
+            atom.hash(info));
         }
-
-        // we're finished, copy the array so the list can be garbage-collected
-        return grps.toArray(new Group[0]);
+        qc.set(spec.var, atom == Empty.VALUE ? Empty.VALUE : atom);
       }
-    };
+      // find the group for this key and add the values of the non-grouping variables
+      grouper.add(key, hash);
+    }
+    return grouper;
   }
 
   /**
@@ -193,7 +178,7 @@ public final class GroupBy extends Clause {
    * @return {@code true} if the compare as equal, {@code false} otherwise
    * @throws QueryException query exception
    */
-  private boolean eq(final Item[] its1, final Item[] its2, final Collation[] coll)
+  boolean eq(final Item[] its1, final Item[] its2, final Collation[] coll)
       throws QueryException {
 
     final int il = its1.length;
@@ -205,6 +190,50 @@ public final class GroupBy extends Clause {
     return true;
   }
 
+  /**
+   * Returns the non-grouping variables whose values are materialized.
+   * @return variables
+   */
+  Var[] values() {
+    final ArrayList<Var> list = new ArrayList<>();
+    final int pl = post.length;
+    for(int p = 0; p < pl; p++) {
+      if(aggrs[p] == null) list.add(post[p]);
+    }
+    return list.toArray(new Var[0]);
+  }
+
+  /**
+   * Creates a clause in which the specified non-grouping variable is replaced with
+   * variables for running aggregates.
+   * @param var non-grouping variable
+   * @param ref group reference with the aggregate functions and variables
+   * @param cc compilation context
+   * @return new clause
+   * @throws QueryException query exception
+   */
+  GroupBy aggregate(final Var var, final GroupRef ref, final CompileContext cc)
+      throws QueryException {
+
+    int p = 0;
+    while(!post[p].is(var)) p++;
+    final Expr expr = preExpr[p];
+    Expr[] pre = Array.remove(preExpr, p);
+    StandardFunc[] ags = Array.remove(aggrs, p);
+    Var[] ps = Array.remove(post, p);
+
+    boolean first = true;
+    final int vl = ref.vars.length;
+    for(int v = 0; v < vl; v++) {
+      if(ref.vars[v] == null) continue;
+      pre = Array.add(pre, first ? expr : expr.copy(cc, new IntObjMap<>()));
+      ags = Array.add(ags, ref.funcs[v]);
+      ps = Array.add(ps, ref.vars[v]);
+      first = false;
+    }
+    return new GroupBy(specs, pre, ags, ps, nonOcc, info).optimize(cc);
+  }
+
   @Override
   public boolean has(final Flag... flags) {
     for(final GroupSpec spec : specs) {
@@ -224,6 +253,8 @@ public final class GroupBy extends Clause {
   public GroupBy optimize(final CompileContext cc) throws QueryException {
     final int pl = preExpr.length;
     for(int p = 0; p < pl; p++) {
+      // types of aggregated variables have been assigned before
+      if(aggrs[p] != null) continue;
       final SeqType st = preExpr[p].seqType();
       post[p].refineType(st.with(st.occ.union(Occ.ONE_MORE)), cc);
     }
@@ -266,7 +297,7 @@ public final class GroupBy extends Clause {
     for(int p = 0; p < pl; p++) ps[p] = cc.copy(post[p], vm);
 
     // done
-    return new GroupBy(Arr.copyAll(cc, vm, specs), pEx, ps, nonOcc, info);
+    return new GroupBy(Arr.copyAll(cc, vm, specs), pEx, aggrs.clone(), ps, nonOcc, info);
   }
 
   @Override
@@ -288,6 +319,7 @@ public final class GroupBy extends Clause {
     for(int p = 0; p < post.length; p++) {
       if(!used.get(post[p].id)) {
         preExpr = Array.remove(preExpr, p);
+        aggrs = Array.remove(aggrs, p);
         post = Array.remove(post, p--);
       }
     }
@@ -324,7 +356,7 @@ public final class GroupBy extends Clause {
     if(!(obj instanceof GroupBy)) return false;
     final GroupBy g = (GroupBy) obj;
     return Array.equals(specs, g.specs) && Array.equals(preExpr, g.preExpr) &&
-        Array.equals(post, g.post);
+        Array.equals(aggrs, g.aggrs) && Array.equals(post, g.post);
   }
 
   @Override
@@ -338,7 +370,13 @@ public final class GroupBy extends Clause {
     final int pl = post.length;
     for(int p = 0; p < pl; p++) {
       sb.append(LET).append(" (: post-group :) ").append(post[p]);
-      sb.append(' ').append(ASSIGN).append(' ').append(preExpr[p]).append(' ');
+      sb.append(' ').append(ASSIGN).append(' ');
+      if(aggrs[p] != null) {
+        sb.append(Token.string(aggrs[p].def.id())).append(PAREN1).append(preExpr[p]);
+        sb.append(PAREN2).append(' ');
+      } else {
+        sb.append(preExpr[p]).append(' ');
+      }
     }
     sb.append(GROUP).append(' ').append(BY);
     final int sl = specs.length;
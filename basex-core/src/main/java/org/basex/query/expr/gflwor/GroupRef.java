@@ -0,0 +1,175 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryText.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.func.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * Reference to a non-grouping variable of a {@code group by} clause. This expression is
+ * temporarily inlined into the clauses following the grouping. If the variable is only passed
+ * on to {@code count}, {@code sum} or {@code max}, the function calls are replaced with
+ * references to new variables, which will be bound to the running aggregates of the group.
+ * As the computation of a running aggregate may fail, {@code sum} and {@code max} are applied
+ * to the new variables: if an error occurs, the variables will be bound to the original values,
+ * and the error will be raised when the function is evaluated.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class GroupRef extends ParseExpr {
+  /** Aggregate: count. */
+  static final int COUNT = 0;
+  /** Aggregate: sum. */
+  static final int SUM = 1;
+  /** Aggregate: max. */
+  static final int MAX = 2;
+
+  /** Non-grouping variable. */
+  final Var var;
+  /** Aggregate functions, indexed by their type (shared by all copies). */
+  final StandardFunc[] funcs;
+  /** Aggregate variables, indexed by their type (shared by all copies). */
+  final Var[] vars;
+  /** Variable scope of the grouping clause. */
+  private final VarScope vs;
+
+  /**
+   * Constructor.
+   * @param info input info
+   * @param var non-grouping variable
+   * @param vs variable scope of the grouping clause
+   */
+  GroupRef(final InputInfo info, final Var var, final VarScope vs) {
+    this(info, var, vs, new StandardFunc[MAX + 1], new Var[MAX + 1]);
+  }
+
+  /**
+   * Copy constructor.
+   * @param info input info
+   * @param var non-grouping variable
+   * @param vs variable scope of the grouping clause
+   * @param funcs aggregate functions
+   * @param vars aggregate variables
+   */
+  private GroupRef(final InputInfo info, final Var var, final VarScope vs,
+      final StandardFunc[] funcs, final Var[] vars) {
+    super(info, var.seqType());
+    this.var = var;
+    this.vs = vs;
+    this.funcs = funcs;
+    this.vars = vars;
+  }
+
+  /**
+   * Replaces the argument of an aggregate function with a reference to an aggregate variable.
+   * @param func function with this expression as first argument
+   * @param cc compilation context
+   * @return new expression, or {@code null} if the function cannot be aggregated
+   * @throws QueryException query exception
+   */
+  public Expr aggregate(final StandardFunc func, final CompileContext cc) throws QueryException {
+    // skip functions in nested scopes (e.g., function items)
+    if(cc.vs() != vs) return null;
+
+    final int type;
+    if(Function.COUNT.is(func)) {
+      type = COUNT;
+    } else if(func.exprs.length > 1) {
+      return null;
+    } else if(Function.SUM.is(func)) {
+      type = SUM;
+    } else if(Function.MAX.is(func)) {
+      type = MAX;
+    } else {
+      return null;
+    }
+
+    Var v = vars[type];
+    if(v == null) {
+      v = vs.addNew(var.name, null, false, cc.qc, info);
+      if(type == COUNT) v.refineType(SeqType.ITR_O, cc);
+      vars[type] = v;
+      funcs[type] = func.def.get(func.sc, func.info, Empty.VALUE);
+    }
+    final Expr ref = new VarRef(info, v).optimize(cc);
+    return type == COUNT ? ref : func.def.get(func.sc, func.info, ref).optimize(cc);
+  }
+
+  @Override
+  public Value value(final QueryContext qc) {
+    return qc.get(var);
+  }
+
+  @Override
+  public boolean inlineable(final Var v) {
+    return true;
+  }
+
+  @Override
+  public VarUsage count(final Var v) {
+    return var.is(v) ? VarUsage.ONCE : VarUsage.NEVER;
+  }
+
+  @Override
+  public Expr inline(final Var v, final Expr ex, final CompileContext cc) {
+    return null;
+  }
+
+  @Override
+  public Expr compile(final CompileContext cc) {
+    return this;
+  }
+
+  @Override
+  public Expr optimize(final CompileContext cc) {
+    return this;
+  }
+
+  @Override
+  public GroupRef copy(final CompileContext cc, final IntObjMap<Var> vm) {
+    return copyType(new GroupRef(info, var, vs, funcs, vars));
+  }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return visitor.used(new VarRef(info, var));
+  }
+
+  @Override
+  public void checkUp() {
+  }
+
+  @Override
+  public boolean has(final Flag... flags) {
+    return false;
+  }
+
+  @Override
+  public int exprSize() {
+    return 1;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return this == obj || obj instanceof GroupRef && var.is(((GroupRef) obj).var);
+  }
+
+  @Override
+  public void plan(final QueryPlan plan) {
+    plan.add(plan.attachVariable(plan.create(this), var, false));
+  }
+
+  @Override
+  public String toString() {
+    return Strings.concat(DOLLAR, var.name.string(), '_', var.id);
+  }
+}
@@ -0,0 +1,403 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryError.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.func.*;
+import org.basex.query.util.collation.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * Builds the groups of a {@code group by} clause.
+ *
+ * Non-grouping variables are either materialized or aggregated ({@code count}, {@code sum},
+ * {@code max}). If a running aggregate cannot be computed, the values of the group are
+ * materialized instead, and the error will only be raised if the aggregate is requested.
+ * If the number of groups exceeds the specified buffer size, the groups are
+ * hash-partitioned and written to temporary files. When the results are requested,
+ * the partitions are loaded and merged one by one. In this case, the order of the returned
+ * groups differs from the order in which they were encountered. If groups are built in
+ * parallel, each instance writes its own files, which are adopted when the instances are merged.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+final class Grouper {
+  /** Number of partitions (must be a power of two). */
+  private static final int PARTITIONS = 16;
+
+  /** Group by clause. */
+  private final GroupBy group;
+  /** Collations of the grouping keys. */
+  private final Collation[] colls;
+  /** Query context. */
+  private final QueryContext qc;
+  /** Maximum number of groups to be cached in main memory. */
+  private final long buffer;
+  /** Temporary files ({@code null} if no buffer size is specified). */
+  private final Spill spill;
+  /** Aggregate functions ({@code null} for materialized variables). */
+  private final StandardFunc[] funcs;
+  /** Indicates if groups can be swapped out. */
+  private boolean swap;
+
+  /** Cached groups. */
+  private ArrayList<Group> groups = new ArrayList<>();
+  /** Hash map for the cached groups. */
+  private IntObjMap<Group> map = new IntObjMap<>();
+  /** Groups that have been cached after the last groups were swapped out. */
+  private ArrayList<Group> mem;
+  /** Temporary files with partitioned groups. */
+  private final ArrayList<IOFile[]> runs = new ArrayList<>();
+  /** Number of groups in the temporary files. */
+  private final ArrayList<int[]> sizes = new ArrayList<>();
+  /** Current partition. */
+  private int part = -1;
+  /** Current position. */
+  private int pos;
+
+  /**
+   * Constructor.
+   * @param group group by clause
+   * @param colls collations of the grouping keys
+   * @param qc query context
+   */
+  Grouper(final GroupBy group, final Collation[] colls, final QueryContext qc) {
+    this.group = group;
+    this.colls = colls;
+    this.qc = qc;
+    final long max = qc.context.options.get(MainOptions.GROUPBUFFER);
+    buffer = max > 0 ? max : Long.MAX_VALUE;
+    spill = max > 0 ? qc.resources.index(Spill.class) : null;
+    swap = spill != null;
+
+    // create function instances for evaluating the running aggregates
+    final StandardFunc[] aggrs = group.aggrs;
+    final int al = aggrs.length;
+    funcs = new StandardFunc[al];
+    for(int a = 0; a < al; a++) {
+      final StandardFunc aggr = aggrs[a];
+      if(aggr != null && !Function.COUNT.is(aggr)) {
+        funcs[a] = aggr.def.get(aggr.sc, aggr.info, Empty.VALUE);
+      }
+    }
+  }
+
+  /**
+   * Adds the values of the current tuple to the group with the specified key.
+   * @param key grouping key
+   * @param hash hash value of the key
+   * @throws QueryException query exception
+   */
+  void add(final Item[] key, final int hash) throws QueryException {
+    Group grp = find(key, hash);
+    if(grp == null) {
+      if(swap && !Spill.supported(key)) swap = false;
+      grp = create(key, hash);
+      insert(grp);
+    }
+
+    // add values of non-grouping variables to the group
+    final Expr[] preExpr = group.preExpr;
+    final int pl = preExpr.length;
+    for(int p = 0; p < pl; p++) add(grp, p, preExpr[p].value(qc));
+
+    // write partitioned groups to disk
+    if(swap && groups.size() >= buffer) write();
+  }
+
+  /**
+   * Merges the groups that have been built by another instance.
+   * The temporary files of the other instance are adopted, and its cached groups are merged.
+   * @param grouper other instance
+   * @throws QueryException query exception
+   */
+  void merge(final Grouper grouper) throws QueryException {
+    final int rs = grouper.runs.size();
+    if(rs > 0) {
+      if(swap) {
+        // write cached groups first: the values of each group remain in the order of the tuples
+        if(!groups.isEmpty()) write();
+        runs.addAll(grouper.runs);
+        sizes.addAll(grouper.sizes);
+      } else {
+        // groups cannot be swapped out: load all groups of the other instance
+        for(int r = 0; r < rs; r++) {
+          for(int p = 0; p < PARTITIONS; p++) {
+            read(grouper.runs.get(r)[p], grouper.sizes.get(r)[p]);
+          }
+        }
+      }
+    }
+    swap &= grouper.swap;
+    for(final Group grp : grouper.groups) {
+      merge(grp);
+      if(swap && groups.size() >= buffer) write();
+    }
+  }
+
+  /**
+   * Returns the next group.
+   * @return group or {@code null}
+   * @throws QueryException query exception
+   */
+  Group next() throws QueryException {
+    if(part == -1 && !runs.isEmpty()) {
+      mem = groups;
+      groups = new ArrayList<>();
+    }
+    while(pos == groups.size()) {
+      if(mem == null || part == PARTITIONS - 1) return null;
+      read(++part);
+    }
+    final Group grp = groups.get(pos);
+    // be nice to the garbage collector
+    groups.set(pos++, null);
+    return grp;
+  }
+
+  /**
+   * Returns the value of a non-grouping variable.
+   * @param grp group
+   * @param p index of the variable
+   * @return value
+   */
+  Value value(final Group grp, final int p) {
+    final ValueBuilder vb = grp.ngv[p];
+    if(vb != null) return vb.value();
+    final StandardFunc func = funcs[p];
+    if(func == null) return Int.get(grp.counts[p]);
+    final Item item = grp.aggr[p];
+    return item != null ? item : Function.SUM.is(func) ? Int.ZERO : Empty.VALUE;
+  }
+
+  /**
+   * Creates a new group.
+   * @param key grouping key
+   * @param hash hash value of the key
+   * @return group
+   */
+  private Group create(final Item[] key, final int hash) {
+    final StandardFunc[] aggrs = group.aggrs;
+    final int al = aggrs.length;
+    final ValueBuilder[] ngv = new ValueBuilder[al];
+    for(int a = 0; a < al; a++) {
+      if(aggrs[a] == null) ngv[a] = new ValueBuilder(qc);
+    }
+    return new Group(key, hash, ngv);
+  }
+
+  /**
+   * Finds the group with the specified key.
+   * @param key grouping key
+   * @param hash hash value of the key
+   * @return group or {@code null}
+   * @throws QueryException query exception
+   */
+  private Group find(final Item[] key, final int hash) throws QueryException {
+    for(Group grp = map.get(hash); grp != null; grp = grp.next) {
+      if(group.eq(key, grp.key, colls)) return grp;
+    }
+    return null;
+  }
+
+  /**
+   * Inserts a new group.
+   * @param grp group
+   */
+  private void insert(final Group grp) {
+    groups.add(grp);
+    final Group fst = map.get(grp.hash);
+    if(fst == null) {
+      grp.next = null;
+      map.put(grp.hash, grp);
+    } else {
+      grp.next = fst.next;
+      fst.next = grp;
+    }
+  }
+
+  /**
+   * Merges a group with an existing group with the same key, or inserts it.
+   * @param grp group
+   * @throws QueryException query exception
+   */
+  private void merge(final Group grp) throws QueryException {
+    final Group target = find(grp.key, grp.hash);
+    if(target == null) {
+      insert(grp);
+    } else {
+      final int gl = grp.ngv.length;
+      for(int g = 0; g < gl; g++) {
+        final ValueBuilder vb = grp.ngv[g];
+        if(vb != null) {
+          add(target, g, vb.value());
+        } else if(funcs[g] == null) {
+          target.counts[g] += grp.counts[g];
+        } else if(grp.aggr[g] != null) {
+          add(target, g, grp.aggr[g]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds a value of a non-grouping variable to a group.
+   * @param grp group
+   * @param p index of the variable
+   * @param value value to be added
+   * @throws QueryException query exception
+   */
+  private void add(final Group grp, final int p, final Value value) throws QueryException {
+    final ValueBuilder vb = grp.ngv[p];
+    if(vb != null) {
+      if(swap && !Spill.supported(value)) swap = false;
+      vb.add(value);
+    } else if(funcs[p] == null) {
+      grp.counts[p] += value.size();
+    } else if(!value.isEmpty()) {
+      // update running aggregate
+      final Item aggr = grp.aggr[p];
+      final Value input = aggr == null ? value : ValueBuilder.concat(aggr, value, qc);
+      final StandardFunc func = funcs[p];
+      func.exprs[0] = input;
+      try {
+        grp.aggr[p] = func.item(qc, group.info);
+      } catch(final QueryException ex) {
+        if(!ex.isCatchable()) throw ex;
+        // materialize values: the error will be raised when the aggregate is evaluated
+        Util.debug(ex);
+        if(swap && !Spill.supported(input)) swap = false;
+        grp.ngv[p] = new ValueBuilder(qc).add(input);
+        grp.aggr[p] = null;
+      }
+    }
+  }
+
+  /**
+   * Returns the partition of a group.
+   * @param hash hash value of the key
+   * @return partition
+   */
+  private static int partition(final int hash) {
+    return (hash ^ hash >>> 16) & PARTITIONS - 1;
+  }
+
+  /**
+   * Writes all cached groups to partitioned temporary files.
+   * @throws QueryException query exception
+   */
+  private void write() throws QueryException {
+    final IOFile[] files = new IOFile[PARTITIONS];
+    final DataOutput[] outs = new DataOutput[PARTITIONS];
+    final int[] size = new int[PARTITIONS];
+    try {
+      try {
+        for(int p = 0; p < PARTITIONS; p++) {
+          files[p] = spill.file();
+          outs[p] = new DataOutput(files[p]);
+        }
+        final int gl = funcs.length;
+        for(final Group grp : groups) {
+          final int p = partition(grp.hash);
+          final Value[] states = new Value[gl];
+          for(int g = 0; g < gl; g++) {
+            final ValueBuilder vb = grp.ngv[g];
+            states[g] = vb != null ? vb.value() : funcs[g] == null ? Int.get(grp.counts[g]) :
+              grp.aggr[g] != null ? grp.aggr[g] : Empty.VALUE;
+          }
+          spill.write(outs[p], grp.key);
+          spill.write(outs[p], Int.get(grp.hash));
+          spill.write(outs[p], states);
+          size[p]++;
+        }
+      } finally {
+        for(final DataOutput out : outs) {
+          if(out != null) out.close();
+        }
+      }
+    } catch(final IOException ex) {
+      throw IOERR_X.get(group.info, ex);
+    }
+    runs.add(files);
+    sizes.add(size);
+    groups.clear();
+    map = new IntObjMap<>();
+  }
+
+  /**
+   * Reads and merges all groups of the specified partition.
+   * @param p partition
+   * @throws QueryException query exception
+   */
+  private void read(final int p) throws QueryException {
+    groups = new ArrayList<>();
+    map = new IntObjMap<>();
+    pos = 0;
+
+    final int rs = runs.size();
+    for(int r = 0; r < rs; r++) read(runs.get(r)[p], sizes.get(r)[p]);
+
+    // merge groups that have not been swapped out
+    final int ms = mem.size();
+    for(int m = 0; m < ms; m++) {
+      final Group grp = mem.get(m);
+      if(grp != null && partition(grp.hash) == p) {
+        mem.set(m, null);
+        merge(grp);
+      }
+    }
+  }
+
+  /**
+   * Reads the groups of a temporary file, merges them with the cached groups,
+   * and deletes the file.
+   * @param file temporary file
+   * @param size number of groups
+   * @throws QueryException query exception
+   */
+  private void read(final IOFile file, final int size) throws QueryException {
+    final int gl = funcs.length, kl = colls.length;
+    try {
+      final DataInput in = spill.input(file);
+      for(int s = 0; s < size; s++) {
+        final Item[] key = new Item[kl], hash = new Item[1];
+        final Value[] states = new Value[gl];
+        spill.read(in, key, qc);
+        spill.read(in, hash, qc);
+        spill.read(in, states, qc);
+
+        final Group grp = create(key, (int) hash[0].itr(group.info));
+        for(int g = 0; g < gl; g++) {
+          final ValueBuilder vb = grp.ngv[g];
+          if(vb != null) {
+            vb.add(states[g]);
+          } else if(funcs[g] == null) {
+            grp.counts[g] = ((Item) states[g]).itr(group.info);
+          } else if(states[g].size() > 1) {
+            // values of a failed aggregate
+            grp.ngv[g] = new ValueBuilder(qc).add(states[g]);
+          } else if(states[g] != Empty.VALUE) {
+            grp.aggr[g] = (Item) states[g];
+          }
+        }
+        merge(grp);
+      }
+      spill.delete(in);
+    } catch(final IOException ex) {
+      throw IOERR_X.get(group.info, ex);
+    }
+  }
+}
@@ -0,0 +1,228 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryText.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+
+/**
+ * FLWOR {@code for} clause, which joins the items of a sequence with the incoming tuples.
+ * It is equivalent to {@code for $var in $expr[$key = $probe]}, but the items of the
+ * sequence are only evaluated once and indexed by their keys.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class Join extends Clause {
+  /** Item variable. */
+  final Var var;
+  /** Items to be joined. */
+  Expr expr;
+  /** Join key (evaluated for each item, which is bound to the context). */
+  Expr key;
+  /** Probe expression (evaluated for each incoming tuple). */
+  Expr probe;
+  /** References to variables of the incoming tuples. */
+  private VarRef[] refs;
+
+  /**
+   * Constructor.
+   * @param var item variable
+   * @param expr items to be joined
+   * @param key join key
+   * @param probe probe expression
+   * @param refs references to variables of the incoming tuples
+   * @param info input info
+   */
+  Join(final Var var, final Expr expr, final Expr key, final Expr probe, final VarRef[] refs,
+      final InputInfo info) {
+    super(info, SeqType.ITEM_O, var);
+    this.var = var;
+    this.expr = expr;
+    this.key = key;
+    this.probe = probe;
+    this.refs = refs;
+  }
+
+  @Override
+  Eval eval(final Eval sub) {
+    return new Eval() {
+      /** Joiner. */
+      private Joiner joiner;
+
+      @Override
+      public boolean next(final QueryContext qc) throws QueryException {
+        if(joiner == null) joiner = new Joiner(Join.this, sub, qc);
+        return joiner.next();
+      }
+    };
+  }
+
+  /**
+   * Returns the variables of the incoming tuples.
+   * @param qc query context
+   * @return values
+   */
+  Value[] tuple(final QueryContext qc) {
+    final int rl = refs.length;
+    final Value[] tuple = new Value[rl];
+    for(int r = 0; r < rl; r++) tuple[r] = refs[r].value(qc);
+    return tuple;
+  }
+
+  /**
+   * Binds the variables of an incoming tuple.
+   * @param tuple values
+   * @param qc query context
+   * @throws QueryException query exception
+   */
+  void tuple(final Value[] tuple, final QueryContext qc) throws QueryException {
+    final int rl = refs.length;
+    for(int r = 0; r < rl; r++) qc.set(refs[r].var, tuple[r]);
+  }
+
+  @Override
+  public Join compile(final CompileContext cc) throws QueryException {
+    expr = expr.compile(cc);
+    probe = probe.compile(cc);
+    cc.pushFocus(expr);
+    try {
+      key = key.compile(cc);
+    } finally {
+      cc.removeFocus();
+    }
+    return optimize(cc);
+  }
+
+  @Override
+  public Join optimize(final CompileContext cc) throws QueryException {
+    exprType.assign(expr.seqType().type, Occ.ONE);
+    var.refineType(seqType(), 1, cc);
+    var.data = expr.data();
+    return this;
+  }
+
+  @Override
+  public boolean has(final Flag... flags) {
+    if(expr.has(flags) || probe.has(flags)) return true;
+    final Flag[] flgs = Flag.POS.remove(Flag.CTX.remove(flags));
+    return flgs.length != 0 && key.has(flgs);
+  }
+
+  @Override
+  public boolean inlineable(final Var v) {
+    return expr.inlineable(v) && probe.inlineable(v) && !key.uses(v);
+  }
+
+  @Override
+  public VarUsage count(final Var v) {
+    final VarUsage inKey = key.count(v) == VarUsage.NEVER ? VarUsage.NEVER :
+      VarUsage.MORE_THAN_ONCE;
+    return expr.count(v).plus(probe.count(v)).plus(inKey);
+  }
+
+  @Override
+  public Clause inline(final Var v, final Expr ex, final CompileContext cc)
+      throws QueryException {
+
+    for(int r = refs.length; --r >= 0;) {
+      if(v.is(refs[r].var)) refs = Array.remove(refs, r);
+    }
+    boolean changed = false;
+    Expr inlined = expr.inline(v, ex, cc);
+    if(inlined != null) {
+      expr = inlined;
+      changed = true;
+    }
+    inlined = probe.inline(v, ex, cc);
+    if(inlined != null) {
+      probe = inlined;
+      changed = true;
+    }
+    inlined = key.inline(v, ex, cc);
+    if(inlined != null) {
+      key = inlined;
+      changed = true;
+    }
+    return changed ? optimize(cc) : null;
+  }
+
+  @Override
+  public Join copy(final CompileContext cc, final IntObjMap<Var> vm) {
+    final Expr ex = expr.copy(cc, vm), kx = key.copy(cc, vm), px = probe.copy(cc, vm);
+    return copyType(new Join(cc.copy(var, vm), ex, kx, px, Arr.copyAll(cc, vm, refs), info));
+  }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    if(!expr.accept(visitor) || !probe.accept(visitor)) return false;
+    visitor.enterFocus();
+    if(!key.accept(visitor)) return false;
+    visitor.exitFocus();
+    return visitor.declared(var);
+  }
+
+  @Override
+  boolean clean(final IntObjMap<Var> decl, final BitArray used) {
+    // delete unused variables
+    final int len = refs.length;
+    for(int r = refs.length; --r >= 0;) {
+      if(!used.get(refs[r].var.id)) refs = Array.remove(refs, r);
+    }
+    boolean changed = refs.length != len;
+
+    // add new variables, possible when an expression is inlined below this clause
+    OUTER: for(int id = used.nextSet(0); id >= 0; id = used.nextSet(id + 1)) {
+      if(id == var.id) continue;
+      for(final VarRef ref : refs) {
+        if(ref.var.id == id) continue OUTER;
+      }
+      refs = Array.add(refs, new VarRef(info, decl.get(id)));
+      changed = true;
+    }
+    return changed;
+  }
+
+  @Override
+  public void checkUp() throws QueryException {
+    checkNoneUp(expr, key, probe);
+  }
+
+  @Override
+  void calcSize(final long[] minMax) {
+    minMax[0] = 0;
+    if(minMax[1] > 0) minMax[1] = expr.size() == 0 ? 0 : -1;
+  }
+
+  @Override
+  public int exprSize() {
+    return expr.exprSize() + key.exprSize() + probe.exprSize();
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if(this == obj) return true;
+    if(!(obj instanceof Join)) return false;
+    final Join j = (Join) obj;
+    return var.equals(j.var) && expr.equals(j.expr) && key.equals(j.key) &&
+        probe.equals(j.probe) && Array.equals(refs, j.refs);
+  }
+
+  @Override
+  public void plan(final QueryPlan plan) {
+    plan.add(plan.attachVariable(plan.create(this), var, false), expr, key, probe);
+  }
+
+  @Override
+  public String toString() {
+    return new StringBuilder(FOR).append(" (: hash join :) ").append(var).append(' ').
+        append(IN).append(" (").append(expr).append(")[").append(key).append(" = ").
+        append(probe).append(']').toString();
+  }
+}
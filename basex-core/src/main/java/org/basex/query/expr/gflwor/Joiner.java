@@ -0,0 +1,386 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryError.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.hash.*;
+import org.basex.query.util.list.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * Evaluates a hash join.
+ *
+ * When the first tuple arrives, the items to be joined are indexed by their keys.
+ * The keys of each incoming tuple are then looked up in the index, and the matching items
+ * are returned in their original order.
+ *
+ * If the number of indexed items exceeds the specified buffer size, the keys and items are
+ * hash-partitioned and written to temporary files. The incoming tuples are then processed
+ * in batches: the partitions are loaded one by one, and the matches of all tuples of a batch
+ * are sorted before they are returned, so that the order of the results does not change.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+final class Joiner {
+  /** Number of partitions (must be a power of two). */
+  private static final int PARTITIONS = 16;
+
+  /** Join clause. */
+  private final Join join;
+  /** Evaluator of the incoming tuples. */
+  private final Eval sub;
+  /** Query context. */
+  private final QueryContext qc;
+  /** Maximum number of items to be cached in main memory. */
+  private final long buffer;
+  /** Temporary files ({@code null} if no buffer size is specified). */
+  private final Spill spill;
+  /** Indicates if items can be swapped out. */
+  private boolean swap;
+
+  /** Indexed keys ({@code null} if the items have been swapped out). */
+  private HashItemSet keys;
+  /** Positions of the items, indexed by the ids of their keys. */
+  private ArrayList<IntList> positions;
+  /** Cached items. */
+  private ItemList items;
+
+  /** Partition files ({@code null} if the items have not been swapped out). */
+  private IOFile[] files;
+  /** Outputs for writing the partitions. */
+  private DataOutput[] outs;
+  /** Number of entries in the partitions. */
+  private final int[] sizes = new int[PARTITIONS];
+
+  /** Indicates if the incoming tuples have not been exhausted. */
+  private boolean more = true;
+  /** Tuples of the current batch ({@code null} if items are kept in main memory). */
+  private ArrayList<Value[]> tuples;
+  /** Matching items of the current batch. */
+  private IntObjMap<Item> found;
+  /** Matches of the current batch (tuple, position). */
+  private long[] matches = {};
+  /** Positions of the matching items of the current tuple. */
+  private IntList current = new IntList(0);
+  /** Current match. */
+  private int m;
+  /** Current tuple. */
+  private int tuple = -1;
+
+  /**
+   * Constructor.
+   * @param join join clause
+   * @param sub evaluator of the incoming tuples
+   * @param qc query context
+   */
+  Joiner(final Join join, final Eval sub, final QueryContext qc) {
+    this.join = join;
+    this.sub = sub;
+    this.qc = qc;
+    final long max = qc.context.options.get(MainOptions.JOINBUFFER);
+    buffer = max > 0 ? max : Long.MAX_VALUE;
+    spill = max > 0 ? qc.resources.index(Spill.class) : null;
+    swap = spill != null;
+  }
+
+  /**
+   * Binds the next joined tuple.
+   * @return {@code true} if another tuple was found
+   * @throws QueryException query exception
+   */
+  boolean next() throws QueryException {
+    while(true) {
+      if(tuples == null) {
+        // main memory: return matches of the current tuple
+        if(m < current.size()) {
+          qc.set(join.var, items.get(current.get(m++)));
+          return true;
+        }
+      } else if(m < matches.length) {
+        // temporary files: restore tuple and return next match
+        final long match = matches[m++];
+        final int t = (int) (match >>> 32);
+        if(t != tuple) {
+          join.tuple(tuples.get(t), qc);
+          tuples.set(tuple = t, null);
+        }
+        qc.set(join.var, found.get((int) match));
+        return true;
+      }
+      if(!more || !sub.next(qc)) return false;
+
+      if(keys == null && files == null) build();
+      if(files == null) {
+        probe();
+      } else {
+        batch();
+      }
+    }
+  }
+
+  /**
+   * Looks up the keys of the current tuple in main memory.
+   * @throws QueryException query exception
+   */
+  private void probe() throws QueryException {
+    IntList list = null;
+    boolean merge = false;
+    final Iter iter = join.probe.atomIter(qc, join.info);
+    for(Item item; (item = qc.next(iter)) != null;) {
+      final int id = keys.id(item, join.info);
+      if(id == 0) continue;
+      final IntList pos = positions.get(id);
+      if(list == null) {
+        list = pos;
+      } else if(list != pos) {
+        if(!merge) list = new IntList(list.toArray());
+        list.add(pos.toArray());
+        merge = true;
+      }
+    }
+    current = list == null ? new IntList(0) : merge ? list.sort().distinct() : list;
+    m = 0;
+  }
+
+  /**
+   * Collects a batch of incoming tuples (including the current one) and looks up their keys in
+   * the partitioned temporary files.
+   * @throws QueryException query exception
+   */
+  private void batch() throws QueryException {
+    // collect tuples and keys of the batch, sorted by partitions
+    tuples = new ArrayList<>();
+    final IntList[] tps = new IntList[PARTITIONS];
+    final ItemList[] kps = new ItemList[PARTITIONS];
+    for(int p = 0; p < PARTITIONS; p++) {
+      tps[p] = new IntList();
+      kps[p] = new ItemList();
+    }
+    do {
+      final int t = tuples.size();
+      tuples.add(join.tuple(qc));
+      final Iter iter = join.probe.atomIter(qc, join.info);
+      for(Item item; (item = qc.next(iter)) != null;) {
+        final int p = partition(item.hash(join.info));
+        tps[p].add(t);
+        kps[p].add(item);
+      }
+    } while(tuples.size() < buffer && (more = sub.next(qc)));
+
+    // look up keys in each partition
+    final LongList list = new LongList();
+    found = new IntObjMap<>();
+    for(int p = 0; p < PARTITIONS; p++) {
+      final int ks = kps[p].size();
+      if(ks == 0 || sizes[p] == 0) continue;
+
+      // load partition
+      final HashItemSet set = new HashItemSet(true);
+      final ArrayList<IntList> poss = new ArrayList<>();
+      final ArrayList<ItemList> itms = new ArrayList<>();
+      poss.add(null);
+      itms.add(null);
+      try {
+        final DataInput in = spill.input(files[p]);
+        final Item[] entry = new Item[3];
+        final int size = sizes[p];
+        for(int s = 0; s < size; s++) {
+          spill.read(in, entry, qc);
+          final int id = set.put(entry[0], join.info);
+          if(id == poss.size()) {
+            poss.add(new IntList());
+            itms.add(new ItemList());
+          }
+          poss.get(id).add((int) entry[1].itr(join.info));
+          itms.get(id).add(entry[2]);
+        }
+        spill.close(in);
+      } catch(final IOException ex) {
+        throw IOERR_X.get(join.info, ex);
+      }
+
+      // find matches
+      for(int k = 0; k < ks; k++) {
+        final int id = set.id(kps[p].get(k), join.info);
+        if(id == 0) continue;
+        final long t = (long) tps[p].get(k) << 32;
+        final IntList pos = poss.get(id);
+        final ItemList itm = itms.get(id);
+        final int ps = pos.size();
+        for(int i = 0; i < ps; i++) {
+          list.add(t | pos.get(i));
+          found.put(pos.get(i), itm.get(i));
+        }
+      }
+    }
+    matches = list.sort().distinct().finish();
+    tuple = -1;
+    m = 0;
+  }
+
+  /**
+   * Indexes the items to be joined.
+   * @throws QueryException query exception
+   */
+  private void build() throws QueryException {
+    keys = new HashItemSet(true);
+    positions = new ArrayList<>();
+    positions.add(null);
+    items = new ItemList();
+
+    final Iter iter = join.expr.iter(qc);
+    final QueryFocus qf = qc.focus, focus = new QueryFocus();
+    qc.focus = focus;
+    try {
+      int pos = 0;
+      for(Item item; (item = qc.next(iter)) != null; pos++) {
+        focus.value = item;
+        final Iter ir = join.key.atomIter(qc, join.info);
+        if(files != null) {
+          if(Spill.supported(item)) {
+            for(Item key; (key = qc.next(ir)) != null;) write(key, pos, item);
+            continue;
+          }
+          // item cannot be swapped out: restore swapped items
+          unswap(pos);
+        }
+
+        if(swap && !Spill.supported(item)) swap = false;
+        items.add(item);
+        for(Item key; (key = qc.next(ir)) != null;) {
+          final int id = keys.put(key, join.info);
+          if(id == positions.size()) positions.add(new IntList());
+          final IntList list = positions.get(id);
+          if(list.isEmpty() || list.peek() != pos) list.add(pos);
+        }
+        if(swap && items.size() > buffer) swap();
+      }
+    } finally {
+      qc.focus = qf;
+    }
+
+    if(outs != null) {
+      try {
+        for(final DataOutput out : outs) out.close();
+      } catch(final IOException ex) {
+        throw IOERR_X.get(join.info, ex);
+      }
+      outs = null;
+    }
+  }
+
+  /**
+   * Writes the cached items to partitioned temporary files.
+   * @throws QueryException query exception
+   */
+  private void swap() throws QueryException {
+    files = new IOFile[PARTITIONS];
+    outs = new DataOutput[PARTITIONS];
+    try {
+      for(int p = 0; p < PARTITIONS; p++) {
+        files[p] = spill.file();
+        outs[p] = new DataOutput(files[p]);
+      }
+    } catch(final IOException ex) {
+      throw IOERR_X.get(join.info, ex);
+    }
+    int id = 0;
+    for(final Item key : keys) {
+      final IntList list = positions.get(++id);
+      final int ls = list.size();
+      for(int l = 0; l < ls; l++) {
+        final int pos = list.get(l);
+        write(key, pos, items.get(pos));
+      }
+    }
+    keys = null;
+    positions = null;
+    items = null;
+  }
+
+  /**
+   * Reads the swapped items back into main memory and deletes the temporary files.
+   * @param size number of items that have been indexed so far
+   * @throws QueryException query exception
+   */
+  private void unswap(final int size) throws QueryException {
+    final ItemList ks = new ItemList(), its = new ItemList();
+    final IntList ps = new IntList();
+    try {
+      for(final DataOutput out : outs) out.close();
+      final Item[] entry = new Item[3];
+      for(int p = 0; p < PARTITIONS; p++) {
+        final DataInput in = spill.input(files[p]);
+        for(int s = 0; s < sizes[p]; s++) {
+          spill.read(in, entry, qc);
+          ks.add(entry[0]);
+          ps.add((int) entry[1].itr(join.info));
+          its.add(entry[2]);
+        }
+        spill.delete(in);
+        sizes[p] = 0;
+      }
+    } catch(final IOException ex) {
+      throw IOERR_X.get(join.info, ex);
+    }
+    files = null;
+    outs = null;
+    swap = false;
+
+    // index entries in their original order (items without keys were not swapped out)
+    keys = new HashItemSet(true);
+    positions = new ArrayList<>();
+    positions.add(null);
+    items = new ItemList(size);
+    final int[] order = ps.createOrder();
+    final int os = order.length;
+    for(int i = 0; i < os; i++) {
+      final int o = order[i], pos = ps.get(i);
+      while(items.size() < pos) items.add((Item) null);
+      if(items.size() == pos) items.add(its.get(o));
+      final int id = keys.put(ks.get(o), join.info);
+      if(id == positions.size()) positions.add(new IntList());
+      final IntList list = positions.get(id);
+      if(list.isEmpty() || list.peek() != pos) list.add(pos);
+    }
+    while(items.size() < size) items.add((Item) null);
+  }
+
+  /**
+   * Writes an entry to a partition.
+   * @param key key
+   * @param pos position of the item
+   * @param item item
+   * @throws QueryException query exception
+   */
+  private void write(final Item key, final int pos, final Item item) throws QueryException {
+    final int p = partition(key.hash(join.info));
+    try {
+      spill.write(outs[p], key, Int.get(pos), item);
+    } catch(final IOException ex) {
+      throw IOERR_X.get(join.info, ex);
+    }
+    sizes[p]++;
+  }
+
+  /**
+   * Returns the partition of a key.
+   * @param hash hash value of the key
+   * @return partition
+   */
+  private static int partition(final int hash) {
+    return (hash ^ hash >>> 16) & PARTITIONS - 1;
+  }
+}
@@ -0,0 +1,284 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryError.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Sorts the tuples of an {@code order by} clause.
+ *
+ * If the number of cached tuples exceeds the specified buffer size, the tuples are sorted
+ * and written to a temporary file. The sorted runs are merged when the results are requested.
+ * If only the first tuples will be returned, all other tuples are discarded as early as possible.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+final class Sorter {
+  /** Order by clause. */
+  private final OrderBy order;
+  /** Query context. */
+  private final QueryContext qc;
+  /** Maximum number of tuples to be returned. */
+  private final long limit;
+  /** Maximum number of tuples to be cached in main memory. */
+  private final long buffer;
+
+  /** Cached keys. */
+  private final ArrayList<Item[]> keys = new ArrayList<>();
+  /** Cached tuples. */
+  private final ArrayList<Value[]> tuples = new ArrayList<>();
+  /** Temporary files with sorted runs. */
+  private final ArrayList<IOFile> runs = new ArrayList<>();
+  /** Number of tuples in the sorted runs. */
+  private final IntList sizes = new IntList();
+  /** Temporary files ({@code null} if no buffer size is specified). */
+  private final Spill spill;
+  /** Indicates if tuples can be swapped out. */
+  private boolean swap;
+
+  /**
+   * Constructor.
+   * @param order order by clause
+   * @param limit maximum number of tuples to be returned
+   * @param qc query context
+   */
+  Sorter(final OrderBy order, final long limit, final QueryContext qc) {
+    this.order = order;
+    this.limit = limit;
+    this.qc = qc;
+    final long max = qc.context.options.get(MainOptions.SORTBUFFER);
+    buffer = max > 0 ? max : Long.MAX_VALUE;
+    spill = max > 0 ? qc.resources.index(Spill.class) : null;
+    swap = spill != null;
+  }
+
+  /**
+   * Adds a tuple.
+   * @param key sort keys
+   * @param tuple tuple
+   * @throws QueryException query exception
+   */
+  void add(final Item[] key, final Value[] tuple) throws QueryException {
+    if(swap && !(Spill.supported(key) && Spill.supported(tuple))) swap = false;
+    keys.add(key);
+    tuples.add(tuple);
+
+    final int size = keys.size();
+    if(limit < Integer.MAX_VALUE >>> 1 && size >= Math.max(limit << 1, Array.CAPACITY)) {
+      // discard tuples that will never be returned
+      sort();
+    } else if(swap && size >= buffer) {
+      // write sorted run to disk
+      sort();
+      try {
+        final IOFile file = spill.file();
+        try(DataOutput out = new DataOutput(file)) {
+          final int sz = keys.size();
+          for(int s = 0; s < sz; s++) {
+            spill.write(out, keys.get(s));
+            spill.write(out, tuples.get(s));
+          }
+          sizes.add(sz);
+        }
+        runs.add(file);
+      } catch(final IOException ex) {
+        throw IOERR_X.get(order.info, ex);
+      }
+      keys.clear();
+      tuples.clear();
+    }
+  }
+
+  /**
+   * Returns an iterator for the sorted tuples.
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  TupleIter iter() throws QueryException {
+    sort();
+    final TupleIter mem = new TupleIter() {
+      int pos;
+
+      @Override
+      boolean next() {
+        if(pos == keys.size()) return false;
+        key = keys.get(pos);
+        tuple = tuples.get(pos);
+        // free the space occupied by the tuple
+        keys.set(pos, null);
+        tuples.set(pos++, null);
+        return true;
+      }
+    };
+    if(runs.isEmpty()) return limit(mem);
+
+    // merge runs: prefer tuples of earlier runs to preserve the input order
+    final MinHeap<TupleIter, TupleIter> heap = new MinHeap<>((a, b) -> {
+      try {
+        final int c = order.compare(a.key, b.key);
+        return c != 0 ? c : a.run - b.run;
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      }
+    });
+    final int rs = runs.size();
+    for(int r = 0; r < rs; r++) add(heap, run(runs.get(r), sizes.get(r)), r);
+    add(heap, mem, rs);
+    runs.clear();
+
+    return limit(new TupleIter() {
+      @Override
+      boolean next() throws QueryException {
+        if(heap.isEmpty()) return false;
+        final TupleIter iter;
+        try {
+          iter = heap.removeMin();
+        } catch(final QueryRTException ex) {
+          throw ex.getCause();
+        }
+        key = iter.key;
+        tuple = iter.tuple;
+        add(heap, iter, iter.run);
+        return true;
+      }
+    });
+  }
+
+  /**
+   * Adds an iterator to the heap if it returns more tuples.
+   * @param heap heap
+   * @param iter iterator
+   * @param run number of the run
+   * @throws QueryException query exception
+   */
+  private static void add(final MinHeap<TupleIter, TupleIter> heap, final TupleIter iter,
+      final int run) throws QueryException {
+    if(iter.next()) {
+      iter.run = run;
+      try {
+        heap.insert(iter, iter);
+      } catch(final QueryRTException ex) {
+        throw ex.getCause();
+      }
+    }
+  }
+
+  /**
+   * Returns an iterator for the tuples of a sorted run.
+   * @param file file
+   * @param size number of tuples
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  private TupleIter run(final IOFile file, final int size) throws QueryException {
+    try {
+      final DataInput in = spill.input(file);
+      return new TupleIter() {
+        int pos;
+
+        @Override
+        boolean next() throws QueryException {
+          try {
+            if(pos++ == size) {
+              spill.delete(in);
+              return false;
+            }
+            key = new Item[order.keys()];
+            tuple = new Value[order.refs()];
+            spill.read(in, key, qc);
+            spill.read(in, tuple, qc);
+            return true;
+          } catch(final IOException ex) {
+            throw IOERR_X.get(order.info, ex);
+          }
+        }
+      };
+    } catch(final IOException ex) {
+      throw IOERR_X.get(order.info, ex);
+    }
+  }
+
+  /**
+   * Limits the number of returned tuples.
+   * @param iter iterator
+   * @return iterator
+   */
+  private TupleIter limit(final TupleIter iter) {
+    return limit == Long.MAX_VALUE ? iter : new TupleIter() {
+      long c;
+
+      @Override
+      boolean next() throws QueryException {
+        if(c++ == limit || !iter.next()) return false;
+        key = iter.key;
+        tuple = iter.tuple;
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Sorts the cached tuples (the sort is stable) and discards tuples that exceed the limit.
+   * @throws QueryException query exception
+   */
+  private void sort() throws QueryException {
+    final int size = keys.size();
+    final Integer[] perm = new Integer[size];
+    for(int p = 0; p < size; p++) perm[p] = p;
+    try {
+      Arrays.sort(perm, (x, y) -> {
+        try {
+          return order.compare(keys.get(x), keys.get(y));
+        } catch(final QueryException ex) {
+          throw new QueryRTException(ex);
+        }
+      });
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+
+    final int sz = (int) Math.min(size, limit);
+    final Item[][] ks = new Item[sz][];
+    final Value[][] ts = new Value[sz][];
+    for(int s = 0; s < sz; s++) {
+      ks[s] = keys.get(perm[s]);
+      ts[s] = tuples.get(perm[s]);
+    }
+    keys.clear();
+    tuples.clear();
+    Collections.addAll(keys, ks);
+    Collections.addAll(tuples, ts);
+  }
+
+  /**
+   * Iterator for sorted tuples.
+   */
+  abstract static class TupleIter {
+    /** Sort keys of the current tuple. */
+    Item[] key;
+    /** Current tuple. */
+    Value[] tuple;
+    /** Number of the run. */
+    int run;
+
+    /**
+     * Moves to the next tuple.
+     * @return {@code true} if another tuple was found
+     * @throws QueryException query exception
+     */
+    abstract boolean next() throws QueryException;
+  }
+}
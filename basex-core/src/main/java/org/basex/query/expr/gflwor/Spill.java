@@ -0,0 +1,296 @@
+package org.basex.query.expr.gflwor;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Temporary files for FLWOR tuples that are swapped out of main memory.
+ * A single instance is created per query, which is shared by the threads of a parallel
+ * evaluation; all remaining files will be deleted when the query is closed.
+ *
+ * Items are serialized in the following format:
+ * <ul>
+ *   <li> {@code 0}: empty sequence</li>
+ *   <li> {@code 1, data reference, pre value}: database node</li>
+ *   <li> {@code type id, ...}: atomic item (integers, doubles and floats are stored as bits,
+ *     all other items as strings)</li>
+ * </ul>
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class Spill implements QueryResource {
+  /** Item type: empty sequence. */
+  private static final int EMPTY = 0;
+  /** Item type: database node. */
+  private static final int NODE = 1;
+
+  /** Temporary files. */
+  private final ArrayList<IOFile> files = new ArrayList<>();
+  /** Opened inputs. */
+  private final ArrayList<DataInput> inputs = new ArrayList<>();
+  /** Referenced databases. */
+  private final ArrayList<Data> datas = new ArrayList<>();
+
+  /**
+   * Checks if the specified values can be swapped out.
+   * @param values values
+   * @return result of check
+   */
+  static boolean supported(final Value... values) {
+    for(final Value value : values) {
+      for(final Item item : value) {
+        if(!(item instanceof DBNode)) {
+          final Type type = item.type;
+          if(!(type instanceof AtomType) || type == AtomType.QNM || type == AtomType.NOT ||
+              type == AtomType.JAVA) return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates a new temporary file.
+   * @return file
+   * @throws IOException I/O exception
+   */
+  synchronized IOFile file() throws IOException {
+    final IOFile file = new IOFile(File.createTempFile(Prop.NAME + '-', IO.TMPSUFFIX));
+    files.add(file);
+    return file;
+  }
+
+  /**
+   * Opens the specified file for reading.
+   * @param file file
+   * @return input
+   * @throws IOException I/O exception
+   */
+  synchronized DataInput input(final IOFile file) throws IOException {
+    final DataInput in = new DataInput(file);
+    inputs.add(in);
+    return in;
+  }
+
+  /**
+   * Closes the input.
+   * @param in input
+   * @throws IOException I/O exception
+   */
+  synchronized void close(final DataInput in) throws IOException {
+    inputs.remove(in);
+    in.close();
+  }
+
+  /**
+   * Closes the input and deletes the file.
+   * @param in input
+   * @throws IOException I/O exception
+   */
+  synchronized void delete(final DataInput in) throws IOException {
+    close(in);
+    final IOFile file = (IOFile) in.io();
+    files.remove(file);
+    file.delete();
+  }
+
+  /**
+   * Writes values.
+   * @param out output stream
+   * @param values values
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  void write(final DataOutput out, final Value... values) throws IOException, QueryException {
+    for(final Value value : values) {
+      out.writeNum((int) value.size());
+      for(final Item item : value) write(out, item);
+    }
+  }
+
+  /**
+   * Writes items.
+   * @param out output stream
+   * @param items items
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  void write(final DataOutput out, final Item... items) throws IOException, QueryException {
+    for(final Item item : items) write(out, item);
+  }
+
+  /**
+   * Reads values.
+   * @param in input stream
+   * @param values array to be filled
+   * @param qc query context
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  void read(final DataInput in, final Value[] values, final QueryContext qc)
+      throws IOException, QueryException {
+    final int vl = values.length;
+    for(int v = 0; v < vl; v++) {
+      final int size = in.readNum();
+      if(size == 1) {
+        values[v] = read(in, qc);
+      } else {
+        final ValueBuilder vb = new ValueBuilder(qc);
+        for(int s = 0; s < size; s++) vb.add(read(in, qc));
+        values[v] = vb.value();
+      }
+    }
+  }
+
+  /**
+   * Reads items.
+   * @param in input stream
+   * @param items array to be filled
+   * @param qc query context
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  void read(final DataInput in, final Item[] items, final QueryContext qc)
+      throws IOException, QueryException {
+    final int il = items.length;
+    for(int i = 0; i < il; i++) items[i] = read(in, qc);
+  }
+
+  /**
+   * Writes a single item.
+   * @param out output stream
+   * @param item item
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  private void write(final DataOutput out, final Item item) throws IOException, QueryException {
+    if(item == Empty.VALUE) {
+      out.write1(EMPTY);
+    } else if(item instanceof DBNode) {
+      final DBNode node = (DBNode) item;
+      out.write1(NODE);
+      out.writeNum(data(node.data()));
+      out.writeNum(node.pre());
+    } else {
+      out.write1(item.typeId().asByte());
+      if(item instanceof Int) {
+        writeLong(out, item.itr(null));
+      } else if(item instanceof Dbl) {
+        writeLong(out, Double.doubleToRawLongBits(item.dbl(null)));
+      } else if(item instanceof Flt) {
+        out.write4(Float.floatToRawIntBits(item.flt(null)));
+      } else {
+        out.writeToken(item.string(null));
+      }
+    }
+  }
+
+  /**
+   * Reads a single item.
+   * @param in input stream
+   * @param qc query context
+   * @return item
+   * @throws IOException I/O exception
+   * @throws QueryException query exception
+   */
+  private Item read(final DataInput in, final QueryContext qc)
+      throws IOException, QueryException {
+    final int id = in.read();
+    if(id == EMPTY) return Empty.VALUE;
+    if(id == NODE) {
+      final Data data = data(in.readNum());
+      return new DBNode(data, in.readNum());
+    }
+    final AtomType type = (AtomType) Type.ID.getType(id);
+    if(type.instanceOf(AtomType.ITR) && type != AtomType.ULN) return Int.get(readLong(in), type);
+    if(type == AtomType.DBL) return Dbl.get(Double.longBitsToDouble(readLong(in)));
+    if(type == AtomType.FLT) return Flt.get(Float.intBitsToFloat(readInt(in)));
+
+    final byte[] token = in.readToken();
+    if(type == AtomType.ATM) return new Atm(token);
+    if(type.instanceOf(AtomType.STR)) return new Str(token, type);
+    return type.cast(Str.get(token), qc, null, null);
+  }
+
+  /**
+   * Returns the id of a database reference.
+   * @param data database reference
+   * @return id
+   */
+  private synchronized int data(final Data data) {
+    int d = datas.indexOf(data);
+    if(d == -1) {
+      d = datas.size();
+      datas.add(data);
+    }
+    return d;
+  }
+
+  /**
+   * Returns a database reference.
+   * @param d id
+   * @return database reference
+   */
+  private synchronized Data data(final int d) {
+    return datas.get(d);
+  }
+
+  /**
+   * Writes a long value.
+   * @param out output stream
+   * @param value value
+   * @throws IOException I/O exception
+   */
+  private static void writeLong(final DataOutput out, final long value) throws IOException {
+    out.write4((int) (value >>> 32));
+    out.write4((int) value);
+  }
+
+  /**
+   * Reads a long value.
+   * @param in input stream
+   * @return value
+   * @throws IOException I/O exception
+   */
+  private static long readLong(final DataInput in) throws IOException {
+    return (long) readInt(in) << 32 | readInt(in) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Reads an integer value.
+   * @param in input stream
+   * @return value
+   * @throws IOException I/O exception
+   */
+  private static int readInt(final DataInput in) throws IOException {
+    return in.read() << 24 | in.read() << 16 | in.read() << 8 | in.read();
+  }
+
+  @Override
+  public synchronized void close() {
+    for(final DataInput in : inputs) {
+      try {
+        in.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+    inputs.clear();
+    for(final IOFile file : files) file.delete();
+    files.clear();
+    datas.clear();
+  }
+}
@@ -31,9 +31,16 @@ final class CachedStep extends Step {
   @Override
   public NodeIter iter(final QueryContext qc) throws QueryException {
     // evaluate step
+    final ANode root = checkNode(qc);
+    final BasicNodeIter iter = axis.iter(root);
     final ANodeList list = new ANodeList();
-    for(final ANode n : axis.iter(checkNode(qc))) {
-      if(test.eq(n)) list.add(n.finish());
+    if(iter instanceof DBNodeIter) {
+      final DBNodeIter nodes = iter((DBNodeIter) iter, root.data(), qc);
+      for(DBNode node; (node = nodes.next()) != null;) list.add(node);
+    } else {
+      for(ANode node; (node = iter.next()) != null;) {
+        if(test.eq(node)) list.add(node.finish());
+      }
     }
 
     // evaluate predicates
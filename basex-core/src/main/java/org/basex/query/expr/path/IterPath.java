@@ -2,6 +2,7 @@ package org.basex.query.expr.path;
 
 import static org.basex.query.QueryError.*;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
@@ -11,6 +12,7 @@ import org.basex.query.value.node.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * Iterative path expression for location paths that return sorted and duplicate-free results.
@@ -35,12 +37,20 @@ public final class IterPath extends AxisPath {
       QueryFocus focus;
       Expr[] exprs;
       Iter[] iter;
-      ANode last;
+      ANode last, pending;
       int pos, sz;
       boolean rt;
 
       @Override
       public ANode next() throws QueryException {
+        // return node that has been requested by the last batch call
+        if(pending != null) {
+          final ANode node = pending;
+          pending = null;
+          return node;
+        }
+        if(pos == -1) return null;
+
         final QueryFocus qf = qc.focus;
         if(iter == null) init(qf);
         qc.focus = focus;
@@ -51,11 +61,7 @@ public final class IterPath extends AxisPath {
             if(item == null) {
               if(--pos == -1) return null;
             } else if(pos < sz - 1) {
-              // ensure that the root expression yields nodes
-              if(pos++ == 0 && rt && !(item instanceof ANode))
-                throw PATHNODE_X_X_X.get(info, steps[0], item.type, item);
-              focus.value = item;
-              iter[pos] = exprs[pos].iter(qc);
+              step(item);
             } else {
               // cast is safe (axis steps will always yield nodes); skip identical nodes
               final ANode n = (ANode) item;
@@ -70,6 +76,67 @@ public final class IterPath extends AxisPath {
         }
       }
 
+      @Override
+      public Data batch(final IntList pres, final int max) throws QueryException {
+        pres.reset();
+        if(pending != null || pos == -1) return null;
+
+        final QueryFocus qf = qc.focus;
+        if(iter == null) init(qf);
+        qc.focus = focus;
+
+        try {
+          do {
+            final Iter it = iter[pos];
+            if(pos < sz - 1) {
+              final Item item = qc.next(it);
+              if(item == null) {
+                if(--pos == -1) return null;
+              } else {
+                step(item);
+              }
+            } else {
+              // last step: request pre values of database nodes
+              final Data data = it instanceof NodeIter ? ((NodeIter) it).batch(pres, max) : null;
+              if(data != null) {
+                // skip identical nodes
+                if(last instanceof DBNode && last.data() == data &&
+                    ((DBNode) last).pre() == pres.get(0)) pres.remove(0);
+                if(!pres.isEmpty()) {
+                  last = new DBNode(data, pres.get(pres.size() - 1));
+                  return data;
+                }
+              } else {
+                // no database nodes: return next node via next()
+                final ANode n = (ANode) qc.next(it);
+                if(n == null) {
+                  if(--pos == -1) return null;
+                } else if(last == null || !last.is(n)) {
+                  last = n;
+                  pending = n;
+                  return null;
+                }
+              }
+            }
+          } while(true);
+        } finally {
+          qc.focus = qf;
+        }
+      }
+
+      /**
+       * Evaluates the next step for the specified item.
+       * @param item context item
+       * @throws QueryException query exception
+       */
+      private void step(final Item item) throws QueryException {
+        // ensure that the root expression yields nodes
+        if(pos++ == 0 && rt && !(item instanceof ANode))
+          throw PATHNODE_X_X_X.get(info, steps[0], item.type, item);
+        focus.value = item;
+        iter[pos] = exprs[pos].iter(qc);
+      }
+
       private void init(final QueryFocus qf) throws QueryException {
         rt = root != null;
         sz = steps.length + (rt ? 1 : 0);
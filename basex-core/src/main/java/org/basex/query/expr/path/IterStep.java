@@ -1,9 +1,13 @@
 
 package org.basex.query.expr.path;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.util.list.*;
+import org.basex.query.value.*;
 import org.basex.query.value.node.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
@@ -16,6 +20,9 @@ import org.basex.util.hash.*;
  * @author Christian Gruen
  */
 public final class IterStep extends Step {
+  /** Minimum number of descendant nodes for parallel evaluation. */
+  private static final int PARALLEL = 1 << 14;
+
   /**
    * Constructor.
    * @param info input info
@@ -28,13 +35,26 @@ public final class IterStep extends Step {
   }
 
   @Override
-  public NodeIter iter(final QueryContext qc) {
-    return new NodeIter() {
-      BasicNodeIter iter;
+  public NodeIter iter(final QueryContext qc) throws QueryException {
+    final ANode root = checkNode(qc);
+    final Iter chunks = parallel(root, qc);
+    if(chunks != null) {
+      return new NodeIter() {
+        @Override
+        public ANode next() throws QueryException {
+          return (ANode) chunks.next();
+        }
+      };
+    }
 
+    final BasicNodeIter iter = axis.iter(root);
+    // database nodes without predicates: only instantiate nodes that are returned
+    if(iter instanceof DBNodeIter && exprs.length == 0)
+      return iter((DBNodeIter) iter, root.data(), qc);
+
+    return new NodeIter() {
       @Override
       public ANode next() throws QueryException {
-        if(iter == null) iter = axis.iter(checkNode(qc));
         for(ANode node; (node = iter.next()) != null;) {
           qc.checkStop();
           if(test.eq(node) && preds(node, qc)) return node.finish();
@@ -44,6 +64,38 @@ public final class IterStep extends Step {
     };
   }
 
+  /**
+   * Evaluates a descendant step on a large database node in parallel:
+   * the range of descendant nodes is split into chunks, which are evaluated independently
+   * and on demand.
+   * @param root root node
+   * @param qc query context
+   * @return iterator for the resulting nodes, or {@code null} if the step is to be evaluated
+   *   sequentially
+   * @throws QueryException query exception
+   */
+  private Iter parallel(final ANode root, final QueryContext qc) throws QueryException {
+    if(axis != Axis.DESCENDANT && axis != Axis.DESCENDANT_OR_SELF || !(root instanceof DBNode))
+      return null;
+    final int threads = QueryParallel.threads(qc);
+    if(threads < 2) return null;
+
+    final DBNode node = (DBNode) root;
+    final Data data = node.data();
+    final int pre = node.pre(), kind = data.kind(pre), last = pre + data.size(pre, kind);
+    final int first = axis == Axis.DESCENDANT ? pre + data.attSize(pre, kind) : pre;
+    if(last - first < PARALLEL || has(Flag.NDT)) return null;
+
+    return QueryParallel.iter(last - first, threads, (start, end, ctx) -> {
+      final ANodeList list = new ANodeList();
+      for(final ANode nd : node.descendantOrSelf(first + (int) start, first + (int) end)) {
+        ctx.checkStop();
+        if(test.eq(nd) && preds(nd, ctx)) list.add(nd.finish());
+      }
+      return list.value();
+    }, qc);
+  }
+
   @Override
   public IterStep copy(final CompileContext cc, final IntObjMap<Var> vm) {
     return copyType(new IterStep(info, axis, test.copy(), Arr.copyAll(cc, vm, exprs)));
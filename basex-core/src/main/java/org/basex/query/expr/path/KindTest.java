@@ -1,5 +1,8 @@
 package org.basex.query.expr.path;
 
+import java.util.function.*;
+
+import org.basex.data.*;
 import org.basex.query.value.node.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
@@ -29,6 +32,8 @@ public class KindTest extends Test {
   public static final KindTest NOD = new KindTest(NodeType.NOD) {
     @Override
     public boolean eq(final ANode node) { return true; }
+    @Override
+    public IntPredicate test(final Data data) { return pre -> true; }
   };
 
   /**
@@ -68,6 +73,12 @@ public class KindTest extends Test {
     return node.type == type;
   }
 
+  @Override
+  public IntPredicate test(final Data data) {
+    final int kind = ANode.kind(type);
+    return kind == -1 ? null : pre -> data.kind(pre) == kind;
+  }
+
   @Override
   public Test intersect(final Test other) {
     if(other instanceof NodeTest || other instanceof DocTest) {
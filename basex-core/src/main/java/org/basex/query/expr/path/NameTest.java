@@ -1,5 +1,7 @@
 package org.basex.query.expr.path;
 
+import java.util.function.*;
+
 import org.basex.data.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
@@ -96,6 +98,20 @@ public final class NameTest extends Test {
     }
   }
 
+  @Override
+  public IntPredicate test(final Data data) {
+    final int k = type == NodeType.ATT ? Data.ATTR : Data.ELEM;
+    if(kind == Kind.WILDCARD) return pre -> data.kind(pre) == k;
+
+    // no namespaces: compare name ids (prefixed attribute names can only be matched by name)
+    if(data.nspaces.isEmpty() && (kind == Kind.URI_NAME && name.uri().length == 0 ||
+        kind == Kind.NAME && type == NodeType.ELM)) {
+      final int id = (k == Data.ELEM ? data.elemNames : data.attrNames).id(local);
+      return pre -> data.kind(pre) == k && data.nameId(pre) == id;
+    }
+    return null;
+  }
+
   /**
    * Checks if the specified name matches the test.
    * @param nm name
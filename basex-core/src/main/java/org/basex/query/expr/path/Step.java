@@ -4,6 +4,7 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 
 import java.util.*;
+import java.util.function.IntPredicate;
 
 import org.basex.data.*;
 import org.basex.index.name.*;
@@ -12,6 +13,7 @@ import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.path.Test.*;
 import org.basex.query.func.*;
+import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
@@ -21,6 +23,7 @@ import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * Abstract axis step expression.
@@ -224,6 +227,54 @@ public abstract class Step extends Preds {
     return copyType(get(info, axis, test, ExprList.concat(exprs, add)));
   }
 
+  /**
+   * Returns an iterator for the database nodes of an axis that match the node test.
+   * If possible, nodes are tested on pre values; they are only instantiated when they are
+   * returned by {@link DBNodeIter#next()}.
+   * @param nodes axis iterator
+   * @param data data reference
+   * @param qc query context
+   * @return iterator
+   */
+  final DBNodeIter iter(final DBNodeIter nodes, final Data data, final QueryContext qc) {
+    IntPredicate tst = test.test(data);
+    if(tst == null) {
+      // test reusable node instance
+      final DBNode node = new DBNode(data);
+      tst = pre -> {
+        node.set(pre, data.kind(pre));
+        return test.eq(node);
+      };
+    }
+    final IntPredicate pt = tst;
+
+    return new DBNodeIter(data) {
+      final IntList list = new IntList();
+
+      @Override
+      public DBNode next() {
+        for(DBNode node; (node = nodes.next()) != null;) {
+          qc.checkStop();
+          if(pt.test(node.pre())) return node.finish();
+        }
+        return null;
+      }
+      @Override
+      public Data batch(final IntList pres, final int max) {
+        pres.reset();
+        while(pres.isEmpty() && nodes.batch(list, max) != null) {
+          qc.checkStop();
+          final int ls = list.size();
+          for(int l = 0; l < ls; l++) {
+            final int pre = list.get(l);
+            if(pt.test(pre)) pres.add(pre);
+          }
+        }
+        return pres.isEmpty() ? null : data;
+      }
+    };
+  }
+
   /**
    * Throws an exception if the context value is not a node.
    * @param qc query context
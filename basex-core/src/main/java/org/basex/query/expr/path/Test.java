@@ -1,5 +1,8 @@
 package org.basex.query.expr.path;
 
+import java.util.function.*;
+
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.value.*;
@@ -57,6 +60,17 @@ public abstract class Test extends ExprInfo {
    */
   public abstract boolean eq(ANode node);
 
+  /**
+   * Returns a test for the pre values of the specified database, which is evaluated without
+   * instantiating nodes.
+   * @param data data reference
+   * @return test, or {@code null} if nodes are required for evaluating the test
+   */
+  @SuppressWarnings("unused")
+  public IntPredicate test(final Data data) {
+    return null;
+  }
+
   /**
    * Tests if the test yields true.
    * @param item item to be checked
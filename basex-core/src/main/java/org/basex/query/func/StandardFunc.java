@@ -75,13 +75,12 @@ public abstract class StandardFunc extends Arr {
   @Override
   public final Expr optimize(final CompileContext cc) throws QueryException {
     final Expr expr = opt(cc);
-    return cc.replaceWith(this, expr != this ?
-      // return optimized expression
-      expr : preEval() ?
-      // pre-evaluate function
-      (def.seqType.zeroOrOne() ? item(cc.qc, info) : value(cc.qc)) :
-      // return original function
-      this);
+    if(expr != this) return cc.replaceWith(this, expr);
+    if(!preEval()) return this;
+
+    // pre-evaluate function
+    if(!QueryCache.stable(this)) cc.qc.unstable();
+    return cc.replaceWith(this, def.seqType.zeroOrOne() ? item(cc.qc, info) : value(cc.qc));
   }
 
   /**
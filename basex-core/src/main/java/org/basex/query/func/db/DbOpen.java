@@ -2,8 +2,8 @@ package org.basex.query.func.db;
 
 import org.basex.data.*;
 import org.basex.query.*;
+import org.basex.query.iter.*;
 import org.basex.query.value.*;
-import org.basex.query.value.seq.*;
 
 /**
  * Function implementation.
@@ -13,10 +13,15 @@ import org.basex.query.value.seq.*;
  */
 public final class DbOpen extends DbAccess {
   @Override
-  public Value value(final QueryContext qc) throws QueryException {
+  public Iter iter(final QueryContext qc) throws QueryException {
     final Data data = checkData(qc);
     final String path = exprs.length < 2 ? "" : path(1, qc);
-    return DBNodeSeq.get(data.resources.docs(path), data, true, path.isEmpty());
+    return data.resources.docIter(path);
+  }
+
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    return iter(qc).value(qc);
   }
 
   @Override
@@ -8,8 +8,8 @@ import org.basex.io.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.*;
+import org.basex.query.iter.*;
 import org.basex.query.util.*;
-import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 
@@ -24,12 +24,12 @@ public abstract class Docs extends StandardFunc {
   private QueryInput queryInput;
 
   /**
-   * Returns a collection.
+   * Returns an iterator over a collection.
    * @param qc query context
-   * @return collection
+   * @return iterator
    * @throws QueryException query exception
    */
-  Value collection(final QueryContext qc) throws QueryException {
+  Iter collection(final QueryContext qc) throws QueryException {
     // return default collection or parse specified collection
     QueryInput qi = queryInput;
     if(qi == null) {
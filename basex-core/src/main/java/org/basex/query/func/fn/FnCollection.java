@@ -1,6 +1,7 @@
 package org.basex.query.func.fn;
 
 import org.basex.query.*;
+import org.basex.query.iter.*;
 import org.basex.query.value.*;
 
 /**
@@ -11,10 +12,15 @@ import org.basex.query.value.*;
  */
 public final class FnCollection extends Docs {
   @Override
-  public Value value(final QueryContext qc) throws QueryException {
+  public Iter iter(final QueryContext qc) throws QueryException {
     return collection(qc);
   }
 
+  @Override
+  public Value value(final QueryContext qc) throws QueryException {
+    return collection(qc).value(qc);
+  }
+
   @Override
   public boolean iterable() {
     // collections will never yield duplicates
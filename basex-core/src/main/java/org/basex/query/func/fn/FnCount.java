@@ -2,12 +2,14 @@ package org.basex.query.func.fn;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Function implementation.
@@ -26,13 +28,31 @@ public final class FnCount extends StandardFunc {
     final Iter iter = expr.iter(qc);
     long size = iter.size();
     if(size == -1) {
-      do ++size; while(qc.next(iter) != null);
+      if(iter instanceof NodeIter) {
+        // count database nodes in batches
+        final NodeIter nodes = (NodeIter) iter;
+        final IntList pres = new IntList();
+        size = 0;
+        while(true) {
+          if(nodes.batch(pres, Iter.BATCH) != null) size += pres.size();
+          else if(qc.next(nodes) != null) size++;
+          else break;
+        }
+      } else {
+        do ++size; while(qc.next(iter) != null);
+      }
     }
     return Int.get(size);
   }
 
   @Override
   protected Expr opt(final CompileContext cc) throws QueryException {
+    // aggregate non-grouping variable of a group by clause
+    if(exprs[0] instanceof GroupRef) {
+      final Expr agg = ((GroupRef) exprs[0]).aggregate(this, cc);
+      if(agg != null) return agg;
+    }
+
     Expr expr = exprs[0];
 
     // rewrite count(map:keys(...)) to map:size(...)
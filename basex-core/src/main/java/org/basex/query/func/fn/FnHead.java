@@ -2,6 +2,7 @@ package org.basex.query.func.fn;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.value.*;
@@ -48,6 +49,8 @@ public final class FnHead extends StandardFunc {
       return cc.function(Function._UTIL_LAST, info, args(expr));
     if(Function._FILE_READ_TEXT_LINES.is(expr))
       return FileReadTextLines.opt(this, 0, 1, cc);
+    // head(for ... order by ... return ...): only sort required tuple
+    if(expr instanceof GFLWOR) ((GFLWOR) expr).limit(1);
 
     exprType.assign(st.type, st.oneOrMore() ? Occ.ONE : Occ.ZERO_ONE);
     return this;
@@ -3,6 +3,7 @@ package org.basex.query.func.fn;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.CmpV.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.value.item.*;
 import org.basex.util.*;
 
@@ -19,7 +20,13 @@ public final class FnMax extends FnMin {
   }
 
   @Override
-  protected Expr opt(final CompileContext cc) {
+  protected Expr opt(final CompileContext cc) throws QueryException {
+    // aggregate non-grouping variable of a group by clause
+    if(exprs[0] instanceof GroupRef) {
+      final Expr expr = ((GroupRef) exprs[0]).aggregate(this, cc);
+      if(expr != null) return expr;
+    }
+
     return optMinmax(OpV.LT);
   }
 }
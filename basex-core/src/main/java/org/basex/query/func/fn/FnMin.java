@@ -45,6 +45,19 @@ public class FnMin extends StandardFunc {
       return value.isEmpty() ? Empty.VALUE : value.itemAt(cmp == OpV.GT ? 0 : value.size() - 1);
     }
 
+    if(FnSum.nodes(expr)) {
+      // compare numeric values of nodes without atomizing them
+      final Iter iter = expr.iter(qc);
+      Item item = iter.next();
+      if(item == null) return Empty.VALUE;
+      double d1 = item.dbl(info);
+      while((item = qc.next(iter)) != null) {
+        final double d2 = item.dbl(info);
+        if((cmp == OpV.GT ? d1 > d2 : d1 < d2) || Double.isNaN(d2)) d1 = d2;
+      }
+      return Dbl.get(d1);
+    }
+
     final Iter iter = expr.atomIter(qc, info);
     item1 = iter.next();
     if(item1 == null) return Empty.VALUE;
@@ -127,7 +140,7 @@ public class FnMin extends StandardFunc {
   }
 
   @Override
-  protected Expr opt(final CompileContext cc) {
+  protected Expr opt(final CompileContext cc) throws QueryException {
     return optMinmax(OpV.GT);
   }
 
@@ -2,6 +2,7 @@ package org.basex.query.func.fn;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.iter.*;
@@ -209,6 +210,8 @@ public class FnSubsequence extends StandardFunc {
         return cc.function(Function.TAIL, info, expr);
       if(Function._FILE_READ_TEXT_LINES.is(expr))
         return FileReadTextLines.opt(this, sr.start, sr.length, cc);
+      // (for ... order by ... return ...)[position() <= 10]: only sort required tuples
+      if(expr instanceof GFLWOR && sr.end != Long.MAX_VALUE) ((GFLWOR) expr).limit(sr.end);
     } else {
       // subsequence(expr, 1, count(expr) - 1)  ->  util:init(expr)
       if(exprs[1] == Int.get(1) && exprs[2] instanceof Arith && !exprs[0].has(Flag.NDT)) {
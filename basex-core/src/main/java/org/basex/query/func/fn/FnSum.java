@@ -5,16 +5,20 @@ import static org.basex.query.value.type.AtomType.*;
 
 import java.math.*;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
 import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Function implementation.
@@ -34,9 +38,25 @@ public class FnSum extends StandardFunc {
         final Item item = singleton((SingletonSeq) expr);
         if(item != null) return item;
       }
-      final Iter iter = exprs[0].atomIter(qc, info);
-      final Item item = iter.next();
-      if(item != null) return sum(iter, item, false, qc);
+      if(nodes(expr)) {
+        // sum up numeric values of nodes without atomizing them
+        final Iter iter = expr.iter(qc);
+        if(iter instanceof NodeIter) {
+          final Item item = sum((NodeIter) iter, qc);
+          if(item != null) return item;
+        } else {
+          Item item = iter.next();
+          if(item != null) {
+            double d = item.dbl(info);
+            while((item = qc.next(iter)) != null) d += item.dbl(info);
+            return Dbl.get(d);
+          }
+        }
+      } else {
+        final Iter iter = exprs[0].atomIter(qc, info);
+        final Item item = iter.next();
+        if(item != null) return sum(iter, item, false, qc);
+      }
     }
 
     // return default item
@@ -45,6 +65,12 @@ public class FnSum extends StandardFunc {
 
   @Override
   protected Expr opt(final CompileContext cc) throws QueryException {
+    // aggregate non-grouping variable of a group by clause
+    if(exprs[0] instanceof GroupRef) {
+      final Expr expr = ((GroupRef) exprs[0]).aggregate(this, cc);
+      if(expr != null) return expr;
+    }
+
     final Expr expr1 = exprs[0], expr2 = exprs.length == 2 ? exprs[1] : null;
     if(expr1 instanceof RangeSeq) return range((Value) expr1);
     if(expr1 instanceof SingletonSeq) {
@@ -115,6 +141,53 @@ public class FnSum extends StandardFunc {
     return item.type.isNumber() ? Calc.MULT.eval(item, Int.get(seq.size()), info) : null;
   }
 
+  /**
+   * Checks if the specified expression yields element, attribute or text nodes. The numeric
+   * values of these nodes can be directly requested, and may be retrieved from a numeric column.
+   * @param expr expression
+   * @return result of check
+   */
+  static boolean nodes(final Expr expr) {
+    final Type type = expr.seqType().type;
+    return type == NodeType.ELM || type == NodeType.ATT || type == NodeType.TXT;
+  }
+
+  /**
+   * Sums up the numeric values of nodes. Database nodes are requested in batches.
+   * @param iter node iterator
+   * @param qc query context
+   * @return summed up item, or {@code null} if the iterator yields no nodes
+   * @throws QueryException query exception
+   */
+  private Item sum(final NodeIter iter, final QueryContext qc) throws QueryException {
+    final IntList pres = new IntList();
+    DBNode node = null;
+    double d = 0;
+    boolean found = false;
+    while(true) {
+      final Data data = iter.batch(pres, Iter.BATCH);
+      if(data != null) {
+        // reuse a single node instance for all pre values
+        if(node == null || node.data() != data) node = new DBNode(data);
+        final int ps = pres.size();
+        for(int p = 0; p < ps; p++) {
+          final int pre = pres.get(p);
+          node.set(pre, data.kind(pre));
+          final double v = node.dbl(info);
+          d = found ? d + v : v;
+          found = true;
+        }
+      } else {
+        final ANode item = iter.next();
+        if(item == null) return found ? Dbl.get(d) : null;
+        final double v = item.dbl(info);
+        d = found ? d + v : v;
+        found = true;
+      }
+      qc.checkStop();
+    }
+  }
+
   /**
    * Sums up the specified item(s).
    * @param iter iterator
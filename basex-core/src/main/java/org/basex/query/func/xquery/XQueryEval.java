@@ -111,7 +111,7 @@ public class XQueryEval extends StandardFunc {
           if(key.isEmpty()) qctx.context(value, sctx);
           else qctx.bind(key, value, sctx);
         }
-        qctx.parseMain(string(query.read()), null, sctx);
+        qctx.parseCached(string(query.read()), sctx);
 
         if(updating) {
           if(!sc.mixUpdates && !qctx.updating && !qctx.root.expr.isVacuous())
@@ -28,12 +28,19 @@ public abstract class DBNodeIter extends BasicNodeIter {
   @Override
   public abstract DBNode next();
 
+  @Override
+  public Data batch(final IntList pres, final int max) {
+    pres.reset();
+    for(DBNode n; pres.size() < max && (n = next()) != null;) pres.add(n.pre());
+    return pres.isEmpty() ? null : data;
+  }
+
   @Override
   public Value value(final QueryContext qc) {
-    final IntList il = new IntList();
-    for(DBNode n; (n = next()) != null;) {
+    final IntList il = new IntList(), pres = new IntList();
+    while(batch(pres, BATCH) != null) {
       qc.checkStop();
-      il.add(n.pre());
+      il.add(pres.toArray());
     }
     return DBNodeSeq.get(il, data, false, false);
   }
@@ -12,6 +12,9 @@ import org.basex.query.value.seq.*;
  * @author Christian Gruen
  */
 public abstract class Iter {
+  /** Number of items that are requested with a single batch. */
+  public static final int BATCH = 1 << 10;
+
   /**
    * Returns the next item.
    * @return resulting item, or {@code null} if all items have been returned
@@ -19,6 +22,20 @@ public abstract class Iter {
    */
   public abstract Item next() throws QueryException;
 
+  /**
+   * Fills the specified array with the next items.
+   * This method can be overwritten by iterators that return items in chunks.
+   * @param items array to be filled
+   * @return number of returned items ({@code 0} if all items have been returned)
+   * @throws QueryException query exception
+   */
+  public int batch(final Item[] items) throws QueryException {
+    final int il = items.length;
+    int i = 0;
+    for(Item item; i < il && (item = next()) != null;) items[i++] = item;
+    return i;
+  }
+
   /**
    * Returns the specified item, or an arbitrary item if the index is invalid.
    * If this method returns items, {@link #size()} needs to be implemented as well.
@@ -1,7 +1,9 @@
 package org.basex.query.iter;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.value.node.*;
+import org.basex.util.list.*;
 
 /**
  * ANode iterator interface.
@@ -13,6 +15,22 @@ public abstract class NodeIter extends Iter {
   @Override
   public abstract ANode next() throws QueryException;
 
+  /**
+   * Adds the pre values of the next database nodes to the specified list.
+   * All nodes of a batch belong to the same database. This method can be overwritten by
+   * iterators that can return database nodes without instantiating them.
+   * If {@code null} is returned, the next node must be requested via {@link #next()}.
+   * @param pres list for pre values (will be reset)
+   * @param max maximum number of pre values
+   * @return data reference of the returned nodes, or {@code null} if no nodes were added
+   * @throws QueryException query exception
+   */
+  @SuppressWarnings("unused")
+  public Data batch(final IntList pres, final int max) throws QueryException {
+    pres.reset();
+    return null;
+  }
+
   @Override
   public ANode get(final long i) {
     return null;
@@ -74,6 +74,7 @@ public final class DBOptimize extends DBUpdate {
     options.assignIfAbsent(MainOptions.FTINCLUDE, meta.ftinclude);
     options.assignIfAbsent(MainOptions.SPLITSIZE, meta.splitsize);
     options.assignIfAbsent(MainOptions.UPDINDEX, meta.updindex);
+    options.assignIfAbsent(MainOptions.TREEINDEX, meta.treeindex);
     options.assignIfAbsent(MainOptions.AUTOOPTIMIZE, meta.autooptimize);
     options.assignTo(opts);
 
@@ -83,7 +84,11 @@ public final class DBOptimize extends DBUpdate {
     meta.createtoken = opts.get(MainOptions.TOKENINDEX);
     meta.createft = opts.get(MainOptions.FTINDEX);
 
+    // value indexes must be rebuilt if they will be stored in a different format
+    final boolean tree = meta.updindex && meta.treeindex;
     meta.updindex = opts.get(MainOptions.UPDINDEX);
+    meta.treeindex = opts.get(MainOptions.TREEINDEX);
+    final boolean rebuildValues = tree != (meta.updindex && meta.treeindex);
     meta.autooptimize = opts.get(MainOptions.AUTOOPTIMIZE);
     meta.splitsize = opts.get(MainOptions.SPLITSIZE);
 
@@ -94,9 +99,9 @@ public final class DBOptimize extends DBUpdate {
     final String attrinclude = opts.get(MainOptions.ATTRINCLUDE);
     final String tokeninclude = opts.get(MainOptions.TOKENINCLUDE);
     final boolean rebuild = maxlen != meta.maxlen;
-    final boolean rebuildText = !meta.textinclude.equals(textinclude) || rebuild;
-    final boolean rebuildAttr = !meta.attrinclude.equals(attrinclude) || rebuild;
-    final boolean rebuildToken = !meta.tokeninclude.equals(tokeninclude);
+    final boolean rebuildText = !meta.textinclude.equals(textinclude) || rebuild || rebuildValues;
+    final boolean rebuildAttr = !meta.attrinclude.equals(attrinclude) || rebuild || rebuildValues;
+    final boolean rebuildToken = !meta.tokeninclude.equals(tokeninclude) || rebuildValues;
     meta.textinclude = textinclude;
     meta.attrinclude = attrinclude;
     meta.tokeninclude = tokeninclude;
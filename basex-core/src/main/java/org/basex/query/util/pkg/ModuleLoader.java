@@ -55,6 +55,14 @@ public final class ModuleLoader {
     }
   }
 
+  /**
+   * Indicates if Java modules or JAR files have been loaded.
+   * @return result of check
+   */
+  public boolean java() {
+    return !javaModules.isEmpty() || !urls.isEmpty() || loader != LOADER;
+  }
+
   /**
    * Adds a package from the repository or a Java class.
    * @param uri module uri
@@ -8,6 +8,7 @@ import org.basex.query.value.seq.*;
 import org.basex.query.value.seq.tree.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * A builder for efficiently creating a {@link Value} by prepending and appending
@@ -24,6 +25,8 @@ public final class ValueBuilder {
   private Value firstValue;
   /** Underlying sequence builder, only instantiated if there are at least two items. */
   private TreeSeqBuilder builder;
+  /** Primitive values, only instantiated if all items are integers, doubles or strings. */
+  private Natives natives;
 
   /**
    * Constructor.
@@ -69,7 +72,15 @@ public final class ValueBuilder {
    * @return the value
    */
   public static Value value(final Item[] items, final int size, final Type type) {
-    return size == 0 ? Empty.VALUE : size == 1 ? items[0] : TreeSeqBuilder.value(items, size, type);
+    if(size < 2) return size == 0 ? Empty.VALUE : items[0];
+    // homogeneous items: return sequence with primitive values
+    final Natives natives = Natives.get(items[0], items[1]);
+    if(natives != null) {
+      int i = 2;
+      while(i < size && natives.add(items[i])) i++;
+      if(i == size) return natives.value();
+    }
+    return TreeSeqBuilder.value(items, size, type);
   }
 
   /**
@@ -79,6 +90,7 @@ public final class ValueBuilder {
    */
   public ValueBuilder addFront(final Item item) {
     qc.checkStop();
+    if(natives != null) tree();
     final TreeSeqBuilder tree = builder;
     if(tree != null) {
       tree.addFront(item);
@@ -104,10 +116,17 @@ public final class ValueBuilder {
     final TreeSeqBuilder tree = builder;
     if(tree != null) {
       tree.add(item);
+    } else if(natives != null) {
+      if(!natives.add(item)) {
+        tree();
+        builder.add(item);
+      }
     } else {
       final Value first = firstValue;
       if(first != null) {
-        builder = new TreeSeqBuilder().add(first, qc).add(item);
+        // two items: choose primitive representation if possible
+        if(first instanceof Item) natives = Natives.get((Item) first, item);
+        if(natives == null) builder = new TreeSeqBuilder().add(first, qc).add(item);
         firstValue = null;
       } else {
         firstValue = item;
@@ -126,7 +145,10 @@ public final class ValueBuilder {
       qc.checkStop();
       return this;
     }
+    if(value instanceof Item) return add((Item) value);
 
+    // sequences are added to a tree, which can share their structure
+    if(natives != null) tree();
     final TreeSeqBuilder tree = builder;
     if(tree != null) {
       tree.add(value, qc);
@@ -157,15 +179,30 @@ public final class ValueBuilder {
    * @return contents of this builder
    */
   public Value value(final Type type) {
+    if(natives != null) {
+      firstValue = natives.value();
+      natives = null;
+    }
     final Value first = firstValue;
     if(first != null) return first;
     final TreeSeqBuilder tree = builder;
     return tree != null ? tree.seq(type) : Empty.VALUE;
   }
 
+  /**
+   * Replaces the primitive values with a tree.
+   */
+  private void tree() {
+    final TreeSeqBuilder tree = new TreeSeqBuilder();
+    for(final Item item : natives.value()) tree.add(item);
+    builder = tree;
+    natives = null;
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder(Util.className(this)).append('[');
+    if(natives != null) value();
     final Iterator<Item> iter = firstValue != null ? firstValue.iterator() :
       builder != null ? builder.iterator() : Collections.emptyIterator();
     if(iter.hasNext()) {
@@ -174,4 +211,105 @@ public final class ValueBuilder {
     }
     return sb.append(']').toString();
   }
+
+  /**
+   * Builder for sequences with primitive values of the same type.
+   */
+  private abstract static class Natives {
+    /**
+     * Returns a builder for the specified items.
+     * @param item1 first item
+     * @param item2 second item
+     * @return builder, or {@code null} if the items have different or unsupported types
+     */
+    static Natives get(final Item item1, final Item item2) {
+      final Type type = item1.type;
+      if(type != item2.type) return null;
+      final Natives natives = item1 instanceof Int ? new Ints(type) :
+        item1 instanceof Dbl ? new Dbls() :
+        item1 instanceof Str && type == AtomType.STR ? new Strs() : null;
+      if(natives != null) {
+        natives.add(item1);
+        natives.add(item2);
+      }
+      return natives;
+    }
+
+    /**
+     * Adds an item.
+     * @param item item to add
+     * @return {@code false} if the item cannot be represented by a primitive value
+     */
+    abstract boolean add(Item item);
+
+    /**
+     * Returns a sequence with all values. The builder will be invalidated.
+     * @return value
+     */
+    abstract Value value();
+  }
+
+  /** Integers. */
+  private static final class Ints extends Natives {
+    /** Values. */
+    private final LongList list = new LongList();
+    /** Item type. */
+    private final Type type;
+
+    /**
+     * Constructor.
+     * @param type item type
+     */
+    Ints(final Type type) {
+      this.type = type;
+    }
+
+    @Override
+    boolean add(final Item item) {
+      if(!(item instanceof Int) || item.type != type) return false;
+      list.add(((Int) item).itr());
+      return true;
+    }
+
+    @Override
+    Value value() {
+      return IntSeq.get(list.finish(), type);
+    }
+  }
+
+  /** Doubles. */
+  private static final class Dbls extends Natives {
+    /** Values. */
+    private final DoubleList list = new DoubleList();
+
+    @Override
+    boolean add(final Item item) {
+      if(!(item instanceof Dbl)) return false;
+      list.add(((Dbl) item).dbl());
+      return true;
+    }
+
+    @Override
+    Value value() {
+      return DblSeq.get(list.finish());
+    }
+  }
+
+  /** Strings. */
+  private static final class Strs extends Natives {
+    /** Values. */
+    private final TokenList list = new TokenList();
+
+    @Override
+    boolean add(final Item item) {
+      if(!(item instanceof Str) || item.type != AtomType.STR) return false;
+      list.add(((Str) item).string());
+      return true;
+    }
+
+    @Override
+    Value value() {
+      return StrSeq.get(list);
+    }
+  }
 }
@@ -11,7 +11,7 @@ import org.basex.util.*;
  * @author BaseX Team 2005-19, BSD License
  * @author Christian Gruen
  */
-public final class Atm extends Item {
+public class Atm extends Item {
   /** String data. */
   private final byte[] value;
 
@@ -0,0 +1,46 @@
+package org.basex.query.value.item;
+
+import org.basex.data.*;
+import org.basex.query.*;
+import org.basex.query.util.collation.*;
+import org.basex.util.*;
+
+/**
+ * Untyped atomic item ({@code xs:untypedAtomic}) of a dictionary-encoded database value.
+ * Items with the same dictionary are compared by their ids.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class AtmDict extends Atm {
+  /** Data reference. */
+  private final Data data;
+  /** Text/attribute flag. */
+  private final boolean text;
+  /** Dictionary id. */
+  private final int id;
+
+  /**
+   * Constructor.
+   * @param value value
+   * @param data data reference
+   * @param text text/attribute flag
+   * @param id dictionary id
+   */
+  public AtmDict(final byte[] value, final Data data, final boolean text, final int id) {
+    super(value);
+    this.data = data;
+    this.text = text;
+    this.id = id;
+  }
+
+  @Override
+  public boolean eq(final Item item, final Collation coll, final StaticContext sc,
+      final InputInfo ii) throws QueryException {
+    if(coll == null && item instanceof AtmDict) {
+      final AtmDict atm = (AtmDict) item;
+      if(data == atm.data && text == atm.text) return id == atm.id;
+    }
+    return super.eq(item, coll, sc, ii);
+  }
+}
@@ -93,11 +93,13 @@ public class DBNode extends ANode {
   }
 
   /**
-   * Sets the node type.
+   * Assigns another node of the same database.
+   * Must only be called for nodes that are not referenced elsewhere (e.g., nodes reused by
+   * iterators).
    * @param p pre value
    * @param k node kind
    */
-  private void set(final int p, final int k) {
+  public final void set(final int p, final int k) {
     type = type(k);
     parent = null;
     value = null;
@@ -131,6 +133,26 @@ public class DBNode extends ANode {
     return value;
   }
 
+  @Override
+  public final Item atomItem() {
+    if(!data.meta.dictionary) return super.atomItem();
+
+    // attach dictionary id to the value of a text, an attribute or an element with a single text
+    int p = -1;
+    if(type == NodeType.TXT || type == NodeType.ATT) {
+      p = pre;
+    } else if(type == NodeType.ELM) {
+      final int as = data.attSize(pre, Data.ELEM);
+      if(data.size(pre, Data.ELEM) == as + 1 && data.kind(pre + as) == Data.TEXT) p = pre + as;
+    }
+    if(p != -1) {
+      final boolean text = type != NodeType.ATT;
+      final int id = data.dictId(p, text);
+      if(id != 0) return new AtmDict(string(), data, text, id);
+    }
+    return super.atomItem();
+  }
+
   @Override
   public final long itr(final InputInfo ii) throws QueryException {
     if(type == NodeType.ELM) {
@@ -321,6 +343,15 @@ public class DBNode extends ANode {
         curr += d.size(curr, kind);
         return node;
       }
+      @Override
+      public Data batch(final IntList pres, final int max) {
+        pres.reset();
+        final Data d = data;
+        int c = curr;
+        for(; c != last && pres.size() < max; c += d.size(c, d.kind(c))) pres.add(c);
+        curr = c;
+        return pres.isEmpty() ? null : d;
+      }
     };
   }
 
@@ -339,6 +370,15 @@ public class DBNode extends ANode {
         curr += data.attSize(curr, kind);
         return node;
       }
+      @Override
+      public Data batch(final IntList pres, final int max) {
+        pres.reset();
+        final Data d = data;
+        int c = curr;
+        for(; c != last && pres.size() < max; c += d.attSize(c, d.kind(c))) pres.add(c);
+        curr = c;
+        return pres.isEmpty() ? null : d;
+      }
     };
   }
 
@@ -357,6 +397,43 @@ public class DBNode extends ANode {
         curr += data.attSize(curr, k);
         return node;
       }
+      @Override
+      public Data batch(final IntList pres, final int max) {
+        pres.reset();
+        final Data d = data;
+        int c = curr;
+        for(; c != last && pres.size() < max; c += d.attSize(c, d.kind(c))) pres.add(c);
+        curr = c;
+        return pres.isEmpty() ? null : d;
+      }
+    };
+  }
+
+  /**
+   * Returns an iterator for the descendant-or-self nodes in the specified range.
+   * Attributes in the range are skipped.
+   * @param start pre value of the first node
+   * @param end pre value after the last node
+   * @return iterator
+   */
+  public final DBNodeIter descendantOrSelf(final int start, final int end) {
+    return new DBNodeIter(data) {
+      final DBNode node = finish();
+      int curr = start;
+
+      @Override
+      public DBNode next() {
+        while(curr < end) {
+          final int k = data.kind(curr);
+          if(k != Data.ATTR) {
+            node.set(curr, k);
+            curr += data.attSize(curr, k);
+            return node;
+          }
+          curr++;
+        }
+        return null;
+      }
     };
   }
 
@@ -24,6 +24,11 @@ public final class StaticVar extends StaticDecl {
   public final boolean external;
   /** Flag for lazy evaluation. */
   private final boolean lazy;
+  /**
+   * Indicates if the value of this external variable is bound at runtime
+   * (see {@link #param()}).
+   */
+  boolean param;
 
   /** Bound value. */
   Value value;
@@ -47,16 +52,23 @@ public final class StaticVar extends StaticDecl {
 
   @Override
   public void comp(final CompileContext cc) throws QueryException {
-    if(expr == null) throw VAREMPTY_X.get(info, name());
+    if(expr == null && (!param || value == null)) throw VAREMPTY_X.get(info, name());
     if(dontEnter) throw CIRCVAR_X.get(info, name());
     if(compiled) return;
     compiled = true;
+    // parameters: no default expression is left to be compiled
+    if(expr == null) return;
 
     dontEnter = true;
     cc.pushScope(vs);
     try {
       expr = expr.compile(cc);
     } catch(final QueryException qe) {
+      // bound parameter: raise error when default expression is evaluated at runtime
+      if(param && value != null) {
+        expr = cc.error(qe, expr);
+        return;
+      }
       // error: set most general sequence type
       declType = SeqType.ITEM_ZM;
       if(lazy) {
@@ -70,17 +82,52 @@ public final class StaticVar extends StaticDecl {
     }
 
     // by default, pre-evaluate deterministic, non-lazy expressions
-    if(expr instanceof Value || !(lazy || expr.has(Flag.NDT))) cc.replaceWith(expr, value(cc.qc));
+    if(!param && (expr instanceof Value || !(lazy || expr.has(Flag.NDT)))) {
+      cc.replaceWith(expr, value(cc.qc));
+    }
+  }
+
+  /**
+   * Turns an external variable into a parameter of a cached query plan: its value will neither
+   * be inlined nor pre-evaluated, and a new value can be bound before the plan is reused.
+   * The value of a parameter is reset by this function.
+   */
+  void param() {
+    if(!external) return;
+    param = true;
+    value = null;
   }
 
   /**
-   * Evaluates this variable.
+   * Indicates if the variable can be part of a cached query plan.
+   * @return result of check
+   */
+  boolean cacheable() {
+    return param ? expr == null || !expr.has(Flag.CTX) : !compiled || value != null;
+  }
+
+  /**
+   * Returns the type of the variable that is known at compile time.
+   * @return type
+   */
+  SeqType compileType() {
+    return param && declType == null ? SeqType.ITEM_ZM : seqType();
+  }
+
+  /**
+   * Evaluates this variable. The function is synchronized, as variables that have not been
+   * pre-evaluated may be requested by parallel threads (see {@link QueryParallel}).
    * @param qc query context
    * @return value of this variable
    * @throws QueryException query exception
    */
-  Value value(final QueryContext qc) throws QueryException {
+  synchronized Value value(final QueryContext qc) throws QueryException {
     if(dontEnter) throw CIRCVAR_X.get(info, name());
+    // compile-time evaluation of a parameter: query plan depends on the bound value
+    if(param) {
+      qc.unstable();
+      if(value != null) return value;
+    }
 
     if(lazy) {
       if(!compiled) throw Util.notExpected(this + " was not compiled.");
@@ -118,7 +165,7 @@ public final class StaticVar extends StaticDecl {
    * @throws QueryException query exception
    */
   void bind(final Value val, final QueryContext qc) throws QueryException {
-    if(!external || compiled) return;
+    if(!external || compiled && !param) return;
     bindValue(declType == null || declType.instance(val) ? val :
       declType.cast(val, qc, sc, info), qc);
   }
@@ -131,7 +178,8 @@ public final class StaticVar extends StaticDecl {
    * @throws QueryException query exception
    */
   private Value bindValue(final Value val, final QueryContext qc) throws QueryException {
-    expr = val;
+    // parameters: keep default expression
+    if(!param) expr = val;
     value = val;
     if(declType != null) declType.treat(val, name, qc, info);
     return value;
@@ -162,7 +210,7 @@ public final class StaticVar extends StaticDecl {
    * @return result of check
    * @see Expr#has(Flag...)
    */
-  boolean has(final Flag... flags) {
+  synchronized boolean has(final Flag... flags) {
     if(dontEnter || expr == null) return false;
     dontEnter = true;
     final boolean res = expr.has(flags);
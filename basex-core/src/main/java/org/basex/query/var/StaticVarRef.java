@@ -50,8 +50,8 @@ final class StaticVarRef extends ParseExpr {
 
   @Override
   public Expr optimize(final CompileContext cc) {
-    if(var.value != null) return var.value;
-    exprType.assign(var.seqType());
+    if(var.value != null && !var.param) return var.value;
+    exprType.assign(var.compileType());
     return this;
   }
 
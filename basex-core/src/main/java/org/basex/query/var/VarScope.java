@@ -44,6 +44,15 @@ public final class VarScope {
     return var;
   }
 
+  /**
+   * Removes the variables that have been added after the specified number of variables
+   * (e.g., the variables of discarded expression copies).
+   * @param size number of variables to keep
+   */
+  public void truncate(final int size) {
+    for(int v = vars.size() - 1; v >= size; v--) vars.remove(v).slot = -1;
+  }
+
   /**
    * Creates a new local variable in this scope.
    * @param name variable name
@@ -91,6 +91,26 @@ public final class Variables extends ExprInfo implements Iterable<StaticVar> {
     }
   }
 
+  /**
+   * Turns all external variables into parameters of a cached query plan, and resets their values.
+   */
+  public void params() {
+    for(final VarEntry ve : vars.values()) {
+      if(ve.var != null) ve.var.param();
+    }
+  }
+
+  /**
+   * Indicates if all variables can be part of a cached query plan.
+   * @return result of check
+   */
+  public boolean cacheable() {
+    for(final VarEntry ve : vars.values()) {
+      if(ve.var != null && !ve.var.cacheable()) return false;
+    }
+    return true;
+  }
+
   @Override
   public Iterator<StaticVar> iterator() {
     final Iterator<Entry<QNm, VarEntry>> iter = vars.entrySet().iterator();
@@ -4,13 +4,16 @@ import static org.basex.core.Text.*;
 
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.util.*;
+import java.util.zip.*;
 
 import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.core.parse.*;
 import org.basex.core.users.*;
+import org.basex.io.*;
 import org.basex.io.in.*;
 import org.basex.io.out.*;
 import org.basex.query.*;
@@ -25,7 +28,10 @@ import org.basex.util.list.*;
  * @author Andreas Weiler
  * @author Christian Gruen
  */
-public final class ClientListener extends Thread implements ClientInfo {
+public final class ClientListener implements Runnable, ClientInfo {
+  /** Time (ms) after which the thread of an idle session will be released. */
+  private static final int IDLE = 100;
+
   /** Timer for authentication time out. */
   public final Timer timeout = new Timer();
   /** Timestamp of last interaction. */
@@ -39,6 +45,8 @@ public final class ClientListener extends Thread implements ClientInfo {
   private final Context context;
   /** Server reference. */
   private final BaseXServer server;
+  /** Selector for idle sessions. */
+  private final ClientSelector selector;
   /** Socket reference. */
   private final Socket socket;
 
@@ -60,18 +68,21 @@ public final class ClientListener extends Thread implements ClientInfo {
    * @param socket socket
    * @param context database context
    * @param server server reference
+   * @param selector selector for idle sessions
    */
-  public ClientListener(final Socket socket, final Context context, final BaseXServer server) {
+  public ClientListener(final Socket socket, final Context context, final BaseXServer server,
+      final ClientSelector selector) {
     this.context = new Context(context, this);
     this.socket = socket;
     this.server = server;
+    this.selector = selector;
     last = System.currentTimeMillis();
-    setDaemon(true);
   }
 
   @Override
   public void run() {
-    if(!authenticate()) return;
+    // authenticate new session
+    if(!authenticated && !authenticate()) return;
 
     try {
       while(authenticated) {
@@ -79,7 +90,12 @@ public final class ClientListener extends Thread implements ClientInfo {
         String cmd;
         final ServerCmd sc;
         try {
-          final int b = in.read();
+          final int b = request();
+          if(b == -2) {
+            // idle session: release thread, wait for next request
+            selector.park(this);
+            return;
+          }
           if(b == -1) {
             // end of stream: exit session
             close();
@@ -98,6 +114,8 @@ public final class ClientListener extends Thread implements ClientInfo {
             replace();
           } else if(sc == ServerCmd.STORE) {
             store();
+          } else if(sc == ServerCmd.COMPRESS) {
+            compress();
           } else if(sc != ServerCmd.COMMAND) {
             query(sc);
           } else {
@@ -237,6 +255,14 @@ public final class ClientListener extends Thread implements ClientInfo {
     }
   }
 
+  /**
+   * Returns the socket channel of this session.
+   * @return channel
+   */
+  SocketChannel channel() {
+    return socket.getChannel();
+  }
+
   /**
    * Returns the context of this session.
    * @return user reference
@@ -298,6 +324,24 @@ public final class ClientListener extends Thread implements ClientInfo {
     send(ok);
   }
 
+  /**
+   * Compresses all further communication.
+   * @throws IOException I/O exception
+   */
+  private void compress() throws IOException {
+    in.readString();
+    log(LogType.OK, ServerCmd.COMPRESS.toString());
+    // send 0 to mark end of result, empty info and 0 as success flag
+    out.write(0);
+    out.write(0);
+    out.write(0);
+    out.flush();
+
+    out = PrintOutput.get(new BufferedOutputStream(
+        new DeflaterOutputStream(socket.getOutputStream(), true), IO.BLOCKSIZE));
+    in = BufferInput.get(new InflateInput(socket.getInputStream()));
+  }
+
   /**
    * Creates a database.
    * @throws IOException I/O exception
@@ -377,6 +421,12 @@ public final class ClientListener extends Thread implements ClientInfo {
         qp = queries.get(arg);
         // ID has already been removed
         if(qp == null) {
+          // skip the remaining arguments of pipelined requests
+          if(sc == ServerCmd.BIND) in.readString();
+          if(sc == ServerCmd.BIND || sc == ServerCmd.CONTEXT) {
+            in.readString();
+            in.readString();
+          }
           if(sc != ServerCmd.CLOSE) throw new IOException("Unknown Query ID: " + arg);
         } else if(sc == ServerCmd.BIND) {
           final String key = in.readString();
@@ -392,11 +442,13 @@ public final class ClientListener extends Thread implements ClientInfo {
           info.append(val);
           if(!typ.isEmpty()) info.append(" as ").append(typ);
         } else if(sc == ServerCmd.RESULTS) {
-          qp.execute(out, true, true, false);
+          qp.execute(out, true, true, false, false);
+        } else if(sc == ServerCmd.COMPACT) {
+          qp.execute(out, true, true, false, true);
         } else if(sc == ServerCmd.EXEC) {
-          qp.execute(out, false, true, false);
+          qp.execute(out, false, true, false, false);
         } else if(sc == ServerCmd.FULL) {
-          qp.execute(out, true, true, true);
+          qp.execute(out, true, true, true, false);
         } else if(sc == ServerCmd.INFO) {
           out.print(qp.info());
         } else if(sc == ServerCmd.OPTIONS) {
@@ -430,7 +482,26 @@ public final class ClientListener extends Thread implements ClientInfo {
       out.print(error);
       out.write(0);
     }
-    out.flush();
+    flush();
+  }
+
+  /**
+   * Returns the first byte of the next request.
+   * @return byte, {@code -1} if the end of the stream has been reached,
+   *   or {@code -2} if no request has been sent within the idle time
+   * @throws IOException I/O exception
+   */
+  private int request() throws IOException {
+    if(in.available() > 0) return in.read();
+    socket.setSoTimeout(IDLE);
+    try {
+      return in.read();
+    } catch(final SocketTimeoutException ex) {
+      Util.debug(ex);
+      return -2;
+    } finally {
+      socket.setSoTimeout(0);
+    }
   }
 
   /**
@@ -440,7 +511,16 @@ public final class ClientListener extends Thread implements ClientInfo {
    */
   private void send(final boolean ok) throws IOException {
     out.write(ok ? 0 : 1);
-    out.flush();
+    flush();
+  }
+
+  /**
+   * Flushes the output. If the next request has already been received, the output is not
+   * flushed, and the responses to pipelined requests will be sent in one go.
+   * @throws IOException I/O exception
+   */
+  private void flush() throws IOException {
+    if(in == null || in.available() == 0) out.flush();
   }
 
   /**
@@ -0,0 +1,118 @@
+package org.basex.server;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.util.*;
+
+/**
+ * Dispatches client sessions to worker threads.
+ *
+ * Sessions are processed by a pool of worker threads. If a client has been idle for a while,
+ * the channel of its session is registered with a selector, and the worker thread
+ * is released. As soon as new input arrives, the session is passed on to a worker thread again.
+ * This way, idle connections do not occupy any threads.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSelector extends Thread {
+  /** Worker threads. */
+  private final ExecutorService workers = Executors.newCachedThreadPool(r -> {
+    final Thread thread = new Thread(r);
+    thread.setDaemon(true);
+    return thread;
+  });
+  /** Idle sessions to be registered. */
+  private final Queue<ClientListener> idle = new ConcurrentLinkedQueue<>();
+  /** Selector. */
+  private final Selector selector;
+
+  /**
+   * Constructor.
+   * @throws IOException I/O exception
+   */
+  public ClientSelector() throws IOException {
+    selector = Selector.open();
+    setDaemon(true);
+  }
+
+  /**
+   * Processes the requests of a session in a worker thread.
+   * @param client client session
+   */
+  public void execute(final ClientListener client) {
+    workers.execute(client);
+  }
+
+  /**
+   * Waits for new input of a session.
+   * @param client client session
+   */
+  void park(final ClientListener client) {
+    idle.add(client);
+    selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    final ArrayList<ClientListener> ready = new ArrayList<>();
+    try {
+      while(selector.isOpen()) {
+        selector.select();
+
+        // register idle sessions
+        for(ClientListener client; (client = idle.poll()) != null;) {
+          try {
+            final SocketChannel channel = client.channel();
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, client);
+          } catch(final IOException ex) {
+            Util.debug(ex);
+            client.close();
+          }
+        }
+
+        // cancel registrations of sessions with new input
+        final Set<SelectionKey> keys = selector.selectedKeys();
+        if(keys.isEmpty()) continue;
+        for(final SelectionKey key : keys) {
+          key.cancel();
+          ready.add((ClientListener) key.attachment());
+        }
+        keys.clear();
+        // channels can only be switched to blocking mode after they have been deregistered
+        selector.selectNow();
+
+        // pass on sessions to worker threads
+        for(final ClientListener client : ready) {
+          try {
+            client.channel().configureBlocking(true);
+            execute(client);
+          } catch(final IOException ex) {
+            Util.debug(ex);
+            client.close();
+          }
+        }
+        ready.clear();
+      }
+    } catch(final ClosedSelectorException | IOException ex) {
+      // selector has been closed
+      Util.debug(ex);
+    }
+  }
+
+  /**
+   * Closes the selector and stops all worker threads.
+   */
+  public void close() {
+    try {
+      selector.close();
+    } catch(final IOException ex) {
+      Util.debug(ex);
+    }
+    workers.shutdown();
+  }
+}
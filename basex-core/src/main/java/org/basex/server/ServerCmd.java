@@ -37,6 +37,10 @@ public enum ServerCmd {
   UPDATING(30),
   /** Code for executing a query and returning all information relevant for XQJ: {id}0. */
   FULL(31),
+  /** Code for executing the query in an iterative manner, returning compact results: {id}0. */
+  COMPACT(32),
+  /** Code for compressing all further communication: 0. */
+  COMPRESS(33),
   /** Code for running a database command: {path}0{input}0. */
   COMMAND(-1);
 
@@ -107,10 +107,12 @@ public final class ServerQuery extends Job {
    * @param iterative iterative evaluation
    * @param encode encode results (client/server communication, iterative processing)
    * @param full return full type information (only applicable to iterative evaluation)
+   * @param compact return items in length-prefixed chunks (only applicable to iterative
+   *   evaluation; replaces encoding and full type information)
    * @throws IOException I/O Exception
    */
   public void execute(final OutputStream out, final boolean iterative, final boolean encode,
-      final boolean full) throws IOException {
+      final boolean full, final boolean compact) throws IOException {
 
     try {
       // parses the query and registers the process
@@ -127,11 +129,18 @@ public final class ServerQuery extends Job {
 
       // iterate through results
       int c = 0;
-      final PrintOutput po = PrintOutput.get(encode ? new ServerOutput(out) : out);
+      final ChunkOutput co = compact ? new ChunkOutput(out) : null;
+      final PrintOutput po = compact ? co : PrintOutput.get(encode ? new ServerOutput(out) : out);
       final SerializerOptions sopts = full ? SerializerMode.API.get() : qc.serParams();
       try(Serializer ser = Serializer.get(po, sopts)) {
         for(Item item; (item = qc.next(iter)) != null;) {
-          if(iterative) {
+          if(compact) {
+            // write type and length-prefixed chunks (no escaping required)
+            out.write(item.typeId().asByte());
+            ser.reset();
+            ser.serialize(item);
+            co.finish();
+          } else if(iterative) {
             if(full) po.write(item.xdmInfo());
             else po.write(item.typeId().asByte());
             ser.reset();
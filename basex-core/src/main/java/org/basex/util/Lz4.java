@@ -0,0 +1,142 @@
+package org.basex.util;
+
+import java.util.*;
+
+/**
+ * This class compresses and decompresses byte arrays in the LZ4 block format.
+ * Compression is based on a single hash table and a greedy match search;
+ * it is optimized for speed rather than for the compression ratio.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class Lz4 {
+  /** Minimum match length. */
+  private static final int MINMATCH = 4;
+  /** Number of trailing bytes that are always stored as literals. */
+  private static final int LASTLITERALS = 5;
+  /** Minimum distance between the last match and the end of the input. */
+  private static final int MFLIMIT = 12;
+  /** Maximum match offset. */
+  private static final int MAXOFFSET = 0xFFFF;
+  /** Number of bits of the hash table. */
+  private static final int HASHLOG = 12;
+
+  /** Private constructor. */
+  private Lz4() { }
+
+  /**
+   * Compresses bytes.
+   * @param src input bytes
+   * @param len number of bytes to compress
+   * @return compressed bytes
+   */
+  public static byte[] pack(final byte[] src, final int len) {
+    final byte[] dst = new byte[len + len / 255 + 16];
+    int d = 0, s = 0, anchor = 0;
+    if(len > MFLIMIT) {
+      // hash table, mapping 4-byte sequences to their positions (incremented by one)
+      final int[] table = new int[1 << HASHLOG];
+      final int limit = len - MFLIMIT;
+      while(s < limit) {
+        final int seq = int4(src, s), h = seq * -1640531535 >>> 32 - HASHLOG;
+        final int ref = table[h] - 1;
+        table[h] = s + 1;
+        if(ref < 0 || s - ref > MAXOFFSET || int4(src, ref) != seq) {
+          s++;
+          continue;
+        }
+        // extend match
+        int ml = MINMATCH;
+        final int max = len - LASTLITERALS - s;
+        while(ml < max && src[ref + ml] == src[s + ml]) ml++;
+
+        // write sequence: token, literals, offset, match length
+        final int ll = s - anchor, mt = ml - MINMATCH;
+        dst[d++] = (byte) (Math.min(ll, 15) << 4 | Math.min(mt, 15));
+        d = length(dst, d, ll);
+        System.arraycopy(src, anchor, dst, d, ll);
+        d += ll;
+        final int off = s - ref;
+        dst[d++] = (byte) off;
+        dst[d++] = (byte) (off >>> 8);
+        d = length(dst, d, mt);
+        s += ml;
+        anchor = s;
+      }
+    }
+    // write remaining literals
+    final int ll = len - anchor;
+    dst[d++] = (byte) (Math.min(ll, 15) << 4);
+    d = length(dst, d, ll);
+    System.arraycopy(src, anchor, dst, d, ll);
+    return Arrays.copyOf(dst, d + ll);
+  }
+
+  /**
+   * Decompresses bytes.
+   * @param src compressed bytes
+   * @param len number of compressed bytes
+   * @param dst target array (must be large enough to hold all decompressed bytes)
+   * @return number of decompressed bytes
+   */
+  public static int unpack(final byte[] src, final int len, final byte[] dst) {
+    int s = 0, d = 0;
+    while(s < len) {
+      final int token = src[s++] & 0xFF;
+      // copy literals
+      int ll = token >>> 4;
+      if(ll == 15) {
+        for(int b = 255; b == 255; ll += b) b = src[s++] & 0xFF;
+      }
+      System.arraycopy(src, s, dst, d, ll);
+      s += ll;
+      d += ll;
+      if(s == len) break;
+
+      // copy match (source and target may overlap)
+      final int off = src[s++] & 0xFF | (src[s++] & 0xFF) << 8;
+      int ml = token & 0x0F;
+      if(ml == 15) {
+        for(int b = 255; b == 255; ml += b) b = src[s++] & 0xFF;
+      }
+      ml += MINMATCH;
+      int r = d - off;
+      if(off >= ml) {
+        System.arraycopy(dst, r, dst, d, ml);
+        d += ml;
+      } else {
+        for(final int e = d + ml; d < e;) dst[d++] = dst[r++];
+      }
+    }
+    return d;
+  }
+
+  /**
+   * Writes the remaining bytes of a length that exceeds the 4 bits of a token.
+   * @param dst target array
+   * @param off offset
+   * @param len length
+   * @return new offset
+   */
+  private static int length(final byte[] dst, final int off, final int len) {
+    int d = off;
+    if(len >= 15) {
+      int l = len - 15;
+      for(; l >= 255; l -= 255) dst[d++] = (byte) 255;
+      dst[d++] = (byte) l;
+    }
+    return d;
+  }
+
+  /**
+   * Returns a 4-byte integer.
+   * @param src input bytes
+   * @param off offset
+   * @return integer
+   */
+  private static int int4(final byte[] src, final int off) {
+    return (src[off] & 0xFF) << 24 | (src[off + 1] & 0xFF) << 16 | (src[off + 2] & 0xFF) << 8 |
+      src[off + 3] & 0xFF;
+  }
+}
@@ -0,0 +1,70 @@
+package org.basex.util;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.core.*;
+import org.basex.core.jobs.*;
+
+/**
+ * This class runs tasks in parallel and passes on the first exception that is raised.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class Parallel {
+  /** Private constructor. */
+  private Parallel() { }
+
+  /**
+   * Runs the specified tasks with the given maximum number of threads.
+   * Tasks will be run sequentially if a single thread is requested.
+   * @param <T> result type
+   * @param threads maximum number of threads
+   * @param tasks tasks
+   * @return results, in the order of the specified tasks
+   * @throws IOException I/O exception
+   */
+  public static <T> ArrayList<T> run(final int threads, final List<? extends Callable<T>> tasks)
+      throws IOException {
+
+    final int ts = tasks.size();
+    final ArrayList<T> results = new ArrayList<>(ts);
+    final int nt = Math.min(threads, ts);
+    if(nt <= 1) {
+      try {
+        for(final Callable<T> task : tasks) results.add(task.call());
+      } catch(final Exception ex) {
+        throw rethrow(ex);
+      }
+      return results;
+    }
+
+    final ExecutorService pool = Executors.newFixedThreadPool(nt);
+    try {
+      final ArrayList<Future<T>> futures = new ArrayList<>(ts);
+      for(final Callable<T> task : tasks) futures.add(pool.submit(task));
+      for(final Future<T> future : futures) results.add(future.get());
+      return results;
+    } catch(final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new JobException(Text.INTERRUPTED);
+    } catch(final ExecutionException ex) {
+      throw rethrow(ex.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Passes on unchecked exceptions and errors, and returns I/O exceptions.
+   * @param th throwable
+   * @return I/O exception
+   */
+  private static IOException rethrow(final Throwable th) {
+    if(th instanceof RuntimeException) throw (RuntimeException) th;
+    if(th instanceof Error) throw (Error) th;
+    return th instanceof IOException ? (IOException) th : new IOException(th);
+  }
+}
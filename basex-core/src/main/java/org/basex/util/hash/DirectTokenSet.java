@@ -0,0 +1,159 @@
+package org.basex.util.hash;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+
+/**
+ * This is a hash set for storing tokens outside the Java heap.
+ * Tokens are appended to direct memory; only their offsets, lengths and hash values
+ * are kept in primitive arrays. New token instances are created when keys are requested.
+ * The first entry of the token set (offset 0) is always empty.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class DirectTokenSet extends TokenSet {
+  /** Direct memory. */
+  private final DirectMemory memory = new DirectMemory();
+  /** Offsets of the tokens. */
+  private long[] offsets = new long[Array.CAPACITY];
+  /** Lengths of the tokens ({@code -1}: no token). */
+  private int[] lengths = new int[Array.CAPACITY];
+  /** Hash values of the tokens. */
+  private int[] hashes = new int[Array.CAPACITY];
+  /** Number of used bytes. */
+  private long used;
+
+  /**
+   * Default constructor.
+   */
+  public DirectTokenSet() {
+    super(Array.CAPACITY);
+    lengths[0] = -1;
+  }
+
+  @Override
+  public void read(final DataInput in) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void write(final DataOutput out) throws IOException {
+    final byte[][] ks = new byte[next.length][];
+    for(int i = 1; i < size; i++) ks[i] = key(i);
+    out.writeTokens(ks);
+    out.writeNums(next);
+    out.writeNums(buckets);
+    out.writeNum(size);
+  }
+
+  @Override
+  public int id(final byte[] key) {
+    final int h = Token.hash(key);
+    for(int i = buckets[h & buckets.length - 1]; i != 0; i = next[i]) {
+      if(eq(i, key, h)) return i;
+    }
+    return 0;
+  }
+
+  @Override
+  public byte[] key(final int id) {
+    final int l = lengths[id];
+    if(l == -1) return null;
+    final byte[] key = new byte[l];
+    memory.get(offsets[id], key, 0, l);
+    return key;
+  }
+
+  @Override
+  public int remove(final byte[] key) {
+    final int h = Token.hash(key), b = h & buckets.length - 1;
+    for(int p = 0, i = buckets[b]; i != 0; p = i, i = next[i]) {
+      if(!eq(i, key, h)) continue;
+      if(p == 0) buckets[b] = next[i];
+      else next[p] = next[i];
+      lengths[i] = -1;
+      return i;
+    }
+    return 0;
+  }
+
+  @Override
+  protected int store(final byte[] key) {
+    checkSize();
+    final int h = Token.hash(key), b = h & buckets.length - 1;
+    for(int r = buckets[b]; r != 0; r = next[r]) {
+      if(eq(r, key, h)) return -r;
+    }
+    final int kl = key.length;
+    memory.ensure(used + kl);
+    memory.put(used, key, 0, kl);
+    offsets[size] = used;
+    lengths[size] = kl;
+    hashes[size] = h;
+    used += kl;
+
+    next[size] = buckets[b];
+    buckets[b] = size;
+    return size++;
+  }
+
+  @Override
+  protected int hash(final int id) {
+    return hashes[id];
+  }
+
+  @Override
+  protected void rehash(final int newSize) {
+    offsets = Arrays.copyOf(offsets, newSize);
+    lengths = Arrays.copyOf(lengths, newSize);
+    hashes = Arrays.copyOf(hashes, newSize);
+  }
+
+  @Override
+  public void clear() {
+    memory.release();
+    used = 0;
+    super.clear();
+  }
+
+  @Override
+  public Iterator<byte[]> iterator() {
+    return new Iterator<byte[]>() {
+      private int c = 1;
+
+      @Override
+      public boolean hasNext() {
+        return c < size;
+      }
+
+      @Override
+      public byte[] next() {
+        return key(c++);
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    final byte[][] ks = new byte[size][];
+    for(int i = 1; i < size; i++) ks[i] = key(i);
+    return toString(ks);
+  }
+
+  /**
+   * Compares the token with the specified id with the given token.
+   * @param id id
+   * @param key token
+   * @param hash hash value of the token
+   * @return result of check
+   */
+  private boolean eq(final int id, final byte[] key, final int hash) {
+    return hashes[id] == hash && lengths[id] == key.length && memory.equals(offsets[id], key);
+  }
+}
@@ -28,6 +28,14 @@ public class TokenSet extends ASet implements Iterable<byte[]> {
     keys = new byte[Array.CAPACITY][];
   }
 
+  /**
+   * Constructor for subclasses that do not store their keys in {@link #keys}.
+   * @param capacity initial array capacity
+   */
+  protected TokenSet(final int capacity) {
+    super(capacity);
+  }
+
   /**
    * Constructor, specifying initial keys.
    * @param key initial keys
@@ -76,7 +84,7 @@ public class TokenSet extends ASet implements Iterable<byte[]> {
    * @return {@code true} if the key did not exist yet and was stored
    */
   public final boolean add(final byte[] key) {
-    return index(key) > 0;
+    return store(key) > 0;
   }
 
   /**
@@ -94,7 +102,7 @@ public class TokenSet extends ASet implements Iterable<byte[]> {
    * @return unique id of stored key (larger than zero)
    */
   public final int put(final byte[] key) {
-    final int i = index(key);
+    final int i = store(key);
     return Math.abs(i);
   }
 
@@ -112,7 +120,7 @@ public class TokenSet extends ASet implements Iterable<byte[]> {
    * @param key key to be looked up
    * @return id, or {@code 0} if key does not exist
    */
-  public final int id(final byte[] key) {
+  public int id(final byte[] key) {
     final int p = Token.hash(key) & buckets.length - 1;
     for(int i = buckets[p]; i != 0; i = next[i]) {
       if(eq(key, keys[i])) return i;
@@ -126,7 +134,7 @@ public class TokenSet extends ASet implements Iterable<byte[]> {
    * @param id id of the key to return
    * @return key
    */
-  public final byte[] key(final int id) {
+  public byte[] key(final int id) {
     return keys[id];
   }
 
@@ -155,7 +163,7 @@ public class TokenSet extends ASet implements Iterable<byte[]> {
    * @param key key to be found
    * @return id, or negative id if key has already been stored
    */
-  private int index(final byte[] key) {
+  protected int store(final byte[] key) {
     checkSize();
     final int b = Token.hash(key) & buckets.length - 1;
     for(int r = buckets[b]; r != 0; r = next[r]) {
@@ -179,12 +187,12 @@ public class TokenSet extends ASet implements Iterable<byte[]> {
 
   @Override
   public void clear() {
-    Arrays.fill(keys, null);
+    if(keys != null) Arrays.fill(keys, null);
     super.clear();
   }
 
   @Override
-  public final Iterator<byte[]> iterator() {
+  public Iterator<byte[]> iterator() {
     return new ArrayIterator<>(keys, 1, size);
   }
 
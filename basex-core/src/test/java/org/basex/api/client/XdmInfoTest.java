@@ -110,10 +110,12 @@ public final class XdmInfoTest extends SandboxTest {
       final ArrayOutput ao = new ArrayOutput();
       sout.write(cmd.code);
       send(arg);
-      sout.flush();
+      flush();
       @SuppressWarnings("resource")
       final BufferInput bi = BufferInput.get(sin);
       ClientSession.receive(bi, ao);
+      // skip end marker of the single result
+      bi.read();
       if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
       return ao.finish();
     }
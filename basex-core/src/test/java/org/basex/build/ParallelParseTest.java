@@ -0,0 +1,80 @@
+package org.basex.build;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for parsing the documents of a directory in parallel ({@link MainOptions#PARSETHREADS}).
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelParseTest extends SandboxTest {
+  /** Test directory. */
+  private static final String DIR = "src/test/resources/";
+  /** Name of the database that is created sequentially. */
+  private static final String SEQ = NAME + "Seq";
+
+  /** Resets the options and drops the test databases. */
+  @After public void tearDown() {
+    set(MainOptions.PARSETHREADS, 1);
+    set(MainOptions.SKIPCORRUPT, false);
+    execute(new DropDB(SEQ));
+    execute(new DropDB(NAME));
+  }
+
+  /** Compares the documents of a directory. */
+  @Test public void create() {
+    set(MainOptions.SKIPCORRUPT, true);
+    execute(new CreateDB(SEQ, DIR));
+    set(MainOptions.PARSETHREADS, 4);
+    execute(new CreateDB(NAME, DIR));
+    compare();
+  }
+
+  /** Compares documents that are added to an existing database. */
+  @Test public void add() {
+    execute(new CreateDB(SEQ));
+    execute(new Add("a", DIR + "xmark.xml"));
+    execute(new Add("b", DIR + "dir"));
+    set(MainOptions.PARSETHREADS, 4);
+    execute(new CreateDB(NAME));
+    execute(new Add("a", DIR + "xmark.xml"));
+    execute(new Add("b", DIR + "dir"));
+    compare();
+  }
+
+  /** Corrupt documents are skipped or rejected. */
+  @Test public void corrupt() {
+    final IOFile dir = new IOFile(sandbox(), "corrupt");
+    dir.md();
+    for(int i = 0; i < 20; i++) {
+      write(new IOFile(dir, i + ".xml"), i == 10 ? "<x>" : "<x>" + i + "</x>");
+    }
+    set(MainOptions.PARSETHREADS, 4);
+    try {
+      new CreateDB(NAME, dir.path()).execute(context);
+      fail("Corrupt document was accepted.");
+    } catch(final BaseXException ignored) { }
+    set(MainOptions.SKIPCORRUPT, true);
+    execute(new CreateDB(NAME, dir.path()));
+    assertEquals("19", query("count(db:open('" + NAME + "'))"));
+    assertEquals("0", query("count(db:open('" + NAME + "', '10.xml'))"));
+  }
+
+  /** Compares the contents of the two databases. */
+  private static void compare() {
+    final String paths = "string-join(db:list('%'), ' ')";
+    final String docs = "serialize(db:open('%'))";
+    assertEquals(query(paths.replace("%", SEQ)), query(paths.replace("%", NAME)));
+    assertEquals(query(docs.replace("%", SEQ)), query(docs.replace("%", NAME)));
+    assertEquals(query("count(db:open('" + SEQ + "')//node())"),
+        query("count(db:open('" + NAME + "')//node())"));
+  }
+}
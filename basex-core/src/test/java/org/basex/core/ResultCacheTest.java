@@ -0,0 +1,94 @@
+package org.basex.core;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests the result cache.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class ResultCacheTest extends SandboxTest {
+  /** Query. */
+  private static final String QUERY = "count(" + _DB_OPEN.args(NAME) + "//a)";
+
+  /** Enables the result cache. */
+  @Before public void enable() {
+    context.soptions.set(StaticOptions.RESULTCACHE, 100);
+    context.results.clear();
+    execute(new CreateDB(NAME, "<x><a/></x>"));
+  }
+
+  /** Disables the result cache. */
+  @After public void disable() {
+    execute(new DropDB(NAME));
+    context.soptions.set(StaticOptions.RESULTCACHE, 0);
+    context.results.clear();
+  }
+
+  /** Reuses results. */
+  @Test public void reuse() {
+    final long hits = context.results.hits();
+    assertEquals("1", execute(new XQuery(QUERY)));
+    assertEquals("1", execute(new XQuery(QUERY)));
+    assertEquals("1", execute(new XQuery(' ' + QUERY + ' ')));
+    assertEquals(hits + 2, context.results.hits());
+    assertEquals(1, context.results.size());
+
+    // bindings are part of the key
+    final String query = "declare variable $n external; $n * " + QUERY;
+    assertEquals("2", execute(new XQuery(query).bind("n", "2", "xs:integer")));
+    assertEquals("3", execute(new XQuery(query).bind("n", "3", "xs:integer")));
+    assertEquals("2", execute(new XQuery(query).bind("n", "2", "xs:integer")));
+    assertEquals(hits + 3, context.results.hits());
+    assertEquals(3, context.results.size());
+  }
+
+  /** Discards results after updates. */
+  @Test public void invalidate() {
+    assertEquals("1", execute(new XQuery(QUERY)));
+    assertEquals(1, context.results.size());
+    execute(new XQuery(_DB_OPEN.args(NAME) + "/x ! (insert node <a/> into .)"));
+    assertEquals(0, context.results.size());
+    assertEquals("2", execute(new XQuery(QUERY)));
+
+    execute(new Open(NAME));
+    execute(new Add("b.xml", "<a/>"));
+    execute(new Close());
+    assertEquals(0, context.results.size());
+    assertEquals("3", execute(new XQuery(QUERY)));
+  }
+
+  /** Discards results after changes of users and permissions. */
+  @Test public void permissions() {
+    assertEquals("1", execute(new XQuery(QUERY)));
+    execute(new CreateUser(NAME, NAME));
+    assertEquals(0, context.results.size());
+
+    assertEquals("1", execute(new XQuery(QUERY)));
+    execute(new Grant("read", NAME));
+    assertEquals(0, context.results.size());
+
+    assertEquals("1", execute(new XQuery(QUERY)));
+    execute(new XQuery(_USER_GRANT.args(NAME, "none")));
+    assertEquals(0, context.results.size());
+
+    assertEquals("1", execute(new XQuery(QUERY)));
+    execute(new DropUser(NAME));
+    assertEquals(0, context.results.size());
+  }
+
+  /** Results of non-deterministic queries are not cached. */
+  @Test public void uncached() {
+    execute(new XQuery(_RANDOM_DOUBLE.args()));
+    execute(new XQuery("current-dateTime()"));
+    execute(new XQuery(QUERY + ", " + _DB_LIST.args()));
+    assertEquals(0, context.results.size());
+  }
+}
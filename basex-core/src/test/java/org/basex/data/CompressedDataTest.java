@@ -0,0 +1,79 @@
+package org.basex.data;
+
+import static org.basex.data.DataText.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Test index updates when storing texts and attribute values in compressed chunks
+ * ({@link DiskData}).
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class CompressedDataTest extends MemDataTest {
+  /** Test database name. */
+  private final String dbName = Util.className(CompressedDataTest.class);
+
+  @Override
+  @Before public void setUp() {
+    set(MainOptions.COMPRESSTEXTS, true);
+    execute(new CreateDB(dbName, XMLSTR));
+  }
+
+  /**
+   * Clean up method; executed after each test; drops the database.
+   */
+  @After public void cleanUp() {
+    execute(new DropDB(dbName));
+    set(MainOptions.COMPRESSTEXTS, false);
+  }
+
+  /**
+   * Reads and updates texts and values of a reopened database.
+   */
+  @Test public void reopen() {
+    query("insert node (1 to 20000) ! <x a='value { . }'>text { . }</x> into /a");
+    execute(new Close());
+    set(MainOptions.COMPRESSTEXTS, false);
+    execute(new Open(dbName));
+    assertEquals("test", query("/a/b/text()"));
+    assertEquals("text 12345", query("/a/x[12345]/text()"));
+    assertEquals("value 20000", query("string(/a/x[last()]/@a)"));
+
+    query("for $x in /a/x[position() mod 3 = 0] return replace value of node $x "
+        + "with 'new text ' || $x");
+    query("delete node /a/x[position() mod 5 = 0]");
+    execute(new Close());
+    execute(new Open(dbName));
+    assertEquals("new text text 12", query("/a/x[10]/text()"));
+    assertEquals("16000", query("count(/a/x)"));
+    assertEquals("text 19999", query("/a/x[last()]/text()"));
+  }
+
+  /**
+   * Optimizes the database.
+   */
+  @Test public void optimizeAll() {
+    query("insert node (1 to 1000) ! <x a='{ . }'>{ . }</x> into /a");
+    set(MainOptions.COMPRESSTEXTS, false);
+    execute(new OptimizeAll());
+    assertEquals("500500", query("sum(/a/x ! xs:integer(@a))"));
+    assertEquals("true", query("db:info('" + dbName + "')//compresstexts/string()"));
+  }
+
+  /**
+   * Stops an index build and checks if the stored texts are preserved.
+   * @throws IOException I/O exception
+   */
+  @Test public void stopIndex() throws IOException {
+    stopIndex(dbName, DATATXT + DATACHK);
+  }
+}
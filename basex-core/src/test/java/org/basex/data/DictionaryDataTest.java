@@ -0,0 +1,139 @@
+package org.basex.data;
+
+import static org.basex.data.DataText.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Test index updates when storing texts and attribute values in dictionaries
+ * ({@link DiskData}).
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class DictionaryDataTest extends MemDataTest {
+  /** Test database name. */
+  private final String dbName = Util.className(DictionaryDataTest.class);
+
+  @Override
+  @Before public void setUp() {
+    set(MainOptions.DICTIONARY, true);
+    execute(new CreateDB(dbName, XMLSTR));
+  }
+
+  /**
+   * Clean up method; executed after each test; drops the database.
+   */
+  @After public void cleanUp() {
+    execute(new DropDB(dbName));
+    set(MainOptions.DICTIONARY, false);
+  }
+
+  /**
+   * Creates a database with repeating and distinct values, and compares values.
+   */
+  @Test public void create() {
+    execute(new CreateDB(dbName, "<a>" + elements(1000) + "</a>"));
+    final Data data = context.data();
+    assertTrue(data.meta.dbfile(DATATXT + DATADICT).exists());
+    assertTrue(data.meta.dbfile(DATAATV + DATADICT).exists());
+    // attribute value and text of first element
+    assertNotEquals(0, data.dictId(3, false));
+    assertNotEquals(0, data.dictId(5, true));
+
+    assertEquals("334", query("count(/a/x[@status = 'active'])"));
+    assertEquals("333", query("count(/a/x[country = 'Switzerland'])"));
+    assertEquals("value 123", query("/a/x[123]/value/text()"));
+    assertEquals("true", query("/a/x[1]/@status = /a/x[4]/@status"));
+    assertEquals("false", query("/a/x[1]/@status = /a/x[2]/@status"));
+    assertEquals("true", query("/a/x[1]/@status != /a/x[2]/@status"));
+    assertEquals("true", query("/a/x[2]/country = /a/x[5]/country/text()"));
+    assertEquals("false", query("/a/x[2]/@status = /a/x[2]/country"));
+    assertEquals("3", query("count(distinct-values(/a/x/@status))"));
+  }
+
+  /**
+   * Checks that main-memory databases do not attach dictionary ids to atomized values.
+   */
+  @Test public void mainMemory() {
+    set(MainOptions.MAINMEM, true);
+    try {
+      execute(new CreateDB(dbName, "<a>" + elements(10) + "</a>"));
+      final Data data = context.data();
+      assertEquals(0, data.dictId(3, false));
+      assertFalse(new DBNode(data, 3).atomItem() instanceof AtmDict);
+      assertEquals("true", query("/a/x[1]/@status = /a/x[4]/@status"));
+    } finally {
+      set(MainOptions.MAINMEM, false);
+    }
+  }
+
+  /**
+   * Reads and updates texts and values of a reopened database.
+   */
+  @Test public void reopen() {
+    execute(new CreateDB(dbName, "<a>" + elements(100) + "</a>"));
+    execute(new Close());
+    set(MainOptions.DICTIONARY, false);
+    execute(new Open(dbName));
+    assertEquals("active", query("string(/a/x[1]/@status)"));
+    assertEquals("Germany", query("/a/x[1]/country/text()"));
+
+    query("for $x in /a/x[position() mod 3 = 0] return replace value of node $x/@status "
+        + "with 'active'");
+    query("for $x in /a/x[position() mod 4 = 0] return replace value of node $x/country "
+        + "with 'Country ' || $x/value");
+    query("delete node /a/x[position() mod 5 = 0]");
+    execute(new Close());
+    execute(new Open(dbName));
+    assertEquals("54", query("count(/a/x[@status = 'active'])"));
+    assertEquals("Country value 4", query("/a/x[4]/country/text()"));
+    assertEquals("80", query("count(/a/x)"));
+    assertEquals("France", query("/a/x[last()]/country/text()"));
+  }
+
+  /**
+   * Optimizes the database.
+   */
+  @Test public void optimizeAll() {
+    query("insert node <b>" + elements(100) + "</b> into /a");
+    set(MainOptions.DICTIONARY, false);
+    execute(new OptimizeAll());
+    assertEquals("34", query("count(/a/b/x[@status = 'active'])"));
+    assertEquals("true", query("db:info('" + dbName + "')//dictionary/string()"));
+  }
+
+  /**
+   * Stops an index build and checks if the dictionaries are preserved.
+   * @throws IOException I/O exception
+   */
+  @Test public void stopIndex() throws IOException {
+    stopIndex(dbName, DATATXT + DATADICT, DATAATV + DATADICT);
+  }
+
+  /**
+   * Returns elements with repeating and distinct values.
+   * @param count number of elements
+   * @return string
+   */
+  private static String elements(final int count) {
+    final String[] status = { "active", "inactive", "suspended" };
+    final String[] country = { "Germany", "Switzerland", "France" };
+    final StringBuilder sb = new StringBuilder();
+    for(int i = 0; i < count; i++) {
+      sb.append("<x status='").append(status[i % 3]).append("'><country>").
+        append(country[i % 3]).append("</country><value>value ").append(i + 1).
+        append("</value></x>");
+    }
+    return sb.toString();
+  }
+}
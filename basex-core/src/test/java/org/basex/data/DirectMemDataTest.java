@@ -0,0 +1,66 @@
+package org.basex.data;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.random.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Test index updates when storing main-memory databases outside the Java heap
+ * ({@link MemData}).
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class DirectMemDataTest extends MemDataTest {
+  @Override
+  @Before public void setUp() {
+    set(MainOptions.MAINMEM, true);
+    set(MainOptions.OFFHEAP, true);
+    execute(new CreateDB(NAME, XMLSTR));
+  }
+
+  /**
+   * Clean up method; executed after each test.
+   */
+  @After public void cleanUp() {
+    set(MainOptions.MAINMEM, false);
+    set(MainOptions.OFFHEAP, false);
+  }
+
+  /**
+   * Only stores opened databases outside the Java heap, and allocates memory on demand.
+   */
+  @Test public void allocation() {
+    assertTrue(context.data().table instanceof TableDirectAccess);
+    assertTrue(new MemData(context.options).table instanceof TableMemAccess);
+
+    final DirectMemory memory = new DirectMemory();
+    assertEquals(0, memory.capacity());
+    memory.ensure(1);
+    assertTrue(memory.capacity() < 1 << 20);
+    memory.put(0, (byte) 1);
+    memory.ensure(3 << 20);
+    assertTrue(memory.capacity() >= 3 << 20);
+    assertEquals(1, memory.get(0));
+    memory.put((3 << 20) - 1, (byte) 2);
+    assertEquals(2, memory.get((3 << 20) - 1));
+    memory.release();
+  }
+
+  /**
+   * Inserts and deletes many nodes.
+   */
+  @Test public void bulk() {
+    query("insert node (1 to 100000) ! <x a='{ . }'>{ . }</x> into /a");
+    assertEquals("100000", query("count(/a/x)"));
+    assertEquals("5000050000", query("sum(/a/x/@a ! xs:integer(.))"));
+    query("delete node /a/x[. mod 2 = 0]");
+    assertEquals("50000", query("count(/a/x)"));
+    assertEquals("2500000000", query("sum(/a/x ! xs:integer(.))"));
+    assertEquals("test", query("/a/b/text()"));
+  }
+}
@@ -4,6 +4,7 @@ import static org.junit.Assert.*;
 
 import java.io.*;
 import java.lang.reflect.*;
+import java.util.*;
 
 import org.basex.*;
 import org.basex.build.*;
@@ -313,6 +314,91 @@ public final class DiskTableTest extends SandboxTest {
     assertEntrysEqual(nodes, 2 * nodes, size - nodes);
   }
 
+  /**
+   * Reads the table in parallel after switching to read mode and performing an update.
+   * @throws Exception exception
+   */
+  @Test public void concurrentReads() throws Exception {
+    tda.delete(0, nodes);
+    tda.lock(false);
+    final Thread[] threads = new Thread[8];
+    final Throwable[] errors = new Throwable[threads.length];
+    for(int t = 0; t < threads.length; t++) {
+      final int nr = t;
+      threads[t] = new Thread(() -> {
+        try {
+          assertEntrysEqual(nodes, 0, size - nodes);
+        } catch(final Throwable ex) {
+          errors[nr] = ex;
+        }
+      });
+      threads[t].start();
+    }
+    for(final Thread thread : threads) thread.join();
+    for(final Throwable error : errors) if(error != null) throw new AssertionError(error);
+  }
+
+  /**
+   * Reads the table in parallel while it is locked for updates.
+   * @throws Exception exception
+   */
+  @Test public void concurrentReadsWriteMode() throws Exception {
+    tda.lock(true);
+    final Thread[] threads = new Thread[8];
+    final Throwable[] errors = new Throwable[threads.length];
+    for(int t = 0; t < threads.length; t++) {
+      final int nr = t;
+      // threads start at different pages, so the shared buffers are refilled concurrently
+      threads[t] = new Thread(() -> {
+        try {
+          final int start = (int) ((long) size * nr / threads.length);
+          assertEntrysEqual(start, start, size - start);
+          assertEntrysEqual(0, 0, start);
+        } catch(final Throwable ex) {
+          errors[nr] = ex;
+        }
+      });
+      threads[t].start();
+    }
+    for(final Thread thread : threads) thread.join();
+    for(final Throwable error : errors) if(error != null) throw new AssertionError(error);
+  }
+
+  /**
+   * Reads random entries in parallel, as it is done by queries that access random nodes.
+   * The number of reads per second is measured for a growing number of threads
+   * (results are output in debug mode).
+   * @throws Exception exception
+   */
+  @Test public void concurrentRandomReads() throws Exception {
+    tda.lock(false);
+    final int reads = 200000;
+    for(int ts = 1; ts <= 8; ts <<= 1) {
+      final Thread[] threads = new Thread[ts];
+      final Throwable[] errors = new Throwable[ts];
+      for(int t = 0; t < ts; t++) {
+        final int nr = t;
+        threads[t] = new Thread(() -> {
+          try {
+            final Random rnd = new Random(nr);
+            for(int r = 0; r < reads; r++) {
+              final int pre = rnd.nextInt(size), off = rnd.nextInt(1 << IO.NODEPOWER);
+              assertEquals(storage[(pre << IO.NODEPOWER) + off], (byte) tda.read1(pre, off));
+            }
+          } catch(final Throwable ex) {
+            errors[nr] = ex;
+          }
+        });
+      }
+      final Performance perf = new Performance();
+      for(final Thread thread : threads) thread.start();
+      for(final Thread thread : threads) thread.join();
+      final long ns = Math.max(1, perf.ns());
+      for(final Throwable error : errors) if(error != null) throw new AssertionError(error);
+      Util.debug("% threads: % reads/s", ts, (long) reads * ts * 1000000000L / ns);
+    }
+  }
+
   /**
    * Asserts that the chosen entries are inserted by a test case.
    * @param startNum first entry
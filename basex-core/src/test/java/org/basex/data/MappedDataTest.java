@@ -0,0 +1,59 @@
+package org.basex.data;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Test index updates when using memory-mapped disk storage ({@link DiskData}).
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class MappedDataTest extends MemDataTest {
+  /** Test database name. */
+  private final String dbName = Util.className(MappedDataTest.class);
+
+  @Override
+  @Before public void setUp() {
+    set(MainOptions.MMAP, true);
+    execute(new CreateDB(dbName, XMLSTR));
+  }
+
+  /**
+   * Clean up method; executed after each test; drops the database.
+   */
+  @After public void cleanUp() {
+    execute(new DropDB(dbName));
+    set(MainOptions.MMAP, false);
+  }
+
+  /**
+   * Reads texts and values from a reopened database.
+   */
+  @Test public void reopen() {
+    execute(new Close());
+    execute(new Open(dbName));
+    assertEquals("test", query("/a/b/text()"));
+    assertEquals("3", query("count(//text())"));
+    assertEquals("5", query("string-length(/a/f[1])"));
+  }
+
+  /**
+   * Updates a database after the mapped files have been read.
+   */
+  @Test public void update() {
+    execute(new Close());
+    execute(new Open(dbName));
+    assertEquals("test", query("/a/b/text()"));
+    query("insert node <g>new</g> into /a, replace value of node /a/b with 'updated'");
+    assertEquals("updated new", query("/a/b || ' ' || /a/g"));
+    execute(new Close());
+    execute(new Open(dbName));
+    assertEquals("updated new", query("/a/b || ' ' || /a/g"));
+  }
+}
@@ -5,10 +5,15 @@ import static org.junit.Assert.*;
 import java.io.*;
 
 import org.basex.*;
+import org.basex.core.cmd.*;
+import org.basex.core.jobs.*;
+import org.basex.index.*;
+import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.query.value.node.*;
 import org.basex.util.*;
 import org.junit.*;
+import org.junit.Test;
 
 /**
  * Test index updates when using memory storage ({@link MemData}).
@@ -100,4 +105,29 @@ public class MemDataTest extends SandboxTest {
     final String r = query("//*[text() = 'test0']");
     assertTrue("Found non-existing node", r.isEmpty());
   }
+
+  /**
+   * Stops an index build and checks if the stored texts and the specified files are preserved.
+   * @param db name of database
+   * @param files names of files that must be preserved
+   * @throws IOException I/O exception
+   */
+  final void stopIndex(final String db, final String... files) throws IOException {
+    query("insert node (1 to 1000) ! <x a=\"v{ . mod 3 }\">{ . mod 5 }</x> into /a");
+    final Data dt = context.data();
+    final DiskValuesBuilder builder = new DiskValuesBuilder(dt, IndexType.TEXT);
+    builder.stop();
+    try {
+      builder.build();
+      fail("Index build was not stopped.");
+    } catch(final JobException ex) {
+      Util.debug(ex);
+    }
+    for(final String file : files) assertTrue(file, dt.meta.dbfile(file).exists());
+
+    execute(new Close());
+    execute(new Open(db));
+    assertEquals("v1", query("string(/a/x[last()]/@a)"));
+    assertEquals("0", query("/a/x[last()]/text()"));
+  }
 }
@@ -0,0 +1,108 @@
+package org.basex.data;
+
+import static org.basex.data.DataText.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for the column with numeric texts and attribute values ({@link NumericColumn}).
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class NumericColumnTest extends SandboxTest {
+  /**
+   * Initializes a test.
+   */
+  @Before public void init() {
+    set(MainOptions.NUMCOLUMN, true);
+    final StringBuilder sb = new StringBuilder("<a>");
+    for(int i = 1; i <= 1000; i++) {
+      sb.append("<item id='").append(i).append("' price='").append(i / 4d).append("'><name>n").
+        append(i).append("</name><price>").append(i * 1000000000L).append("</price></item>");
+    }
+    execute(new CreateDB(NAME, sb.append("</a>").toString()));
+  }
+
+  /**
+   * Finalizes a test.
+   */
+  @After public void finish() {
+    execute(new DropDB(NAME));
+    set(MainOptions.NUMCOLUMN, false);
+  }
+
+  /**
+   * Queries numeric values.
+   */
+  @Test public void query() {
+    assertTrue(context.data().meta.dbfile(DATANUM).exists());
+    assertEquals("750", query("count(//item[@price > 62.5])"));
+    assertEquals("10", query("count(//item[price > 990000000000])"));
+    assertEquals("125125", query("sum(//@price)"));
+    assertEquals("5.005E14", query("sum(//price)"));
+    assertEquals("1.0E12", query("max(//price)"));
+    assertEquals("0.25", query("min(//@price)"));
+    assertEquals("n1000", query("(for $i in //item order by number($i/@price) descending "
+        + "return $i/name)[1]/string()"));
+  }
+
+  /**
+   * Stores the values of location paths with numeric values.
+   * @throws IOException I/O exception
+   */
+  @Test public void paths() throws IOException {
+    execute(new CreateDB(NAME, "<a><x><p>1</p><p>2.5</p></x><y><p>n/a</p></y>"
+        + "<z p='3'/><z p='-'/></a>"));
+    final Data data = context.data();
+    try(NumericColumn nc = new NumericColumn(data.meta)) {
+      assertEquals(1, nc.get(pre("//x/p[1]/text()")), 0);
+      assertEquals(2.5, nc.get(pre("//x/p[2]/text()")), 0);
+      assertTrue(Double.isNaN(nc.get(pre("//y/p/text()"))));
+      assertTrue(Double.isNaN(nc.get(pre("//z[1]/@p"))));
+      assertTrue(Double.isNaN(nc.get(pre("/a"))));
+      assertTrue(Double.isNaN(nc.get(data.meta.size - 1)));
+    }
+    assertEquals("3.5", query("sum(//x/p)"));
+  }
+
+  /**
+   * Returns the pre value of the node returned by the specified path.
+   * @param path path
+   * @return pre value
+   */
+  private static int pre(final String path) {
+    return Integer.parseInt(query("db:node-pre(" + path + ")"));
+  }
+
+  /**
+   * Updates and optimizes the database.
+   */
+  @Test public void update() {
+    query("replace value of node //item[1]/@price with 1000");
+    query("insert node <item price='-1'/> into /a");
+    assertEquals("1000", query("max(//@price)"));
+    assertEquals("-1", query("min(//@price)"));
+    assertEquals("126123.75", query("sum(//@price)"));
+
+    execute(new Optimize());
+    assertEquals("1000", query("max(//@price)"));
+    assertEquals("126123.75", query("sum(//@price)"));
+
+    execute(new Close());
+    set(MainOptions.NUMCOLUMN, false);
+    execute(new Open(NAME));
+    assertEquals("-1", query("min(//@price)"));
+    assertEquals("1001", query("count(//item[@price != 0])"));
+    execute(new OptimizeAll());
+    assertEquals("true", query("db:info('" + NAME + "')//numcolumn/string()"));
+    assertEquals("126123.75", query("sum(//@price)"));
+  }
+}
@@ -0,0 +1,112 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for incremental value indexes that are stored in B+-trees.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class BTreeValuesTest extends SandboxTest {
+  /** Initializes a test. */
+  @Before public void init() {
+    set(MainOptions.UPDINDEX, true);
+    set(MainOptions.TREEINDEX, true);
+    set(MainOptions.TOKENINDEX, true);
+    execute(new CreateDB(NAME, "<a/>"));
+  }
+
+  /** Finalizes a test. */
+  @After public void finish() {
+    execute(new DropDB(NAME));
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.TREEINDEX, false);
+    set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.MAXLEN, 96);
+  }
+
+  /**
+   * Inserts and deletes entries.
+   */
+  @Test public void update() {
+    query("insert node (1 to 5000) ! <x a='{ . mod 10 }'>{ 'v' || . mod 50 }</x> into /a");
+    assertEquals("100", query("count(db:text('" + NAME + "', 'v7'))"));
+    assertEquals("500", query("count(db:attribute('" + NAME + "', '3'))"));
+    assertEquals("50", query("count(index:texts('" + NAME + "'))"));
+    assertEquals("100", query("index:texts('" + NAME + "', 'v49')/@count/string()"));
+    assertEquals("v2 v20 v21",
+        query("string-join(index:texts('" + NAME + "', 'v2')[position() < 4], ' ')"));
+    assertEquals("v1 v0",
+        query("string-join(index:texts('" + NAME + "', 'v10', false()), ' ')"));
+    assertEquals("1000", query("count(db:attribute-range('" + NAME + "', '3', '4'))"));
+
+    query("delete node /a/x[position() mod 2 = 0]");
+    assertEquals("0", query("count(db:text('" + NAME + "', 'v8'))"));
+    assertEquals("100", query("count(db:text('" + NAME + "', 'v7'))"));
+    assertEquals("25", query("count(index:texts('" + NAME + "'))"));
+    query("replace value of node /a/x[1]/@a with 'new'");
+    assertEquals("1", query("count(db:attribute('" + NAME + "', 'new'))"));
+    assertEquals("499", query("count(db:attribute('" + NAME + "', '1'))"));
+
+    execute(new Close());
+    execute(new Open(NAME));
+    assertEquals("100", query("count(db:text('" + NAME + "', 'v7'))"));
+    assertEquals("25", query("count(index:texts('" + NAME + "'))"));
+    assertEquals("v9 v7 v5",
+        query("string-join(index:texts('" + NAME + "', '', false())[position() < 4], ' ')"));
+
+    query("delete node /a/x");
+    assertEquals("0", query("count(index:texts('" + NAME + "'))"));
+    query("insert node <x a='b'>c</x> into /a");
+    assertEquals("<x a=\"b\">c</x>", query("db:text('" + NAME + "', 'c')/.."));
+  }
+
+  /**
+   * Indexes long keys.
+   */
+  @Test public void longKeys() {
+    set(MainOptions.MAXLEN, 1000);
+    execute(new CreateDB(NAME, "<a/>"));
+    final String key = "string-join((1 to 200) ! 'x')";
+    query("insert node (1 to 100) ! <x>{ " + key + " || . mod 3 }</x> into /a");
+    assertEquals("34", query("count(db:text('" + NAME + "', " + key + " || '1'))"));
+    assertEquals("3", query("count(index:texts('" + NAME + "'))"));
+    execute(new Close());
+    execute(new Open(NAME));
+    assertEquals("33", query("count(db:text('" + NAME + "', " + key + " || '2'))"));
+  }
+
+  /**
+   * Queries the token index.
+   */
+  @Test public void tokens() {
+    query("insert node (1 to 1000) ! <x a='t{ . mod 7 } u{ . mod 3 }'/> into /a");
+    assertEquals("143", query("count(db:token('" + NAME + "', 't1'))"));
+    query("delete node /a/x[tokenize(@a) = 'u0']");
+    assertEquals("96", query("count(db:token('" + NAME + "', 't1'))"));
+    assertEquals("0", query("count(db:token('" + NAME + "', 'u0'))"));
+  }
+
+  /**
+   * Builds an index from scratch and optimizes the database.
+   */
+  @Test public void optimize() {
+    query("insert node (1 to 10000) ! <x>{ . }</x> into /a");
+    execute(new Optimize());
+    assertEquals("1", query("count(db:text('" + NAME + "', '777'))"));
+    assertEquals("10000", query("count(index:texts('" + NAME + "'))"));
+    assertEquals("113", query("count(db:text-range('" + NAME + "', '10', '11'))"));
+    assertEquals("true", query("db:info('" + NAME + "')//treeindex/string()"));
+    execute(new OptimizeAll());
+    assertEquals("1", query("count(db:text('" + NAME + "', '9999'))"));
+    query("delete node /a/x[. > 100]");
+    assertEquals("100", query("count(index:texts('" + NAME + "'))"));
+  }
+}
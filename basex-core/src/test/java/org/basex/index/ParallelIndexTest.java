@@ -0,0 +1,94 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for building index structures in parallel.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelIndexTest extends SandboxTest {
+  /** Name of the database that is created sequentially. */
+  private static final String SEQ = NAME + "Seq";
+
+  /** Creates the test databases. */
+  @Before public void setUp() {
+    final StringBuilder sb = new StringBuilder("<xml>");
+    for(int i = 0; i < 20000; i++) {
+      sb.append("<a b='").append(i % 13).append(' ').append(i % 7).append("'>");
+      sb.append("text ").append(i % 101).append("</a>");
+    }
+    final String xml = sb.append("</xml>").toString();
+
+    set(MainOptions.TOKENINDEX, true);
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(SEQ, xml));
+    set(MainOptions.INDEXTHREADS, 4);
+    set(MainOptions.SPLITSIZE, 1);
+    execute(new CreateDB(NAME, xml));
+  }
+
+  /** Drops the test databases. */
+  @After public void tearDown() {
+    set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.FTINDEX, false);
+    set(MainOptions.INDEXTHREADS, 1);
+    set(MainOptions.SPLITSIZE, 0);
+    execute(new DropDB(SEQ));
+    execute(new DropDB(NAME));
+  }
+
+  /** Compares index lookups. */
+  @Test public void lookups() {
+    compare("for $t in distinct-values(db:open('" + SEQ + "')//text()) "
+        + "return count(db:text('$db', $t))");
+    compare("for $t in distinct-values(db:open('" + SEQ + "')//@*) "
+        + "return count(db:attribute('$db', $t))");
+    compare("for $t in 0 to 13 return count(db:token('$db', string($t)))");
+    compare("count(db:open('$db')//text()[. contains text '100'])");
+  }
+
+  /** Compares the results of an optimized database. */
+  @Test public void optimize() {
+    execute(new Open(NAME));
+    execute(new OptimizeAll());
+    execute(new Close());
+    lookups();
+  }
+
+  /**
+   * Compares the results of indexes that are built for updated databases
+   * (the table is read by parallel builders while the database is locked for updates).
+   */
+  @Test public void update() {
+    final String update = "for $a in db:open('$db')//a[. = 'text 5'] return ("
+        + "replace value of node $a with 'text 1000', "
+        + "insert node <a b='x y'>text 1001</a> after $a)";
+    for(final String db : new String[] { SEQ, NAME }) {
+      set(MainOptions.INDEXTHREADS, db.equals(SEQ) ? 1 : 4);
+      query(update.replace("$db", db));
+      execute(new Open(db));
+      for(final CmdIndex index : CmdIndex.values()) execute(new CreateIndex(index));
+      execute(new Close());
+    }
+    lookups();
+  }
+
+  /**
+   * Compares the results of a query on both databases.
+   * @param query query (the string {@code $db} will be replaced with the database name)
+   */
+  private static void compare(final String query) {
+    final String expected = query(query.replace("$db", SEQ));
+    assertFalse(expected.isEmpty());
+    assertEquals(expected, query(query.replace("$db", NAME)));
+  }
+}
@@ -0,0 +1,74 @@
+package org.basex.io.random;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+/**
+ * Tests for the buffer management ({@link Buffers}).
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class BuffersTest {
+  /** Number of buffers. */
+  private static final int SIZE = 16;
+
+  /** Resets the number of buffers. */
+  @After public void reset() {
+    Buffers.size(SIZE);
+  }
+
+  /** Repeated requests must return the same buffer. */
+  @Test public void hits() {
+    final Buffers bm = buffers();
+    for(int p = 0; p < SIZE; p++) assertTrue(load(bm, p));
+    for(int p = 0; p < SIZE; p++) {
+      assertFalse(bm.cursor(p));
+      assertEquals(p, bm.current().pos);
+    }
+  }
+
+  /** Pages that are requested several times survive a sequential scan. */
+  @Test public void scan() {
+    final Buffers bm = buffers();
+    // request hot pages twice
+    for(int p = 0; p < 4; p++) load(bm, p);
+    for(int p = 0; p < 4; p++) assertFalse(bm.cursor(p));
+    // scan many other pages
+    for(int p = 1000; p < 2000; p++) load(bm, p);
+    for(int p = 0; p < 4; p++) assertFalse(bm.cursor(p));
+  }
+
+  /** Pinned pages will not be evicted. */
+  @Test public void pin() {
+    final Buffers bm = buffers();
+    load(bm, 0);
+    bm.pin();
+    load(bm, 1);
+    for(int p = 1000; p < 2000; p++) load(bm, p);
+    assertFalse(bm.cursor(0));
+    assertTrue(bm.cursor(1));
+  }
+
+  /**
+   * Returns a new buffer manager.
+   * @return buffers
+   */
+  private static Buffers buffers() {
+    Buffers.size(SIZE);
+    return new Buffers();
+  }
+
+  /**
+   * Requests a page and assigns its position to the current buffer.
+   * @param bm buffer manager
+   * @param p page
+   * @return result of {@link Buffers#cursor(long)}
+   */
+  private static boolean load(final Buffers bm, final long p) {
+    final boolean load = bm.cursor(p);
+    if(load) bm.current().pos = p;
+    return load;
+  }
+}
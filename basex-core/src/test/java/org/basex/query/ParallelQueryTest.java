@@ -5,7 +5,10 @@ import static org.junit.Assert.*;
 import java.util.*;
 
 import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
 import org.junit.*;
+import org.junit.Test;
 
 /**
  * Runs parallel queries.
@@ -36,6 +39,124 @@ public final class ParallelQueryTest extends SandboxTest {
     if(error != null) throw error;
   }
 
+  /**
+   * Evaluates path steps and FLWOR clauses in parallel.
+   */
+  @Test public void queryThreads() {
+    final StringBuilder sb = new StringBuilder("<root>");
+    for(int i = 0; i < 20000; i++) {
+      sb.append("<r id='").append(i).append("'><v>").append(i % 100).append("</v></r>");
+    }
+    execute(new CreateDB(NAME, sb.append("</root>").toString()));
+
+    final String[] queries = {
+      "count(//r[v = 42])",
+      "string-join(//r[v = 42]/@id, ',')",
+      "count(/descendant-or-self::node())",
+      "string-join(for $r in //r[v < 3] let $i := $r/@id where $i mod 7 = 1 return $i, ',')",
+      "let $x := 5 return string-join(for $i in 1 to 1000 for $j in 1 to 3 "
+        + "where ($i + $j) mod 97 = $x return $i * $j, ',')",
+      "count(for $i in 1 to 1000 return <a>{ $i }</a>)",
+      "for $i in 1 to 10 return try { if($i = 7) then error() else $i } catch * { 0 }",
+      "sum(for $i in 1 to 10 return (# db:querythreads 4 #) { count(//r[v = $i mod 100]) })",
+      "string-join(for $r in //r let $v := $r/v group by $m := $v mod 7 "
+        + "return $m || ':' || count($r) || ':' || sum($v) || ':' || max($v), ',')",
+      "string-join(for $i in 1 to 10000 group by $k := $i mod 13 order by $k descending "
+        + "return $k || ':' || string-join($i[position() < 4], '/'), ',')",
+    };
+    try {
+      for(final String query : queries) {
+        set(MainOptions.QUERYTHREADS, 1);
+        final String expected = query(query);
+        set(MainOptions.QUERYTHREADS, 4);
+        assertEquals(query, expected, query(query));
+      }
+      error("for $i in 1 to 10 return if($i = 7) then error() else $i", QueryError.FUNERR1);
+    } finally {
+      set(MainOptions.QUERYTHREADS, 1);
+      execute(new DropDB(NAME));
+    }
+  }
+
+  /**
+   * Evaluates the chunks of a parallel path step on demand.
+   */
+  @Test public void queryThreadsLazy() {
+    // elements on different levels: descendant steps will not be rewritten to child steps
+    final StringBuilder sb = new StringBuilder("<root>");
+    for(int i = 1; i < 20000; i++) {
+      final String x = "<x v='" + i + "'/>";
+      sb.append(i % 2 == 0 ? "<a>" + x + "</a>" : x);
+    }
+    execute(new CreateDB(NAME, sb.append("<x v='z'/></root>").toString()));
+
+    set(MainOptions.QUERYTHREADS, 4);
+    try {
+      // the last chunk, which would raise an error, is never evaluated
+      query("exists(//x[xs:integer(@v) != 0])", true);
+      query("head(//x[xs:integer(@v) != 0])/@v/string()", 1);
+      query("(//x[xs:integer(@v) != 1])[1]/@v/string()", 2);
+      error("count(//x[xs:integer(@v) != 0])", QueryError.FUNCCAST_X_X_X);
+    } finally {
+      set(MainOptions.QUERYTHREADS, 1);
+      execute(new DropDB(NAME));
+    }
+  }
+
+  /**
+   * Groups tuples in parallel and writes partitioned groups to disk.
+   */
+  @Test public void queryThreadsSpill() {
+    final String[] queries = {
+      "count(for $i in 1 to 10000 let $x := $i group by $k := $i mod 97 return $x)",
+      "string-join(for $i in 1 to 10000 group by $k := $i mod 97 order by $k "
+        + "return $k || ':' || count($i) || ':' || sum($i) || ':' || max($i), ',')",
+      // order of the grouped values
+      "string-join(for $i in 1 to 10000 group by $k := $i mod 97 order by $k "
+        + "return $k || ':' || sum(for $v at $p in $i return $v * $p), ',')",
+      // items that cannot be swapped out
+      "string-join(for $i in 1 to 10000 let $x := if($i > 5000) then map { 'a': $i } else $i "
+        + "group by $k := $i mod 97 order by $k "
+        + "return $k || ':' || sum(for $v at $p in $x return (if($v instance of map(*)) "
+        + "then $v?a else $v) * $p), ',')",
+    };
+    set(MainOptions.GROUPBUFFER, 10);
+    try {
+      for(final String query : queries) {
+        set(MainOptions.QUERYTHREADS, 1);
+        final String expected = query(query);
+        set(MainOptions.QUERYTHREADS, 4);
+        assertEquals(query, expected, query(query));
+      }
+    } finally {
+      set(MainOptions.QUERYTHREADS, 1);
+      set(MainOptions.GROUPBUFFER, 0);
+    }
+  }
+
+  /**
+   * Raises errors in parallel threads, and evaluates static variables.
+   */
+  @Test public void queryThreadsErrors() {
+    final String f = "declare function local:f($n) { $n }; ";
+    set(MainOptions.QUERYTHREADS, 4);
+    try {
+      // errors can be caught
+      query(f + "try { let $s := for $i in 0 to local:f(100) for $j in 1 to 2 return 1 idiv $i "
+          + "return sum($s) + count($s) } catch * { 'caught' }", "caught");
+      error(f + "let $s := for $i in 0 to local:f(100) return 1 idiv $i "
+          + "return sum($s) + count($s)", QueryError.DIVZERO_X);
+      // lazy static variable is evaluated once
+      query(f + "declare %basex:lazy variable $v := sum((1 to local:f(100000)) ! string-length()); "
+          + "let $s := for $i in 1 to local:f(1000) return $v + $i return count($s) + sum($s)",
+          "489396500");
+      // iterative evaluation remains lazy
+      query("head(for $i in 1 to 100000000000 return $i * 2)", 2);
+    } finally {
+      set(MainOptions.QUERYTHREADS, 1);
+    }
+  }
+
   /**
    * Query instance.
    */
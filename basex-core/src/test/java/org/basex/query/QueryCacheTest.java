@@ -0,0 +1,174 @@
+package org.basex.query;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.query.value.item.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests the query cache.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCacheTest extends SandboxTest {
+  /** Enables the query cache. */
+  @Before public void enable() {
+    context.soptions.set(StaticOptions.QUERYCACHE, 2);
+    context.queries.clear();
+  }
+
+  /** Disables the query cache. */
+  @After public void disable() {
+    context.soptions.set(StaticOptions.QUERYCACHE, 0);
+    context.queries.clear();
+  }
+
+  /** Reuses plans. */
+  @Test public void reuse() {
+    final long hits = context.queries.hits(), misses = context.queries.misses();
+    query("sum(1 to 100)", 5050);
+    query("sum(1 to 100)", 5050);
+    query("sum(1 to 100)", 5050);
+    assertEquals(hits + 2, context.queries.hits());
+    assertEquals(misses + 1, context.queries.misses());
+    assertEquals(1, context.queries.size());
+
+    // least recently used plans are discarded
+    query("1", 1);
+    query("2", 2);
+    query("sum(1 to 100)", 5050);
+    assertEquals(hits + 2, context.queries.hits());
+    assertEquals(2, context.queries.size());
+  }
+
+  /**
+   * Reuses plans with different variable bindings.
+   * @throws QueryException query exception
+   */
+  @Test public void bindings() throws QueryException {
+    final String query = "declare variable $x external := 1; declare variable $y external; " +
+        "for $i in 1 to $x return $i * $y";
+    assertEquals("2\n4\n6", eval(query, "x", 3, "y", 2));
+    final long hits = context.queries.hits();
+    assertEquals("5", eval(query, "x", 1, "y", 5));
+    assertEquals("7", eval(query, "y", 7));
+    assertEquals("1", eval("declare variable $x as xs:integer external; $x", "x", 1));
+    assertEquals(hits + 2, context.queries.hits());
+
+    // binding values are type-checked
+    try {
+      eval("declare variable $x as xs:integer external; $x", "x", "a");
+      fail("Error expected.");
+    } catch(final QueryException ex) {
+      assertSame(QueryError.FUNCCAST_X_X_X, ex.error());
+    }
+    // a missing value is detected at runtime
+    try {
+      eval(query, "x", 1);
+      fail("Error expected.");
+    } catch(final QueryException ex) {
+      assertSame(QueryError.VAREMPTY_X, ex.error());
+    }
+  }
+
+  /** Plans that depend on dynamic values are not cached. */
+  @Test public void uncached() {
+    query("current-dateTime() > xs:dateTime('2000-01-01T00:00:00')", true);
+    query("declare variable $x external := 1; declare variable $y := $x * 2; $y", 2);
+    query("declare context item := 1; . + 1", 2);
+    execute(new CreateDB(NAME, "<a/>"));
+    query("count(" + _DB_OPEN.args(NAME) + "/a)", 1);
+    execute(new DropDB(NAME));
+    query("<a/>/name()", "a");
+    assertEquals(1, context.queries.size());
+  }
+
+  /**
+   * Reuses plans that reference databases, and discards them if databases are changed.
+   * @throws IOException I/O exception
+   */
+  @Test public void databases() throws IOException {
+    execute(new CreateDB(NAME, "<a><b/></a>"));
+    execute(new Close());
+    final String query = "count(" + _DB_OPEN.args(NAME) + "//b)";
+
+    // keep database opened, as it would be done by other clients
+    final Data data = Open.open(NAME, context, context.options);
+    final long hits = context.queries.hits();
+    try {
+      query(query, 1);
+      query(query, 1);
+      assertEquals(hits + 1, context.queries.hits());
+
+      // plans are discarded if a database is updated
+      query(_DB_ADD.args(NAME, "<b/>", "b.xml"));
+      query(query, 2);
+      query(query, 2);
+      assertEquals(hits + 2, context.queries.hits());
+    } finally {
+      Close.close(data, context);
+    }
+    // plans are not reused if the database instance has been closed
+    query(query, 2);
+    assertEquals(hits + 2, context.queries.hits());
+    execute(new DropDB(NAME));
+    error(query, QueryError.DB_OPEN2_X);
+  }
+
+  /** Reuses plans that import modules, and discards them if modules are changed. */
+  @Test public void modules() {
+    final IOFile module = new IOFile(sandbox(), "module.xqm");
+    write(module, "module namespace m = 'm'; declare function m:f() { 1 };");
+    final String query = "import module namespace m = 'm' at '" + module.path() + "'; m:f()";
+    query(query, 1);
+    final long hits = context.queries.hits();
+    query(query, 1);
+    assertEquals(hits + 1, context.queries.hits());
+
+    write(module, "module namespace m = 'm'; declare function m:f() { 2 };");
+    assertTrue(module.file().setLastModified(module.timeStamp() - 10000));
+    query(query, 2);
+    assertEquals(hits + 1, context.queries.hits());
+  }
+
+  /** Reuses plans of queries that are evaluated by other queries. */
+  @Test public void eval() {
+    final String query = _XQUERY_EVAL.args("sum(1 to 100)");
+    query(query, 5050);
+    final long hits = context.queries.hits();
+    query(query, 5050);
+    assertEquals(hits + 2, context.queries.hits());
+    assertEquals(2, context.queries.size());
+  }
+
+  /**
+   * Evaluates a query with the specified bindings.
+   * @param query query
+   * @param bindings names and values of variables
+   * @return result
+   * @throws QueryException query exception
+   */
+  private static String eval(final String query, final Object... bindings)
+      throws QueryException {
+    try(QueryProcessor qp = new QueryProcessor(query, context)) {
+      for(int b = 0; b < bindings.length; b += 2) {
+        final Object value = bindings[b + 1];
+        qp.bind((String) bindings[b], value instanceof Integer ? Int.get((Integer) value) :
+          Str.get(value.toString()));
+      }
+      return qp.value().serialize().toString().trim();
+    } catch(final QueryIOException ex) {
+      throw ex.getCause();
+    }
+  }
+}
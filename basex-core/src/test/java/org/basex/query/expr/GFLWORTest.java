@@ -4,9 +4,16 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.func.Function.*;
 import static org.junit.Assert.*;
 
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.io.*;
+import org.basex.query.*;
 import org.basex.query.ast.*;
 import org.basex.query.expr.gflwor.*;
+import org.basex.query.iter.*;
 import org.basex.query.up.expr.*;
+import org.basex.query.value.item.*;
 import org.basex.util.*;
 import org.junit.*;
 
@@ -343,4 +350,166 @@ public final class GFLWORTest extends QueryPlanTest {
     check("let $x := <x>0</x> let $b := $x/text() return $b + 1", 1, count(Let.class, 1));
     error("let $x := <x>false</x> let $b as xs:boolean := $x/text() return $b", INVTYPE_X_X_X);
   }
+
+  /** Sorts tuples in bounded main memory. */
+  @Test public void orderBySpill() {
+    set(MainOptions.SORTBUFFER, 100);
+    try {
+      // atomic keys and tuples are written to several sorted runs
+      try(QueryProcessor qp = new QueryProcessor("for $i in 1 to 1000 " +
+          "let $a := $i mod 7, $d := $i div 3 order by $a descending, $d descending " +
+          "return $a || ' ' || $i", context)) {
+        final int files = tempFiles();
+        final Iter iter = qp.iter();
+        assertEquals("6 1000", Token.string(iter.next().string(null)));
+        // the runs are merged while the results are requested
+        assertTrue(tempFiles() - files > 1);
+        Item item = null;
+        int c = 1;
+        for(Item it; (it = iter.next()) != null; c++) item = it;
+        assertEquals(1000, c);
+        assertEquals("0 7", Token.string(item.string(null)));
+      } catch(final QueryException ex) {
+        fail(Util.message(ex));
+      }
+      assertEquals("1000 1 501", query("string-join((for $i in (1 to 1000) ! xs:integer(.) " +
+          "let $k := $i mod 500 order by $k return $i)[position() = 2 to 4], ' ')"));
+      // stable sort
+      assertEquals("500 1000 1 501", query("string-join((for $i in 1 to 1000 " +
+          "stable order by $i mod 500 return $i)[position() < 5], ' ')"));
+      assertEquals("5000", query("count(for $i in 1 to 1000 " +
+          "order by string($i) return ($i, xs:date('2001-01-01'), 1.5, 2e0, xs:float(3)))"));
+      assertEquals("xs:date xs:decimal", query("string-join((for $i in 1 to 1000 " +
+          "order by -$i return (xs:date('2001-01-01'), 1.5))[position() < 3] ! " +
+          "(if(. instance of xs:date) then 'xs:date' else 'xs:decimal'), ' ')"));
+      // items that cannot be swapped out
+      assertEquals("1000", query("count(for $i in 1 to 1000 let $f := function() { $i } " +
+          "order by $i descending return $f)"));
+      error("for $i in (1 to 1000, 'a') order by $i return $i", INVTYPE_X_X_X);
+    } finally {
+      set(MainOptions.SORTBUFFER, 0);
+    }
+  }
+
+  /** Only sorts tuples that will be returned. */
+  @Test public void orderByLimit() {
+    check("(for $i in 1 to 1000 order by $i mod 100, $i return $i)[position() <= 3]",
+        "100\n200\n300", exists("OrderBy[@max = 3]"));
+    check("head(for $i in 1 to 1000 let $j := -$i order by $j return $j)",
+        -1000, exists("OrderBy[@max = 1]"));
+    check("(for $i in 1 to 1000 stable order by $i mod 2 return $i)[position() < 4]",
+        "2\n4\n6", exists("OrderBy[@max = 3]"));
+    check("(for $i in 1 to 10 order by -$i return ($i, $i))[position() <= 3]",
+        "10\n10\n9", empty("OrderBy[@max]"));
+    check("(for $i in 1 to 10 order by -$i where $i > 5 return $i)[position() <= 3]",
+        "10\n9\n8", exists("OrderBy"));
+  }
+
+  /** Aggregates non-grouping variables. */
+  @Test public void groupByAggregate() {
+    check("for $i in 1 to 10 let $x := $i group by $k := $i mod 3 "
+        + "return $k || ':' || count($x) || ':' || sum($x) || ':' || max($x)",
+        "1:4:22:10\n2:3:15:8\n0:3:18:9", empty(COUNT));
+    check("for $i in 1 to 10 let $x := if($i > 5) then $i else () group by $k := $i mod 2 "
+        + "return $k || ':' || count($x) || ':' || sum($x) || ':' || max($x)",
+        "1:2:16:9\n0:3:24:10", empty(COUNT));
+    check("for $i in 1 to 6 let $x := xs:double($i) group by $k := $i mod 2 "
+        + "where count($x) > 2 return sum($x)", "9\n12", empty(COUNT));
+    check("for $i in 1 to 6 let $x := $i group by $k := $i mod 2 return sum($x, 0)",
+        "9\n12", exists(SUM));
+    check("for $i in 1 to 6 let $x := $i group by $k := $i mod 2 return count($x) + $x[1]",
+        "4\n5", exists(COUNT));
+    error("for $i in 1 to 6 let $x := ($i, 'a')[$i mod 2 + 1] group by $k := $i mod 3 "
+        + "return sum($x)", SUM_X_X);
+    // errors are only raised if the aggregate is evaluated
+    query("for $x in ('a', 1) group by $k := $x instance of xs:string "
+        + "return if($k) then 'str' else sum($x)", "str\n1");
+    query("for $x in ('a', 'b', 1) group by $k := $x instance of xs:string "
+        + "return if($k) then count($x) else max($x)", "2\n1");
+    error("for $x in (1, 'a') group by $k := 1 return sum($x)", CMP_X_X_X);
+  }
+
+  /** Writes partitioned groups to disk. */
+  @Test public void groupBySpill() {
+    set(MainOptions.GROUPBUFFER, 10);
+    try {
+      assertEquals("1000", query("count(for $i in 1 to 1000 let $x := $i "
+          + "group by $k := $i mod 50 return $x)"));
+      assertEquals("true", query("distinct-values(for $i in 1 to 1000 let $x := $i "
+          + "group by $k := $i mod 50 return count($x) = 20 and sum($x) = sum($x))"));
+      assertEquals("50 1000 500500 1000", query("let $g := for $i in 1 to 1000 let $x := $i "
+          + "group by $k := $i mod 50 return [$k, count($x), sum($x), max($x)] "
+          + "return string-join((count($g), max($g?4), sum($g?3), sum($g?2)), ' ')"));
+      assertEquals("0 1 2 3 4 5 6 7 8 9", query("string-join(sort(for $i in 1 to 100 "
+          + "let $x := xs:date('2001-01-01') group by $k := $i mod 10 "
+          + "return if(count($x) = 10 and $x[1] instance of xs:date) then $k else ()), ' ')"));
+      // items that cannot be swapped out
+      assertEquals("1000", query("count(for $i in 1 to 1000 let $x := map { 'a': $i } "
+          + "group by $k := $i mod 50 return $x)"));
+    } finally {
+      set(MainOptions.GROUPBUFFER, 0);
+    }
+  }
+
+  /** Hash joins. */
+  @Test public void hashJoin() {
+    check("for $a in 1 to 5 for $b in (1 to 20)[. mod 5 = $a] return $a * 100 + $b",
+        "101\n106\n111\n116\n202\n207\n212\n217\n303\n308\n313\n318\n404\n409\n414\n419",
+        exists(Join.class));
+    check("for $a in 1 to 5 for $b in 1 to 5 where $b = $a + 1 return $a * 10 + $b",
+        "12\n23\n34\n45", exists(Join.class), empty(Where.class));
+    // multiple keys, duplicates
+    check("for $a in (1, 2, 1) for $b in (1 to 8)[(. mod 3, . mod 4) = ($a, 2)] "
+        + "return $a * 10 + $b", "11\n12\n14\n15\n16\n17\n18\n22\n25\n26\n28\n"
+        + "11\n12\n14\n15\n16\n17\n18", exists(Join.class));
+    // numbers of different types, NaN
+    check("for $a in (1, 2.0, xs:double('NaN')) "
+        + "for $b in (1e0, xs:float(2), xs:double('NaN'), 2)[. = $a] return $b",
+        "1\n2\n2", exists(Join.class));
+    // untyped values and strings
+    check("let $d := <d><b id='1'>a</b><b id='2'>b</b><b id='3'>a</b></d> "
+        + "for $a in ('a', 'c', 'b') for $b in $d/b[text() = $a] return string($b/@id)",
+        "1\n3\n2", exists(Join.class));
+
+    // no rewrite: dependency on outer variable, positional access, incompatible types
+    check("for $a in 1 to 3 for $b in ($a to 3)[. = $a] return $b", "1\n2\n3",
+        empty(Join.class));
+    check("for $a in 1 to 3 for $b in (1 to 3)[. + position() = $a * 2] return $b",
+        "1\n2\n3", empty(Join.class));
+    check("for $a in (<a>1</a>, <a>2</a>) for $b in (1 to 3)[. = $a] return $b", "1\n2",
+        empty(Join.class));
+  }
+
+  /** Hash joins, items written to disk. */
+  @Test public void hashJoinSpill() {
+    set(MainOptions.JOINBUFFER, 10);
+    try {
+      assertEquals("2000 2000", query("let $j := for $a in 1 to 1000 "
+          + "for $b in (1 to 2000)[. mod 1000 = $a mod 1000] return $b "
+          + "return count($j) || ' ' || count(distinct-values($j))"));
+      assertEquals("true", query("let $j := for $a in 1 to 100 let $c := $a * 2 "
+          + "for $b in (1 to 1000)[. mod 100 = $a mod 100] return [$a, $c, $b] "
+          + "return every $m in $j satisfies $m?2 = $m?1 * 2 and $m?3 mod 100 = $m?1 mod 100"));
+      assertEquals("1 2 3 4 5", query("string-join(for $a in 1 to 5 "
+          + "for $b in (1 to 100)[. = $a] return $b, ' ')"));
+      // items that cannot be swapped out
+      assertEquals("100", query("count(for $a in 1 to 100 "
+          + "for $b in (1 to 100) ! map { 'k': . }[?k = $a] return $b)"));
+      assertEquals("22 1 x 1 2", query("let $s := ((1 to 20) ! string(), <x>1</x>, '1') "
+          + "return string-join((count($s), for $x in ('1', '2') for $b in $s[string(.) = $x] "
+          + "return if($b instance of element()) then 'x' else $b), ' ')"));
+    } finally {
+      set(MainOptions.JOINBUFFER, 0);
+    }
+  }
+
+  /**
+   * Returns the number of temporary files created by the query processor.
+   * @return number of files
+   */
+  private static int tempFiles() {
+    final String[] files = new File(System.getProperty("java.io.tmpdir")).list((dir, name) ->
+      name.startsWith(Prop.NAME + '-') && name.endsWith(IO.TMPSUFFIX));
+    return files == null ? 0 : files.length;
+  }
 }
@@ -258,4 +258,39 @@ public final class PathTest extends SandboxTest {
     query(".[/a]", "<a/>");
     query(".[/b]", "<b/>");
   }
+
+  /**
+   * Batch-wise evaluation of paths on database nodes.
+   */
+  @Test public void batches() {
+    execute(new CreateDB(NAME, "<x><a>1</a><a>2</a><b><a>4</a></b></x>"));
+    query("let $d := db:open('" + NAME + "') return count($d//a)", 3);
+    query("let $d := db:open('" + NAME + "') return sum($d//a)", 7);
+    query("let $d := db:open('" + NAME + "') return sum($d//a/text())", 7);
+    query("let $d := db:open('" + NAME + "') return count(($d, $d)//a)", 3);
+    query("let $d := db:open('" + NAME + "') return count($d//a/..)", 2);
+    query("let $d := (db:open('" + NAME + "'), <x><a>8</a></x>) return count($d/x/a)", 2);
+    query("let $d := (db:open('" + NAME + "'), <x><a>8</a></x>) return sum($d//a)", 15);
+    query("let $d := db:open('" + NAME + "') return ($d//a)[. > 1] ! string()", "2\n4");
+  }
+
+  /**
+   * Node tests on pre values.
+   */
+  @Test public void preTests() {
+    execute(new CreateDB(NAME, "<x a='1'><a/><b a='2'/><!--c--><?p q?>t<a><a/></a></x>"));
+    query("count(//a)", 3);
+    query("count(//*:a)", 3);
+    query("count(//@a)", 2);
+    query("count(//node())", 8);
+    query("count(/x/*)", 3);
+    query("count(//comment())", 1);
+    query("//a/a", "<a/>");
+
+    execute(new CreateDB(NAME, "<x xmlns:p='u'><p:a/><a/><a xmlns='v'/></x>"));
+    query("count(//a)", 1);
+    query("count(//*:a)", 3);
+    query("declare namespace p='u'; count(//p:a)", 1);
+    query("count(//Q{v}a)", 1);
+  }
 }
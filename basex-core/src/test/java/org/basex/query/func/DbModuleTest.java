@@ -70,6 +70,24 @@ public final class DbModuleTest extends SandboxTest {
     query("count(" + func.args(NAME, "unknown") + ")", 0);
     query(func.args(NAME) + "//title/text()", "XML");
 
+    // documents are returned lazily
+    execute(new Open(NAME));
+    execute(new Add("a/b.xml", "<b/>"));
+    execute(new Add("a/c.xml", "<c/>"));
+    execute(new Add("ab.xml", "<d/>"));
+    execute(new Close());
+    query("count(" + func.args(NAME) + ")", 4);
+    query("count(" + func.args(NAME, "a") + ")", 2);
+    query("count(" + func.args(NAME, "a/") + ")", 2);
+    query(func.args(NAME, "a/c.xml") + "/*/name()", "c");
+    query("head(" + func.args(NAME, "a") + ")/*/name()", "b");
+    query(func.args(NAME, "a") + "[2]/*/name()", "c");
+    query("for $d in " + func.args(NAME, "a") + " return $d/*/name()", "b\nc");
+    query(func.args(NAME, "a") + "/* ! name()", "b\nc");
+    query(COLLECTION.args(NAME + "/a") + "/* ! name()", "b\nc");
+    query("count(" + COLLECTION.args(NAME) + "/*)", 4);
+    query(func.args(NAME, "a") + " ! base-uri()", "/" + NAME + "/a/b.xml\n/" + NAME + "/a/c.xml");
+
     // reference invalid path
     if(Prop.WIN) error(func.args(NAME, "*"), RESINV_X);
 
@@ -0,0 +1,82 @@
+package org.basex.query.value;
+
+import static org.junit.Assert.*;
+
+import org.basex.*;
+import org.basex.query.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ValueBuilder}.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class ValueBuilderTest extends SandboxTest {
+  /** Query context. */
+  private static QueryContext qc;
+
+  /** Initializes the test. */
+  @BeforeClass public static void init() {
+    qc = new QueryContext(context);
+  }
+
+  /** Finalizes the test. */
+  @AfterClass public static void close() {
+    qc.close();
+    qc = null;
+  }
+
+  /** Homogeneous items are stored in primitive sequences. */
+  @Test public void natives() {
+    final ValueBuilder ints = new ValueBuilder(qc);
+    for(int i = 0; i < 1000; i++) ints.add(Int.get(i));
+    final Value iv = ints.value();
+    assertTrue(iv instanceof IntSeq);
+    assertEquals(1000, iv.size());
+    assertEquals(999, ((Int) iv.itemAt(999)).itr());
+
+    final ValueBuilder dbls = new ValueBuilder(qc);
+    for(int i = 0; i < 100; i++) dbls.add(Dbl.get(i / 2d));
+    assertTrue(dbls.value() instanceof DblSeq);
+
+    final ValueBuilder strs = new ValueBuilder(qc);
+    for(int i = 0; i < 100; i++) strs.add(Str.get("s" + i));
+    assertTrue(strs.value() instanceof StrSeq);
+
+    // typed integers
+    final ValueBuilder bytes = new ValueBuilder(qc);
+    for(int i = 0; i < 10; i++) bytes.add(Int.get(i, AtomType.BYT));
+    final Value bv = bytes.value();
+    assertTrue(bv instanceof IntSeq);
+    assertEquals(AtomType.BYT, bv.itemAt(5).type);
+
+    query("for $i in 1 to 5 return $i * 2", "2\n4\n6\n8\n10");
+    query("for $i in 1 to 3 return string($i)", "1\n2\n3");
+  }
+
+  /** Heterogeneous items. */
+  @Test public void mixed() {
+    final ValueBuilder vb = new ValueBuilder(qc);
+    for(int i = 0; i < 100; i++) vb.add(Int.get(i));
+    vb.add(Str.get("x"));
+    vb.addFront(Dbl.get(1.5));
+    final Value value = vb.value();
+    assertEquals(102, value.size());
+    assertEquals(1.5, ((Dbl) value.itemAt(0)).dbl(), 0);
+    assertEquals(99, ((Int) value.itemAt(100)).itr());
+    assertEquals("x", Token.string(((Str) value.itemAt(101)).string()));
+
+    final ValueBuilder vb2 = new ValueBuilder(qc);
+    vb2.add(Int.get(1)).add(Int.get(2)).add(value).add(Int.get(3));
+    assertEquals(105, vb2.value().size());
+
+    query("(for $i in 1 to 3 return ($i, string($i)))[. instance of xs:string]", "1\n2\n3");
+    query("for $i in 1 to 3 return if($i = 2) then 2.5 else $i", "1\n2.5\n3");
+  }
+}
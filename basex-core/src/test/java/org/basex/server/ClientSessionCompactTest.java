@@ -0,0 +1,75 @@
+package org.basex.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.lang.management.*;
+
+import org.basex.api.client.*;
+import org.basex.io.out.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the client/server session API with compactly encoded query results.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSessionCompactTest extends ClientSessionTest {
+  /** Initializes the test. */
+  @Override
+  @Before public void startSession() {
+    out = new ArrayOutput();
+    super.startSession();
+    ((ClientSession) session).setCompact(true);
+  }
+
+  /**
+   * Compares the CPU time spent for retrieving escaped and compactly encoded results.
+   * Server and client run in the same process: the measured time includes both sides.
+   * @throws IOException I/O exception
+   */
+  @Test public void performance() throws IOException {
+    final String[] queries = {
+      "for $i in 1 to 100000 return <a id='{ $i }'>{ $i }</a>",
+      "for $i in 1 to 200000 return $i",
+      "for $i in 1 to 100 return string-join((1 to 10000) ! 'abcdefgh')",
+    };
+    final ClientSession cs = (ClientSession) session;
+    for(final String query : queries) {
+      final long[] times = new long[2], sizes = new long[2];
+      // first run warms up the code
+      for(int r = 0; r < 6; r++) {
+        for(int c = 0; c < 2; c++) {
+          cs.setCompact(c == 1);
+          final long time = cpuTime();
+          try(Query qu = cs.query(query)) {
+            while(qu.more()) qu.next();
+          }
+          if(r > 0) times[c] += cpuTime() - time;
+          sizes[c] = out.size();
+          out.reset();
+        }
+      }
+      assertEquals(sizes[0], sizes[1]);
+      Util.debug("%: results %, compact %", query, Performance.getTime(times[0], 5),
+          Performance.getTime(times[1], 5));
+    }
+  }
+
+  /**
+   * Returns the CPU time consumed by all live threads.
+   * @return time in nanoseconds
+   */
+  private static long cpuTime() {
+    final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    long time = 0;
+    for(final long id : bean.getAllThreadIds()) {
+      final long t = bean.getThreadCpuTime(id);
+      if(t > 0) time += t;
+    }
+    return time;
+  }
+}
@@ -0,0 +1,42 @@
+package org.basex.server;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.basex.api.client.*;
+import org.basex.io.out.*;
+import org.basex.util.*;
+import org.junit.*;
+import org.junit.Test;
+
+/**
+ * This class tests the client/server session API with compressed communication.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class ClientSessionCompressTest extends ClientSessionTest {
+  /** Initializes the test. */
+  @Override
+  @Before public void startSession() {
+    out = new ArrayOutput();
+    super.startSession();
+    try {
+      ((ClientSession) session).compress();
+    } catch(final IOException ex) {
+      fail(Util.message(ex));
+    }
+  }
+
+  /**
+   * Resumes an idle session.
+   * @throws IOException I/O exception
+   */
+  @Test public void idle() throws IOException {
+    for(int i = 0; i < 3; i++) {
+      Performance.sleep(300);
+      assertEqual(Integer.toString(i), session.query(Integer.toString(i)).execute());
+    }
+  }
+}
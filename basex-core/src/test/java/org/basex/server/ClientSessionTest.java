@@ -5,8 +5,11 @@ import static org.junit.Assert.*;
 import java.io.*;
 
 import org.basex.*;
+import org.basex.api.client.*;
+import org.basex.core.*;
 import org.basex.util.*;
 import org.junit.*;
+import org.junit.Test;
 
 /**
  * This class tests the client/server session API.
@@ -42,4 +45,32 @@ public class ClientSessionTest extends SessionTest {
       fail(Util.message(ex));
     }
   }
+
+  /**
+   * Raises errors of pipelined requests by the query they belong to.
+   * @throws IOException I/O exception
+   */
+  @Test public void pipelinedErrors() throws IOException {
+    final Query query = session.query("declare variable $a external; $a");
+    query.bind("a", "x", "xs:integer");
+    // unrelated requests are not affected by the failed binding
+    session.execute("create db " + NAME);
+    assertEqual("1", session.query("1").execute());
+    try {
+      query.execute();
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains("xs:integer"));
+    }
+    // the query has been discarded by the server
+    query.bind("a", "1", "xs:integer");
+    try {
+      query.execute();
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains("Unknown Query ID"));
+    }
+    query.close();
+    assertEqual("2", session.query("2").execute());
+  }
 }
@@ -108,6 +108,23 @@ public final class ConcurrencyTest extends SandboxTest {
     for(final Thread c : th) c.join();
   }
 
+  /**
+   * Idle sessions: threads are released and reassigned.
+   * @throws Exception exception
+   */
+  @Test public void idleSessions() throws Exception {
+    final int sl = 200;
+    final ClientSession[] sessions = new ClientSession[sl];
+    for(int s = 0; s < sl; s++) sessions[s] = createClient();
+    for(int r = 0; r < 3; r++) {
+      Performance.sleep(200);
+      for(int s = 0; s < sl; s++) {
+        assertEquals(Integer.toString(s + r), sessions[s].query(s + " + " + r).execute());
+      }
+    }
+    for(final ClientSession session : sessions) session.close();
+  }
+
   /** Random counter. */
   private static final Random RANDOM = new Random();
 
@@ -5,6 +5,7 @@ import static org.basex.util.Token.*;
 import static org.junit.Assert.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.*;
 import org.basex.api.client.*;
@@ -110,6 +111,31 @@ public abstract class SessionTest extends SandboxTest {
     assertEqual("10", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
   }
 
+  /**
+   * Adds several documents at once.
+   * @throws IOException I/O exception
+   */
+  @Test public final void addAll() throws IOException {
+    session.execute("create db " + NAME);
+    final Map<String, InputStream> inputs = new LinkedHashMap<>();
+    for(int i = 0; i < 200; i++) inputs.put("doc" + i + ".xml", new ArrayInput("<X>" + i + "</X>"));
+    session.add(inputs);
+    assertEqual("200", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
+    assertEqual("199", session.query(_DB_OPEN.args(NAME, "doc199.xml") + "/X/text()").execute());
+
+    // the first error is raised after all documents have been sent
+    inputs.clear();
+    inputs.put("a.xml", new ArrayInput("<X/>"));
+    inputs.put("b.xml", new ArrayInput("<X"));
+    inputs.put("c.xml", new ArrayInput("<X/>"));
+    try {
+      session.add(inputs);
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertEqual("202", session.query("count(" + _DB_OPEN.args(NAME) + ')').execute());
+    }
+  }
+
   /**
    * Adds a file with an invalid file name.
    * @throws IOException I/O exception
@@ -180,6 +206,19 @@ public abstract class SessionTest extends SandboxTest {
     session.execute("drop db " + NAME);
   }
 
+  /**
+   * Stores several resources at once.
+   * @throws IOException I/O exception
+   */
+  @Test public final void storeAll() throws IOException {
+    session.execute("create db " + NAME);
+    final Map<String, InputStream> inputs = new LinkedHashMap<>();
+    for(int i = 0; i < 100; i++) inputs.put("X" + i, new ArrayInput(Integer.toString(i)));
+    session.store(inputs);
+    assertEqual("100", session.query("count(" + _DB_LIST.args(NAME) + ')').execute());
+    assertEqual("99", session.query(_DB_RETRIEVE.args(NAME, "X99")).execute());
+  }
+
   /** Stores binary content.
    * @throws IOException I/O exception */
   @Test public void storeBinary() throws IOException {
@@ -362,6 +401,19 @@ public abstract class SessionTest extends SandboxTest {
     session.query("declare variable $a external; $a").next();
   }
 
+  /** Binds an invalid value; the error is raised when the query is executed.
+   * @throws IOException I/O exception */
+  @Test public void queryBindError() throws IOException {
+    try(Query query = session.query("declare variable $a as xs:integer external; $a")) {
+      query.bind("$a", "X", "xs:integer");
+      query.execute();
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().contains("xs:integer"));
+    }
+    assertEqual("1", session.query("1").execute());
+  }
+
   /** Runs a query with an external variable declaration.
    * @throws IOException I/O exception */
   @Test public void queryBindURI() throws IOException {
@@ -591,6 +643,23 @@ public abstract class SessionTest extends SandboxTest {
     for(final Query query : cqs) query.close();
   }
 
+  /** Iterates over a large result and runs other requests in between.
+   * @throws IOException I/O exception */
+  @Test public void queryStream() throws IOException {
+    try(Query query1 = session.query("1 to 1000000"); Query query2 = session.query("1 to 3")) {
+      for(int i = 1; i <= 1000; i++) assertEqual(Integer.toString(i), query1.next());
+      assertEqual("1", query2.next());
+      assertEqual("2", session.query("2").execute());
+      assertEqual("1001", query1.next());
+      assertEqual("2", query2.next());
+    }
+    // close query before all results have been retrieved
+    try(Query query = session.query("1 to 1000000")) {
+      assertEqual("1", query.next());
+    }
+    assertEqual("3", session.query("3").execute());
+  }
+
   /** Binds maps to external variables via JSON.
    * @throws IOException I/O exception */
   @Test public void queryBindJson() throws IOException {
@@ -623,6 +692,18 @@ public abstract class SessionTest extends SandboxTest {
     assertEqual("map{\"a\":\"&amp;\"}", query.next());
   }
 
+  /** Runs a query and retrieves large items.
+   * @throws IOException I/O exception */
+  @Test public void queryLarge() throws IOException {
+    final String string = new String(new char[100000]).replace('\0', 'x');
+    try(Query query = session.query("(1 to 2) ! string-join((1 to 100000) ! 'x'), ''")) {
+      assertEqual(string, query.next());
+      assertEqual(string, query.next());
+      assertEqual("", query.next());
+      assertFalse(query.more());
+    }
+  }
+
   /**
    * Checks if the most recent output equals the specified string.
    * @param exp expected string
@@ -0,0 +1,16 @@
+package org.basex.util;
+
+import org.basex.util.hash.*;
+
+/**
+ * Tests for token sets that are stored outside the Java heap.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class DirectTokenSetTest extends TokenSetTest {
+  @Override
+  protected TokenSet create() {
+    return new DirectTokenSet();
+  }
+}
@@ -0,0 +1,61 @@
+package org.basex.util;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+/**
+ * Class for testing the {@link Lz4} methods.
+ *
+ * @author BaseX Team 2005-19, BSD License
+ * @author Christian Gruen
+ */
+public final class Lz4Test {
+  /** Short and incompressible inputs. */
+  @Test public void simple() {
+    run(EMPTY);
+    run(token("a"));
+    run(token("abcdefghijklmnopqrstuvwxyz"));
+    final byte[] bytes = new byte[256];
+    for(int b = 0; b < bytes.length; b++) bytes[b] = (byte) b;
+    run(bytes);
+  }
+
+  /** Repetitive inputs. */
+  @Test public void repetitive() {
+    final byte[] zeros = new byte[100000];
+    assertTrue(run(zeros) < 1000);
+
+    final TokenBuilder tb = new TokenBuilder();
+    for(int i = 0; i < 10000; i++) tb.add("<status>").addInt(i % 7).add("</status>");
+    final byte[] bytes = tb.finish();
+    assertTrue(run(bytes) < bytes.length / 10);
+  }
+
+  /** Random inputs. */
+  @Test public void random() {
+    final Random rnd = new Random(0);
+    for(int i = 0; i < 100; i++) {
+      final byte[] bytes = new byte[rnd.nextInt(10000)];
+      // restrict alphabet to produce matches
+      for(int b = 0; b < bytes.length; b++) bytes[b] = (byte) rnd.nextInt(1 + i % 16);
+      run(bytes);
+    }
+  }
+
+  /**
+   * Compresses and decompresses a token.
+   * @param token token
+   * @return size of compressed token
+   */
+  private static int run(final byte[] token) {
+    final int tl = token.length;
+    final byte[] packed = Lz4.pack(token, tl), unpacked = new byte[tl];
+    assertEquals(tl, Lz4.unpack(packed, packed.length, unpacked));
+    assertArrayEquals(token, unpacked);
+    return packed.length;
+  }
+}
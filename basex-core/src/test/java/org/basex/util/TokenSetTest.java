@@ -18,7 +18,7 @@ public class TokenSetTest {
   /** Token list. */
   private static final TokenList LIST = new TokenList(SIZE);
   /** Token set. */
-  private final TokenSet set = new TokenSet();
+  private final TokenSet set = create();
 
   /** Initializes the tests. */
   @BeforeClass public static void init() {
@@ -35,6 +35,7 @@ public class TokenSetTest {
   @Test public void add() {
     assertEquals(SIZE, set.size());
     for(final byte[] token : LIST) assertTrue("Token is missing.", set.contains(token));
+    for(final byte[] token : LIST) assertArrayEquals(token, set.key(set.id(token)));
   }
 
   /** Tests removed tokens. */
@@ -54,4 +55,12 @@ public class TokenSetTest {
     for(final byte[] token : LIST) set.remove(token);
     for(final byte[] token : LIST) assertFalse("Token exists.", set.contains(token));
   }
+
+  /**
+   * Creates the tested token set.
+   * @return token set
+   */
+  protected TokenSet create() {
+    return new TokenSet();
+  }
 }